@@ -0,0 +1,109 @@
+package forest;
+
+import java.util.*;
+
+// ===================== APPEND-ONLY LIST =====================
+
+// Record list behind the repository. One writer at a time appends (the
+// repository holds the lock for that record kind) while any number of
+// threads read snapshot() views without locking.
+//
+// Elements live in fixed-size chunks that never move once allocated; only
+// the small chunk directory is copied when it fills up. A view is just the
+// directory and a size, and rows below that size are never written again,
+// so a view stays valid however much the list grows afterwards. The only
+// exception is moveRows(), which copies the chunks it writes to (and the
+// directory) first, leaving the old ones to the views.
+class AppendOnlyList<T> extends AbstractList<T> implements RandomAccess {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int MASK = CHUNK - 1;
+
+    private Object[][] chunks = new Object[16][];
+    private int size;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int row) {
+        Objects.checkIndex(row, size);
+        return (T) chunks[row >>> CHUNK_BITS][row & MASK];
+    }
+
+    @Override
+    public boolean add(T record) {
+        int chunk = size >>> CHUNK_BITS;
+        if (chunk == chunks.length) chunks = Arrays.copyOf(chunks, chunk * 2);
+        if (chunks[chunk] == null) chunks[chunk] = new Object[CHUNK];
+        chunks[chunk][size & MASK] = record;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    // Starts over with fresh chunks, so views taken before keep their rows.
+    @Override
+    public void clear() {
+        chunks = new Object[16][];
+        size = 0;
+        modCount++;
+    }
+
+    // Moves the element at from[i] to row to[i], in order, then cuts the
+    // list to newSize rows (see TreeUpdates.Removal). Costs a chunk copy per
+    // chunk written to, not a pass over the list.
+    void moveRows(int[] from, int[] to, int newSize) {
+        Object[][] dir = chunks.clone();
+        boolean[] copied = new boolean[dir.length];
+        for (int i = 0; i < from.length; i++) {
+            Object[] target = writable(dir, copied, to[i] >>> CHUNK_BITS);
+            target[to[i] & MASK] = dir[from[i] >>> CHUNK_BITS][from[i] & MASK];
+        }
+        if ((newSize & MASK) != 0) Arrays.fill(writable(dir, copied, newSize >>> CHUNK_BITS), newSize & MASK, CHUNK, null);
+        for (int c = (newSize + MASK) >>> CHUNK_BITS; c < dir.length; c++) dir[c] = null;
+        chunks = dir;
+        size = newSize;
+        modCount++;
+    }
+
+    // The chunk in dir, copied the first time this call writes to it.
+    private static Object[] writable(Object[][] dir, boolean[] copied, int chunk) {
+        if (!copied[chunk]) {
+            dir[chunk] = dir[chunk].clone();
+            copied[chunk] = true;
+        }
+        return dir[chunk];
+    }
+
+    // Read-only view of the first size() rows. The caller must publish it
+    // to other threads safely, e.g. through a volatile field.
+    List<T> snapshot() {
+        return new View<>(chunks, size);
+    }
+
+    private static class View<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] chunks;
+        private final int size;
+
+        View(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int row) {
+            Objects.checkIndex(row, size);
+            return (T) chunks[row >>> CHUNK_BITS][row & MASK];
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package forest;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ===================== AUTOSAVE =====================
+
+// Background checkpoints for a ForestRepository. Every write marks the
+// repository dirty; the autosave runs a (delta) checkpoint once writes have
+// paused for QUIET_MILLIS, or MAX_DELAY_MILLIS after the first unsaved
+// write if they never pause. A burst of adds, however long, therefore
+// becomes one checkpoint, and a steady trickle one every MAX_DELAY_MILLIS.
+//
+// Checkpoints run on the journal's compactor thread, with the wait on this
+// class's own timer thread, so neither the console loop nor the EDT ever
+// blocks on one. Every add is already in the journal; the autosave only
+// keeps the journal short, so a crash costs a shorter replay, not data.
+class Autosaver {
+    static final long QUIET_MILLIS = Long.getLong("forest.autosave.quietMillis", 2_000);
+    static final long MAX_DELAY_MILLIS = Long.getLong("forest.autosave.maxDelayMillis", 30_000);
+
+    private final ForestRepository repository;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "forest-autosave");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // ---- guarded by "this" ----
+    private long firstDirty;      // nanoTime of the first unsaved write, 0 = clean
+    private long lastDirty;
+    private boolean scheduled;    // a tick is pending or a checkpoint is running
+    private boolean stopped;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile String lastFailure;
+
+    Autosaver(ForestRepository repository) {
+        this.repository = repository;
+    }
+
+    // Called after every write.
+    synchronized void dirty() {
+        if (stopped) return;
+        long now = System.nanoTime();
+        if (firstDirty == 0) firstDirty = now;
+        lastDirty = now;
+        if (!scheduled) {
+            scheduled = true;
+            timer.schedule(this::tick, QUIET_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void tick() {
+        synchronized (this) {
+            if (stopped) return;
+            long now = System.nanoTime();
+            long wait = Math.min(lastDirty + TimeUnit.MILLISECONDS.toNanos(QUIET_MILLIS),
+                    firstDirty + TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MILLIS)) - now;
+            if (wait > 0) {
+                timer.schedule(this::tick, wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+            // Writes from here on belong to the next checkpoint.
+            firstDirty = 0;
+        }
+
+        boolean failed = false;
+        try {
+            repository.checkpoint();
+            runs.incrementAndGet();
+        } catch (Exception e) {
+            failed = true;
+            failures.incrementAndGet();
+            lastFailure = e.getMessage();
+            System.err.println("Autosave failed: " + e.getMessage());
+        }
+
+        synchronized (this) {
+            if (stopped) return;
+            if (failed) {
+                // The rows are still unsaved; try again after the longest delay.
+                if (firstDirty == 0) firstDirty = lastDirty = System.nanoTime();
+                timer.schedule(this::tick, MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            } else if (firstDirty != 0) {
+                timer.schedule(this::tick, QUIET_MILLIS, TimeUnit.MILLISECONDS);
+            } else {
+                scheduled = false;
+            }
+        }
+    }
+
+    void stop() {
+        synchronized (this) {
+            stopped = true;
+        }
+        timer.shutdownNow();
+    }
+
+    long runs() {
+        return runs.get();
+    }
+
+    long failures() {
+        return failures.get();
+    }
+
+    String lastFailure() {
+        return lastFailure;
+    }
+}
@@ -0,0 +1,448 @@
+package forest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// ===================== BATCH MODE =====================
+
+// Headless command runner behind
+//   java forest.ForestManagementSystem --batch [script | -]
+// It reads one command per line from a script file, or from stdin when no
+// file (or "-") is given:
+//   add-zone <zoneId> <zoneName> <officer>
+//   add-tree <treeId> <species> <age> [zoneId]
+//   add-wildlife <animal> <location> <DD-MM-YYYY> [lat lon] [zoneId]
+//   search-zone <zoneId>
+//   zone <zoneId>               (the zone's trees and sightings)
+//   search-tree <treeId>
+//   prefix <zones|trees|wildlife> <field> <text> [limit]   (fields: see ForestIndex.prefixFields)
+//   near <lat> <lon> <km>       (sightings within km, nearest first)
+//   bbox <minLat> <minLon> <maxLat> <maxLon>
+//   view <zones|trees|wildlife> [offset [limit [sort]]]   (sort: see RecordPager)
+//   import <zones|trees|wildlife> <file.csv>
+//   export <zones|trees|wildlife> <csv|jsonl> <file>
+//   age-trees <years> [condition...]      (bulk tree jobs, see TreeUpdates)
+//   set-species <species> [condition...]
+//   set-zone <zoneId|*> [condition...]
+//   purge-trees <condition...>            (conditions: species=, minAge=, maxAge=,
+//                                          zoneId=, ids=<id,...>, idsFrom=<file>)
+//   save
+//   status                      (unsaved records and checkpoint latency)
+// Tokens are separated by spaces or tabs; wrap a token in double quotes to
+// keep its spaces ("" inside quotes is a literal quote). Blank lines and
+// lines starting with # are skipped.
+//
+// Consecutive adds of the same kind are journaled together, up to BATCH at
+// a time, so a script of adds costs one fsync per batch instead of one per
+// line. Any other command flushes the pending adds first and so sees them.
+// Output is buffered; a summary line goes to stderr. Nothing is saved
+// unless the script says so, but every add is in the journal either way.
+// A command the journal or a checkpoint fails is reported against its
+// line like a bad one, and the script goes on.
+//
+// Exit code: 0 if every command succeeded, 1 if any failed, 2 if the
+// saved data or the script could not be read.
+class BatchRunner {
+    static final int BATCH = 4096;
+    private static final String VIEW_USAGE = "view <zones|trees|wildlife> [offset [limit [sort]]]";
+    private static final String PREFIX_USAGE = "prefix <zones|trees|wildlife> <field> <text> [limit]";
+
+    private final ForestRepository repository;
+    private final Writer out;
+
+    // Adds waiting to be journaled, all of one kind, with their line numbers.
+    private final List<Object> pending = new ArrayList<>();
+    private final List<Long> pendingLines = new ArrayList<>();
+
+    private long commands;
+    private long failed;
+
+    BatchRunner(ForestRepository repository, Writer out) {
+        this.repository = repository;
+        this.out = out;
+    }
+
+    // Loads the saved data, then runs a script file, or stdin for null or
+    // "-". Returns the exit code.
+    static int run(ForestRepository repository, String script) {
+        try {
+            repository.load();
+        } catch (IOException e) {
+            System.err.println("Error loading data: " + e.getMessage());
+            return 2;
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        BatchRunner runner = new BatchRunner(repository, out);
+        long start = System.nanoTime();
+        try (InputStream in = script == null || script.equals("-") ? System.in : Files.newInputStream(Paths.get(script))) {
+            runner.run(in);
+        } catch (IOException e) {
+            System.err.println("Cannot read script: " + e.getMessage());
+            return 2;
+        } finally {
+            try {
+                out.flush();
+            } catch (IOException ignored) {
+                // stdout is gone; the exit code still reports the outcome
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        System.err.printf("%d commands, %d failed in %.2f s (%.0f commands/sec)%n",
+                runner.commands, runner.failed, nanos / 1e9, nanos == 0 ? 0 : runner.commands * 1e9 / nanos);
+        return runner.failed == 0 ? 0 : 1;
+    }
+
+    void run(InputStream in) throws IOException {
+        Tokenizer tokenizer = new Tokenizer(in);
+        List<String> tokens = new ArrayList<>(4);
+        while (tokenizer.nextLine(tokens)) {
+            if (tokens.isEmpty() || tokens.get(0).startsWith("#")) continue;
+            commands++;
+            try {
+                execute(tokens, tokenizer.line);
+            } catch (IllegalArgumentException e) {
+                fail(tokenizer.line, e.getMessage());
+            } catch (IOException e) {
+                fail(tokenizer.line, "failed: " + e.getMessage());
+            }
+        }
+        flush();
+    }
+
+    // --------------- Commands ----------------
+
+    private void execute(List<String> t, long line) throws IOException {
+        String command = t.get(0);
+        switch (command) {
+            case "add-zone":
+                expect(t, 3, "add-zone <zoneId> <zoneName> <officer>");
+                queue(new ForestZone(t.get(1), t.get(2), t.get(3)), line);
+                return;
+            case "add-tree":
+                if (t.size() != 4 && t.size() != 5) throw new IllegalArgumentException("usage: add-tree <treeId> <species> <age> [zoneId]");
+                int age;
+                try {
+                    age = Integer.parseInt(t.get(3));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("age must be a number: " + t.get(3));
+                }
+                queue(new Tree(t.get(1), t.get(2), age, t.size() == 5 ? t.get(4) : null), line);
+                return;
+            case "add-wildlife": {
+                // Told apart by count: one extra token is a zone, two a position, three both.
+                if (t.size() < 4 || t.size() > 7) {
+                    throw new IllegalArgumentException("usage: add-wildlife <animal> <location> <DD-MM-YYYY> [lat lon] [zoneId]");
+                }
+                boolean positioned = t.size() >= 6;
+                double lat = positioned ? Wildlife.parseDegrees(t.get(4), "lat") : Double.NaN;
+                double lon = positioned ? Wildlife.parseDegrees(t.get(5), "lon") : Double.NaN;
+                Wildlife.checkPosition(lat, lon);
+                String zoneId = t.size() == 5 || t.size() == 7 ? t.get(t.size() - 1) : null;
+                queue(new Wildlife(t.get(1), t.get(2), t.get(3), lat, lon, zoneId), line);
+                return;
+            }
+            default:
+                break;
+        }
+
+        flush();
+        switch (command) {
+            case "search-zone": {
+                expect(t, 1, "search-zone <zoneId>");
+                ForestZone z = repository.findZone(t.get(1));
+                println(z != null ? "Record Found: " + z : "No Zone Found: " + t.get(1));
+                break;
+            }
+            case "zone": {
+                expect(t, 1, "zone <zoneId>");
+                ForestZone z = repository.findZone(t.get(1));
+                println(z != null ? z.toString() : "No zone record for " + t.get(1));
+                ForestRepository.Rows<Tree> trees = repository.queryTreesInZone(t.get(1));
+                int[] wildlifeRows = repository.findWildlifeInZone(t.get(1));
+                for (Tree tree : trees.records()) println(tree.toString());
+                for (Wildlife w : RecordPager.rows(repository.snapshot().wildlifeList, wildlifeRows)) println(w.toString());
+                println(trees.rows.length + " tree(s), " + wildlifeRows.length + " sighting(s)");
+                break;
+            }
+            case "search-tree": {
+                expect(t, 1, "search-tree <treeId>");
+                Tree tree = repository.findTree(t.get(1));
+                println(tree != null ? "Record Found: " + tree : "No Tree Found: " + t.get(1));
+                break;
+            }
+            case "prefix":
+                if (t.size() < 4 || t.size() > 5) throw new IllegalArgumentException("usage: " + PREFIX_USAGE);
+                prefix(t);
+                break;
+            case "near": {
+                expect(t, 3, "near <lat> <lon> <km>");
+                double lat = number(t.get(1), "lat"), lon = number(t.get(2), "lon");
+                int[] rows = repository.findWildlifeNear(lat, lon, number(t.get(3), "km"));
+                List<Wildlife> wildlifeList = repository.snapshot().wildlifeList;
+                for (int row : rows) {
+                    Wildlife w = wildlifeList.get(row);
+                    println(w + String.format(" (%.2f km)", SpatialGrid.distanceKm(lat, lon, w.lat, w.lon)));
+                }
+                println(rows.length + " match(es)");
+                break;
+            }
+            case "bbox": {
+                expect(t, 4, "bbox <minLat> <minLon> <maxLat> <maxLon>");
+                int[] rows = repository.findWildlifeInBox(number(t.get(1), "minLat"), number(t.get(3), "maxLat"),
+                        number(t.get(2), "minLon"), number(t.get(4), "maxLon"));
+                List<Wildlife> wildlifeList = repository.snapshot().wildlifeList;
+                for (int row : rows) println(wildlifeList.get(row).toString());
+                println(rows.length + " match(es)");
+                break;
+            }
+            case "view":
+                if (t.size() < 2 || t.size() > 5) throw new IllegalArgumentException("usage: " + VIEW_USAGE);
+                view(t);
+                break;
+            case "export": {
+                expect(t, 3, "export <zones|trees|wildlife> <csv|jsonl> <file>");
+                CsvImporter.Kind kind = CsvImporter.Kind.parse(t.get(1));
+                RecordExporter exporter = new RecordExporter(kind, RecordExporter.Format.parse(t.get(2)));
+                try {
+                    println(exporter.export(repository.snapshot().of(kind), Paths.get(t.get(3))).toString());
+                } catch (IOException e) {
+                    fail(line, "export failed: " + e.getMessage());
+                }
+                break;
+            }
+            case "import":
+                expect(t, 2, "import <zones|trees|wildlife> <file.csv>");
+                importCsv(CsvImporter.Kind.parse(t.get(1)), t.get(2), line);
+                break;
+            case "age-trees":
+            case "set-species":
+            case "set-zone":
+            case "purge-trees":
+                println(repository.updateTrees(job(t)).toString());
+                break;
+            case "status":
+                expect(t, 0, "status");
+                println(repository.saveStatus());
+                break;
+            case "save":
+                expect(t, 0, "save");
+                repository.checkpoint();
+                println("Data saved successfully!");
+                break;
+            default:
+                throw new IllegalArgumentException("unknown command: " + command);
+        }
+    }
+
+    private static final String JOB_USAGE = "age-trees <years> | set-species <species> | set-zone <zoneId|*> | purge-trees, "
+            + "then conditions species=, minAge=, maxAge=, zoneId=, ids= or idsFrom=";
+
+    // A bulk tree job from its command, its value and name=value conditions.
+    private static TreeUpdates.Job job(List<String> t) {
+        String command = t.get(0);
+        int first = command.equals("purge-trees") ? 1 : 2;
+        if (t.size() < first) throw new IllegalArgumentException("usage: " + JOB_USAGE);
+        Map<String, String> conditions = new LinkedHashMap<>();
+        List<String> ids = null;
+        for (String c : t.subList(first, t.size())) {
+            int eq = c.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("condition must be name=value: " + c);
+            String name = c.substring(0, eq), value = c.substring(eq + 1);
+            if (name.equals("idsFrom")) {
+                try {
+                    ids = TreeUpdates.readIds(Paths.get(value));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("cannot read " + value + ": " + e.getMessage());
+                }
+            } else {
+                conditions.put(name, value);
+            }
+        }
+        TreeUpdates.Selection selection = TreeUpdates.Selection.parse(conditions);
+        if (ids != null) selection = selection.withIds(ids);
+        switch (command) {
+            case "age-trees":
+                try {
+                    return TreeUpdates.Job.age(Integer.parseInt(t.get(1)), selection);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("years must be a number: " + t.get(1));
+                }
+            case "set-species": return TreeUpdates.Job.species(t.get(1), selection);
+            case "set-zone": return TreeUpdates.Job.zone(t.get(1), selection);
+            default: return TreeUpdates.Job.purge(selection);
+        }
+    }
+
+    private static double number(String text, String name) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number: " + text);
+        }
+    }
+
+    private static void expect(List<String> t, int args, String usage) {
+        if (t.size() != args + 1) throw new IllegalArgumentException("usage: " + usage);
+    }
+
+    private void view(List<String> t) throws IOException {
+        CsvImporter.Kind kind = CsvImporter.Kind.parse(t.get(1));
+        int offset, limit;
+        try {
+            offset = t.size() > 2 ? Integer.parseInt(t.get(2)) : 0;
+            limit = t.size() > 3 ? Integer.parseInt(t.get(3)) : Integer.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("usage: " + VIEW_USAGE);
+        }
+        Comparator<Object> order = RecordPager.order(kind, t.size() > 4 ? t.get(4) : null);
+        for (Object record : RecordPager.page(repository.snapshot().of(kind), offset, limit, order)) {
+            println(record.toString());
+        }
+    }
+
+    // Matching records in field order, then the total.
+    private void prefix(List<String> t) throws IOException {
+        CsvImporter.Kind kind = CsvImporter.Kind.parse(t.get(1));
+        int limit;
+        try {
+            limit = t.size() > 4 ? Integer.parseInt(t.get(4)) : Integer.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("usage: " + PREFIX_USAGE);
+        }
+        ForestRepository.Rows<?> matches = repository.queryPrefix(kind, t.get(2), t.get(3), limit);
+        for (Object record : matches.records()) println(record.toString());
+        println(matches.total + " match(es)");
+    }
+
+    private void importCsv(CsvImporter.Kind kind, String file, long line) throws IOException {
+        CsvImporter.Result result;
+        try {
+            result = new CsvImporter(kind, repository).run(Paths.get(file));
+        } catch (IOException e) {
+            fail(line, "import failed: " + e.getMessage());
+            return;
+        }
+        for (String error : result.errors) println(error);
+        if (result.rejected > result.errors.size()) {
+            println("... " + (result.rejected - result.errors.size()) + " more rejected rows not shown");
+        }
+        println(result.toString());
+    }
+
+    // --------------- Batched adds ----------------
+
+    private void queue(Object record, long line) throws IOException {
+        if (!pending.isEmpty() && pending.get(0).getClass() != record.getClass()) flush();
+        pending.add(record);
+        pendingLines.add(line);
+        if (pending.size() >= BATCH) flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void flush() throws IOException {
+        if (pending.isEmpty()) return;
+        Object first = pending.get(0);
+        Set<Object> duplicates = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            if (first instanceof ForestZone) {
+                duplicates.addAll(repository.addZones((List<ForestZone>) (List<?>) pending));
+            } else if (first instanceof Tree) {
+                duplicates.addAll(repository.addTrees((List<Tree>) (List<?>) pending));
+            } else {
+                repository.addWildlife((List<Wildlife>) (List<?>) pending);
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                Object record = pending.get(i);
+                if (!duplicates.contains(record)) continue;
+                if (record instanceof ForestZone) fail(pendingLines.get(i), "Zone ID " + ((ForestZone) record).zoneId + " already exists");
+                else fail(pendingLines.get(i), "Tree ID " + ((Tree) record).treeId + " already exists");
+            }
+        } catch (IOException e) {
+            for (long line : pendingLines) fail(line, "not saved: " + e.getMessage());
+        } finally {
+            pending.clear();
+            pendingLines.clear();
+        }
+    }
+
+    // --------------- Output ----------------
+
+    private void fail(long line, String message) throws IOException {
+        failed++;
+        println("Line " + line + ": " + message);
+    }
+
+    private void println(String s) throws IOException {
+        out.write(s);
+        out.write('\n');
+    }
+
+    // Splits UTF-8 input into lines of tokens straight from a byte buffer,
+    // without a Scanner or a String per line.
+    static class Tokenizer {
+        private final InputStream in;
+        private final byte[] buf = new byte[1 << 16];
+        private int pos;
+        private int limit;
+        private byte[] token = new byte[256];
+
+        long line;
+
+        Tokenizer(InputStream in) {
+            this.in = in;
+        }
+
+        // Reads the next line's tokens into out; false at end of input.
+        boolean nextLine(List<String> out) throws IOException {
+            out.clear();
+            int c = read();
+            if (c < 0) return false;
+            line++;
+            while (c >= 0 && c != '\n') {
+                if (c == ' ' || c == '\t' || c == '\r') {
+                    c = read();
+                    continue;
+                }
+                int len = 0;
+                if (c == '"') {
+                    c = read();
+                    while (c >= 0 && c != '\n') {
+                        if (c == '"') {
+                            c = read();
+                            if (c != '"') break;
+                        }
+                        len = put(len, c);
+                        c = read();
+                    }
+                } else {
+                    while (c >= 0 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                        len = put(len, c);
+                        c = read();
+                    }
+                }
+                out.add(new String(token, 0, len, StandardCharsets.UTF_8));
+            }
+            return true;
+        }
+
+        private int put(int len, int c) {
+            if (len == token.length) token = Arrays.copyOf(token, len * 2);
+            token[len] = (byte) c;
+            return len + 1;
+        }
+
+        private int read() throws IOException {
+            if (pos == limit) {
+                limit = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++] & 0xFF;
+        }
+    }
+}
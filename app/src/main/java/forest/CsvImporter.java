@@ -0,0 +1,295 @@
+package forest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+// ===================== CSV BULK IMPORT =====================
+
+// Streams a CSV file of zones, trees or wildlife sightings into the
+// repository. The file is read in chunks of CHUNK_LINES lines; chunks are
+// parsed and validated on a pool sized to the machine, while chunks come
+// back in file order to be inserted (and journaled) one batch at a time.
+// Bad rows are reported with their line number and skipped; they never
+// stop the import.
+//
+// Expected columns, an optional header row is skipped:
+//   zones     zoneId,zoneName,officer
+//   trees     treeId,species,age[,zoneId]
+//   wildlife  animal,location,date (DD-MM-YYYY)[,lat,lon (decimal degrees)[,zoneId]]
+// The optional columns may be blank.
+class CsvImporter {
+    static final int CHUNK_LINES = 10_000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    enum Kind {
+        ZONES("zoneId", "zoneName", "officer"),
+        TREES("treeId", "species", "age", "zoneId"),
+        WILDLIFE("animal", "location", "date", "lat", "lon", "zoneId");
+
+        final String[] columns;
+
+        Kind(String... columns) {
+            this.columns = columns;
+        }
+
+        static Kind parse(String name) {
+            switch (name.toLowerCase()) {
+                case "zone": case "zones": return ZONES;
+                case "tree": case "trees": return TREES;
+                case "wildlife": case "sighting": case "sightings": return WILDLIFE;
+                default: throw new IllegalArgumentException("Unknown record type: " + name + " (use zones, trees or wildlife)");
+            }
+        }
+    }
+
+    // One parsed chunk: the valid records in file order plus the rows that failed.
+    static class Chunk {
+        final List<Object> records = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        int rows;
+    }
+
+    static class Result {
+        long rows;
+        long imported;
+        long rejected;
+        long nanos;
+        final List<String> errors = new ArrayList<>();
+
+        void reject(String error) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add(error);
+        }
+
+        double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        public String toString() {
+            return String.format("Rows: %d, Imported: %d, Rejected: %d in %.2f s (%.0f rows/sec)",
+                    rows, imported, rejected, nanos / 1e9, rowsPerSecond());
+        }
+    }
+
+    private final Kind kind;
+    private final ForestRepository repository;
+
+    CsvImporter(Kind kind, ForestRepository repository) {
+        this.kind = kind;
+        this.repository = repository;
+    }
+
+    // Parses the whole file, inserting each chunk as it comes back.
+    Result run(Path file) throws IOException {
+        Result result = new Result();
+        long start = System.nanoTime();
+        parse(file, chunk -> insert(chunk, result));
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // --------------- Parse ----------------
+
+    // Reads the file and hands parsed chunks to the consumer in file order,
+    // on the calling thread. At most two chunks per core are in flight.
+    void parse(Path file, Consumer<Chunk> consumer) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "csv-import");
+            t.setDaemon(true);
+            return t;
+        });
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long lineNo = 0;
+            boolean first = true;
+            while (true) {
+                String[] lines = new String[CHUNK_LINES];
+                int n = 0;
+                String line;
+                long firstLine = lineNo + 1;
+                while (n < CHUNK_LINES && (line = in.readLine()) != null) {
+                    lineNo++;
+                    if (first) {
+                        first = false;
+                        if (line.startsWith("\uFEFF")) line = line.substring(1);
+                        if (isHeader(line)) {
+                            firstLine++;
+                            continue;
+                        }
+                    }
+                    lines[n++] = line;
+                }
+                if (n == 0) break;
+
+                final int count = n;
+                final long base = firstLine;
+                inFlight.add(pool.submit(() -> parseChunk(lines, count, base)));
+                if (inFlight.size() >= threads * 2) consumer.accept(await(inFlight.poll()));
+            }
+            while (!inFlight.isEmpty()) consumer.accept(await(inFlight.poll()));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Parses a whole file on the calling thread, for callers that bring
+    // their own threads, such as DropIngestor's workers.
+    Chunk parseFile(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        long firstLine = 1;
+        if (!lines.isEmpty()) {
+            String line = lines.get(0);
+            if (line.startsWith("\uFEFF")) lines.set(0, line = line.substring(1));
+            if (isHeader(line)) {
+                lines.remove(0);
+                firstLine++;
+            }
+        }
+        return parseChunk(lines.toArray(new String[0]), lines.size(), firstLine);
+    }
+
+    private boolean isHeader(String line) {
+        List<String> fields = splitCsv(line);
+        return !fields.isEmpty() && fields.get(0).trim().equalsIgnoreCase(kind.columns[0]);
+    }
+
+    private static Chunk await(Future<Chunk> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private Chunk parseChunk(String[] lines, int count, long firstLine) {
+        Chunk chunk = new Chunk();
+        for (int i = 0; i < count; i++) {
+            String line = lines[i];
+            long lineNo = firstLine + i;
+            if (line.trim().isEmpty()) continue;
+            chunk.rows++;
+            try {
+                chunk.records.add(parseRow(splitCsv(line)));
+            } catch (IllegalArgumentException e) {
+                chunk.errors.add("Line " + lineNo + ": " + e.getMessage());
+            }
+        }
+        return chunk;
+    }
+
+    private Object parseRow(List<String> f) {
+        boolean valid;
+        switch (kind) {
+            case ZONES: valid = f.size() == 3; break;
+            case TREES: valid = f.size() == 3 || f.size() == 4; break;
+            default: valid = f.size() == 3 || f.size() == 5 || f.size() == 6;
+        }
+        if (!valid) {
+            String expected = kind == Kind.ZONES ? "3" : kind == Kind.TREES ? "3 or 4" : "3, 5 or 6";
+            throw new IllegalArgumentException("expected " + expected + " fields, found " + f.size());
+        }
+        String zoneId = f.size() == kind.columns.length ? f.get(f.size() - 1) : null;
+        String a = required(f, 0);
+        String b = required(f, 1);
+        String c = required(f, 2);
+        switch (kind) {
+            case ZONES:
+                return new ForestZone(a, b, c);
+            case TREES:
+                int age;
+                try {
+                    age = Integer.parseInt(c);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("age must be a number: " + c);
+                }
+                if (age < 0) throw new IllegalArgumentException("age cannot be negative: " + age);
+                return new Tree(a, b, age, zoneId);
+            default:
+                // The index's reading of a date, so no imported sighting is
+                // left out of the date lookups.
+                if (ForestIndex.epochDay(c) == ForestIndex.NO_DATE) throw new IllegalArgumentException("date must be DD-MM-YYYY: " + c);
+                if (f.size() == 3) return new Wildlife(a, b, c);
+                double lat = Wildlife.parseDegrees(f.get(3), "lat");
+                double lon = Wildlife.parseDegrees(f.get(4), "lon");
+                Wildlife.checkPosition(lat, lon);
+                return new Wildlife(a, b, c, lat, lon, zoneId);
+        }
+    }
+
+    private String required(List<String> fields, int i) {
+        String v = fields.get(i).trim();
+        if (v.isEmpty()) throw new IllegalArgumentException(kind.columns[i] + " is empty");
+        return v;
+    }
+
+    // Splits one CSV line: commas separate fields, double quotes wrap fields
+    // that contain commas, and "" inside quotes is a literal quote.
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // --------------- Insert ----------------
+
+    // Adds a parsed chunk to the repository as one journaled batch. Only one
+    // thread may insert into a given Result. Duplicate IDs, within the file
+    // or against existing data, are rejected here.
+    @SuppressWarnings("unchecked")
+    void insert(Chunk chunk, Result result) {
+        result.rows += chunk.rows;
+        for (String error : chunk.errors) result.reject(error);
+
+        try {
+            List<?> duplicates = Collections.emptyList();
+            switch (kind) {
+                case ZONES:
+                    duplicates = repository.addZones((List<ForestZone>) (List<?>) chunk.records);
+                    for (Object z : duplicates) result.reject("Zone ID " + ((ForestZone) z).zoneId + " already exists");
+                    break;
+                case TREES:
+                    duplicates = repository.addTrees((List<Tree>) (List<?>) chunk.records);
+                    for (Object t : duplicates) result.reject("Tree ID " + ((Tree) t).treeId + " already exists");
+                    break;
+                default:
+                    repository.addWildlife((List<Wildlife>) (List<?>) chunk.records);
+                    break;
+            }
+            result.imported += chunk.records.size() - duplicates.size();
+        } catch (IOException e) {
+            for (int i = 0; i < chunk.records.size(); i++) result.reject("Not saved: " + e.getMessage());
+        }
+    }
+}
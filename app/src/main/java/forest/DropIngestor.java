@@ -0,0 +1,328 @@
+package forest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// ===================== DROP-DIRECTORY INGESTION =====================
+
+// Watches a drop directory that camera traps and ranger handhelds write
+// sighting files into, and appends what they hold to the repository.
+// Files are CSV in the wildlife import format (see CsvImporter) and must
+// be named *.csv; writers should write under another name and rename, so
+// a file is never picked up half written.
+//
+// Three stages, each bounded so a flood of files slows the one before it
+// instead of piling up in memory:
+//   - the watcher thread takes WatchService events (and lists the
+//     directory at start, after an overflow and every RESCAN_SECONDS
+//     without events) and hands each new file to the workers, waiting
+//     while WORKERS + QUEUED files are already queued or being parsed;
+//   - WORKERS threads parse one file each and put the sightings on a queue
+//     of QUEUED parsed files, waiting while it is full;
+//   - the appender thread drains that queue into batches of up to BATCH
+//     sightings and adds each with one repository call (one journal write),
+//     then moves the files it covered into processed/, with a <name>.errors
+//     file next to any that had bad rows. Files that cannot be read go to
+//     failed/.
+// A batch that cannot be journaled leaves its files where they are, to be
+// picked up again by a later rescan. A file whose sightings were added but
+// that cannot be moved is never taken in again: sightings have no ID, so
+// that would add them twice. Rescans only retry its move.
+//
+// onAppended runs on the appender thread after every batch; the GUI uses
+// it to coalesce table updates.
+class DropIngestor {
+    static final int WORKERS = Math.max(1, Integer.getInteger("forest.ingest.workers",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+    static final int QUEUED = Math.max(1, Integer.getInteger("forest.ingest.queue", 64));
+    static final int BATCH = Math.max(1, Integer.getInteger("forest.ingest.batch", 10_000));
+    static final long RESCAN_SECONDS = 10;
+
+    private static final ForestMetrics.Operation INGEST_FILE = ForestMetrics.operation("ingestFile");
+    private static final ForestMetrics.Operation INGEST_BATCH = ForestMetrics.operation("ingestBatch");
+    private static final LongAdder FILES = ForestMetrics.counter("ingestedFiles");
+    private static final LongAdder SIGHTINGS = ForestMetrics.counter("ingestedSightings");
+    private static final LongAdder REJECTED = ForestMetrics.counter("ingestRejectedRows");
+
+    // One parsed file on its way to the appender, or STOP.
+    private static final class Parsed {
+        final Path file;
+        final List<Wildlife> sightings;
+        final List<String> errors;
+
+        Parsed(Path file, List<Wildlife> sightings, List<String> errors) {
+            this.file = file;
+            this.sightings = sightings;
+            this.errors = errors;
+        }
+    }
+
+    // Queued by stop() behind the last parsed file.
+    private static final Parsed STOP = new Parsed(null, Collections.emptyList(), Collections.emptyList());
+
+    private final ForestRepository repository;
+    private final Path dir;
+    private final Path processed;
+    private final Path failed;
+    private final Runnable onAppended;
+    private final Consumer<String> log;
+    private final CsvImporter parser;
+
+    private final WatchService watchService;
+    private final Semaphore slots = new Semaphore(WORKERS + QUEUED);
+    private final ExecutorService workers;
+    private final BlockingQueue<Parsed> parsedFiles = new ArrayBlockingQueue<>(QUEUED);
+    // Files handed to the workers and not yet moved away, so a rescan does
+    // not queue them twice.
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    // Files whose sightings are in the repository but that are still here
+    // because the move to processed/ failed.
+    private final Set<Path> unmoved = ConcurrentHashMap.newKeySet();
+    private final Thread watcher;
+    private final Thread appender;
+    private volatile boolean stopped;
+
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong sightings = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    // Starts watching dir (created if missing). log gets one line per file
+    // and per failure, from the ingestion threads.
+    DropIngestor(ForestRepository repository, Path dir, Runnable onAppended, Consumer<String> log) throws IOException {
+        this.repository = repository;
+        this.dir = dir;
+        this.processed = dir.resolve("processed");
+        this.failed = dir.resolve("failed");
+        this.onAppended = onAppended;
+        this.log = log;
+        this.parser = new CsvImporter(CsvImporter.Kind.WILDLIFE, repository);
+        Files.createDirectories(processed);
+        Files.createDirectories(failed);
+        watchService = dir.getFileSystem().newWatchService();
+        // A rename into the directory is a create as well.
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+
+        workers = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread t = new Thread(r, "forest-ingest-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        watcher = new Thread(this::watch, "forest-ingest-watcher");
+        watcher.setDaemon(true);
+        appender = new Thread(this::append, "forest-ingest-appender");
+        appender.setDaemon(true);
+        appender.start();
+        watcher.start();
+    }
+
+    Path directory() {
+        return dir;
+    }
+
+    // Stops watching and waits for the files already taken in to be
+    // appended and moved.
+    void stop() throws InterruptedException {
+        stopped = true;
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        watcher.interrupt();
+        watcher.join();
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        parsedFiles.put(STOP);
+        appender.join();
+    }
+
+    // Returns when the watcher stops: after stop(), or if the directory
+    // goes away.
+    void join() throws InterruptedException {
+        watcher.join();
+    }
+
+    // Files, sightings and rejected rows taken in so far, and batches.
+    String summary() {
+        return String.format("%d file(s), %d sighting(s) in %d batch(es), %d rejected row(s)",
+                files.get(), sightings.get(), batches.get(), rejected.get());
+    }
+
+    // --------------- Watcher ----------------
+
+    private void watch() {
+        try {
+            scan();
+            while (!stopped) {
+                WatchKey key = watchService.poll(RESCAN_SECONDS, TimeUnit.SECONDS);
+                if (key == null) {
+                    scan();
+                    continue;
+                }
+                boolean overflow = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    } else {
+                        submit(dir.resolve((Path) event.context()));
+                    }
+                }
+                if (overflow) scan();
+                if (!key.reset()) {
+                    log.accept("Drop directory " + dir + " is no longer accessible; stopped watching");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopping
+        } catch (IOException e) {
+            log.accept("Cannot list drop directory " + dir + ": " + e.getMessage());
+        }
+    }
+
+    // Queues every *.csv file already there, oldest name first.
+    private void scan() throws IOException, InterruptedException {
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.csv")) {
+            for (Path p : ds) found.add(p);
+        }
+        Collections.sort(found);
+        for (Path p : found) submit(p);
+    }
+
+    // Hands a file to the workers, blocking while every slot is taken.
+    private void submit(Path file) throws InterruptedException {
+        if (!file.getFileName().toString().endsWith(".csv") || !Files.isRegularFile(file)) return;
+        if (unmoved.contains(file)) {
+            if (move(file, processed)) unmoved.remove(file);
+            return;
+        }
+        if (!inFlight.add(file)) return;
+        slots.acquire();
+        try {
+            workers.execute(() -> parse(file));
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            inFlight.remove(file);
+        }
+    }
+
+    // --------------- Workers ----------------
+
+    @SuppressWarnings("unchecked")
+    private void parse(Path file) {
+        long start = INGEST_FILE.start();
+        try {
+            CsvImporter.Chunk chunk = parser.parseFile(file);
+            parsedFiles.put(new Parsed(file, (List<Wildlife>) (List<?>) chunk.records, chunk.errors));
+        } catch (IOException e) {
+            INGEST_FILE.failed(e);
+            log.accept("Cannot read " + file.getFileName() + ": " + e.getMessage());
+            move(file, failed);
+            inFlight.remove(file);
+        } catch (InterruptedException e) {
+            inFlight.remove(file);
+            Thread.currentThread().interrupt();
+        } finally {
+            INGEST_FILE.stop(start);
+            slots.release();
+        }
+    }
+
+    // --------------- Appender ----------------
+
+    // Takes whatever has been parsed, up to BATCH sightings, as one batch;
+    // under load the queue is full and batches are large, when quiet each
+    // file goes in as soon as it is parsed.
+    private void append() {
+        List<Parsed> taken = new ArrayList<>();
+        List<Wildlife> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                Parsed next = parsedFiles.take();
+                while (next != null) {
+                    if (next == STOP) {
+                        stopping = true;
+                        break;
+                    }
+                    taken.add(next);
+                    batch.addAll(next.sightings);
+                    next = batch.size() < BATCH ? parsedFiles.poll() : null;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (taken.isEmpty()) continue;
+
+            long start = INGEST_BATCH.start();
+            try {
+                if (!batch.isEmpty()) repository.addWildlife(batch);
+            } catch (IOException | RuntimeException e) {
+                INGEST_BATCH.failed(e);
+                log.accept("Batch of " + batch.size() + " sighting(s) not saved, will retry: " + e.getMessage());
+                for (Parsed p : taken) inFlight.remove(p.file);
+                INGEST_BATCH.stop(start);
+                taken.clear();
+                batch.clear();
+                continue;
+            }
+            // Saved: from here on a failure must not put the files back.
+            try {
+                batches.incrementAndGet();
+                for (Parsed p : taken) finish(p);
+                onAppended.run();
+            } catch (RuntimeException e) {
+                log.accept("Batch of " + batch.size() + " sighting(s) saved, but: " + e);
+            } finally {
+                INGEST_BATCH.stop(start);
+                taken.clear();
+                batch.clear();
+            }
+        }
+    }
+
+    // Counts a file whose sightings are in the repository and moves it
+    // (with an errors file if some rows were bad) to processed/.
+    private void finish(Parsed p) {
+        files.incrementAndGet();
+        sightings.addAndGet(p.sightings.size());
+        rejected.addAndGet(p.errors.size());
+        FILES.increment();
+        SIGHTINGS.add(p.sightings.size());
+        REJECTED.add(p.errors.size());
+        String name = p.file.getFileName().toString();
+        if (!p.errors.isEmpty()) {
+            try {
+                Files.write(processed.resolve(name + ".errors"), p.errors, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                log.accept("Cannot write errors for " + name + ": " + e.getMessage());
+            }
+        }
+        if (!move(p.file, processed)) {
+            unmoved.add(p.file);
+            log.accept(name + " stays in the drop directory; rescans retry the move but do not take it in again");
+        }
+        inFlight.remove(p.file);
+        log.accept(name + ": " + p.sightings.size() + " sighting(s)"
+                + (p.errors.isEmpty() ? "" : ", " + p.errors.size() + " bad row(s), see processed/" + name + ".errors"));
+    }
+
+    private boolean move(Path file, Path to) {
+        try {
+            Files.move(file, to.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            log.accept("Cannot move " + file.getFileName() + " to " + to.getFileName() + "/: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package forest;
+
+import javax.management.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.*;
+
+// ===================== DIAGNOSTICS =====================
+
+// What ForestMetrics and the repository know about where time and memory
+// go, as named values: record counts, file sizes, heap per collection,
+// counters, and per operation its count, p50/p90/p99/max latency, failures
+// and last failure. Published as the platform MBean forest:type=Diagnostics
+// (read-only attributes, for jconsole, VisualVM or any JMX client) and
+// shown by the GUI's Diagnostics tab.
+//
+// Values are computed when asked for, so the MBean costs nothing until a
+// client reads it. Attribute names are dotted paths such as
+// "searchTree.p99Millis" or "heap.trees"; sizes are in bytes.
+class ForestDiagnostics implements DynamicMBean {
+    static final String NAME = "forest:type=Diagnostics";
+
+    // One row of operations(): latencies in milliseconds, taken from the
+    // timed calls only for sampled operations.
+    static final class OperationStats {
+        final String name;
+        final long count;
+        final double p50Millis;
+        final double p90Millis;
+        final double p99Millis;
+        final double maxMillis;
+        final long failures;
+        final String lastFailure;
+
+        OperationStats(String name, long count, LatencyHistogram h, long failures, String lastFailure) {
+            this.name = name;
+            this.count = count;
+            this.p50Millis = h.percentile(50) / 1e6;
+            this.p90Millis = h.percentile(90) / 1e6;
+            this.p99Millis = h.percentile(99) / 1e6;
+            this.maxMillis = h.max() / 1e6;
+            this.failures = failures;
+            this.lastFailure = lastFailure;
+        }
+    }
+
+    private final ForestRepository repository;
+
+    ForestDiagnostics(ForestRepository repository) {
+        this.repository = repository;
+    }
+
+    // Publishes this on the platform MBean server as NAME, replacing any
+    // diagnostics registered before.
+    void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(NAME);
+        if (server.isRegistered(name)) server.unregisterMBean(name);
+        server.registerMBean(this, name);
+    }
+
+    // --------------- Values ----------------
+
+    // Every ForestMetrics operation, sorted by name, then the checkpoint
+    // writes timed on the journal's compactor thread.
+    List<OperationStats> operations() {
+        List<OperationStats> out = new ArrayList<>();
+        for (ForestMetrics.Operation op : ForestMetrics.operations().values()) {
+            out.add(new OperationStats(op.name, op.count(), op.latency, op.failures(), op.lastFailure()));
+        }
+        out.add(new OperationStats("checkpointWrite", repository.checkpointLatency().count(), repository.checkpointLatency(), 0, null));
+        return out;
+    }
+
+    // Everything but the operations, in display order.
+    Map<String, Object> gauges() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        ForestRepository.Snapshot snapshot = repository.snapshot();
+        values.put("records.zones", (long) snapshot.zones.size());
+        values.put("records.trees", (long) snapshot.trees.size());
+        values.put("records.wildlife", (long) snapshot.wildlifeList.size());
+        values.put("records.archived", (long) repository.archivedSightings());
+        values.put("records.unsaved", repository.unsavedRecords());
+        try {
+            repository.fileSizes().forEach((file, bytes) -> values.put("files." + file, bytes));
+        } catch (IOException e) {
+            values.put("files.error", e.toString());
+        }
+        repository.heapEstimates().forEach((collection, bytes) -> values.put("heap." + collection, bytes));
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        values.put("jvm.heapUsed", heap.getUsed());
+        values.put("jvm.heapMax", heap.getMax());
+        ForestMetrics.counters().forEach((counter, n) -> values.put("counters." + counter, n));
+        return values;
+    }
+
+    // gauges() followed by the operations flattened to name.field.
+    Map<String, Object> values() {
+        Map<String, Object> values = gauges();
+        for (OperationStats op : operations()) {
+            values.put(op.name + ".count", op.count);
+            values.put(op.name + ".p50Millis", op.p50Millis);
+            values.put(op.name + ".p90Millis", op.p90Millis);
+            values.put(op.name + ".p99Millis", op.p99Millis);
+            values.put(op.name + ".maxMillis", op.maxMillis);
+            values.put(op.name + ".failures", op.failures);
+            values.put(op.name + ".lastFailure", op.lastFailure);
+        }
+        return values;
+    }
+
+    // --------------- DynamicMBean ----------------
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Map<String, Object> values = values();
+        if (!values.containsKey(attribute)) throw new AttributeNotFoundException(attribute);
+        return values.get(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Object> values = values();
+        AttributeList list = new AttributeList();
+        for (String name : attributes) {
+            if (values.containsKey(name)) list.add(new Attribute(name, values.get(name)));
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    // Lists the attributes there are now; operations first timed later
+    // show up the next time a client asks.
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Map.Entry<String, Object> e : values().entrySet()) {
+            String type = e.getKey().endsWith(".lastFailure") || e.getValue() instanceof String ? String.class.getName()
+                    : e.getValue() instanceof Double ? Double.class.getName() : Long.class.getName();
+            attributes.add(new MBeanAttributeInfo(e.getKey(), type, e.getKey(), true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "Forest Management System performance diagnostics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+}
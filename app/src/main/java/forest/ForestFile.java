@@ -0,0 +1,498 @@
+package forest;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+// ===================== FOREST FILE FORMAT =====================
+
+// Binary snapshot format for forest.dat, replacing the ObjectOutputStream
+// dump of the three ArrayLists.
+//
+//   header   "FRST" | u16 version | u16 flags | i64 covered journal segment
+//            | i64 zones | i64 trees | i64 sightings | i32 CRC32C of the above
+//   blocks   u8 kind ('Z', 'T', 'W', 'X', 'U') | i32 records | i32 payload bytes
+//            | i32 CRC32C of payload | payload
+//   end      u8 'E' | i32 0 | i32 0 | i32 0
+//
+// A payload holds up to BLOCK_RECORDS records. It starts with a string
+// table (varint count, then length-prefixed UTF-8 strings) for the
+// low-cardinality fields (species, officer, animal, location, date); those
+// fields are then written as varint table indexes. IDs and names are written
+// inline as varint length + UTF-8 bytes. Integers are zigzag varints.
+//
+// Since version 2 the string table is one dictionary for the whole file:
+// each block lists only the values not seen in earlier blocks, and indexes
+// count from the first block. Every distinct value is stored once and read
+// once, straight into the ValuePool. Version 1 files, where each block has
+// a table of its own, are still read.
+//
+// Since version 3 each sighting ends with a position: varint 0 for none, or
+// 1 followed by latitude and longitude in microdegrees as zigzag varints.
+//
+// Since version 4 each tree and sighting ends with its zone reference, a
+// string table index like species ("" for none).
+//
+// Since version 5 a checkpoint delta (see ForestJournal) may also hold
+// tree edits, in blocks ahead of its new records: 'X' blocks list the IDs
+// (inline) of trees purged since the last checkpoint, 'U' blocks the
+// current values of trees changed in place, as 'T' records. Reading them
+// applies them to the trees already in the list, by ID.
+//
+// The reader maps each block with FileChannel.map() and decodes straight from
+// the mapping. Files from before this format (a Java serialization stream)
+// are still readable; ForestJournal migrates them on the first load.
+class ForestFile {
+    static final int VERSION = 5;
+    static final int BLOCK_RECORDS = 1 << 16;
+
+    private static final byte[] MAGIC = {'F', 'R', 'S', 'T'};
+    private static final int HEADER_BYTES = 4 + 2 + 2 + 8 + 8 + 8 + 8 + 4;
+    private static final int BLOCK_HEADER_BYTES = 1 + 4 + 4 + 4;
+    private static final byte END = 'E';
+    private static final byte DELETED = 'X';
+    private static final byte UPDATED = 'U';
+
+    // What a snapshot holds besides the records themselves.
+    static class Header {
+        int version;
+        long coveredSegment;
+        long zones;
+        long trees;
+        long wildlife;
+        // Zones of the trees the 'X' and 'U' blocks changed, before and after.
+        final Set<String> editedZones = new HashSet<>();
+    }
+
+    // --------------- Write ----------------
+
+    static void write(Path path, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList, long coveredSegment) throws IOException {
+        write(path, zones, trees, wildlifeList, Collections.emptyList(), Collections.emptyList(), coveredSegment);
+    }
+
+    // A delta with tree edits: the trees updated in place and the IDs of
+    // the trees deleted, written ahead of the new records.
+    static void write(Path path, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList,
+                      List<Tree> updated, Collection<String> deleted, long coveredSegment) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(path.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+            header.put(MAGIC).putShort((short) VERSION).putShort((short) 0).putLong(coveredSegment)
+                  .putLong(zones.size()).putLong(trees.size()).putLong(wildlifeList.size());
+            CRC32C crc = new CRC32C();
+            crc.update(header.array(), 0, header.position());
+            header.putInt((int) crc.getValue());
+            out.write(header.array());
+
+            BlockWriter block = new BlockWriter();
+            int n = 0;
+            for (String id : deleted) {
+                block.inline(id);
+                if (++n == BLOCK_RECORDS) n = block.flush(out, DELETED, n);
+            }
+            block.flush(out, DELETED, n);
+            writeTrees(block, out, UPDATED, updated);
+
+            n = 0;
+            for (ForestZone z : zones) {
+                block.inline(z.zoneId);
+                block.inline(z.zoneName);
+                block.shared(z.officer);
+                if (++n == BLOCK_RECORDS) n = block.flush(out, ForestJournal.ZONE, n);
+            }
+            block.flush(out, ForestJournal.ZONE, n);
+
+            writeTrees(block, out, ForestJournal.TREE, trees);
+
+            n = 0;
+            for (Wildlife w : wildlifeList) {
+                block.shared(w.animal);
+                block.shared(w.location);
+                block.shared(w.date);
+                if (w.hasPosition()) {
+                    block.varInt(1);
+                    block.varInt(zigzag(Wildlife.toMicros(w.lat)));
+                    block.varInt(zigzag(Wildlife.toMicros(w.lon)));
+                } else {
+                    block.varInt(0);
+                }
+                block.shared(zoneReference(w.zoneId));
+                if (++n == BLOCK_RECORDS) n = block.flush(out, ForestJournal.WILDLIFE, n);
+            }
+            block.flush(out, ForestJournal.WILDLIFE, n);
+
+            out.writeByte(END);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    private static void writeTrees(BlockWriter block, DataOutputStream out, byte kind, List<Tree> trees) throws IOException {
+        int n = 0;
+        TreeColumns columns = trees instanceof TreeColumns ? (TreeColumns) trees : null;
+        for (int i = 0, size = trees.size(); i < size; i++) {
+            if (columns != null) {
+                block.inline(columns.treeId(i));
+                block.shared(columns.species(i));
+                block.varInt(zigzag(columns.age(i)));
+                block.shared(zoneReference(columns.zoneId(i)));
+            } else {
+                Tree t = trees.get(i);
+                block.inline(t.treeId);
+                block.shared(t.species);
+                block.varInt(zigzag(t.age));
+                block.shared(zoneReference(t.zoneId));
+            }
+            if (++n == BLOCK_RECORDS) n = block.flush(out, kind, n);
+        }
+        block.flush(out, kind, n);
+    }
+
+    private static String zoneReference(String zoneId) {
+        return zoneId == null ? "" : zoneId;
+    }
+
+    private static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    private static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // Accumulates one block: the strings new to this block and the record
+    // bytes are kept apart and stitched together on flush. tableIndex spans
+    // the whole file.
+    private static class BlockWriter {
+        private final HashMap<String, Integer> tableIndex = new HashMap<>();
+        private final ArrayList<byte[]> table = new ArrayList<>();
+        private byte[] records = new byte[1 << 16];
+        private int used;
+
+        void inline(String s) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            varInt(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, records, used, utf8.length);
+            used += utf8.length;
+        }
+
+        void shared(String s) {
+            Integer idx = tableIndex.get(s);
+            if (idx == null) {
+                idx = tableIndex.size();
+                tableIndex.put(s, idx);
+                table.add(s.getBytes(StandardCharsets.UTF_8));
+            }
+            varInt(idx);
+        }
+
+        void varInt(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                records[used++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            records[used++] = (byte) v;
+        }
+
+        private void ensure(int extra) {
+            if (used + extra > records.length) records = Arrays.copyOf(records, Math.max(used + extra, records.length * 2));
+        }
+
+        // Writes the block if it holds any records and resets; returns 0 so
+        // callers can reset their counter in the same statement.
+        int flush(DataOutputStream out, byte kind, int count) throws IOException {
+            if (count == 0) return 0;
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(used + 256);
+            writeVarInt(payload, table.size());
+            for (byte[] s : table) {
+                writeVarInt(payload, s.length);
+                payload.write(s);
+            }
+            payload.write(records, 0, used);
+            byte[] bytes = payload.toByteArray();
+
+            CRC32C crc = new CRC32C();
+            crc.update(bytes);
+            out.writeByte(kind);
+            out.writeInt(count);
+            out.writeInt(bytes.length);
+            out.writeInt((int) crc.getValue());
+            out.write(bytes);
+
+            table.clear();
+            used = 0;
+            return 0;
+        }
+
+        private static void writeVarInt(ByteArrayOutputStream out, int v) {
+            while ((v & ~0x7F) != 0) {
+                out.write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.write(v);
+        }
+    }
+
+    // --------------- Read ----------------
+
+    // True if the file is a Java serialization stream written before this format.
+    static boolean isLegacy(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return in.read() == 0xAC && in.read() == 0xED;
+        }
+    }
+
+    // Only the header: what the file holds, without reading the records.
+    static Header readHeader(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(ch, path);
+        }
+    }
+
+    private static Header readHeader(FileChannel ch, Path path) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES);
+        try {
+            readFully(ch, head, 0);
+        } catch (EOFException e) {
+            throw new IOException(path + " is truncated");
+        }
+        head.flip();
+        byte[] magic = new byte[4];
+        head.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException(path + " is not a forest data file");
+        Header h = new Header();
+        h.version = head.getShort() & 0xFFFF;
+        if (h.version > VERSION) throw new IOException(path + " was written by a newer version (format " + h.version + ")");
+        head.getShort(); // flags, none defined yet
+        h.coveredSegment = head.getLong();
+        h.zones = head.getLong();
+        h.trees = head.getLong();
+        h.wildlife = head.getLong();
+        CRC32C crc = new CRC32C();
+        crc.update(head.array(), 0, HEADER_BYTES - 4);
+        if ((int) crc.getValue() != head.getInt()) throw new IOException(path + " has a corrupt header");
+        return h;
+    }
+
+    // Appends the snapshot's records to the lists and returns its header.
+    static Header read(Path path, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList, ProgressStream.Counter counter) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = ch.size();
+            Header h = readHeader(ch, path);
+            CRC32C crc = new CRC32C();
+
+            if (zones instanceof ArrayList) ((ArrayList<ForestZone>) zones).ensureCapacity(zones.size() + (int) h.zones);
+            if (trees instanceof ArrayList) ((ArrayList<Tree>) trees).ensureCapacity(trees.size() + (int) h.trees);
+            if (wildlifeList instanceof ArrayList) ((ArrayList<Wildlife>) wildlifeList).ensureCapacity(wildlifeList.size() + (int) h.wildlife);
+            counter.add(HEADER_BYTES);
+
+            List<String> table = new ArrayList<>();
+            Edits edits = new Edits();
+            long pos = HEADER_BYTES;
+            ByteBuffer blockHead = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+            while (true) {
+                if (pos + BLOCK_HEADER_BYTES > fileSize) throw new IOException(path + " is truncated");
+                blockHead.clear();
+                readFully(ch, blockHead, pos);
+                blockHead.flip();
+                byte kind = blockHead.get();
+                int count = blockHead.getInt();
+                int length = blockHead.getInt();
+                int expected = blockHead.getInt();
+                pos += BLOCK_HEADER_BYTES;
+                if (kind == END) {
+                    edits.apply(trees, h.editedZones);
+                    break;
+                }
+                if (pos + length > fileSize) throw new IOException(path + " is truncated");
+
+                MappedByteBuffer payload = ch.map(FileChannel.MapMode.READ_ONLY, pos, length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != expected) throw new IOException(path + " has a corrupt block at offset " + pos);
+                if (h.version < 2) table.clear();
+                // The edits are for the trees already in the list, so they
+                // go in before the first new record.
+                if (kind != DELETED && kind != UPDATED) edits.apply(trees, h.editedZones);
+                decodeBlock(kind, count, h.version, payload, table, edits, zones, trees, wildlifeList);
+                pos += length;
+                counter.add(BLOCK_HEADER_BYTES + length);
+            }
+            counter.add(BLOCK_HEADER_BYTES);
+            return h;
+        }
+    }
+
+    // Appends the block's new strings to table, then decodes its records.
+    // Tree edits are collected into edits, to be applied together.
+    private static void decodeBlock(byte kind, int count, int version, ByteBuffer in, List<String> table, Edits edits,
+                                    List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList) throws IOException {
+        for (int i = readVarInt(in); i > 0; i--) table.add(ValuePool.canonical(readInline(in)));
+
+        switch (kind) {
+            case ForestJournal.ZONE:
+                for (int i = 0; i < count; i++) zones.add(new ForestZone(readInline(in), readInline(in), table.get(readVarInt(in))));
+                break;
+            case ForestJournal.TREE:
+                for (int i = 0; i < count; i++) {
+                    String id = readInline(in);
+                    String species = table.get(readVarInt(in));
+                    int age = unzigzag(readVarInt(in));
+                    trees.add(new Tree(id, species, age, version >= 4 ? table.get(readVarInt(in)) : null));
+                }
+                break;
+            case DELETED:
+                for (int i = 0; i < count; i++) edits.deleted.add(readInline(in));
+                break;
+            case UPDATED:
+                for (int i = 0; i < count; i++) {
+                    edits.updated.add(new Tree(readInline(in), table.get(readVarInt(in)), unzigzag(readVarInt(in)), table.get(readVarInt(in))));
+                }
+                break;
+            case ForestJournal.WILDLIFE:
+                for (int i = 0; i < count; i++) {
+                    String animal = table.get(readVarInt(in));
+                    String location = table.get(readVarInt(in));
+                    String date = table.get(readVarInt(in));
+                    double lat = Double.NaN, lon = Double.NaN;
+                    if (version >= 3 && readVarInt(in) != 0) {
+                        lat = Wildlife.fromMicros(unzigzag(readVarInt(in)));
+                        lon = Wildlife.fromMicros(unzigzag(readVarInt(in)));
+                    }
+                    wildlifeList.add(new Wildlife(animal, location, date, lat, lon, version >= 4 ? table.get(readVarInt(in)) : null));
+                }
+                break;
+            default:
+                throw new IOException("Unknown block kind: " + kind);
+        }
+    }
+
+    // The 'X' and 'U' blocks of a delta: purged tree IDs and updated trees.
+    private static class Edits {
+        final List<String> deleted = new ArrayList<>();
+        final List<Tree> updated = new ArrayList<>();
+
+        // Purges, then updates, by ID; each ID is looked up in one pass.
+        void apply(List<Tree> trees, Set<String> zones) {
+            if (!deleted.isEmpty()) TreeUpdates.remove(trees, TreeUpdates.rowsOf(trees, deleted, zones));
+            if (!updated.isEmpty()) TreeUpdates.setById(trees, updated, zones);
+            deleted.clear();
+            updated.clear();
+        }
+    }
+
+    private static String readInline(ByteBuffer in) {
+        int len = readVarInt(in);
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[len];
+            in.get(in.position(), bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + len);
+        return s;
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos);
+            if (n < 0) throw new EOFException();
+            pos += n;
+        }
+    }
+
+    // --------------- Legacy serialized files ----------------
+
+    // Reads a forest.dat written with ObjectOutputStream. Only the classes
+    // those files actually contain may be deserialized.
+    @SuppressWarnings("unchecked")
+    static Header readLegacy(Path path, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList, ProgressStream.Counter counter) throws IOException {
+        try (ObjectInputStream ois = new LegacyObjectInputStream(new BufferedInputStream(new ProgressStream(Files.newInputStream(path), counter), 1 << 16))) {
+            ois.setObjectInputFilter(ObjectInputFilter.Config.createFilter(
+                    "java.util.ArrayList;java.lang.Object;forest.ForestZone;forest.Tree;forest.Wildlife;forest.TreeColumns;java.lang.String;maxdepth=8;!*"));
+            zones.addAll((List<ForestZone>) ois.readObject());
+            trees.addAll((List<Tree>) ois.readObject());
+            wildlifeList.addAll((List<Wildlife>) ois.readObject());
+            Header h = new Header();
+            h.version = 0;
+            // Serialized snapshots written by the journal end with the covered segment
+            try {
+                h.coveredSegment = ois.readLong();
+            } catch (EOFException e) {
+                h.coveredSegment = 0;
+            }
+            h.zones = zones.size();
+            h.trees = trees.size();
+            h.wildlife = wildlifeList.size();
+            return h;
+        } catch (ClassNotFoundException | ClassCastException | InvalidClassException e) {
+            throw new IOException("Corrupt legacy data file " + path, e);
+        }
+    }
+
+    // Older versions kept the model classes in the unnamed package; their
+    // streams name e.g. "Tree" where the class is now forest.Tree.
+    private static class LegacyObjectInputStream extends ObjectInputStream {
+        private static final Set<String> MOVED = Set.of("ForestZone", "Tree", "Wildlife", "TreeColumns");
+
+        LegacyObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (MOVED.contains(desc.getName())) {
+                return Class.forName(ForestFile.class.getPackageName() + "." + desc.getName(), false, ForestFile.class.getClassLoader());
+            }
+            return super.resolveClass(desc);
+        }
+    }
+
+    // Rewrites a serialized forest.dat in the binary format, keeping the
+    // original next to it as forest.dat.legacy.
+    static void migrate(Path path) throws IOException {
+        List<ForestZone> zones = new ArrayList<>();
+        List<Tree> trees = new ArrayList<>();
+        List<Wildlife> wildlifeList = new ArrayList<>();
+        Header h = readLegacy(path, zones, trees, wildlifeList, new ProgressStream.Counter(0, p -> { }));
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        write(tmp, zones, trees, wildlifeList, h.coveredSegment);
+        Files.copy(path, path.resolveSibling(path.getFileName() + ".legacy"), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Stand-alone migrator: java -cp <app jar> forest.ForestFile [forest.dat]
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "forest.dat");
+        if (!isLegacy(path)) {
+            System.out.println(path + " is already in the binary format.");
+            return;
+        }
+        long start = System.nanoTime();
+        migrate(path);
+        System.out.println("Migrated " + path + " in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+                + " (original kept as " + path.getFileName() + ".legacy)");
+    }
+}
@@ -0,0 +1,460 @@
+package forest;
+
+import com.sun.net.httpserver.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+// ===================== HTTP API =====================
+
+// Local JSON API over the shared ForestRepository, started with
+//   java forest.ForestManagementSystem --serve [port]
+//
+//   GET  /trees/{id}                                        one tree
+//   GET  /trees?species=&minAge=&maxAge=&zoneId=&offset=&limit=   filtered listing
+//   GET  /zones/{id}
+//   GET  /zones?offset=&limit=
+//   GET  /wildlife?animal=&location=&from=&to=&zoneId=&offset=&limit=
+//   POST /trees, /zones, /wildlife                          one record or an array
+//   PATCH  /trees?species=&minAge=&maxAge=&zoneId=&ids=     bulk update, body
+//          {"ageBy": years}, {"species": ..} or {"zoneId": .. or null}
+//   DELETE /trees?species=&minAge=&maxAge=&zoneId=&ids=     purge (needs a condition)
+//   PATCH, DELETE /trees/{id}                               the same for one tree
+//   GET  /stats                                             latency per route, checkpoint backlog
+//
+// Records use the CSV column names as keys ({"treeId":..,"species":..,
+// "age":..}). Dates are DD-MM-YYYY. Listings return {"total", "offset",
+// "limit", "items"}; limit defaults to 100 and is capped at MAX_LIMIT.
+// Inserts return 201 with {"added", "rejected": [ids]}, or 409 if every
+// record was a duplicate. Bulk updates and purges run as TreeUpdates jobs
+// and return {"matched", "changed", "millis"}; on a single tree, 404 if
+// there is no such tree. Errors are {"error": message} with 400, 404, 405,
+// 409 or 500.
+//
+// Requests run one per thread on virtual threads when the JVM has them
+// (JDK 21+), otherwise on a cached pool. Reads go to the repository's
+// lock-free snapshots and indexes, so they run in parallel with each other
+// and with inserts; concurrent inserts share journal fsyncs. Every response
+// has a fixed Content-Length, so clients can keep connections alive.
+class ForestHttpServer {
+    static final int DEFAULT_PORT = 8080;
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 10_000;
+    private static final int MAX_BODY = 16 << 20;
+
+    static {
+        // The server writes headers and body separately; without TCP_NODELAY
+        // each keep-alive response waits out the client's delayed ACK
+        // (~40 ms). Read once when the server implementation loads.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ForestRepository repository;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String executorName;
+    private final ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    private ForestHttpServer(ForestRepository repository, InetSocketAddress address) throws IOException {
+        this.repository = repository;
+        this.server = HttpServer.create(address, 0);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) {
+            executor = virtual;
+            executorName = "virtual threads";
+        } else {
+            executor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "forest-http");
+                t.setDaemon(true);
+                return t;
+            });
+            executorName = "platform threads";
+        }
+        server.setExecutor(executor);
+        server.createContext("/trees", timed(this::trees));
+        server.createContext("/zones", timed(this::zones));
+        server.createContext("/wildlife", timed(this::wildlife));
+        server.createContext("/stats", timed(this::stats));
+    }
+
+    // Binds to the loopback interface; port 0 picks a free port.
+    static ForestHttpServer start(ForestRepository repository, int port) throws IOException {
+        ForestHttpServer http = new ForestHttpServer(repository, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        http.server.start();
+        return http;
+    }
+
+    void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    String executorName() {
+        return executorName;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() where it exists. Looked up
+    // reflectively so the build keeps targeting Java 17.
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // --------------- Routes ----------------
+
+    private Response trees(HttpExchange exchange) throws IOException {
+        String id = idFrom(exchange, "/trees");
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                if (id != null) {
+                    Tree tree = repository.findTree(id);
+                    if (tree == null) return Response.error(404, "No tree with ID " + id);
+                    return new Response(200, "GET /trees/{id}", Json.record(new StringBuilder(), tree));
+                } else {
+                    Map<String, String> q = query(exchange);
+                    int minAge = intParam(q, "minAge", Integer.MIN_VALUE);
+                    int maxAge = intParam(q, "maxAge", Integer.MAX_VALUE);
+                    ForestRepository.Rows<Tree> matches = repository.queryTrees(q.get("species"), minAge, maxAge, q.get("zoneId"));
+                    return listing("GET /trees", matches.rows, matches.view, q);
+                }
+            case "POST":
+                if (id != null) return Response.notAllowed("GET");
+                List<Tree> batch = new ArrayList<>();
+                for (Map<String, Object> fields : body(exchange)) {
+                    int age = integer(fields, "age");
+                    if (age < 0) throw new IllegalArgumentException("age cannot be negative: " + age);
+                    batch.add(new Tree(text(fields, "treeId"), text(fields, "species"), age, optionalText(fields, "zoneId")));
+                }
+                List<Tree> rejected = repository.addTrees(batch);
+                List<String> ids = new ArrayList<>(rejected.size());
+                for (Tree t : rejected) ids.add(t.treeId);
+                return inserted("POST /trees", batch.size(), ids, "Tree");
+            case "PATCH":
+            case "DELETE":
+                return updateTrees(exchange, id);
+            default:
+                return Response.notAllowed(id != null ? "GET, PATCH, DELETE" : "GET, POST, PATCH, DELETE");
+        }
+    }
+
+    private Response zones(HttpExchange exchange) throws IOException {
+        String id = idFrom(exchange, "/zones");
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                if (id != null) {
+                    ForestZone zone = repository.findZone(id);
+                    if (zone == null) return Response.error(404, "No zone with ID " + id);
+                    return new Response(200, "GET /zones/{id}", Json.record(new StringBuilder(), zone));
+                } else {
+                    return listing("GET /zones", null, repository.snapshot().zones, query(exchange));
+                }
+            case "POST":
+                if (id != null) return Response.notAllowed("GET");
+                List<ForestZone> batch = new ArrayList<>();
+                for (Map<String, Object> fields : body(exchange)) {
+                    batch.add(new ForestZone(text(fields, "zoneId"), text(fields, "zoneName"), text(fields, "officer")));
+                }
+                List<ForestZone> rejected = repository.addZones(batch);
+                List<String> ids = new ArrayList<>(rejected.size());
+                for (ForestZone z : rejected) ids.add(z.zoneId);
+                return inserted("POST /zones", batch.size(), ids, "Zone");
+            default:
+                return Response.notAllowed(id != null ? "GET" : "GET, POST");
+        }
+    }
+
+    private Response wildlife(HttpExchange exchange) throws IOException {
+        if (idFrom(exchange, "/wildlife") != null) return Response.error(404, "Sightings have no ID; use query parameters");
+        switch (exchange.getRequestMethod()) {
+            case "GET": {
+                Map<String, String> q = query(exchange);
+                int[] rows = repository.findWildlife(q.get("animal"), q.get("location"), dayParam(q, "from"), dayParam(q, "to"));
+                if (q.containsKey("zoneId")) rows = ForestIndex.intersect(rows, repository.findWildlifeInZone(q.get("zoneId")));
+                return listing("GET /wildlife", rows, repository.snapshot().wildlifeList, q);
+            }
+            case "POST": {
+                List<Wildlife> batch = new ArrayList<>();
+                for (Map<String, Object> fields : body(exchange)) {
+                    String date = text(fields, "date");
+                    if (ForestIndex.epochDay(date) == ForestIndex.NO_DATE) {
+                        throw new IllegalArgumentException("date must be DD-MM-YYYY: " + date);
+                    }
+                    double lat = degrees(fields, "lat"), lon = degrees(fields, "lon");
+                    Wildlife.checkPosition(lat, lon);
+                    batch.add(new Wildlife(text(fields, "animal"), text(fields, "location"), date, lat, lon, optionalText(fields, "zoneId")));
+                }
+                repository.addWildlife(batch);
+                return inserted("POST /wildlife", batch.size(), Collections.emptyList(), "Sighting");
+            }
+            default:
+                return Response.notAllowed("GET, POST");
+        }
+    }
+
+    // PATCH or DELETE on /trees (the query selects) or /trees/{id}.
+    private Response updateTrees(HttpExchange exchange, String id) throws IOException {
+        boolean purge = exchange.getRequestMethod().equals("DELETE");
+        Map<String, String> q = query(exchange);
+        if (id != null) {
+            if (!q.isEmpty()) throw new IllegalArgumentException("A single tree takes no query parameters");
+            q.put("ids", id);
+        }
+        TreeUpdates.Selection selection = TreeUpdates.Selection.parse(q);
+        TreeUpdates.Job job;
+        if (purge) {
+            job = TreeUpdates.Job.purge(selection);
+        } else {
+            List<Map<String, Object>> body = body(exchange);
+            if (body.size() != 1 || body.get(0).size() != 1) {
+                throw new IllegalArgumentException("Expected one object with one of ageBy, species or zoneId");
+            }
+            Map<String, Object> fields = body.get(0);
+            if (fields.containsKey("ageBy")) job = TreeUpdates.Job.age(integer(fields, "ageBy"), selection);
+            else if (fields.containsKey("species")) job = TreeUpdates.Job.species(text(fields, "species"), selection);
+            else if (fields.containsKey("zoneId")) job = TreeUpdates.Job.zone(optionalText(fields, "zoneId"), selection);
+            else throw new IllegalArgumentException("Expected one of ageBy, species or zoneId");
+        }
+        TreeUpdates.Result result = repository.updateTrees(job);
+        String route = exchange.getRequestMethod() + (id != null ? " /trees/{id}" : " /trees");
+        if (id != null && result.matched == 0) return Response.error(404, "No tree with ID " + id);
+        return new Response(200, route, new StringBuilder("{\"matched\":").append(result.matched)
+                .append(",\"changed\":").append(result.changed)
+                .append(",\"millis\":").append(result.nanos / 1e6).append('}'));
+    }
+
+    private Response stats(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) return Response.notAllowed("GET");
+        LatencyHistogram checkpoints = repository.checkpointLatency();
+        StringBuilder out = new StringBuilder("{\"executor\":");
+        Json.quote(out, executorName)
+           .append(",\"checkpoints\":{\"unsavedRecords\":").append(repository.unsavedRecords())
+           .append(",\"count\":").append(checkpoints.count())
+           .append(",\"p50Ms\":").append(checkpoints.percentile(50) / 1e6)
+           .append(",\"p99Ms\":").append(checkpoints.percentile(99) / 1e6)
+           .append(",\"maxMs\":").append(checkpoints.max() / 1e6).append('}')
+           .append(",\"routes\":{");
+        boolean first = true;
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(latencies).entrySet()) {
+            LatencyHistogram h = e.getValue();
+            if (!first) out.append(',');
+            first = false;
+            Json.quote(out, e.getKey()).append(":{\"count\":").append(h.count())
+               .append(",\"p50Ms\":").append(h.percentile(50) / 1e6)
+               .append(",\"p90Ms\":").append(h.percentile(90) / 1e6)
+               .append(",\"p99Ms\":").append(h.percentile(99) / 1e6)
+               .append(",\"p999Ms\":").append(h.percentile(99.9) / 1e6)
+               .append(",\"maxMs\":").append(h.max() / 1e6).append('}');
+        }
+        return new Response(200, "GET /stats", out.append("}}"));
+    }
+
+    // --------------- Responses ----------------
+
+    private static final class Response {
+        final int status;
+        final String route;
+        final CharSequence body;
+        String allow;
+
+        Response(int status, String route, CharSequence body) {
+            this.status = status;
+            this.route = route;
+            this.body = body;
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, null, Json.quote(new StringBuilder("{\"error\":"), message).append('}'));
+        }
+
+        static Response notAllowed(String allow) {
+            Response r = error(405, "Method not allowed (use " + allow + ")");
+            r.allow = allow;
+            return r;
+        }
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    // Runs the handler, maps exceptions to error responses, writes the
+    // response with a fixed length and records the latency per route.
+    private HttpHandler timed(Handler handler) {
+        return exchange -> {
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = handler.handle(exchange);
+            } catch (IllegalArgumentException e) {
+                response = Response.error(400, e.getMessage());
+            } catch (NoSuchElementException e) {
+                response = Response.error(404, e.getMessage());
+            } catch (IOException e) {
+                response = Response.error(500, "Not saved: " + e.getMessage());
+            } catch (RuntimeException e) {
+                response = Response.error(500, e.toString());
+            }
+            try {
+                byte[] bytes = response.body.toString().getBytes(StandardCharsets.UTF_8);
+                Headers headers = exchange.getResponseHeaders();
+                headers.set("Content-Type", "application/json; charset=utf-8");
+                if (response.allow != null) headers.set("Allow", response.allow);
+                exchange.sendResponseHeaders(response.status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } finally {
+                exchange.close();
+                String route = response.route != null ? response.route
+                        : exchange.getRequestMethod() + " " + exchange.getHttpContext().getPath() + " (" + response.status + ")";
+                latencies.computeIfAbsent(route, r -> new LatencyHistogram()).record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private Response listing(String route, int[] rows, List<?> records, Map<String, String> q) {
+        int total = rows != null ? rows.length : records.size();
+        int offset = intParam(q, "offset", 0);
+        int limit = intParam(q, "limit", DEFAULT_LIMIT);
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit cannot be negative");
+        limit = Math.min(limit, MAX_LIMIT);
+        StringBuilder out = new StringBuilder(64 + Math.min(limit, total) * 64);
+        out.append("{\"total\":").append(total).append(",\"offset\":").append(offset)
+           .append(",\"limit\":").append(limit).append(",\"items\":[");
+        int end = (int) Math.min(total, (long) offset + limit);
+        for (int i = offset; i < end; i++) {
+            if (i > offset) out.append(',');
+            Json.record(out, records.get(rows != null ? rows[i] : i));
+        }
+        return new Response(200, route, out.append("]}"));
+    }
+
+    private Response inserted(String route, int submitted, List<String> rejected, String what) {
+        int added = submitted - rejected.size();
+        if (submitted > 0 && added == 0) {
+            return new Response(409, route, Json.quote(new StringBuilder("{\"error\":"),
+                    what + " ID " + String.join(", ", rejected) + " already exists").append('}'));
+        }
+        StringBuilder out = new StringBuilder("{\"added\":").append(added).append(",\"rejected\":[");
+        for (int i = 0; i < rejected.size(); i++) {
+            if (i > 0) out.append(',');
+            Json.quote(out, rejected.get(i));
+        }
+        return new Response(201, route, out.append("]}"));
+    }
+
+    // --------------- Requests ----------------
+
+    // The decoded path segment after the context, or null for the bare
+    // context path.
+    private static String idFrom(HttpExchange exchange, String context) {
+        String path = exchange.getRequestURI().getPath();
+        if (path.length() > context.length() && path.charAt(context.length()) != '/') {
+            throw new NoSuchElementException("Unknown path: " + path);
+        }
+        if (path.length() <= context.length() + 1) return null;
+        String id = path.substring(context.length() + 1);
+        if (id.contains("/")) throw new NoSuchElementException("Unknown path: " + path);
+        return id;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            if (!value.isEmpty()) params.put(key, value);
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> q, String name, int otherwise) {
+        String v = q.get(name);
+        if (v == null) return otherwise;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number: " + v);
+        }
+    }
+
+    private static int dayParam(Map<String, String> q, String name) {
+        String v = q.get(name);
+        if (v == null) return ForestIndex.NO_DATE;
+        int day = ForestIndex.epochDay(v);
+        if (day == ForestIndex.NO_DATE) throw new IllegalArgumentException(name + " must be DD-MM-YYYY: " + v);
+        return day;
+    }
+
+    // The request body as a list of objects: a single object or an array.
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> body(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY + 1);
+        }
+        if (bytes.length > MAX_BODY) throw new IllegalArgumentException("Request body over " + (MAX_BODY >> 20) + " MB");
+        Object json = Json.parse(new String(bytes, StandardCharsets.UTF_8));
+        List<Object> items = json instanceof List ? (List<Object>) json : Collections.singletonList(json);
+        List<Map<String, Object>> records = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (!(item instanceof Map)) throw new IllegalArgumentException("Expected a JSON object or an array of objects");
+            records.add((Map<String, Object>) item);
+        }
+        return records;
+    }
+
+    private static String text(Map<String, Object> fields, String name) {
+        Object v = fields.get(name);
+        if (v == null) throw new IllegalArgumentException(name + " is required");
+        String s = v instanceof Double && (Double) v == Math.rint((Double) v) ? Long.toString(((Double) v).longValue()) : v.toString();
+        s = s.trim();
+        if (s.isEmpty()) throw new IllegalArgumentException(name + " is empty");
+        return s;
+    }
+
+    // Missing or null is null.
+    private static String optionalText(Map<String, Object> fields, String name) {
+        Object v = fields.get(name);
+        return v == null ? null : text(fields, name);
+    }
+
+    // Optional decimal degrees; missing or null is NaN.
+    private static double degrees(Map<String, Object> fields, String name) {
+        Object v = fields.get(name);
+        if (v instanceof Double) return (Double) v;
+        return Wildlife.parseDegrees(v == null ? null : v.toString(), name);
+    }
+
+    private static int integer(Map<String, Object> fields, String name) {
+        Object v = fields.get(name);
+        if (v instanceof Double) {
+            double d = (Double) v;
+            if (d != Math.rint(d) || d < Integer.MIN_VALUE || d > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(name + " must be a whole number: " + v);
+            }
+            return (int) d;
+        }
+        String s = text(fields, name);
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number: " + s);
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package forest;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.*;
+
+// ===================== INDEXES =====================
+
+// In-memory indexes over the zone, tree and wildlife lists.
+//
+// Primary keys: zoneId -> ForestZone and treeId -> Tree. ForestRepository
+// checks them before anything is journaled, so a duplicate ID is rejected
+// instead of stored twice. When trees live in a TreeColumns store the tree
+// key comes from the store's own ID hash instead of a HashMap of Trees.
+//
+// Secondary indexes map a value to the list rows holding it: species ->
+// trees, age -> trees (sorted, for ranges), and animal / location / date ->
+// sightings, and zone reference -> trees and sightings (exact IDs, for the
+// zone partitions). Rows are appended, so each row list stays in ascending
+// order; a bulk tree update or purge (TreeUpdates) takes the rows it
+// changes or moves out of the tree lists and merges them back in after.
+// Text keys are matched case-insensitively. Sightings
+// also feed the SightingRollup counters behind the trends view, and those
+// with a position the SpatialGrid behind the area searches.
+//
+// Prefix indexes (PrefixIndex) over zone IDs, zone names, officers, tree
+// IDs, species, animals and locations serve the search-as-you-type boxes.
+//
+// Not thread-safe. ForestRepository guards the zone, tree and sighting
+// parts with its lock for that record kind.
+class ForestIndex {
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("d-M-uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    private final HashMap<String, ForestZone> zonesById = new HashMap<>();
+    private final HashMap<String, Tree> treesById = new HashMap<>();
+    private TreeColumns columns;
+
+    private final HashMap<String, IntList> treesBySpecies = new HashMap<>();
+    private final TreeMap<Integer, IntList> treesByAge = new TreeMap<>();
+    private final HashMap<String, IntList> wildlifeByAnimal = new HashMap<>();
+    private final HashMap<String, IntList> wildlifeByLocation = new HashMap<>();
+    private final TreeMap<Integer, IntList> wildlifeByDate = new TreeMap<>();
+    private final HashMap<String, IntList> treesByZone = new HashMap<>();
+    private final HashMap<String, IntList> wildlifeByZone = new HashMap<>();
+
+    private final SightingRollup rollup = new SightingRollup();
+    private final SpatialGrid grid = new SpatialGrid();
+
+    private List<ForestZone> zones = Collections.emptyList();
+    private List<Tree> trees = Collections.emptyList();
+    private List<Wildlife> wildlifeList = Collections.emptyList();
+
+    private final PrefixIndex zoneIdPrefix = new PrefixIndex(row -> zones.get(row).zoneId);
+    private final PrefixIndex zoneNamePrefix = new PrefixIndex(row -> zones.get(row).zoneName);
+    private final PrefixIndex officerPrefix = new PrefixIndex(row -> zones.get(row).officer);
+    private final PrefixIndex treeIdPrefix = new PrefixIndex(row -> columns != null ? columns.treeId(row) : trees.get(row).treeId);
+    private final PrefixIndex speciesPrefix = new PrefixIndex(row -> columns != null ? columns.species(row) : trees.get(row).species);
+    private final PrefixIndex animalPrefix = new PrefixIndex(row -> wildlifeList.get(row).animal);
+    private final PrefixIndex locationPrefix = new PrefixIndex(row -> wildlifeList.get(row).location);
+
+    // Growable int array of list rows.
+    static class IntList {
+        int[] rows = new int[4];
+        int size;
+
+        void add(int row) {
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+
+        // Drops the rows set in removed, keeping the order.
+        void removeAll(BitSet removed) {
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed.get(rows[i])) rows[n++] = rows[i];
+            }
+            size = n;
+        }
+
+        // Merges in ascending rows not in the list yet, from the back, so
+        // the list stays ascending.
+        void merge(IntList more) {
+            if (size + more.size > rows.length) rows = Arrays.copyOf(rows, Math.max(size + more.size, size * 2));
+            int i = size - 1, j = more.size - 1;
+            for (int k = size + more.size - 1; j >= 0; k--) {
+                rows[k] = i >= 0 && rows[i] > more.rows[j] ? rows[i--] : more.rows[j--];
+            }
+            size += more.size;
+        }
+    }
+
+    // --------------- Maintenance ----------------
+
+    // Returns false (and indexes nothing) if the ID is already taken.
+    // row is where the zone is about to be appended, i.e. zones.size().
+    boolean addZone(ForestZone zone, int row) {
+        if (zonesById.putIfAbsent(zone.zoneId, zone) != null) return false;
+        zoneIdPrefix.add(zone.zoneId, row);
+        zoneNamePrefix.add(zone.zoneName, row);
+        officerPrefix.add(zone.officer, row);
+        return true;
+    }
+
+    // row is where the tree is about to be appended, i.e. trees.size().
+    // In columnar mode the ID is only checked; the store indexes it on add.
+    boolean addTree(Tree tree, int row) {
+        if (columns != null) {
+            if (columns.findRow(tree.treeId) >= 0) return false;
+        } else if (treesById.putIfAbsent(tree.treeId, tree) != null) {
+            return false;
+        }
+        rows(treesBySpecies, key(tree.species)).add(row);
+        treesByAge.computeIfAbsent(tree.age, a -> new IntList()).add(row);
+        if (tree.zoneId != null) rows(treesByZone, tree.zoneId).add(row);
+        treeIdPrefix.add(tree.treeId, row);
+        speciesPrefix.add(tree.species, row);
+        return true;
+    }
+
+    void addWildlife(Wildlife w, int row) {
+        indexWildlife(w, row);
+        animalPrefix.add(w.animal, row);
+        locationPrefix.add(w.location, row);
+    }
+
+    private void indexWildlife(Wildlife w, int row) {
+        rows(wildlifeByAnimal, key(w.animal)).add(row);
+        rows(wildlifeByLocation, key(w.location)).add(row);
+        if (w.epochDay != NO_DATE) wildlifeByDate.computeIfAbsent(w.epochDay, d -> new IntList()).add(row);
+        if (w.zoneId != null) rows(wildlifeByZone, w.zoneId).add(row);
+        rollup.add(w);
+        grid.add(w, row);
+    }
+
+    private static IntList rows(HashMap<String, IntList> map, String key) {
+        return map.computeIfAbsent(key, k -> new IntList());
+    }
+
+    // Rebuilt after loadData(). Files written before IDs were enforced may
+    // hold duplicates; the first record wins, as the old linear search did.
+    //
+    // The zone, tree and sighting indexes share nothing, and neither do the
+    // prefix indexes, so they are built side by side on the common
+    // fork/join pool.
+    void rebuild(List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList) {
+        this.zones = zones;
+        this.trees = trees;
+        this.wildlifeList = wildlifeList;
+        columns = trees instanceof TreeColumns ? (TreeColumns) trees : null;
+
+        List.<Runnable>of(
+                this::rebuildZones,
+                this::rebuildTrees,
+                this::rebuildWildlife,
+                () -> treeIdPrefix.rebuild(trees.size()),
+                () -> speciesPrefix.rebuild(trees.size()),
+                () -> animalPrefix.rebuild(wildlifeList.size()),
+                () -> locationPrefix.rebuild(wildlifeList.size())
+        ).parallelStream().forEach(Runnable::run);
+    }
+
+    // Runs change, a TreeUpdates job writing new values into rows in
+    // place, with the rows taken out of the species, age and zone lists
+    // (and the species prefix index, if species change) before and merged
+    // back in after. Costs the rows plus the lists they are in, where a
+    // rebuild would cost every tree.
+    void updateTrees(BitSet rows, boolean species, Runnable change) {
+        unindexTrees(rows);
+        if (species) speciesPrefix.removeRows(rows);
+        change.run();
+        reindexTrees(rows);
+        if (species) addTreePrefixes(rows, false);
+    }
+
+    // Runs change, a TreeUpdates purge making removal's moves, with the
+    // removed and moved rows taken out of the tree indexes before and the
+    // moved ones added back at their new rows after.
+    void purgeTrees(TreeUpdates.Removal removal, Runnable change) {
+        BitSet vacated = removal.vacated();
+        unindexTrees(vacated);
+        if (columns == null) {
+            BitSet removed = removal.rows;
+            for (int row = removed.nextSetBit(0); row >= 0; row = removed.nextSetBit(row + 1)) {
+                Tree t = trees.get(row);
+                treesById.remove(t.treeId, t);
+            }
+        }
+        treeIdPrefix.removeRows(vacated);
+        speciesPrefix.removeRows(vacated);
+        change.run();
+        BitSet filled = removal.filled();
+        reindexTrees(filled);
+        addTreePrefixes(filled, true);
+    }
+
+    // Takes rows out of the species, age and zone lists, reading their
+    // values as they are now. Lists left empty go.
+    private void unindexTrees(BitSet rows) {
+        Set<IntList> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            String zoneId = treeZone(row);
+            touched.add(treesBySpecies.get(key(treeSpecies(row))));
+            touched.add(treesByAge.get(treeAge(row)));
+            if (zoneId != null) touched.add(treesByZone.get(zoneId));
+        }
+        touched.remove(null);
+        for (IntList l : touched) l.removeAll(rows);
+        treesBySpecies.values().removeIf(l -> l.size == 0);
+        treesByAge.values().removeIf(l -> l.size == 0);
+        treesByZone.values().removeIf(l -> l.size == 0);
+    }
+
+    // Puts rows (none of them in the lists) back in with their current values.
+    private void reindexTrees(BitSet rows) {
+        Map<IntList, IntList> added = new IdentityHashMap<>();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            String zoneId = treeZone(row);
+            added.computeIfAbsent(rows(treesBySpecies, key(treeSpecies(row))), l -> new IntList()).add(row);
+            added.computeIfAbsent(treesByAge.computeIfAbsent(treeAge(row), a -> new IntList()), l -> new IntList()).add(row);
+            if (zoneId != null) added.computeIfAbsent(rows(treesByZone, zoneId), l -> new IntList()).add(row);
+        }
+        for (Map.Entry<IntList, IntList> e : added.entrySet()) e.getKey().merge(e.getValue());
+    }
+
+    private void addTreePrefixes(BitSet rows, boolean ids) {
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            if (ids) treeIdPrefix.add(columns != null ? columns.treeId(row) : trees.get(row).treeId, row);
+            speciesPrefix.add(treeSpecies(row), row);
+        }
+    }
+
+    private String treeSpecies(int row) {
+        return columns != null ? columns.species(row) : trees.get(row).species;
+    }
+
+    private int treeAge(int row) {
+        return columns != null ? columns.age(row) : trees.get(row).age;
+    }
+
+    private String treeZone(int row) {
+        return columns != null ? columns.zoneId(row) : trees.get(row).zoneId;
+    }
+
+    // After every tree was aged by the same number of years: the age
+    // buckets keep their rows and only move, so nothing is rebuilt.
+    void shiftTreeAges(int years) {
+        List<Map.Entry<Integer, IntList>> buckets = new ArrayList<>(treesByAge.entrySet());
+        treesByAge.clear();
+        for (Map.Entry<Integer, IntList> e : buckets) treesByAge.put(e.getKey() + years, e.getValue());
+    }
+
+    private void rebuildZones() {
+        zonesById.clear();
+        for (ForestZone z : zones) zonesById.putIfAbsent(z.zoneId, z);
+        // Sorted in one go rather than row by row.
+        zoneIdPrefix.rebuild(zones.size());
+        zoneNamePrefix.rebuild(zones.size());
+        officerPrefix.rebuild(zones.size());
+    }
+
+    private void rebuildTrees() {
+        treesById.clear();
+        treesBySpecies.clear();
+        treesByAge.clear();
+        treesByZone.clear();
+        for (int row = 0, n = trees.size(); row < n; row++) {
+            String species, zoneId;
+            int age;
+            if (columns != null) {
+                species = columns.species(row);
+                age = columns.age(row);
+                zoneId = columns.zoneId(row);
+            } else {
+                Tree t = trees.get(row);
+                treesById.putIfAbsent(t.treeId, t);
+                species = t.species;
+                age = t.age;
+                zoneId = t.zoneId;
+            }
+            rows(treesBySpecies, key(species)).add(row);
+            treesByAge.computeIfAbsent(age, a -> new IntList()).add(row);
+            if (zoneId != null) rows(treesByZone, zoneId).add(row);
+        }
+    }
+
+    private void rebuildWildlife() {
+        wildlifeByAnimal.clear();
+        wildlifeByLocation.clear();
+        wildlifeByDate.clear();
+        wildlifeByZone.clear();
+        rollup.clear();
+        grid.clear();
+        for (int row = 0, n = wildlifeList.size(); row < n; row++) indexWildlife(wildlifeList.get(row), row);
+    }
+
+    // --------------- Lookups ----------------
+
+    SightingRollup rollup() {
+        return rollup;
+    }
+
+    SpatialGrid grid() {
+        return grid;
+    }
+
+    // Fields with a prefix index, per kind, as named in CsvImporter.Kind.columns.
+    static List<String> prefixFields(CsvImporter.Kind kind) {
+        switch (kind) {
+            case ZONES: return List.of("zoneId", "zoneName", "officer");
+            case TREES: return List.of("treeId", "species");
+            default: return List.of("animal", "location");
+        }
+    }
+
+    // Rows whose field starts with prefix, ignoring case; see PrefixIndex.find.
+    PrefixIndex.Matches findPrefix(CsvImporter.Kind kind, String field, String prefix, int limit) {
+        return prefixIndex(kind, field).find(prefix, limit);
+    }
+
+    private PrefixIndex prefixIndex(CsvImporter.Kind kind, String field) {
+        for (String name : prefixFields(kind)) {
+            if (!name.equalsIgnoreCase(field)) continue;
+            switch (name) {
+                case "zoneId": return zoneIdPrefix;
+                case "zoneName": return zoneNamePrefix;
+                case "officer": return officerPrefix;
+                case "treeId": return treeIdPrefix;
+                case "species": return speciesPrefix;
+                case "animal": return animalPrefix;
+                default: return locationPrefix;
+            }
+        }
+        throw new IllegalArgumentException("No prefix search on " + field + "; use one of " + String.join(", ", prefixFields(kind)));
+    }
+
+    ForestZone findZone(String zoneId) {
+        return zonesById.get(zoneId);
+    }
+
+    Tree findTree(String treeId) {
+        if (columns != null) {
+            int row = columns.findRow(treeId);
+            return row < 0 ? null : columns.get(row);
+        }
+        return treesById.get(treeId);
+    }
+
+    // Rows (ascending) of the trees and sightings that reference a zone.
+    int[] findTreesInZone(String zoneId) {
+        return copy(treesByZone.get(zoneId));
+    }
+
+    int[] findWildlifeInZone(String zoneId) {
+        return copy(wildlifeByZone.get(zoneId));
+    }
+
+    // Every zone ID that is a zone or is referenced by a tree or sighting.
+    Set<String> zoneIds() {
+        Set<String> ids = new HashSet<>(zonesById.keySet());
+        ids.addAll(treesByZone.keySet());
+        ids.addAll(wildlifeByZone.keySet());
+        return ids;
+    }
+
+    private static int[] copy(IntList rows) {
+        return rows == null ? new int[0] : Arrays.copyOf(rows.rows, rows.size);
+    }
+
+    // Rows in both of two ascending row arrays, e.g. a filter's result and a zone's rows.
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // Rows of trees matching species (null = any) with minAge <= age <= maxAge.
+    // Walks whichever of the species rows and the age-range buckets is smaller.
+    int[] findTrees(String species, int minAge, int maxAge) {
+        if (minAge > maxAge) return new int[0];
+        NavigableMap<Integer, IntList> ages = treesByAge.subMap(minAge, true, maxAge, true);
+        if (species == null) return sorted(ages.values());
+
+        IntList bySpecies = treesBySpecies.get(key(species));
+        if (bySpecies == null) return new int[0];
+        long inAgeRange = 0;
+        for (IntList l : ages.values()) inAgeRange += l.size;
+
+        IntList out = new IntList();
+        if (bySpecies.size <= inAgeRange) {
+            for (int i = 0; i < bySpecies.size; i++) {
+                int row = bySpecies.rows[i];
+                int age = columns != null ? columns.age(row) : trees.get(row).age;
+                if (age >= minAge && age <= maxAge) out.add(row);
+            }
+            return Arrays.copyOf(out.rows, out.size);
+        }
+        String wanted = key(species);
+        for (IntList l : ages.values()) {
+            for (int i = 0; i < l.size; i++) {
+                int row = l.rows[i];
+                String s = columns != null ? columns.species(row) : trees.get(row).species;
+                if (key(s).equals(wanted)) out.add(row);
+            }
+        }
+        int[] result = Arrays.copyOf(out.rows, out.size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // Rows of sightings matching animal and location (null = any) between
+    // two epoch days inclusive (NO_DATE = open). Starts from the smallest
+    // candidate set and checks the remaining conditions row by row.
+    int[] findWildlife(String animal, String location, int fromDay, int toDay) {
+        boolean dated = fromDay != NO_DATE || toDay != NO_DATE;
+        int lo = fromDay == NO_DATE ? Integer.MIN_VALUE + 1 : fromDay;
+        int hi = toDay == NO_DATE ? Integer.MAX_VALUE : toDay;
+        if (lo > hi) return new int[0];
+
+        IntList byAnimal = animal == null ? null : wildlifeByAnimal.get(key(animal));
+        IntList byLocation = location == null ? null : wildlifeByLocation.get(key(location));
+        if ((animal != null && byAnimal == null) || (location != null && byLocation == null)) return new int[0];
+        NavigableMap<Integer, IntList> days = wildlifeByDate.subMap(lo, true, hi, true);
+
+        long dateCount = Long.MAX_VALUE;
+        if (dated) {
+            dateCount = 0;
+            for (IntList l : days.values()) dateCount += l.size;
+        }
+        long animalCount = byAnimal == null ? Long.MAX_VALUE : byAnimal.size;
+        long locationCount = byLocation == null ? Long.MAX_VALUE : byLocation.size;
+
+        if (!dated && byAnimal == null && byLocation == null) {
+            int[] all = new int[wildlifeList.size()];
+            for (int i = 0; i < all.length; i++) all[i] = i;
+            return all;
+        }
+
+        IntList out = new IntList();
+        if (dated && dateCount <= animalCount && dateCount <= locationCount) {
+            for (IntList l : days.values()) {
+                for (int i = 0; i < l.size; i++) {
+                    if (matches(l.rows[i], animal, location, false, lo, hi)) out.add(l.rows[i]);
+                }
+            }
+            int[] result = Arrays.copyOf(out.rows, out.size);
+            Arrays.sort(result);
+            return result;
+        }
+        IntList base = animalCount <= locationCount ? byAnimal : byLocation;
+        for (int i = 0; i < base.size; i++) {
+            if (matches(base.rows[i], animal, location, dated, lo, hi)) out.add(base.rows[i]);
+        }
+        return Arrays.copyOf(out.rows, out.size);
+    }
+
+    private boolean matches(int row, String animal, String location, boolean checkDate, int lo, int hi) {
+        Wildlife w = wildlifeList.get(row);
+        if (animal != null && !key(w.animal).equals(key(animal))) return false;
+        if (location != null && !key(w.location).equals(key(location))) return false;
+        if (checkDate) {
+            return w.epochDay != NO_DATE && w.epochDay >= lo && w.epochDay <= hi;
+        }
+        return true;
+    }
+
+    private static int[] sorted(Collection<IntList> lists) {
+        int n = 0;
+        for (IntList l : lists) n += l.size;
+        int[] result = new int[n];
+        int pos = 0;
+        for (IntList l : lists) {
+            System.arraycopy(l.rows, 0, result, pos, l.size);
+            pos += l.size;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    static String key(String value) {
+        return value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // DD-MM-YYYY (single-digit day and month allowed) as days since
+    // 1970-01-01, or NO_DATE if the text is not a valid date.
+    static int epochDay(String date) {
+        try {
+            return (int) LocalDate.parse(date.trim(), DATE).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return NO_DATE;
+        }
+    }
+}
@@ -0,0 +1,762 @@
+package forest;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+// ===================== CHANGE JOURNAL =====================
+
+// Append-only journal that sits next to the forest.dat snapshot (written
+// in the ForestFile binary format).
+// Every add is written as one small framed record to the current log
+// segment (forest.log.N) instead of rewriting the whole snapshot. A single
+// writer thread drains pending records and fsyncs once per batch (group
+// commit), so concurrent adds share the cost of one force().
+//
+// A checkpoint rolls to a new segment and folds the closed ones into the
+// snapshot on a background thread; ForestRepository asks for one on save,
+// from its autosave and whenever compactionDue() says the active segment
+// has grown past the compaction threshold. Records are only appended, so a
+// checkpoint only has to write the rows added since the last one: it writes
+// them as a delta file, forest.delta.N (same format as forest.dat, covering
+// segments up to N), instead of rewriting forest.dat.
+//
+// The exception is the bulk tree jobs (TreeUpdates), which change or purge
+// trees in place. Each job is logged as one TREE_UPDATE or TREE_DELETE
+// frame keyed by tree ID, and the journal notes which checkpointed trees
+// it touched; the next delta carries their current values and the purged
+// IDs (ForestFile 'U' and 'X' blocks) along with the new rows. A job waits
+// for running checkpoints first (awaitCheckpoints), so none reads a row
+// while it changes.
+// Once MAX_DELTAS deltas exist, or they add up to half the size of
+// forest.dat, the next checkpoint writes a full forest.dat and drops them.
+// load() reads forest.dat, then the deltas it does not cover, then replays
+// every segment none of them covers yet.
+//
+// With -Dforest.storage=sharded, forest.dat is a manifest and the full
+// snapshot lives in shard files read and written in parallel; see
+// ShardedSnapshot. A forest.dat in the other mode is still read, and the
+// next checkpoint is then a full one, in the configured mode.
+//
+// ForestRepository can also ask for the next checkpoint to be a full one
+// (requireFullCheckpoint), when it has taken rows out of a list: the
+// SightingArchive moves old sightings out of the wildlife list that way,
+// and tells whether that move was committed by the covered segment of
+// forest.dat (snapshotCovered).
+//
+// A write that fails fails its batch and whatever is queued behind it, and
+// appends are refused from then on: nothing may follow a torn frame in the
+// segment. The next checkpoint rolls to a new segment, which clears the
+// failure, and folds the old one away.
+//
+// ForestRepository owns the lists: load() fills them while the repository
+// holds all of its locks, and checkpoints are handed read-only views.
+class ForestJournal {
+    static final byte ZONE = 'Z';
+    static final byte TREE = 'T';
+    static final byte WILDLIFE = 'W';
+    static final byte TREE_UPDATE = 'U';
+    static final byte TREE_DELETE = 'X';
+    // Stands in for the position of a sighting that has a zone but no position.
+    private static final int NO_POSITION = Integer.MIN_VALUE;
+
+    private static final String SNAPSHOT = "forest.dat";
+    private static final String SEGMENT_PREFIX = "forest.log.";
+    private static final String DELTA_PREFIX = "forest.delta.";
+    private static final int MAX_DELTAS = Integer.getInteger("forest.checkpoint.maxDeltas", 8);
+    private static final int GATHER = 1024;
+    private static final long COMPACT_BYTES = Long.getLong("forest.journal.compactBytes", 8L << 20);
+    // Largest payload a frame may carry; a bulk tree job over more trees
+    // than fit is refused before anything changes.
+    private static final int MAX_FRAME = 1 << 30;
+
+    private final Path dir;
+    private final List<ForestZone> zones;
+    private final List<Tree> trees;
+    private final List<Wildlife> wildlifeList;
+
+    // ---- writer state, guarded by "this" ----
+    private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+    private long appendedSeq;
+    private long durableSeq;
+    // Set by a failed write, cleared when a checkpoint opens a new segment.
+    private IOException writeFailure;
+    // The frames the last failed write took down: sequence numbers above
+    // failedFrom up to failedTo.
+    private long failedFrom;
+    private long failedTo;
+    private IOException failedWith;
+    private FileChannel channel;
+    private long segment;
+    private long segmentBytes;
+    private int compactionsPending;
+    private boolean closed;
+
+    // ---- checkpoint state, guarded by "this" ----
+    // Rows per kind (zones, trees, sightings) held by forest.dat plus deltas.
+    private final long[] checkpointed = new long[3];
+    private int deltaFiles;
+    private long deltaBytes;
+    private long snapshotBytes;
+    private boolean snapshotSharded;
+    private boolean fullRequired;
+    // Tree jobs since the last checkpoint: checkpointed rows changed in
+    // place, and the IDs of checkpointed trees purged.
+    private final BitSet updatedTrees = new BitSet();
+    private final Set<String> purgedTrees = new HashSet<>();
+    // Zones of the trees edited by the deltas and segments load() read.
+    private final Set<String> editedZones = new HashSet<>();
+    // Tree ID to row while load() replays update and purge frames: built at
+    // the first one and kept current as frames add and remove trees.
+    private TreeUpdates.IdLookup replayLookup;
+    private final LatencyHistogram checkpointLatency = new LatencyHistogram();
+
+    private Thread writer;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "forest-journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    ForestJournal(Path dir, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList) {
+        this.dir = dir;
+        this.zones = zones;
+        this.trees = trees;
+        this.wildlifeList = wildlifeList;
+    }
+
+    // --------------- Load ----------------
+
+    // Fills the live lists from the snapshot plus the log tail and opens a
+    // fresh segment for new appends. Returns false if nothing was on disk.
+    boolean load() throws IOException {
+        return load(percent -> { });
+    }
+
+    // Same, reporting 0-100 as bytes are read so a caller can drive a progress bar.
+    synchronized boolean load(IntConsumer progress) throws IOException {
+        zones.clear();
+        trees.clear();
+        wildlifeList.clear();
+
+        boolean found = false;
+        long covered = 0;
+        Path snapshot = dir.resolve(SNAPSHOT);
+        long[] segments = list(SEGMENT_PREFIX);
+        long[] deltas = list(DELTA_PREFIX);
+        long total = Files.exists(snapshot) ? ShardedSnapshot.size(snapshot) : 0;
+        for (long seg : segments) total += Files.size(segmentPath(seg));
+        for (long delta : deltas) total += Files.size(deltaPath(delta));
+        deltaFiles = 0;
+        deltaBytes = 0;
+        snapshotBytes = 0;
+        updatedTrees.clear();
+        purgedTrees.clear();
+        editedZones.clear();
+        ProgressStream.Counter counter = new ProgressStream.Counter(total, progress);
+
+        if (Files.exists(snapshot)) {
+            if (ForestFile.isLegacy(snapshot)) {
+                // One-time migration of a serialized forest.dat, done before
+                // the journal is replayed so the lists hold exactly the snapshot.
+                covered = ForestFile.readLegacy(snapshot, zones, trees, wildlifeList, counter).coveredSegment;
+                Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+                ForestFile.write(tmp, zones, trees, wildlifeList, covered);
+                Files.copy(snapshot, dir.resolve(SNAPSHOT + ".legacy"), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else if (ShardedSnapshot.isManifest(snapshot)) {
+                covered = ShardedSnapshot.read(snapshot, zones, trees, wildlifeList, counter).coveredSegment;
+            } else {
+                covered = ForestFile.read(snapshot, zones, trees, wildlifeList, counter).coveredSegment;
+            }
+            snapshotBytes = ShardedSnapshot.size(snapshot);
+            snapshotSharded = ShardedSnapshot.isManifest(snapshot);
+            found = true;
+
+            // Deltas at or below covered were folded into this forest.dat
+            // by a full checkpoint that stopped before deleting them.
+            for (long delta : deltas) {
+                if (delta <= covered) continue;
+                editedZones.addAll(ForestFile.read(deltaPath(delta), zones, trees, wildlifeList, counter).editedZones);
+                deltaFiles++;
+                deltaBytes += Files.size(deltaPath(delta));
+                covered = delta;
+            }
+        }
+        checkpointed[0] = zones.size();
+        checkpointed[1] = trees.size();
+        checkpointed[2] = wildlifeList.size();
+
+        long last = covered;
+        try {
+            for (long seg : segments) {
+                if (seg <= covered) continue;
+                replaySegment(segmentPath(seg), counter);
+                last = seg;
+                found = true;
+            }
+        } finally {
+            replayLookup = null;
+        }
+
+        openSegment(last + 1);
+        startWriter();
+        progress.accept(100);
+        return found;
+    }
+
+    // Replays the frames up to the first torn one, and cuts the segment back
+    // to the end of the last good frame so that nothing is appended after
+    // garbage. A torn frame was never acknowledged: its length runs past the
+    // end of the segment or is out of range (a zero-filled tail reads as
+    // length 0), or its checksum does not match.
+    private void replaySegment(Path path, ProgressStream.Counter counter) throws IOException {
+        long size = Files.size(path);
+        long good = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new ProgressStream(Files.newInputStream(path), counter)))) {
+            CRC32 crc = new CRC32();
+            while (size - good >= 8) {
+                int len = in.readInt();
+                int expected = in.readInt();
+                if (len <= 0 || len > MAX_FRAME || len > size - good - 8) break;
+                byte[] payload = new byte[len];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != expected) break;
+                apply(payload);
+                good += 8 + len;
+            }
+        }
+        if (good < size) {
+            System.err.println("Journal " + path.getFileName() + ": dropped " + (size - good) + " torn bytes at offset " + good);
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ch.truncate(good);
+                ch.force(false);
+            }
+        }
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case ZONE: zones.add(new ForestZone(in.readUTF(), in.readUTF(), in.readUTF())); break;
+            case TREE: {
+                String id = in.readUTF(), species = in.readUTF();
+                int age = in.readInt();
+                // Frames written before zone references existed end after the age.
+                Tree t = new Tree(id, species, age, in.available() > 0 ? in.readUTF() : null);
+                trees.add(t);
+                if (replayLookup != null) replayLookup.added(t, trees.size() - 1);
+                break;
+            }
+            case WILDLIFE: {
+                String animal = in.readUTF(), location = in.readUTF(), date = in.readUTF();
+                // Older frames end after the date, or after the position.
+                double lat = Double.NaN, lon = Double.NaN;
+                if (in.available() >= 8) {
+                    int latE6 = in.readInt(), lonE6 = in.readInt();
+                    if (latE6 != NO_POSITION) {
+                        lat = Wildlife.fromMicros(latE6);
+                        lon = Wildlife.fromMicros(lonE6);
+                    }
+                }
+                wildlifeList.add(new Wildlife(animal, location, date, lat, lon, in.available() > 0 ? in.readUTF() : null));
+                break;
+            }
+            case TREE_UPDATE: {
+                List<Tree> values = new ArrayList<>();
+                while (in.available() > 0) values.add(new Tree(in.readUTF(), in.readUTF(), in.readInt(), in.readUTF()));
+                treesUpdated(TreeUpdates.setById(trees, replayLookup(), values, editedZones));
+                break;
+            }
+            case TREE_DELETE: {
+                List<String> ids = new ArrayList<>();
+                while (in.available() > 0) ids.add(in.readUTF());
+                TreeUpdates.IdLookup lookup = replayLookup();
+                TreeUpdates.Removal removal = treesDeleted(TreeUpdates.rowsOf(trees, lookup, ids, editedZones));
+                lookup.removing(trees, removal);
+                TreeUpdates.remove(trees, removal);
+                break;
+            }
+            default: throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    private TreeUpdates.IdLookup replayLookup() {
+        if (replayLookup == null) replayLookup = new TreeUpdates.IdLookup(trees);
+        return replayLookup;
+    }
+
+    // --------------- Append ----------------
+
+    // Callers log a record before adding it to its live list, so nothing
+    // is ever visible that is not on disk.
+    void logZone(ForestZone z) throws IOException {
+        append(Collections.singletonList(encode(ZONE, z.zoneId, z.zoneName, z.officer, 0)));
+    }
+
+    void logTree(Tree t) throws IOException {
+        append(Collections.singletonList(encode(t)));
+    }
+
+    void logWildlife(Wildlife w) throws IOException {
+        append(Collections.singletonList(encode(w)));
+    }
+
+    // Batch variants for bulk imports: one wait (and usually one fsync) per batch.
+    void logZones(List<ForestZone> batch) throws IOException {
+        List<ByteBuffer> frames = new ArrayList<>(batch.size());
+        for (ForestZone z : batch) frames.add(encode(ZONE, z.zoneId, z.zoneName, z.officer, 0));
+        append(frames);
+    }
+
+    void logTrees(List<Tree> batch) throws IOException {
+        List<ByteBuffer> frames = new ArrayList<>(batch.size());
+        for (Tree t : batch) frames.add(encode(t));
+        append(frames);
+    }
+
+    void logWildlife(List<Wildlife> batch) throws IOException {
+        List<ByteBuffer> frames = new ArrayList<>(batch.size());
+        for (Wildlife w : batch) frames.add(encode(w));
+        append(frames);
+    }
+
+    // A TreeUpdates job, as one frame so that a job is replayed whole or not
+    // at all. records are the job's writeTreeUpdate (or writeTreeDelete)
+    // output; rows are the rows it changes, or is about to remove. A purge
+    // gets back the removal to make, which keeps the checkpointed rows a
+    // prefix of the store.
+    void logTreeUpdates(List<byte[]> records, BitSet rows) throws IOException {
+        append(Collections.singletonList(frame(TREE_UPDATE, records)));
+        treesUpdated(rows);
+    }
+
+    TreeUpdates.Removal logTreeDeletes(List<byte[]> records, BitSet rows) throws IOException {
+        append(Collections.singletonList(frame(TREE_DELETE, records)));
+        return treesDeleted(rows);
+    }
+
+    // A tree's values after the update; the zone is "" for none.
+    static void writeTreeUpdate(DataOutputStream out, String treeId, String species, int age, String zoneId) throws IOException {
+        out.writeUTF(treeId);
+        out.writeUTF(species);
+        out.writeInt(age);
+        out.writeUTF(zoneId == null ? "" : zoneId);
+    }
+
+    static void writeTreeDelete(DataOutputStream out, String treeId) throws IOException {
+        out.writeUTF(treeId);
+    }
+
+    private static ByteBuffer frame(byte type, List<byte[]> records) throws IOException {
+        long total = 1;
+        for (byte[] r : records) total += r.length;
+        if (total > MAX_FRAME) throw new IOException("Job too large for one journal frame: " + total + " bytes");
+        int length = (int) total;
+        ByteBuffer frame = ByteBuffer.allocate(8 + length);
+        frame.putInt(length).putInt(0).put(type);
+        for (byte[] r : records) frame.put(r);
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), 8, length);
+        frame.putInt(4, (int) crc.getValue()).flip();
+        return frame;
+    }
+
+    // Notes the checkpointed rows among rows for the next delta.
+    private synchronized void treesUpdated(BitSet rows) {
+        updatedTrees.or(rows.get(0, (int) checkpointed[1]));
+    }
+
+    // Called before the rows are removed: plans the removal, notes the IDs
+    // of the checkpointed rows, and renumbers the noted updates as the
+    // removal will.
+    private synchronized TreeUpdates.Removal treesDeleted(BitSet rows) {
+        TreeUpdates.Removal removal = TreeUpdates.removal(rows, trees.size(), (int) checkpointed[1]);
+        BitSet old = rows.get(0, (int) checkpointed[1]);
+        for (int row = old.nextSetBit(0); row >= 0; row = old.nextSetBit(row + 1)) purgedTrees.add(trees.get(row).treeId);
+        removal.remap(updatedTrees);
+        checkpointed[1] = removal.kept;
+        return removal;
+    }
+
+    private static ByteBuffer encode(Tree t) throws IOException {
+        return encode(TREE, t.treeId, t.species, null, t.age, t.zoneId);
+    }
+
+    // The position is written when there is one or a zone follows it.
+    private static ByteBuffer encode(Wildlife w) throws IOException {
+        if (w.hasPosition()) {
+            return encode(WILDLIFE, w.animal, w.location, w.date, 0, w.zoneId, Wildlife.toMicros(w.lat), Wildlife.toMicros(w.lon));
+        }
+        if (w.zoneId != null) return encode(WILDLIFE, w.animal, w.location, w.date, 0, w.zoneId, NO_POSITION, NO_POSITION);
+        return encode(WILDLIFE, w.animal, w.location, w.date, 0, null);
+    }
+
+    private static ByteBuffer encode(byte type, String a, String b, String c, int age) throws IOException {
+        return encode(type, a, b, c, age, null);
+    }
+
+    // extra ints follow the fields (a sighting's position), then the zone
+    // reference if there is one.
+    private static ByteBuffer encode(byte type, String a, String b, String c, int age, String zoneId, int... extra) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        out.writeUTF(a);
+        out.writeUTF(b);
+        if (type == TREE) out.writeInt(age);
+        else out.writeUTF(c);
+        for (int v : extra) out.writeInt(v);
+        if (zoneId != null) out.writeUTF(zoneId);
+        byte[] payload = bytes.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(8 + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return frame;
+    }
+
+    // Blocks until the records are on disk.
+    private void append(List<ByteBuffer> frames) throws IOException {
+        if (frames.isEmpty()) return;
+        synchronized (this) {
+            if (closed || writer == null) throw new IOException("Journal is not open");
+            if (writeFailure != null) throw writeFailure;
+            pending.addAll(frames);
+            appendedSeq += frames.size();
+            long seq = appendedSeq;
+            notifyAll();
+            while (durableSeq < seq && failedTo < seq) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for journal commit");
+                }
+            }
+            if (seq > failedFrom && seq <= failedTo) throw failedWith;
+        }
+    }
+
+    private void startWriter() {
+        writer = new Thread(this::writeLoop, "forest-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void writeLoop() {
+        List<ByteBuffer> batch = new ArrayList<>();
+        while (true) {
+            FileChannel target;
+            long upTo;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) return;
+                batch.addAll(pending);
+                pending.clear();
+                upTo = appendedSeq;
+                target = channel;
+            }
+
+            IOException failure = null;
+            long written = 0;
+            try {
+                // Gathering writes: one syscall per GATHER frames, not per frame.
+                ByteBuffer[] frames = batch.toArray(new ByteBuffer[0]);
+                for (int i = 0; i < frames.length; ) {
+                    written += target.write(frames, i, Math.min(GATHER, frames.length - i));
+                    while (i < frames.length && !frames[i].hasRemaining()) i++;
+                }
+                target.force(false);
+            } catch (IOException e) {
+                failure = e;
+            }
+            batch.clear();
+
+            synchronized (this) {
+                segmentBytes += written;
+                if (failure == null) {
+                    durableSeq = upTo;
+                } else {
+                    // The frames queued behind the batch fail with it.
+                    writeFailure = failedWith = failure;
+                    failedFrom = durableSeq;
+                    failedTo = appendedSeq;
+                    pending.clear();
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    // --------------- Compaction ----------------
+
+    // True when the active segment has outgrown the compaction threshold
+    // and no compaction is running yet.
+    synchronized boolean compactionDue() {
+        return compactionsPending == 0 && segmentBytes >= COMPACT_BYTES;
+    }
+
+    // Waits for every checkpoint taken so far to be written. Called by a
+    // bulk tree job before it changes rows a checkpoint may still be reading.
+    void awaitCheckpoints() throws IOException {
+        synchronized (this) {
+            if (closed) throw new IOException("Journal is not open");
+        }
+        try {
+            CompletableFuture.runAsync(() -> { }, compactor).join();
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Journal is not open");
+        }
+    }
+
+    // Rolls the segment on the calling thread, then writes the new rows (or,
+    // when it is time, all of the lists) on the compactor thread. The lists
+    // must be read-only views holding exactly what has been logged so far;
+    // ForestRepository guarantees that by blocking writes while it calls this.
+    // After a failed write the lists hold none of the failed frames, so the
+    // checkpoint also drops them from disk along with the old segment.
+    CompletableFuture<Void> checkpointAsync(List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList) {
+        long covered;
+        synchronized (this) {
+            try {
+                if (closed || channel == null) throw new IOException("Journal is not open");
+                covered = segment;
+                channel.close();
+                openSegment(segment + 1);
+                writeFailure = null;
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            compactionsPending++;
+        }
+
+        // One compactor thread, so checkpoints land in the order they were taken.
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    compact(zones, trees, wildlifeList, covered);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, compactor);
+        } catch (RejectedExecutionException e) {
+            // close() got in between.
+            synchronized (this) {
+                compactionsPending--;
+            }
+            return CompletableFuture.failedFuture(new IOException("Journal is not open"));
+        }
+    }
+
+    // Runs on the compactor thread only. If it fails, nothing is deleted
+    // and the next checkpoint starts from the same rows again.
+    private void compact(List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList, long covered) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long[] from;
+            boolean full;
+            int[] updated;
+            List<String> purged;
+            synchronized (this) {
+                from = checkpointed.clone();
+                updated = updatedTrees.stream().toArray();
+                purged = new ArrayList<>(purgedTrees);
+                // A delta holding most of the trees would cost as much as
+                // forest.dat and still have to be read on top of it.
+                full = !Files.exists(dir.resolve(SNAPSHOT)) || deltaFiles >= MAX_DELTAS || deltaBytes >= snapshotBytes / 2
+                        || snapshotSharded != ShardedSnapshot.isEnabled() || fullRequired || updated.length > from[1] / 2;
+            }
+
+            if (full) {
+                Path snapshot = dir.resolve(SNAPSHOT);
+                boolean sharded = ShardedSnapshot.isEnabled();
+                long bytes;
+                if (sharded) {
+                    bytes = ShardedSnapshot.write(snapshot, zones, trees, wildlifeList, covered).bytes;
+                } else {
+                    Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+                    ForestFile.write(tmp, zones, trees, wildlifeList, covered);
+                    Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    ShardedSnapshot.deleteUnlisted(snapshot);
+                    bytes = Files.size(snapshot);
+                }
+                for (long delta : list(DELTA_PREFIX)) {
+                    if (delta <= covered) Files.deleteIfExists(deltaPath(delta));
+                }
+                synchronized (this) {
+                    snapshotSharded = sharded;
+                    snapshotBytes = bytes;
+                    fullRequired = false;
+                    deltaFiles = 0;
+                    deltaBytes = 0;
+                }
+            } else if (zones.size() > from[0] || trees.size() > from[1] || wildlifeList.size() > from[2]
+                    || updated.length > 0 || !purged.isEmpty()) {
+                Path delta = deltaPath(covered);
+                Path tmp = dir.resolve(DELTA_PREFIX + "tmp");
+                ForestFile.write(tmp, zones.subList((int) from[0], zones.size()), trees.subList((int) from[1], trees.size()),
+                        wildlifeList.subList((int) from[2], wildlifeList.size()), RecordPager.rows(trees, updated), purged, covered);
+                Files.move(tmp, delta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                long bytes = Files.size(delta);
+                synchronized (this) {
+                    deltaFiles++;
+                    deltaBytes += bytes;
+                }
+            }
+            // else: nothing was added or edited, so the closed segments are empty
+
+            for (long seg : list(SEGMENT_PREFIX)) {
+                if (seg <= covered) Files.deleteIfExists(segmentPath(seg));
+            }
+            synchronized (this) {
+                checkpointed[0] = zones.size();
+                checkpointed[1] = trees.size();
+                checkpointed[2] = wildlifeList.size();
+                updatedTrees.clear();
+                purgedTrees.clear();
+            }
+            checkpointLatency.record(System.nanoTime() - start);
+        } finally {
+            synchronized (this) {
+                compactionsPending--;
+            }
+        }
+    }
+
+    // The segment the next checkpoint will cover, i.e. the active one.
+    synchronized long activeSegment() {
+        return segment;
+    }
+
+    // Last segment forest.dat as on disk now covers (deltas may cover
+    // more), or 0 if there is none.
+    long snapshotCovered() throws IOException {
+        Path snapshot = dir.resolve(SNAPSHOT);
+        if (!Files.exists(snapshot) || ForestFile.isLegacy(snapshot)) return 0;
+        if (ShardedSnapshot.isManifest(snapshot)) return ShardedSnapshot.readManifest(snapshot).coveredSegment;
+        return ForestFile.readHeader(snapshot).coveredSegment;
+    }
+
+    // Makes the next checkpoint a full one.
+    synchronized void requireFullCheckpoint() {
+        fullRequired = true;
+    }
+
+    // Records in forest.dat plus the deltas, i.e. not only in the journal.
+    synchronized long checkpointedRecords() {
+        return checkpointed[0] + checkpointed[1] + checkpointed[2];
+    }
+
+    // Trees changed or purged since the last checkpoint.
+    synchronized long pendingEdits() {
+        return updatedTrees.cardinality() + purgedTrees.size();
+    }
+
+    // Zones of the trees load() found edits for; their zone files may be
+    // behind even when the record counts agree.
+    synchronized Set<String> editedZones() {
+        return new HashSet<>(editedZones);
+    }
+
+    synchronized int deltaFiles() {
+        return deltaFiles;
+    }
+
+    // Time to write each checkpoint, delta or full, on the compactor thread.
+    LatencyHistogram checkpointLatency() {
+        return checkpointLatency;
+    }
+
+    // Bytes on disk in forest.dat (with its shards), the delta files and the
+    // journal segments, in that order. Files that vanish while being listed
+    // count as empty.
+    long[] fileBytes() throws IOException {
+        long[] bytes = new long[3];
+        synchronized (this) {
+            bytes[0] = snapshotBytes;
+        }
+        for (long delta : list(DELTA_PREFIX)) bytes[1] += size(deltaPath(delta));
+        for (long seg : list(SEGMENT_PREFIX)) bytes[2] += size(segmentPath(seg));
+        return bytes;
+    }
+
+    private static long size(Path file) throws IOException {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    // --------------- Segments ----------------
+
+    private void openSegment(long seg) throws IOException {
+        segment = seg;
+        channel = FileChannel.open(segmentPath(seg), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentBytes = channel.size();
+    }
+
+    private Path segmentPath(long seg) {
+        return dir.resolve(SEGMENT_PREFIX + seg);
+    }
+
+    private Path deltaPath(long delta) {
+        return dir.resolve(DELTA_PREFIX + delta);
+    }
+
+    // Numbers N of the files named prefix + N, ascending.
+    private long[] list(String prefix) throws IOException {
+        List<Long> found = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, prefix + "*")) {
+            for (Path p : ds) {
+                try {
+                    found.add(Long.parseLong(p.getFileName().toString().substring(prefix.length())));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+        long[] segs = new long[found.size()];
+        for (int i = 0; i < segs.length; i++) segs[i] = found.get(i);
+        Arrays.sort(segs);
+        return segs;
+    }
+
+    // Lets the writer drain what is pending before the segment is closed,
+    // then waits for a checkpoint that is still being written.
+    void close() throws IOException {
+        Thread w;
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+            w = writer;
+        }
+        try {
+            if (w != null) w.join();
+            synchronized (this) {
+                if (channel != null) channel.close();
+            }
+            compactor.shutdown();
+            compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted closing the journal");
+        }
+    }
+}
@@ -0,0 +1,702 @@
+package forest;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.YearMonth;
+import java.util.*;
+
+public class ForestManagementSystem {
+
+    static Scanner sc = new Scanner(System.in);
+    static ForestRepository repository = new ForestRepository(Paths.get("."));
+    static final int PAGE_SIZE = Integer.getInteger("forest.pageSize", 20);
+
+    // --------------- File Save & Load ----------------
+    // Adds go to the journal as they happen; saving folds the journal
+    // into the forest.dat snapshot. Returns false if the save failed.
+    static boolean saveData() {
+        try {
+            repository.checkpoint();
+            System.out.println("Data saved successfully!\n");
+            return true;
+        } catch (Exception e) {
+            System.out.println("Error saving data: " + e.getMessage() + "\n");
+            return false;
+        }
+    }
+
+    // False if the saved data could not be read.
+    static boolean loadData() {
+        try {
+            if (!repository.load()) System.out.println("No previous data found.\n");
+            return true;
+        } catch (Exception e) {
+            System.out.println("Error loading data: " + e + "\n");
+            return false;
+        }
+    }
+
+    // ---------------- CRUD OPERATIONS -----------------
+
+    static void addZone() {
+        System.out.print("Enter Zone ID: ");
+        String id = sc.next();
+        System.out.print("Enter Zone Name: ");
+        String name = sc.next();
+        System.out.print("Enter Officer Name: ");
+        String officer = sc.next();
+
+        try {
+            if (!repository.addZone(new ForestZone(id, name, officer))) {
+                System.out.println("Zone ID " + id + " already exists!\n");
+                return;
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving zone: " + e.getMessage() + "\n");
+            return;
+        }
+        System.out.println("Zone Added Successfully!\n");
+    }
+
+    static void addTree() {
+        System.out.print("Enter Tree ID: ");
+        String id = sc.next();
+        System.out.print("Enter Species: ");
+        String species = sc.next();
+        System.out.print("Enter Age: ");
+        int age = sc.nextInt();
+        System.out.print("Enter Zone ID (* for none): ");
+        String zoneId = sc.next();
+
+        try {
+            if (!repository.addTree(new Tree(id, species, age, zoneId))) {
+                System.out.println("Tree ID " + id + " already exists!\n");
+                return;
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving tree: " + e.getMessage() + "\n");
+            return;
+        }
+        System.out.println("Tree Added Successfully!\n");
+    }
+
+    static void addWildlife() {
+        System.out.print("Enter Animal: ");
+        String animal = sc.next();
+        System.out.print("Enter Location: ");
+        String location = sc.next();
+        System.out.print("Enter Date (DD-MM-YYYY): ");
+        String date = sc.next();
+        System.out.print("Enter Latitude (* for none): ");
+        String latText = sc.next();
+        double lat = Double.NaN, lon = Double.NaN;
+        try {
+            if (!latText.equals("*")) {
+                System.out.print("Enter Longitude: ");
+                lat = Wildlife.parseDegrees(latText, "Latitude");
+                lon = Wildlife.parseDegrees(sc.next(), "Longitude");
+            }
+            Wildlife.checkPosition(lat, lon);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n");
+            return;
+        }
+        System.out.print("Enter Zone ID (* for none): ");
+        String zoneId = sc.next();
+
+        try {
+            repository.addWildlife(new Wildlife(animal, location, date, lat, lon, zoneId));
+        } catch (IOException e) {
+            System.out.println("Error saving wildlife record: " + e.getMessage() + "\n");
+            return;
+        }
+        System.out.println("Wildlife Record Added Successfully!\n");
+    }
+
+    static void viewZones() {
+        System.out.println("\n--- Forest Zones ---");
+        viewPaged(repository.snapshot().zones, CsvImporter.Kind.ZONES);
+    }
+
+    static void viewTrees() {
+        System.out.println("\n--- Trees ---");
+        viewPaged(repository.snapshot().trees, CsvImporter.Kind.TREES);
+    }
+
+    static void viewWildlife() {
+        System.out.println("\n--- Wildlife Sightings ---");
+        viewPaged(repository.snapshot().wildlifeList, CsvImporter.Kind.WILDLIFE);
+    }
+
+    // Shows PAGE_SIZE records at a time, optionally sorted, and lets the
+    // user page through them or jump to a row.
+    static <T> void viewPaged(List<T> records, CsvImporter.Kind kind) {
+        if (records.isEmpty()) {
+            System.out.println("No records.\n");
+            return;
+        }
+        System.out.print("Sort by (" + RecordPager.fields(kind) + ", - prefix for descending, * for entry order): ");
+        Comparator<Object> order;
+        try {
+            order = RecordPager.order(kind, sc.next());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n");
+            return;
+        }
+
+        int offset = 0;
+        while (true) {
+            List<T> page = RecordPager.page(records, offset, PAGE_SIZE, order);
+            StringBuilder out = new StringBuilder();
+            for (T record : page) out.append(record).append('\n');
+            out.append("Rows ").append(offset + 1).append('-').append(offset + page.size())
+               .append(" of ").append(records.size());
+            System.out.println(out);
+            if (offset + page.size() >= records.size() && offset == 0) {
+                System.out.println();
+                return;
+            }
+            System.out.print("[n]ext, [p]revious, row number to jump to, [q]uit: ");
+            String answer = sc.next();
+            if (answer.equalsIgnoreCase("n")) {
+                if (offset + PAGE_SIZE < records.size()) offset += PAGE_SIZE;
+            } else if (answer.equalsIgnoreCase("p")) {
+                offset = Math.max(0, offset - PAGE_SIZE);
+            } else if (answer.equalsIgnoreCase("q")) {
+                System.out.println();
+                return;
+            } else {
+                try {
+                    offset = Math.min(Math.max(0, Integer.parseInt(answer) - 1), records.size() - 1);
+                } catch (NumberFormatException e) {
+                    System.out.println("Enter n, p, q or a row number.");
+                }
+            }
+        }
+    }
+
+    // ---------------- SEARCH --------------------
+    static void searchTree() {
+        System.out.print("Enter Tree ID to Search: ");
+        String id = sc.next();
+
+        Tree t = repository.findTree(id);
+        if (t != null) System.out.println("Record Found: " + t + "\n");
+        else System.out.println("No Tree Found!\n");
+    }
+
+    static void searchZone() {
+        System.out.print("Enter Zone ID to Search: ");
+        String id = sc.next();
+
+        ForestZone z = repository.findZone(id);
+        if (z != null) System.out.println("Record Found: " + z + "\n");
+        else System.out.println("No Zone Found!\n");
+    }
+
+    // A zone's record and the trees and sightings that reference it, from the index.
+    static void zoneRecords() {
+        System.out.print("Enter Zone ID: ");
+        String id = sc.next();
+        ForestZone z = repository.findZone(id);
+        System.out.println(z != null ? z.toString() : "No zone record for " + id);
+        List<Tree> trees = repository.queryTreesInZone(id).records();
+        showZone(trees, RecordPager.rows(repository.snapshot().wildlifeList, repository.findWildlifeInZone(id)));
+    }
+
+    static void showZone(List<Tree> trees, List<Wildlife> wildlifeList) {
+        System.out.println(trees.size() + " tree(s), " + wildlifeList.size() + " sighting(s)");
+        System.out.print("View (t)rees, (w)ildlife or (n)either: ");
+        String answer = sc.next();
+        if (answer.equalsIgnoreCase("t")) viewPaged(trees, CsvImporter.Kind.TREES);
+        else if (answer.equalsIgnoreCase("w")) viewPaged(wildlifeList, CsvImporter.Kind.WILDLIFE);
+        else System.out.println();
+    }
+
+    // ---------------- ZONE CONSOLE --------------------
+    // --zone [zoneId]: works on one zone at a time from its partition file
+    // (see ZonePartitions) instead of loading the whole forest, so it starts
+    // in the time it takes to read that zone. Read-only; the files are as
+    // current as the last save or autosave of the program that wrote them.
+    static void zoneConsole(String[] args) {
+        ZonePartitions zones = new ZonePartitions(Paths.get("."));
+        String zoneId = args.length > 1 ? args[1] : null;
+        while (true) {
+            if (zoneId == null) {
+                System.out.print("Enter Zone ID (* to list zones, q to quit): ");
+                zoneId = sc.next();
+                if (zoneId.equalsIgnoreCase("q")) return;
+                if (zoneId.equals("*")) {
+                    listZones(zones);
+                    zoneId = null;
+                    continue;
+                }
+            }
+            ZonePartitions.Partition p;
+            try {
+                long loads = zones.loads();
+                long start = System.nanoTime();
+                p = zones.open(zoneId);
+                System.out.printf("%nZone %s %s in %.1f ms; resident: %s%n", zoneId, zones.loads() > loads ? "read" : "already in memory",
+                        (System.nanoTime() - start) / 1e6, String.join(", ", zones.residentZones()));
+            } catch (NoSuchElementException | IOException e) {
+                System.out.println(e.getMessage() + "\n");
+                zoneId = null;
+                continue;
+            }
+            System.out.println(p.zone != null ? p.zone.toString() : "No zone record for " + zoneId);
+            showZone(p.trees, p.wildlifeList);
+            zoneId = null;
+        }
+    }
+
+    private static void listZones(ZonePartitions zones) {
+        try {
+            List<String> ids = zones.zoneIds();
+            System.out.println(ids.isEmpty() ? "No zone files; save in the full program first.\n" : String.join(", ", ids) + "\n");
+        } catch (IOException e) {
+            System.out.println("Cannot list zones: " + e.getMessage() + "\n");
+        }
+    }
+
+    // Records whose field starts with the given text, ignoring case, paged
+    // in field order.
+    static void prefixSearch() {
+        System.out.print("Record type (zones/trees/wildlife): ");
+        String type = sc.next();
+        CsvImporter.Kind kind;
+        try {
+            kind = CsvImporter.Kind.parse(type);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n");
+            return;
+        }
+        System.out.print("Field (" + String.join(", ", ForestIndex.prefixFields(kind)) + "): ");
+        String field = sc.next();
+        System.out.print("Starts with: ");
+        String prefix = sc.next();
+
+        try {
+            long start = System.nanoTime();
+            ForestRepository.Rows<?> matches = repository.queryPrefix(kind, field, prefix, Integer.MAX_VALUE);
+            long micros = (System.nanoTime() - start) / 1000;
+            System.out.println(matches.total + " match(es) in " + micros + " us");
+            viewPaged(matches.records(), kind);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n");
+        }
+    }
+
+    // ---------------- FILTERED QUERIES --------------------
+    // "*" leaves a condition open.
+    static void filterTrees() {
+        System.out.print("Species (* for any): ");
+        String species = sc.next();
+        System.out.print("Minimum Age (* for any): ");
+        String min = sc.next();
+        System.out.print("Maximum Age (* for any): ");
+        String max = sc.next();
+
+        int minAge, maxAge;
+        try {
+            minAge = min.equals("*") ? Integer.MIN_VALUE : Integer.parseInt(min);
+            maxAge = max.equals("*") ? Integer.MAX_VALUE : Integer.parseInt(max);
+        } catch (NumberFormatException e) {
+            System.out.println("Age must be a number!\n");
+            return;
+        }
+
+        long start = System.nanoTime();
+        ForestRepository.Rows<Tree> matches = repository.queryTrees(species.equals("*") ? null : species, minAge, maxAge, null);
+        long micros = (System.nanoTime() - start) / 1000;
+        System.out.println(matches.rows.length + " match(es) in " + micros + " us");
+        viewPaged(matches.records(), CsvImporter.Kind.TREES);
+    }
+
+    static void filterWildlife() {
+        System.out.print("Animal (* for any): ");
+        String animal = sc.next();
+        System.out.print("Location (* for any): ");
+        String location = sc.next();
+        System.out.print("From Date DD-MM-YYYY (* for any): ");
+        String from = sc.next();
+        System.out.print("To Date DD-MM-YYYY (* for any): ");
+        String to = sc.next();
+
+        int fromDay = from.equals("*") ? ForestIndex.NO_DATE : ForestIndex.epochDay(from);
+        int toDay = to.equals("*") ? ForestIndex.NO_DATE : ForestIndex.epochDay(to);
+        if ((!from.equals("*") && fromDay == ForestIndex.NO_DATE) || (!to.equals("*") && toDay == ForestIndex.NO_DATE)) {
+            System.out.println("Dates must be DD-MM-YYYY!\n");
+            return;
+        }
+
+        long start = System.nanoTime();
+        int[] rows = repository.findWildlife(animal.equals("*") ? null : animal, location.equals("*") ? null : location, fromDay, toDay);
+        long micros = (System.nanoTime() - start) / 1000;
+        System.out.println(rows.length + " match(es) in " + micros + " us");
+        viewPaged(RecordPager.rows(repository.snapshot().wildlifeList, rows), CsvImporter.Kind.WILDLIFE);
+    }
+
+    // ---------------- AREA SEARCH --------------------
+    // Sightings within a radius (nearest first in entry order) or inside a
+    // lat/lon box, from the spatial grid.
+    static void searchArea() {
+        System.out.print("Search by (r)adius or (b)ox: ");
+        String mode = sc.next();
+        try {
+            long start;
+            int[] rows;
+            if (mode.equalsIgnoreCase("r")) {
+                System.out.print("Centre Latitude: ");
+                double lat = degrees(sc.next());
+                System.out.print("Centre Longitude: ");
+                double lon = degrees(sc.next());
+                System.out.print("Radius (km): ");
+                double km = degrees(sc.next());
+                start = System.nanoTime();
+                rows = repository.findWildlifeNear(lat, lon, km);
+            } else if (mode.equalsIgnoreCase("b")) {
+                System.out.print("South Latitude: ");
+                double minLat = degrees(sc.next());
+                System.out.print("West Longitude: ");
+                double minLon = degrees(sc.next());
+                System.out.print("North Latitude: ");
+                double maxLat = degrees(sc.next());
+                System.out.print("East Longitude: ");
+                double maxLon = degrees(sc.next());
+                start = System.nanoTime();
+                rows = repository.findWildlifeInBox(minLat, maxLat, minLon, maxLon);
+            } else {
+                System.out.println("Enter r or b.\n");
+                return;
+            }
+            long micros = (System.nanoTime() - start) / 1000;
+            System.out.println(rows.length + " match(es) in " + micros + " us");
+            viewPaged(RecordPager.rows(repository.snapshot().wildlifeList, rows), CsvImporter.Kind.WILDLIFE);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n");
+        }
+    }
+
+    private static double degrees(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Enter a number, e.g. -1.2921");
+        }
+    }
+
+    // ---------------- WILDLIFE TRENDS --------------------
+    // Monthly sighting counts straight from the rollup; no records are scanned.
+    static void wildlifeTrends() {
+        System.out.print("Animal (* for all): ");
+        String animal = sc.next();
+        System.out.print("Location (* for all): ");
+        String location = sc.next();
+        System.out.print("From Month MM-YYYY: ");
+        YearMonth from = SightingRollup.parseMonth(sc.next());
+        System.out.print("To Month MM-YYYY: ");
+        YearMonth to = SightingRollup.parseMonth(sc.next());
+        if (from == null || to == null) {
+            System.out.println("Months must be MM-YYYY!\n");
+            return;
+        }
+
+        long start = System.nanoTime();
+        int[] counts = repository.monthlyCounts(animal.equals("*") ? null : animal, location.equals("*") ? null : location, from, to);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        int max = 1;
+        for (int c : counts) max = Math.max(max, c);
+        System.out.println("\n--- Sightings per Month ---");
+        for (int i = 0; i < counts.length; i++) {
+            String bar = "#".repeat((int) ((long) counts[i] * 40 / max));
+            System.out.printf("%s  %8d  %s%n", from.plusMonths(i), counts[i], bar);
+        }
+        System.out.println(counts.length + " month(s) in " + micros + " us\n");
+    }
+
+    // ---------------- REPORTS --------------------
+    static void showReports() {
+        long start = System.nanoTime();
+        ForestRepository.Snapshot snapshot = repository.snapshot();
+        List<ForestReports.Report> reports = ForestReports.all(snapshot.zones, snapshot.trees, snapshot.wildlifeList);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println();
+        for (ForestReports.Report report : reports) System.out.println(report);
+        System.out.println("All reports in " + millis + " ms on " + Runtime.getRuntime().availableProcessors() + " core(s)\n");
+    }
+
+    // ---------------- BULK UPDATES --------------------
+    // Age rollover, species or zone reassignment and purges over the trees
+    // the conditions pick ("*" leaves a condition open); see TreeUpdates.
+    static void bulkUpdateTrees() {
+        System.out.print("Job (age/species/zone/purge): ");
+        String kind = sc.next();
+        Map<String, String> conditions = new HashMap<>();
+        System.out.print("Species (* for any): ");
+        condition(conditions, "species", sc.next());
+        System.out.print("Minimum Age (* for any): ");
+        condition(conditions, "minAge", sc.next());
+        System.out.print("Maximum Age (* for any): ");
+        condition(conditions, "maxAge", sc.next());
+        System.out.print("Zone ID (* for any): ");
+        condition(conditions, "zoneId", sc.next());
+        System.out.print("File of Tree IDs (* for any): ");
+        String idFile = sc.next();
+
+        try {
+            TreeUpdates.Selection selection = TreeUpdates.Selection.parse(conditions);
+            if (!idFile.equals("*")) selection = selection.withIds(TreeUpdates.readIds(Paths.get(idFile)));
+            TreeUpdates.Job job;
+            switch (kind.toLowerCase(Locale.ROOT)) {
+                case "age":
+                    System.out.print("Years to add: ");
+                    job = TreeUpdates.Job.age(sc.nextInt(), selection);
+                    break;
+                case "species":
+                    System.out.print("New Species: ");
+                    job = TreeUpdates.Job.species(sc.next(), selection);
+                    break;
+                case "zone":
+                    System.out.print("New Zone ID (* for none): ");
+                    job = TreeUpdates.Job.zone(sc.next(), selection);
+                    break;
+                case "purge":
+                    job = TreeUpdates.Job.purge(selection);
+                    break;
+                default:
+                    System.out.println("Unknown job: " + kind + "\n");
+                    return;
+            }
+            System.out.println(repository.updateTrees(job) + "\n");
+        } catch (InputMismatchException e) {
+            sc.nextLine();
+            System.out.println("Years must be a number!\n");
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println("Bulk update failed: " + e.getMessage() + "\n");
+        }
+    }
+
+    private static void condition(Map<String, String> conditions, String name, String value) {
+        if (!value.equals("*")) conditions.put(name, value);
+    }
+
+    // ---------------- BULK IMPORT --------------------
+    static void importCsv() {
+        System.out.print("Record type (zones/trees/wildlife): ");
+        String type = sc.next();
+        System.out.print("CSV file path: ");
+        String file = sc.next();
+        importCsv(type, file);
+    }
+
+    static boolean importCsv(String type, String file) {
+        try {
+            CsvImporter importer = new CsvImporter(CsvImporter.Kind.parse(type), repository);
+            CsvImporter.Result result = importer.run(Paths.get(file));
+            for (String error : result.errors) System.out.println(error);
+            if (result.rejected > result.errors.size()) {
+                System.out.println("... " + (result.rejected - result.errors.size()) + " more rejected rows not shown");
+            }
+            System.out.println(result + "\n");
+            return true;
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println("Import failed: " + e.getMessage() + "\n");
+            return false;
+        }
+    }
+
+    // ---------------- EXPORT --------------------
+    static void exportData() {
+        System.out.print("Record type (zones/trees/wildlife): ");
+        String type = sc.next();
+        System.out.print("Format (csv/jsonl): ");
+        String format = sc.next();
+        System.out.print("Output file path: ");
+        String file = sc.next();
+
+        try {
+            CsvImporter.Kind kind = CsvImporter.Kind.parse(type);
+            RecordExporter exporter = new RecordExporter(kind, RecordExporter.Format.parse(format));
+            System.out.println(exporter.export(repository.snapshot().of(kind), Paths.get(file)) + "\n");
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println("Export failed: " + e.getMessage() + "\n");
+        }
+    }
+
+    // ---------------- HTTP API --------------------
+    // Runs until the process is stopped.
+    static void serve(String[] args) {
+        int port = ForestHttpServer.DEFAULT_PORT;
+        try {
+            if (args.length > 2) throw new NumberFormatException();
+            if (args.length == 2) port = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            System.out.println("Usage: java forest.ForestManagementSystem --serve [port]");
+            System.exit(2);
+        }
+        try {
+            ForestHttpServer http = ForestHttpServer.start(repository, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                http.stop();
+                try {
+                    repository.close();
+                } catch (IOException ignored) {
+                    // every accepted insert is already journaled
+                }
+            }));
+            System.out.println("Serving on http://127.0.0.1:" + http.port() + "/ with " + http.executorName());
+        } catch (IOException e) {
+            System.out.println("Cannot start server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // ---------------- DROP DIRECTORY --------------------
+    // Ingests sighting files dropped into dir until the process is stopped.
+    static void watch(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: java forest.ForestManagementSystem --watch <dir>");
+            System.exit(2);
+        }
+        try {
+            DropIngestor ingestor = new DropIngestor(repository, Paths.get(args[1]), () -> { }, System.out::println);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    ingestor.stop();
+                    repository.close();
+                } catch (InterruptedException | IOException ignored) {
+                    // every appended batch is already journaled
+                }
+                System.out.println("Ingested " + ingestor.summary());
+            }));
+            System.out.println("Watching " + ingestor.directory().toAbsolutePath() + " for sighting files");
+            ingestor.join();
+        } catch (IOException e) {
+            System.out.println("Cannot watch " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ================== MAIN MENU ==================
+
+    public static void main(String[] args) {
+        // One zone at a time, without loading everything: --zone [zoneId].
+        // It never loads the repository, so there is nothing to autosave
+        // or report through the MBean.
+        if (args.length > 0 && args[0].equals("--zone")) {
+            if (args.length > 2) {
+                System.out.println("Usage: java forest.ForestManagementSystem --zone [zoneId]");
+                System.exit(2);
+            }
+            zoneConsole(args);
+            return;
+        }
+
+        repository.startAutosave();
+        try {
+            new ForestDiagnostics(repository).register();
+        } catch (javax.management.JMException e) {
+            System.err.println("Diagnostics MBean not registered: " + e);
+        }
+
+        // Non-interactive: --batch [script | -], see BatchRunner
+        if (args.length > 0 && args[0].equals("--batch")) {
+            if (args.length > 2) {
+                System.out.println("Usage: java forest.ForestManagementSystem --batch [script | -]");
+                System.exit(2);
+            }
+            System.exit(BatchRunner.run(repository, args.length == 2 ? args[1] : null));
+        }
+
+        // The headless modes below would run, and save, on top of lists
+        // that are missing whatever could not be read, so they stop here.
+        // The menu carries on and reports the error.
+        boolean loaded = loadData();
+        if (!loaded && args.length > 0) System.exit(2);
+
+        // Headless: --serve [port], see ForestHttpServer
+        if (args.length > 0 && args[0].equals("--serve")) {
+            serve(args);
+            return;
+        }
+
+        // Headless: --watch <dir>, see DropIngestor
+        if (args.length > 0 && args[0].equals("--watch")) {
+            watch(args);
+            return;
+        }
+
+        // Non-interactive: --import <zones|trees|wildlife> <file.csv>
+        if (args.length > 0 && args[0].equals("--import")) {
+            if (args.length != 3) {
+                System.out.println("Usage: java forest.ForestManagementSystem --import <zones|trees|wildlife> <file.csv>");
+                System.exit(2);
+            }
+            boolean ok = importCsv(args[1], args[2]);
+            ok &= saveData();
+            System.exit(ok ? 0 : 1);
+        }
+
+        int choice;
+        while (true) {
+            System.out.println("\n====== FOREST MANAGEMENT SYSTEM ======");
+            System.out.println("1. Add Forest Zone");
+            System.out.println("2. Add Tree");
+            System.out.println("3. Add Wildlife Sighting");
+            System.out.println("4. View Zones");
+            System.out.println("5. View Trees");
+            System.out.println("6. View Wildlife Records");
+            System.out.println("7. Search Tree");
+            System.out.println("8. Save & Exit");
+            System.out.println("9. Search Zone");
+            System.out.println("10. Bulk Import CSV");
+            System.out.println("11. Filter Trees");
+            System.out.println("12. Filter Wildlife");
+            System.out.println("13. Wildlife Trends");
+            System.out.println("14. Reports");
+            System.out.println("15. Export Data");
+            System.out.println("16. Save Status");
+            System.out.println("17. Prefix Search");
+            System.out.println("18. Wildlife by Area");
+            System.out.println("19. Zone Records");
+            System.out.println("20. Bulk Update Trees");
+            System.out.print("Enter your choice: ");
+
+            try {
+                choice = sc.nextInt();
+            } catch (Exception e) {
+                System.out.println("Invalid Input! Enter a number.\n");
+                sc.nextLine();
+                continue;
+            }
+
+            switch (choice) {
+                case 1: addZone(); break;
+                case 2: addTree(); break;
+                case 3: addWildlife(); break;
+                case 4: viewZones(); break;
+                case 5: viewTrees(); break;
+                case 6: viewWildlife(); break;
+                case 7: searchTree(); break;
+                case 8: if (saveData()) System.exit(0); break;
+                case 9: searchZone(); break;
+                case 10: importCsv(); break;
+                case 11: filterTrees(); break;
+                case 12: filterWildlife(); break;
+                case 13: wildlifeTrends(); break;
+                case 14: showReports(); break;
+                case 15: exportData(); break;
+                case 16: System.out.println(repository.saveStatus() + "\n"); break;
+                case 17: prefixSearch(); break;
+                case 18: searchArea(); break;
+                case 19: zoneRecords(); break;
+                case 20: bulkUpdateTrees(); break;
+                default: System.out.println("Invalid Choice!\n");
+            }
+        }
+    }
+}
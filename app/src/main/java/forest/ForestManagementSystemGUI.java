@@ -0,0 +1,1344 @@
+package forest;
+
+import javax.swing.*;
+import javax.swing.border.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.nio.file.*;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// ===================== CUSTOM BUTTON CLASS =====================
+
+class GreenHoverButton extends JButton {
+    private Color normalColor = new Color(34, 139, 34);
+    private Color hoverColor = new Color(0, 180, 0);
+    private Color pressColor = new Color(0, 100, 0);
+
+    public GreenHoverButton(String text) {
+        super(text);
+        setFont(new Font("Arial", Font.BOLD, 14));
+        setForeground(Color.WHITE);
+        setBackground(normalColor);
+        setFocusPainted(false);
+        setBorder(new RoundedBorder(10, normalColor));
+        setContentAreaFilled(false);
+        setOpaque(true);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseEntered(MouseEvent e) {
+                setBackground(hoverColor);
+                setCursor(new Cursor(Cursor.HAND_CURSOR));
+                repaint();
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setBackground(normalColor);
+                setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
+                repaint();
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                setBackground(pressColor);
+                repaint();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                setBackground(hoverColor);
+                repaint();
+            }
+        });
+    }
+}
+
+// ===================== ROUNDED BORDER CLASS =====================
+
+class RoundedBorder extends AbstractBorder {
+    private int radius;
+    private Color color;
+
+    public RoundedBorder(int radius, Color color) {
+        this.radius = radius;
+        this.color = color;
+    }
+
+    @Override
+    public void paintBorder(Component c, Graphics g, int x, int y, int width, int height) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setColor(color);
+        g2.drawRoundRect(x, y, width - 1, height - 1, radius, radius);
+    }
+
+    @Override
+    public Insets getBorderInsets(Component c) {
+        return new Insets(5, 10, 5, 10);
+    }
+}
+
+// ===================== MAIN GUI CLASS =====================
+
+public class ForestManagementSystemGUI extends JFrame {
+    // Taken when the class initializes, i.e. as main() starts.
+    private static final long START_NANOS = System.nanoTime();
+
+    // Search-as-you-type waits this long after the last keystroke, and shows
+    // at most SEARCH_LIMIT rows (the match count is always exact).
+    private static final int SEARCH_DELAY_MILLIS = 250;
+    private static final int SEARCH_LIMIT = 10_000;
+
+    private static final ForestMetrics.Operation REFRESH_ZONES = ForestMetrics.operation("refreshZonesTable");
+    private static final ForestMetrics.Operation REFRESH_TREES = ForestMetrics.operation("refreshTreesTable");
+    private static final ForestMetrics.Operation REFRESH_WILDLIFE = ForestMetrics.operation("refreshWildlifeTable");
+    private static final ForestMetrics.Operation REPORTS = ForestMetrics.operation("reports");
+    private static final ForestMetrics.Operation IMPORT = ForestMetrics.operation("importCsv");
+
+    private final ForestRepository repository = new ForestRepository(Paths.get("."));
+    private final ForestDiagnostics diagnostics = new ForestDiagnostics(repository);
+
+    private JPanel mainPanel;
+    private JTabbedPane tabbedPane;
+    private ListTableModel<ForestZone> zonesTableModel;
+    private ListTableModel<Tree> treesTableModel;
+    private ListTableModel<Wildlife> wildlifeTableModel;
+    private Runnable trendsRefresh;
+
+    // Tabs are built the first time they are selected.
+    private final Map<Component, Supplier<JPanel>> pendingTabs = new HashMap<>();
+
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+    private JLabel autosaveLabel;
+    private boolean dataLoaded;
+    // Why the load failed, if it did; edits then stay disabled.
+    private String loadError;
+    private long firstPaintMillis = -1;
+
+    // Drop-folder ingestion, while one is watched. The ingestor only sets
+    // the flag; a timer on the EDT redraws the wildlife table at most every
+    // DROP_REFRESH_MILLIS however fast batches land.
+    private static final int DROP_REFRESH_MILLIS = 250;
+    private DropIngestor dropIngestor;
+    private final AtomicBoolean sightingsAppended = new AtomicBoolean();
+    private GreenHoverButton watchBtn;
+
+    public ForestManagementSystemGUI() {
+        setTitle("🌲 Forest Management System");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(1000, 700);
+        setLocationRelativeTo(null);
+        setResizable(true);
+
+        // Create GUI first so the window shows while data loads
+        createGUI();
+        setVisible(true);
+
+        // Load data in the background; edits wait for it, so nothing is
+        // autosaved before it finishes
+        repository.startAutosave();
+        loadData();
+    }
+
+    private void createGUI() {
+        mainPanel = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                if (firstPaintMillis < 0) {
+                    firstPaintMillis = (System.nanoTime() - START_NANOS) / 1_000_000;
+                    System.out.println("Time to first paint: " + firstPaintMillis + " ms");
+                }
+            }
+        };
+        mainPanel.setLayout(new BorderLayout());
+        mainPanel.setBackground(new Color(240, 255, 240));
+
+        // Header Panel
+        JPanel headerPanel = createHeaderPanel();
+        mainPanel.add(headerPanel, BorderLayout.NORTH);
+
+        // Tabbed Pane
+        tabbedPane = new JTabbedPane();
+        tabbedPane.setBackground(new Color(220, 245, 220));
+        tabbedPane.setFont(new Font("Arial", Font.BOLD, 12));
+
+        addLazyTab("🌲 Zones", this::createZonesPanel);
+        addLazyTab("🌳 Trees", this::createTreesPanel);
+        addLazyTab("🦁 Wildlife", this::createWildlifePanel);
+        addLazyTab("📈 Wildlife Trends", this::createTrendsPanel);
+        addLazyTab("📊 Reports", this::createReportsPanel);
+        addLazyTab("🩺 Diagnostics", this::createDiagnosticsPanel);
+        tabbedPane.addChangeListener(e -> buildSelectedTab());
+        buildSelectedTab();
+
+        mainPanel.add(tabbedPane, BorderLayout.CENTER);
+
+        // Footer Panel
+        JPanel footerPanel = createFooterPanel();
+        mainPanel.add(footerPanel, BorderLayout.SOUTH);
+
+        add(mainPanel);
+    }
+
+    private void addLazyTab(String title, Supplier<JPanel> builder) {
+        JPanel placeholder = new JPanel();
+        placeholder.setBackground(new Color(240, 255, 240));
+        pendingTabs.put(placeholder, builder);
+        tabbedPane.addTab(title, placeholder);
+    }
+
+    private void buildSelectedTab() {
+        int i = tabbedPane.getSelectedIndex();
+        if (i < 0) return;
+        Supplier<JPanel> builder = pendingTabs.remove(tabbedPane.getComponentAt(i));
+        if (builder != null) tabbedPane.setComponentAt(i, builder.get());
+    }
+
+    private JPanel createHeaderPanel() {
+        JPanel header = new JPanel();
+        header.setBackground(new Color(34, 139, 34));
+        header.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 15));
+        header.setBorder(new EmptyBorder(10, 10, 10, 10));
+
+        JLabel titleLabel = new JLabel("🌲 FOREST MANAGEMENT SYSTEM 🌲");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 28));
+        titleLabel.setForeground(Color.WHITE);
+
+        header.add(titleLabel);
+        return header;
+    }
+
+    private JPanel createZonesPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(new Color(240, 255, 240));
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        // Input Panel
+        JPanel inputPanel = new JPanel(new GridLayout(4, 2, 10, 10));
+        inputPanel.setBackground(new Color(220, 245, 220));
+        inputPanel.setBorder(new TitledBorder(new LineBorder(new Color(34, 139, 34), 2), "Add New Zone", TitledBorder.LEFT, TitledBorder.TOP, new Font("Arial", Font.BOLD, 12), new Color(34, 139, 34)));
+
+        JTextField zoneIdField = new JTextField();
+        JTextField zoneNameField = new JTextField();
+        JTextField officerField = new JTextField();
+
+        styleTextField(zoneIdField);
+        styleTextField(zoneNameField);
+        styleTextField(officerField);
+
+        inputPanel.add(new JLabel("Zone ID:"));
+        inputPanel.add(zoneIdField);
+        inputPanel.add(new JLabel("Zone Name:"));
+        inputPanel.add(zoneNameField);
+        inputPanel.add(new JLabel("Officer Name:"));
+        inputPanel.add(officerField);
+
+        GreenHoverButton addZoneBtn = new GreenHoverButton("Add Zone");
+        addZoneBtn.addActionListener(e -> {
+            if (!checkReady()) return;
+            if (zoneIdField.getText().isEmpty() || zoneNameField.getText().isEmpty() || officerField.getText().isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Please fill all fields!", "Warning", JOptionPane.WARNING_MESSAGE);
+            } else {
+                ForestZone zone = new ForestZone(zoneIdField.getText(), zoneNameField.getText(), officerField.getText());
+                try {
+                    if (!repository.addZone(zone)) {
+                        JOptionPane.showMessageDialog(this, "Zone ID already exists!", "Warning", JOptionPane.WARNING_MESSAGE);
+                        return;
+                    }
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "Error saving zone!", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                refreshZonesTable();
+                zoneIdField.setText("");
+                zoneNameField.setText("");
+                officerField.setText("");
+                JOptionPane.showMessageDialog(this, "Zone Added Successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+
+        inputPanel.add(addZoneBtn);
+
+        // Table Panel
+        zonesTableModel = new ListTableModel<>(() -> repository.snapshot().zones, new String[]{"Zone ID", "Zone Name", "Officer"}, (zone, column) -> {
+            switch (column) {
+                case 0: return zone.zoneId;
+                case 1: return zone.zoneName;
+                default: return zone.officer;
+            }
+        });
+        JTable zonesTable = new JTable(zonesTableModel);
+        stylesTable(zonesTable);
+        JScrollPane scrollPane = new JScrollPane(zonesTable);
+
+        // Search Panel
+        JPanel searchPanel = createSearchPanel("Search Zone ID:", id -> {
+            ForestZone zone = repository.findZone(id);
+            if (zone == null) {
+                JOptionPane.showMessageDialog(this, "No Zone Found!", "Search", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, zone.toString(), "Record Found", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+
+        JPanel queryPanel = new JPanel(new GridLayout(2, 1, 0, 5));
+        queryPanel.setOpaque(false);
+        queryPanel.add(searchPanel);
+        queryPanel.add(createPrefixPanel(zonesTableModel, CsvImporter.Kind.ZONES));
+
+        JPanel tablePanel = new JPanel(new BorderLayout(5, 5));
+        tablePanel.setOpaque(false);
+        tablePanel.add(queryPanel, BorderLayout.NORTH);
+        tablePanel.add(scrollPane, BorderLayout.CENTER);
+
+        panel.add(inputPanel, BorderLayout.NORTH);
+        panel.add(tablePanel, BorderLayout.CENTER);
+
+        refreshZonesTable();
+        return panel;
+    }
+
+    private JPanel createTreesPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(new Color(240, 255, 240));
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        // Input Panel
+        JPanel inputPanel = new JPanel(new GridLayout(5, 2, 10, 10));
+        inputPanel.setBackground(new Color(220, 245, 220));
+        inputPanel.setBorder(new TitledBorder(new LineBorder(new Color(34, 139, 34), 2), "Add New Tree", TitledBorder.LEFT, TitledBorder.TOP, new Font("Arial", Font.BOLD, 12), new Color(34, 139, 34)));
+
+        JTextField treeIdField = new JTextField();
+        JTextField speciesField = new JTextField();
+        JTextField ageField = new JTextField();
+        JTextField treeZoneField = new JTextField();
+
+        styleTextField(treeIdField);
+        styleTextField(speciesField);
+        styleTextField(ageField);
+        styleTextField(treeZoneField);
+
+        inputPanel.add(new JLabel("Tree ID:"));
+        inputPanel.add(treeIdField);
+        inputPanel.add(new JLabel("Species:"));
+        inputPanel.add(speciesField);
+        inputPanel.add(new JLabel("Age (years):"));
+        inputPanel.add(ageField);
+        inputPanel.add(new JLabel("Zone ID (optional):"));
+        inputPanel.add(treeZoneField);
+
+        GreenHoverButton addTreeBtn = new GreenHoverButton("Add Tree");
+        addTreeBtn.addActionListener(e -> {
+            if (!checkReady()) return;
+            if (treeIdField.getText().isEmpty() || speciesField.getText().isEmpty() || ageField.getText().isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Please fill all fields!", "Warning", JOptionPane.WARNING_MESSAGE);
+            } else {
+                try {
+                    int age = Integer.parseInt(ageField.getText());
+                    Tree tree = new Tree(treeIdField.getText(), speciesField.getText(), age, treeZoneField.getText());
+                    try {
+                        if (!repository.addTree(tree)) {
+                            JOptionPane.showMessageDialog(this, "Tree ID already exists!", "Warning", JOptionPane.WARNING_MESSAGE);
+                            return;
+                        }
+                    } catch (IOException ex) {
+                        JOptionPane.showMessageDialog(this, "Error saving tree!", "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    refreshTreesTable();
+                    treeIdField.setText("");
+                    speciesField.setText("");
+                    ageField.setText("");
+                    treeZoneField.setText("");
+                    JOptionPane.showMessageDialog(this, "Tree Added Successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                } catch (NumberFormatException ex) {
+                    JOptionPane.showMessageDialog(this, "Age must be a number!", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+
+        inputPanel.add(addTreeBtn);
+
+        GreenHoverButton bulkUpdateBtn = new GreenHoverButton("Bulk Update...");
+        bulkUpdateBtn.addActionListener(e -> bulkUpdateTrees());
+        inputPanel.add(bulkUpdateBtn);
+
+        // Table Panel
+        treesTableModel = new ListTableModel<>(() -> repository.snapshot().trees, new String[]{"Tree ID", "Species", "Age", "Zone"}, (tree, column) -> {
+            switch (column) {
+                case 0: return tree.treeId;
+                case 1: return tree.species;
+                case 2: return tree.age;
+                default: return tree.zoneId != null ? tree.zoneId : "";
+            }
+        });
+        JTable treesTable = new JTable(treesTableModel);
+        stylesTable(treesTable);
+        JScrollPane scrollPane = new JScrollPane(treesTable);
+
+        // Search Panel
+        JPanel searchPanel = createSearchPanel("Search Tree ID:", id -> {
+            Tree tree = repository.findTree(id);
+            if (tree == null) {
+                JOptionPane.showMessageDialog(this, "No Tree Found!", "Search", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, tree.toString(), "Record Found", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+
+        // Filter Panel
+        JTextField speciesFilter = new JTextField(10);
+        JTextField minAgeFilter = new JTextField(4);
+        JTextField maxAgeFilter = new JTextField(4);
+        JTextField treeZoneFilter = new JTextField(6);
+        JPanel filterPanel = createFilterPanel(treesTableModel,
+                new String[]{"Species:", "Age from:", "to:", "Zone:"},
+                new JTextField[]{speciesFilter, minAgeFilter, maxAgeFilter, treeZoneFilter},
+                () -> {
+                    int minAge = minAgeFilter.getText().trim().isEmpty() ? Integer.MIN_VALUE : Integer.parseInt(minAgeFilter.getText().trim());
+                    int maxAge = maxAgeFilter.getText().trim().isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(maxAgeFilter.getText().trim());
+                    String species = speciesFilter.getText().trim();
+                    return repository.queryTrees(species.isEmpty() ? null : species, minAge, maxAge,
+                            ForestZone.reference(treeZoneFilter.getText()));
+                });
+
+        JPanel queryPanel = new JPanel(new GridLayout(3, 1, 0, 5));
+        queryPanel.setOpaque(false);
+        queryPanel.add(searchPanel);
+        queryPanel.add(createPrefixPanel(treesTableModel, CsvImporter.Kind.TREES));
+        queryPanel.add(filterPanel);
+
+        JPanel tablePanel = new JPanel(new BorderLayout(5, 5));
+        tablePanel.setOpaque(false);
+        tablePanel.add(queryPanel, BorderLayout.NORTH);
+        tablePanel.add(scrollPane, BorderLayout.CENTER);
+
+        panel.add(inputPanel, BorderLayout.NORTH);
+        panel.add(tablePanel, BorderLayout.CENTER);
+
+        refreshTreesTable();
+        return panel;
+    }
+
+    private JPanel createWildlifePanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(new Color(240, 255, 240));
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        // Input Panel
+        JPanel inputPanel = new JPanel(new GridLayout(6, 2, 10, 10));
+        inputPanel.setBackground(new Color(220, 245, 220));
+        inputPanel.setBorder(new TitledBorder(new LineBorder(new Color(34, 139, 34), 2), "Add Wildlife Sighting", TitledBorder.LEFT, TitledBorder.TOP, new Font("Arial", Font.BOLD, 12), new Color(34, 139, 34)));
+
+        JTextField animalField = new JTextField();
+        JTextField locationField = new JTextField();
+        JTextField dateField = new JTextField();
+        JTextField positionField = new JTextField();
+        JTextField sightingZoneField = new JTextField();
+
+        styleTextField(animalField);
+        styleTextField(locationField);
+        styleTextField(dateField);
+        styleTextField(positionField);
+        styleTextField(sightingZoneField);
+
+        inputPanel.add(new JLabel("Animal:"));
+        inputPanel.add(animalField);
+        inputPanel.add(new JLabel("Location:"));
+        inputPanel.add(locationField);
+        inputPanel.add(new JLabel("Date (DD-MM-YYYY):"));
+        inputPanel.add(dateField);
+        inputPanel.add(new JLabel("Lat, Lon (optional):"));
+        inputPanel.add(positionField);
+        inputPanel.add(new JLabel("Zone ID (optional):"));
+        inputPanel.add(sightingZoneField);
+
+        GreenHoverButton addWildlifeBtn = new GreenHoverButton("Add Wildlife");
+        addWildlifeBtn.addActionListener(e -> {
+            if (!checkReady()) return;
+            if (animalField.getText().isEmpty() || locationField.getText().isEmpty() || dateField.getText().isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Please fill all fields!", "Warning", JOptionPane.WARNING_MESSAGE);
+            } else {
+                Wildlife sighting;
+                try {
+                    String[] position = positionField.getText().split(",", -1);
+                    if (position.length > 2) throw new IllegalArgumentException("Position must be lat, lon");
+                    double lat = Wildlife.parseDegrees(position[0], "Latitude");
+                    double lon = position.length == 2 ? Wildlife.parseDegrees(position[1], "Longitude") : Double.NaN;
+                    Wildlife.checkPosition(lat, lon);
+                    sighting = new Wildlife(animalField.getText(), locationField.getText(), dateField.getText(), lat, lon,
+                            sightingZoneField.getText());
+                } catch (IllegalArgumentException ex) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Warning", JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                try {
+                    repository.addWildlife(sighting);
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "Error saving wildlife record!", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                refreshWildlifeTable();
+                animalField.setText("");
+                locationField.setText("");
+                dateField.setText("");
+                positionField.setText("");
+                sightingZoneField.setText("");
+                JOptionPane.showMessageDialog(this, "Wildlife Record Added Successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+
+        inputPanel.add(addWildlifeBtn);
+
+        // Table Panel
+        wildlifeTableModel = new ListTableModel<>(() -> repository.snapshot().wildlifeList, new String[]{"Animal", "Location", "Date", "Position", "Zone"}, (wildlife, column) -> {
+            switch (column) {
+                case 0: return wildlife.animal;
+                case 1: return wildlife.location;
+                case 2: return wildlife.date;
+                case 3: return wildlife.hasPosition() ? wildlife.lat + ", " + wildlife.lon : "";
+                default: return wildlife.zoneId != null ? wildlife.zoneId : "";
+            }
+        });
+        JTable wildlifeTable = new JTable(wildlifeTableModel);
+        stylesTable(wildlifeTable);
+        JScrollPane scrollPane = new JScrollPane(wildlifeTable);
+
+        // Filter Panel
+        JTextField animalFilter = new JTextField(8);
+        JTextField locationFilter = new JTextField(8);
+        JTextField fromFilter = new JTextField(8);
+        JTextField toFilter = new JTextField(8);
+        JTextField sightingZoneFilter = new JTextField(6);
+        JPanel filterPanel = createFilterPanel(wildlifeTableModel,
+                new String[]{"Animal:", "Location:", "From:", "To:", "Zone:"},
+                new JTextField[]{animalFilter, locationFilter, fromFilter, toFilter, sightingZoneFilter},
+                () -> {
+                    String animal = animalFilter.getText().trim();
+                    String location = locationFilter.getText().trim();
+                    int[] rows = repository.findWildlife(animal.isEmpty() ? null : animal, location.isEmpty() ? null : location,
+                            filterDate(fromFilter.getText()), filterDate(toFilter.getText()));
+                    String zoneId = ForestZone.reference(sightingZoneFilter.getText());
+                    return sightings(zoneId == null ? rows : ForestIndex.intersect(rows, repository.findWildlifeInZone(zoneId)));
+                });
+
+        // Area Panel: a radius around a point (nearest first), or the box
+        // between two corners when no radius is given.
+        JTextField latFilter = new JTextField(7);
+        JTextField lonFilter = new JTextField(7);
+        JTextField kmFilter = new JTextField(4);
+        JTextField lat2Filter = new JTextField(7);
+        JTextField lon2Filter = new JTextField(7);
+        JPanel areaPanel = createFilterPanel(wildlifeTableModel,
+                new String[]{"Near lat:", "lon:", "within km:", "or box to lat:", "lon:"},
+                new JTextField[]{latFilter, lonFilter, kmFilter, lat2Filter, lon2Filter},
+                () -> {
+                    double lat = Wildlife.parseDegrees(latFilter.getText(), "Latitude");
+                    double lon = Wildlife.parseDegrees(lonFilter.getText(), "Longitude");
+                    if (Double.isNaN(lat) || Double.isNaN(lon)) throw new IllegalArgumentException("Enter a latitude and longitude!");
+                    if (!kmFilter.getText().trim().isEmpty()) {
+                        return sightings(repository.findWildlifeNear(lat, lon, Wildlife.parseDegrees(kmFilter.getText(), "Radius")));
+                    }
+                    double lat2 = Wildlife.parseDegrees(lat2Filter.getText(), "Latitude");
+                    double lon2 = Wildlife.parseDegrees(lon2Filter.getText(), "Longitude");
+                    if (Double.isNaN(lat2) || Double.isNaN(lon2)) throw new IllegalArgumentException("Enter a radius, or the other corner of a box!");
+                    // West to east as entered, so a box may cross the 180th meridian.
+                    return sightings(repository.findWildlifeInBox(Math.min(lat, lat2), Math.max(lat, lat2), lon, lon2));
+                });
+
+        JPanel queryPanel = new JPanel(new GridLayout(3, 1, 0, 5));
+        queryPanel.setOpaque(false);
+        queryPanel.add(createPrefixPanel(wildlifeTableModel, CsvImporter.Kind.WILDLIFE));
+        queryPanel.add(filterPanel);
+        queryPanel.add(areaPanel);
+
+        JPanel tablePanel = new JPanel(new BorderLayout(5, 5));
+        tablePanel.setOpaque(false);
+        tablePanel.add(queryPanel, BorderLayout.NORTH);
+        tablePanel.add(scrollPane, BorderLayout.CENTER);
+
+        panel.add(inputPanel, BorderLayout.NORTH);
+        panel.add(tablePanel, BorderLayout.CENTER);
+
+        refreshWildlifeTable();
+        return panel;
+    }
+
+    // Sightings per month for an animal and location, read from the rollup
+    // the index keeps up to date. Redrawn whenever sightings are added.
+    private JPanel createTrendsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(new Color(240, 255, 240));
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        JPanel queryPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        queryPanel.setBackground(new Color(220, 245, 220));
+        queryPanel.setBorder(new TitledBorder(new LineBorder(new Color(34, 139, 34), 2), "Sightings per Month", TitledBorder.LEFT, TitledBorder.TOP, new Font("Arial", Font.BOLD, 12), new Color(34, 139, 34)));
+
+        YearMonth now = YearMonth.now();
+        JTextField animalField = new JTextField(8);
+        JTextField locationField = new JTextField(8);
+        JTextField fromField = new JTextField(now.minusMonths(11).getMonthValue() + "-" + now.minusMonths(11).getYear(), 7);
+        JTextField toField = new JTextField(now.getMonthValue() + "-" + now.getYear(), 7);
+        JTextField[] fields = {animalField, locationField, fromField, toField};
+        String[] labels = {"Animal:", "Location:", "From (MM-YYYY):", "To (MM-YYYY):"};
+
+        DefaultTableModel trendsModel = new DefaultTableModel(new String[]{"Month", "Sightings"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable trendsTable = new JTable(trendsModel);
+        stylesTable(trendsTable);
+        JLabel resultLabel = new JLabel(" ");
+
+        // Silent when the months don't parse; the Show button reports that.
+        Runnable show = () -> {
+            YearMonth from = SightingRollup.parseMonth(fromField.getText());
+            YearMonth to = SightingRollup.parseMonth(toField.getText());
+            if (!dataLoaded || from == null || to == null) return;
+            String animal = animalField.getText().trim();
+            String location = locationField.getText().trim();
+
+            long start = System.nanoTime();
+            int[] counts = repository.monthlyCounts(animal.isEmpty() ? null : animal, location.isEmpty() ? null : location, from, to);
+            long micros = (System.nanoTime() - start) / 1000;
+
+            trendsModel.setRowCount(0);
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                trendsModel.addRow(new Object[]{from.plusMonths(i).toString(), counts[i]});
+                total += counts[i];
+            }
+            resultLabel.setText(total + " sighting(s) over " + counts.length + " month(s) in " + micros + " us");
+        };
+
+        GreenHoverButton showBtn = new GreenHoverButton("Show");
+        ActionListener onShow = e -> {
+            if (!checkReady()) return;
+            if (SightingRollup.parseMonth(fromField.getText()) == null || SightingRollup.parseMonth(toField.getText()) == null) {
+                JOptionPane.showMessageDialog(this, "Months must be MM-YYYY!", "Invalid Range", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            show.run();
+        };
+        showBtn.addActionListener(onShow);
+
+        for (int i = 0; i < fields.length; i++) {
+            styleTextField(fields[i]);
+            fields[i].addActionListener(onShow);
+            queryPanel.add(new JLabel(labels[i]));
+            queryPanel.add(fields[i]);
+        }
+        queryPanel.add(showBtn);
+        queryPanel.add(resultLabel);
+
+        panel.add(queryPanel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(trendsTable), BorderLayout.CENTER);
+
+        trendsRefresh = show;
+        show.run();
+        return panel;
+    }
+
+    // Runs every report on demand over a repository snapshot, on a worker
+    // thread, so edits and imports carry on while the reports compute.
+    private JPanel createReportsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(new Color(240, 255, 240));
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        JPanel reportsPanel = new JPanel(new GridLayout(0, 2, 10, 10));
+        reportsPanel.setBackground(new Color(240, 255, 240));
+        JLabel resultLabel = new JLabel(" ");
+
+        GreenHoverButton runBtn = new GreenHoverButton("Run Reports");
+        runBtn.addActionListener(e -> {
+            if (!checkReady()) return;
+            runBtn.setEnabled(false);
+            resultLabel.setText("Running reports...");
+            ForestRepository.Snapshot snapshot = repository.snapshot();
+            long start = System.nanoTime();
+            long timer = REPORTS.start();
+            new SwingWorker<List<ForestReports.Report>, Void>() {
+                @Override
+                protected List<ForestReports.Report> doInBackground() {
+                    return ForestReports.all(snapshot.zones, snapshot.trees, snapshot.wildlifeList);
+                }
+
+                @Override
+                protected void done() {
+                    runBtn.setEnabled(true);
+                    REPORTS.stop(timer);
+                    try {
+                        showReports(reportsPanel, get());
+                    } catch (Exception ex) {
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        REPORTS.failed(cause);
+                        resultLabel.setText("Reports failed: " + cause);
+                        return;
+                    }
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+                    resultLabel.setText("All reports in " + millis + " ms on " + Runtime.getRuntime().availableProcessors() + " core(s)");
+                }
+            }.execute();
+        });
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        controlPanel.setOpaque(false);
+        controlPanel.add(runBtn);
+        controlPanel.add(resultLabel);
+
+        panel.add(controlPanel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(reportsPanel), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private void showReports(JPanel reportsPanel, List<ForestReports.Report> reports) {
+        reportsPanel.removeAll();
+        for (ForestReports.Report report : reports) {
+            DefaultTableModel model = new DefaultTableModel(report.columns, 0) {
+                @Override
+                public boolean isCellEditable(int row, int column) {
+                    return false;
+                }
+            };
+            for (Object[] row : report.rows) model.addRow(row);
+            JTable table = new JTable(model);
+            stylesTable(table);
+            JScrollPane scrollPane = new JScrollPane(table);
+            scrollPane.setBorder(new TitledBorder(new LineBorder(new Color(34, 139, 34), 2), report.title + " (" + report.timing() + ")", TitledBorder.LEFT, TitledBorder.TOP, new Font("Arial", Font.BOLD, 12), new Color(34, 139, 34)));
+            reportsPanel.add(scrollPane);
+        }
+        reportsPanel.revalidate();
+        reportsPanel.repaint();
+    }
+
+    // The forest:type=Diagnostics MBean's values: operation latencies and
+    // failures above, record counts, file sizes, heap estimates and
+    // counters below. Refreshed every second while the tab is showing.
+    private JPanel createDiagnosticsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(new Color(240, 255, 240));
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        String[] operationColumns = {"Operation", "Count", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Failures", "Last Failure"};
+        DefaultTableModel operationsModel = new DefaultTableModel(operationColumns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        DefaultTableModel gaugesModel = new DefaultTableModel(new String[]{"Metric", "Value"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable operationsTable = new JTable(operationsModel);
+        JTable gaugesTable = new JTable(gaugesModel);
+        stylesTable(operationsTable);
+        stylesTable(gaugesTable);
+
+        JPanel tables = new JPanel(new GridLayout(2, 1, 10, 10));
+        tables.setOpaque(false);
+        JScrollPane operationsPane = new JScrollPane(operationsTable);
+        operationsPane.setBorder(new TitledBorder(new LineBorder(new Color(34, 139, 34), 2), "Operations", TitledBorder.LEFT, TitledBorder.TOP, new Font("Arial", Font.BOLD, 12), new Color(34, 139, 34)));
+        JScrollPane gaugesPane = new JScrollPane(gaugesTable);
+        gaugesPane.setBorder(new TitledBorder(new LineBorder(new Color(34, 139, 34), 2), "Records, Files & Heap", TitledBorder.LEFT, TitledBorder.TOP, new Font("Arial", Font.BOLD, 12), new Color(34, 139, 34)));
+        tables.add(operationsPane);
+        tables.add(gaugesPane);
+
+        JLabel infoLabel = new JLabel("Also published over JMX as " + ForestDiagnostics.NAME
+                + (ForestMetrics.ENABLED ? "" : " (latency recording off: -Dforest.metrics=false)"));
+        infoLabel.setForeground(new Color(34, 139, 34));
+
+        // gauges() lists the data directory and takes the tree read lock, so
+        // the numbers are gathered on a worker and the EDT only fills the
+        // tables; a tick is skipped while the last one is still gathering.
+        AtomicBoolean gathering = new AtomicBoolean();
+        Runnable refresh = () -> {
+            if (!gathering.compareAndSet(false, true)) return;
+            new SwingWorker<Map<String, Object>, Void>() {
+                private List<ForestDiagnostics.OperationStats> operations;
+
+                @Override
+                protected Map<String, Object> doInBackground() {
+                    operations = diagnostics.operations();
+                    return diagnostics.gauges();
+                }
+
+                @Override
+                protected void done() {
+                    gathering.set(false);
+                    Map<String, Object> gauges;
+                    try {
+                        gauges = get();
+                    } catch (Exception e) {
+                        return;
+                    }
+                    operationsModel.setRowCount(0);
+                    for (ForestDiagnostics.OperationStats op : operations) {
+                        operationsModel.addRow(new Object[]{op.name, op.count, String.format("%.3f", op.p50Millis), String.format("%.3f", op.p90Millis),
+                                String.format("%.3f", op.p99Millis), String.format("%.3f", op.maxMillis), op.failures,
+                                op.lastFailure == null ? "" : op.lastFailure});
+                    }
+                    gaugesModel.setRowCount(0);
+                    gauges.forEach((name, value) -> {
+                        boolean bytes = value instanceof Long && (name.startsWith("files.") || name.startsWith("heap.") || name.startsWith("jvm."));
+                        gaugesModel.addRow(new Object[]{name, bytes ? String.format("%,.1f MB", (Long) value / 1e6)
+                                : value instanceof Long ? String.format("%,d", (Long) value) : value});
+                    });
+                }
+            }.execute();
+        };
+        new javax.swing.Timer(1000, e -> {
+            if (panel.isShowing()) refresh.run();
+        }).start();
+        refresh.run();
+
+        panel.add(infoLabel, BorderLayout.NORTH);
+        panel.add(tables, BorderLayout.CENTER);
+        return panel;
+    }
+
+    private JPanel createFooterPanel() {
+        JPanel footer = new JPanel(new BorderLayout());
+        footer.setBackground(new Color(220, 245, 220));
+
+        // Status Panel
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        statusPanel.setOpaque(false);
+
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        statusLabel.setForeground(new Color(34, 139, 34));
+
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setPreferredSize(new Dimension(200, 18));
+        progressBar.setForeground(new Color(34, 139, 34));
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+
+        // Autosave backlog, polled; the full status is in the tooltip
+        autosaveLabel = new JLabel(" ");
+        autosaveLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        autosaveLabel.setForeground(new Color(90, 110, 90));
+        new javax.swing.Timer(2000, e -> {
+            if (!dataLoaded) return;
+            long unsaved = repository.unsavedRecords();
+            autosaveLabel.setText(unsaved == 0 ? "✔ All changes checkpointed" : "⟳ " + unsaved + " change(s) pending autosave");
+            autosaveLabel.setToolTipText(repository.saveStatus());
+        }).start();
+
+        statusPanel.add(progressBar);
+        statusPanel.add(statusLabel);
+        statusPanel.add(autosaveLabel);
+
+        // Button Panel
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
+        buttonPanel.setOpaque(false);
+
+        GreenHoverButton saveBtn = new GreenHoverButton("💾 Save Data");
+        saveBtn.addActionListener(e -> saveData(() ->
+                JOptionPane.showMessageDialog(this, "Data Saved Successfully!", "Success", JOptionPane.INFORMATION_MESSAGE)));
+
+        GreenHoverButton exitBtn = new GreenHoverButton("❌ Exit");
+        exitBtn.setBackground(new Color(200, 50, 50));
+        exitBtn.addActionListener(e -> {
+            // Nothing can have changed before the load finishes
+            if (!dataLoaded) System.exit(0);
+            stopWatching(() -> saveData(() -> System.exit(0)));
+        });
+
+        GreenHoverButton importBtn = new GreenHoverButton("📥 Import CSV");
+        importBtn.addActionListener(e -> importCsv());
+
+        watchBtn = new GreenHoverButton("📂 Watch Folder");
+        watchBtn.addActionListener(e -> {
+            if (dropIngestor == null) {
+                startWatching();
+            } else {
+                stopWatching(() -> { });
+            }
+        });
+        new javax.swing.Timer(DROP_REFRESH_MILLIS, e -> {
+            if (!sightingsAppended.getAndSet(false)) return;
+            refreshWildlifeTable();
+            if (dropIngestor != null) statusLabel.setText("Drop folder: " + dropIngestor.summary());
+        }).start();
+
+        buttonPanel.add(importBtn);
+        buttonPanel.add(watchBtn);
+        buttonPanel.add(saveBtn);
+        buttonPanel.add(exitBtn);
+
+        footer.add(statusPanel, BorderLayout.WEST);
+        footer.add(buttonPanel, BorderLayout.EAST);
+        return footer;
+    }
+
+    // Parses on worker threads and inserts each chunk straight into the
+    // repository from the SwingWorker; the EDT only redraws the tables.
+    private void importCsv() {
+        if (!checkReady()) return;
+        String[] kinds = {"Zones", "Trees", "Wildlife"};
+        Object choice = JOptionPane.showInputDialog(this, "Record type in the file:", "Import CSV",
+                JOptionPane.QUESTION_MESSAGE, null, kinds, kinds[tabbedPane.getSelectedIndex() % kinds.length]);
+        if (choice == null) return;
+        JFileChooser chooser = new JFileChooser(".");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV files", "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        Path file = chooser.getSelectedFile().toPath();
+        CsvImporter importer = new CsvImporter(CsvImporter.Kind.parse(choice.toString()), repository);
+        CsvImporter.Result result = new CsvImporter.Result();
+        long start = System.nanoTime();
+        long timer = IMPORT.start();
+        showProgress("Importing " + file.getFileName() + "...", true);
+
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                importer.parse(file, chunk -> {
+                    importer.insert(chunk, result);
+                    String status = "Imported " + result.imported + " of " + result.rows + " rows...";
+                    SwingUtilities.invokeLater(() -> {
+                        refreshZonesTable();
+                        refreshTreesTable();
+                        refreshWildlifeTable();
+                        statusLabel.setText(status);
+                    });
+                });
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                result.nanos = System.nanoTime() - start;
+                IMPORT.stop(timer);
+                hideProgress(result.toString());
+                try {
+                    get();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    IMPORT.failed(cause);
+                    JOptionPane.showMessageDialog(ForestManagementSystemGUI.this, "Import failed: " + cause, "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                StringBuilder message = new StringBuilder(result.toString());
+                int shown = Math.min(result.errors.size(), 20);
+                for (int i = 0; i < shown; i++) message.append('\n').append(result.errors.get(i));
+                if (result.rejected > shown) message.append("\n... ").append(result.rejected - shown).append(" more rejected rows");
+                JOptionPane.showMessageDialog(ForestManagementSystemGUI.this, message.toString(), "Import Complete",
+                        result.rejected == 0 ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+            }
+        }.execute();
+    }
+
+    // Age rollover, species or zone reassignment and purges over the trees
+    // the conditions pick (blank leaves one open); see TreeUpdates. The job
+    // runs on a SwingWorker and the trees table reloads after it.
+    private void bulkUpdateTrees() {
+        if (!checkReady()) return;
+        JComboBox<String> kind = new JComboBox<>(new String[]{"Add years to age", "Set species", "Set zone", "Purge"});
+        JTextField value = new JTextField(10);
+        JTextField species = new JTextField(10);
+        JTextField minAge = new JTextField(4);
+        JTextField maxAge = new JTextField(4);
+        JTextField zoneId = new JTextField(6);
+        JTextField idFile = new JTextField(16);
+        JPanel form = new JPanel(new GridLayout(7, 2, 5, 5));
+        form.add(new JLabel("Job:"));
+        form.add(kind);
+        form.add(new JLabel("Years / species / zone (blank for none):"));
+        form.add(value);
+        form.add(new JLabel("Where species is:"));
+        form.add(species);
+        form.add(new JLabel("Age from:"));
+        form.add(minAge);
+        form.add(new JLabel("Age to:"));
+        form.add(maxAge);
+        form.add(new JLabel("Zone:"));
+        form.add(zoneId);
+        form.add(new JLabel("File of tree IDs:"));
+        form.add(idFile);
+        if (JOptionPane.showConfirmDialog(this, form, "Bulk Update Trees", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) return;
+
+        TreeUpdates.Job job;
+        try {
+            Map<String, String> conditions = new HashMap<>();
+            if (!species.getText().trim().isEmpty()) conditions.put("species", species.getText().trim());
+            if (!minAge.getText().trim().isEmpty()) conditions.put("minAge", minAge.getText().trim());
+            if (!maxAge.getText().trim().isEmpty()) conditions.put("maxAge", maxAge.getText().trim());
+            if (!zoneId.getText().trim().isEmpty()) conditions.put("zoneId", zoneId.getText().trim());
+            TreeUpdates.Selection selection = TreeUpdates.Selection.parse(conditions);
+            if (!idFile.getText().trim().isEmpty()) selection = selection.withIds(TreeUpdates.readIds(Paths.get(idFile.getText().trim())));
+            switch (kind.getSelectedIndex()) {
+                case 0: job = TreeUpdates.Job.age(Integer.parseInt(value.getText().trim()), selection); break;
+                case 1: job = TreeUpdates.Job.species(value.getText(), selection); break;
+                case 2: job = TreeUpdates.Job.zone(value.getText(), selection); break;
+                default: job = TreeUpdates.Job.purge(selection); break;
+            }
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Years must be a number!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        } catch (IllegalArgumentException | IOException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (job.kind == TreeUpdates.Kind.PURGE && JOptionPane.showConfirmDialog(this, "Purge " + job.selection + "?",
+                "Purge Trees", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) != JOptionPane.YES_OPTION) return;
+
+        showProgress("Updating trees...", true);
+        new SwingWorker<TreeUpdates.Result, Void>() {
+            @Override
+            protected TreeUpdates.Result doInBackground() throws Exception {
+                return repository.updateTrees(job);
+            }
+
+            @Override
+            protected void done() {
+                treesTableModel.reload();
+                try {
+                    hideProgress(get().toString());
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    hideProgress("Bulk update failed");
+                    JOptionPane.showMessageDialog(ForestManagementSystemGUI.this, "Bulk update failed: " + cause, "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    // Ingests sighting files dropped into a chosen folder; see DropIngestor.
+    private void startWatching() {
+        if (!checkReady()) return;
+        JFileChooser chooser = new JFileChooser(".");
+        chooser.setDialogTitle("Folder to watch for sighting CSV files");
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            dropIngestor = new DropIngestor(repository, chooser.getSelectedFile().toPath(),
+                    () -> sightingsAppended.set(true), message -> SwingUtilities.invokeLater(() -> statusLabel.setText(message)));
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Cannot watch folder: " + e, "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        watchBtn.setText("⏹ Stop Watching");
+        watchBtn.setToolTipText("Watching " + dropIngestor.directory().toAbsolutePath());
+        statusLabel.setText("Watching " + dropIngestor.directory().getFileName() + " for sighting files");
+    }
+
+    // Waits, on a SwingWorker, for the files already taken in to be
+    // appended, then runs then on the EDT.
+    private void stopWatching(Runnable then) {
+        if (dropIngestor == null) {
+            then.run();
+            return;
+        }
+        DropIngestor stopping = dropIngestor;
+        dropIngestor = null;
+        watchBtn.setEnabled(false);
+        statusLabel.setText("Stopping the drop folder watch...");
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                stopping.stop();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                refreshWildlifeTable();
+                statusLabel.setText("Stopped watching; drop folder: " + stopping.summary());
+                watchBtn.setText("📂 Watch Folder");
+                watchBtn.setToolTipText(null);
+                watchBtn.setEnabled(true);
+                then.run();
+            }
+        }.execute();
+    }
+
+    private void showProgress(String status, boolean indeterminate) {
+        statusLabel.setText(status);
+        progressBar.setIndeterminate(indeterminate);
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+    }
+
+    private void hideProgress(String status) {
+        progressBar.setVisible(false);
+        statusLabel.setText(status);
+    }
+
+    // Edits wait for the background load so they never race it, and are
+    // refused for good if it failed: saving would overwrite the data on disk.
+    private boolean checkReady() {
+        if (loadError != null) {
+            JOptionPane.showMessageDialog(this, "Data could not be loaded (" + loadError + "); edits are disabled.", "Error", JOptionPane.ERROR_MESSAGE);
+        } else if (!dataLoaded) {
+            JOptionPane.showMessageDialog(this, "Data is still loading, please wait.", "Please Wait", JOptionPane.INFORMATION_MESSAGE);
+        }
+        return dataLoaded;
+    }
+
+    // ID lookup bar shown above a table; hits the primary key index, not the table model.
+    private JPanel createSearchPanel(String label, Consumer<String> onSearch) {
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        searchPanel.setOpaque(false);
+
+        JTextField searchField = new JTextField(20);
+        styleTextField(searchField);
+
+        GreenHoverButton searchBtn = new GreenHoverButton("Search");
+        ActionListener search = e -> {
+            if (!checkReady()) return;
+            String id = searchField.getText().trim();
+            if (id.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Please enter an ID!", "Warning", JOptionPane.WARNING_MESSAGE);
+            } else {
+                onSearch.accept(id);
+            }
+        };
+        searchBtn.addActionListener(search);
+        searchField.addActionListener(search);
+
+        searchPanel.add(new JLabel(label));
+        searchPanel.add(searchField);
+        searchPanel.add(searchBtn);
+        return searchPanel;
+    }
+
+    // Search-as-you-type bar above a table: shows the rows whose chosen field
+    // starts with the typed text, from the prefix index, once typing pauses
+    // for SEARCH_DELAY_MILLIS. Clearing the text shows every row again.
+    private JPanel createPrefixPanel(ListTableModel<?> model, CsvImporter.Kind kind) {
+        JPanel prefixPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        prefixPanel.setOpaque(false);
+
+        JComboBox<String> fieldBox = new JComboBox<>(ForestIndex.prefixFields(kind).toArray(new String[0]));
+        fieldBox.setFont(new Font("Arial", Font.PLAIN, 12));
+        JTextField prefixField = new JTextField(15);
+        styleTextField(prefixField);
+        JLabel resultLabel = new JLabel(" ");
+
+        javax.swing.Timer debounce = new javax.swing.Timer(SEARCH_DELAY_MILLIS, e -> {
+            String prefix = prefixField.getText().trim();
+            if (prefix.isEmpty()) {
+                if (model.isFiltered()) model.reload();
+                resultLabel.setText(" ");
+                return;
+            }
+            if (!dataLoaded) return;
+            long start = System.nanoTime();
+            ForestRepository.Rows<?> matches = repository.queryPrefix(kind, (String) fieldBox.getSelectedItem(), prefix, SEARCH_LIMIT);
+            long micros = (System.nanoTime() - start) / 1000;
+            model.setFilter(matches);
+            resultLabel.setText(matches.total + " match(es) in " + micros + " us"
+                    + (matches.total > matches.rows.length ? ", first " + matches.rows.length + " shown" : ""));
+        });
+        debounce.setRepeats(false);
+        prefixField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+        });
+        fieldBox.addActionListener(e -> debounce.restart());
+
+        prefixPanel.add(new JLabel("Starts with:"));
+        prefixPanel.add(fieldBox);
+        prefixPanel.add(prefixField);
+        prefixPanel.add(resultLabel);
+        return prefixPanel;
+    }
+
+    // Row of filter fields above a table. The query runs against the
+    // secondary indexes and the table then shows only the matching rows.
+    private JPanel createFilterPanel(ListTableModel<?> model, String[] labels, JTextField[] fields, Supplier<ForestRepository.Rows<?>> query) {
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        filterPanel.setOpaque(false);
+
+        JLabel resultLabel = new JLabel(" ");
+        GreenHoverButton filterBtn = new GreenHoverButton("Filter");
+        GreenHoverButton clearBtn = new GreenHoverButton("Clear");
+
+        ActionListener filter = e -> {
+            if (!checkReady()) return;
+            try {
+                long start = System.nanoTime();
+                ForestRepository.Rows<?> matches = query.get();
+                long micros = (System.nanoTime() - start) / 1000;
+                model.setFilter(matches);
+                resultLabel.setText(matches.rows.length + " match(es) in " + micros + " us");
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Invalid Filter", JOptionPane.WARNING_MESSAGE);
+            }
+        };
+        filterBtn.addActionListener(filter);
+        clearBtn.addActionListener(e -> {
+            for (JTextField field : fields) field.setText("");
+            if (model.isFiltered()) model.reload();
+            resultLabel.setText(" ");
+        });
+
+        for (int i = 0; i < fields.length; i++) {
+            styleTextField(fields[i]);
+            fields[i].addActionListener(filter);
+            filterPanel.add(new JLabel(labels[i]));
+            filterPanel.add(fields[i]);
+        }
+        filterPanel.add(filterBtn);
+        filterPanel.add(clearBtn);
+        filterPanel.add(resultLabel);
+        return filterPanel;
+    }
+
+    // Sighting rows with the current view: sightings are only ever
+    // appended, so it holds every row a query returned before.
+    private ForestRepository.Rows<Wildlife> sightings(int[] rows) {
+        return new ForestRepository.Rows<>(rows, repository.snapshot().wildlifeList, rows.length);
+    }
+
+    // Blank means open-ended; anything else must be DD-MM-YYYY.
+    private static int filterDate(String text) {
+        if (text.trim().isEmpty()) return ForestIndex.NO_DATE;
+        int day = ForestIndex.epochDay(text);
+        if (day == ForestIndex.NO_DATE) throw new IllegalArgumentException("Dates must be DD-MM-YYYY!");
+        return day;
+    }
+
+    private void styleTextField(JTextField field) {
+        field.setFont(new Font("Arial", Font.PLAIN, 12));
+        field.setBorder(new LineBorder(new Color(34, 139, 34), 2));
+        field.setBackground(Color.WHITE);
+    }
+
+    private void stylesTable(JTable table) {
+        table.setFont(new Font("Arial", Font.PLAIN, 12));
+        table.setRowHeight(25);
+        table.setBackground(Color.WHITE);
+        table.setForeground(new Color(34, 139, 34));
+        table.setSelectionBackground(new Color(144, 238, 144));
+        table.setSelectionForeground(new Color(34, 139, 34));
+
+        JTableHeader header = table.getTableHeader();
+        header.setBackground(new Color(34, 139, 34));
+        header.setForeground(Color.WHITE);
+        header.setFont(new Font("Arial", Font.BOLD, 12));
+    }
+
+    private void refreshZonesTable() {
+        long start = REFRESH_ZONES.start();
+        if (zonesTableModel != null && dataLoaded) zonesTableModel.rowsAppended();
+        REFRESH_ZONES.stop(start);
+    }
+
+    private void refreshTreesTable() {
+        long start = REFRESH_TREES.start();
+        if (treesTableModel != null && dataLoaded) treesTableModel.rowsAppended();
+        REFRESH_TREES.stop(start);
+    }
+
+    private void refreshWildlifeTable() {
+        long start = REFRESH_WILDLIFE.start();
+        if (wildlifeTableModel != null && dataLoaded) wildlifeTableModel.rowsAppended();
+        if (trendsRefresh != null) trendsRefresh.run();
+        REFRESH_WILDLIFE.stop(start);
+    }
+
+    // Adds are journaled as they happen; saving folds the journal into
+    // the forest.dat snapshot, written on the journal's compactor thread.
+    // onSaved runs on the EDT.
+    private void saveData(Runnable onSaved) {
+        if (!checkReady()) return;
+        showProgress("Saving data...", true);
+        long start = System.nanoTime();
+        repository.checkpointAsync().whenComplete((v, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                hideProgress("Save failed");
+                JOptionPane.showMessageDialog(this, "Error saving data: " + cause, "Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                hideProgress("Saved in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                onSaved.run();
+            }
+        }));
+    }
+
+    // Reads forest.dat and the journal on a worker thread. Until done()
+    // runs, checkReady() holds back edits so none can race the load; if the
+    // load fails they stay held back.
+    private void loadData() {
+        showProgress("Loading data...", false);
+        long start = System.nanoTime();
+        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() throws Exception {
+                // Here rather than on the EDT: starting the platform MBean
+                // server takes a moment.
+                try {
+                    diagnostics.register();
+                } catch (javax.management.JMException e) {
+                    System.err.println("Diagnostics MBean not registered: " + e);
+                }
+                return repository.load(this::setProgress);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    dataLoaded = true;
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    loadError = String.valueOf(cause);
+                    hideProgress("Load failed");
+                    JOptionPane.showMessageDialog(ForestManagementSystemGUI.this, "Error loading data: " + cause, "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                if (zonesTableModel != null) zonesTableModel.reload();
+                if (treesTableModel != null) treesTableModel.reload();
+                if (wildlifeTableModel != null) wildlifeTableModel.reload();
+                if (trendsRefresh != null) trendsRefresh.run();
+                ForestRepository.Snapshot snapshot = repository.snapshot();
+                hideProgress("Loaded " + snapshot.zones.size() + " zones, " + snapshot.trees.size() + " trees, " + snapshot.wildlifeList.size()
+                        + " sightings in " + (System.nanoTime() - start) / 1_000_000 + " ms (first paint "
+                        + firstPaintMillis + " ms)");
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) progressBar.setValue((Integer) e.getNewValue());
+        });
+        worker.execute();
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> new ForestManagementSystemGUI());
+    }
+}
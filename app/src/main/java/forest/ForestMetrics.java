@@ -0,0 +1,107 @@
+package forest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// ===================== METRICS =====================
+
+// Process-wide operation metrics behind the Diagnostics MBean and the GUI
+// Diagnostics tab: one Operation (a LatencyHistogram plus a failure count
+// and the last failure) per timed operation, and named counters.
+//
+// Operations and counters are looked up by name once and kept in static
+// fields, so recording takes no lock and allocates nothing. Reading the
+// clock twice and recording still costs a couple of hundred nanoseconds,
+// as much as an index lookup, so operations that fast are sampled: every
+// call is counted, but only about one in SAMPLE_EVERY is timed, which is
+// plenty for percentiles and keeps the cost near a counter increment.
+// -Dforest.metrics=false skips the counting and timing altogether;
+// failures are counted either way.
+final class ForestMetrics {
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("forest.metrics"));
+    static final int SAMPLE_EVERY = 16;
+
+    // start()'s result for a call that is not timed.
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final ConcurrentHashMap<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    private ForestMetrics() {
+    }
+
+    // Latency and failures of one kind of operation.
+    static final class Operation {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        private final boolean sampled;
+        private final LongAdder calls = new LongAdder();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile String lastFailure;
+
+        private Operation(String name, boolean sampled) {
+            this.name = name;
+            this.sampled = sampled;
+        }
+
+        // Pass the result to stop() when the operation ends.
+        long start() {
+            if (!ENABLED) return NOT_TIMED;
+            calls.increment();
+            if (sampled && ThreadLocalRandom.current().nextInt(SAMPLE_EVERY) != 0) return NOT_TIMED;
+            return System.nanoTime();
+        }
+
+        void stop(long start) {
+            if (start != NOT_TIMED) latency.record(System.nanoTime() - start);
+        }
+
+        // Calls started, timed or not.
+        long count() {
+            return calls.sum();
+        }
+
+        void failed(Throwable e) {
+            failures.incrementAndGet();
+            lastFailure = e.toString();
+        }
+
+        long failures() {
+            return failures.get();
+        }
+
+        // null until something failed.
+        String lastFailure() {
+            return lastFailure;
+        }
+    }
+
+    // An operation whose every call is timed.
+    static Operation operation(String name) {
+        return OPERATIONS.computeIfAbsent(name, n -> new Operation(n, false));
+    }
+
+    // An operation too fast to time every call; see SAMPLE_EVERY.
+    static Operation sampledOperation(String name) {
+        return OPERATIONS.computeIfAbsent(name, n -> new Operation(n, true));
+    }
+
+    static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, c -> new LongAdder());
+    }
+
+    // Sorted by name.
+    static Map<String, Operation> operations() {
+        return new TreeMap<>(OPERATIONS);
+    }
+
+    static Map<String, Long> counters() {
+        Map<String, Long> out = new TreeMap<>();
+        COUNTERS.forEach((name, adder) -> out.put(name, adder.sum()));
+        return out;
+    }
+}
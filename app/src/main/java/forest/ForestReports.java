@@ -0,0 +1,173 @@
+package forest;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// ===================== REPORTS =====================
+
+// Inventory reports over the live lists. Every report is a parallel stream
+// over list rows, so the work is split across the common fork/join pool and
+// per-thread partial results are merged at the end. Pass the lists of a
+// ForestRepository snapshot: they never change, so reports can run on any
+// thread while edits carry on.
+//
+// When trees live in a TreeColumns store the reports read the age and
+// species-code columns directly instead of materializing Tree objects.
+class ForestReports {
+    static final int HISTOGRAM_BUCKETS = 20;
+
+    // One finished report: a small table plus how long it took to compute.
+    static class Report {
+        final String title;
+        final String[] columns;
+        final List<Object[]> rows = new ArrayList<>();
+        long nanos;
+
+        Report(String title, String... columns) {
+            this.title = title;
+            this.columns = columns;
+        }
+
+        String timing() {
+            return String.format("%.2f ms", nanos / 1e6);
+        }
+
+        public String toString() {
+            StringBuilder sb = new StringBuilder("--- " + title + " (" + timing() + ") ---\n");
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) sb.append("  ");
+                    sb.append(String.format(i == 0 ? "%-20s" : "%12s", row[i]));
+                }
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    static List<Report> all(List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList) {
+        return Arrays.asList(speciesDistribution(trees), ageStatistics(trees), ageHistogram(trees),
+                sightingsPerAnimal(wildlifeList), zonesPerOfficer(zones));
+    }
+
+    // --------------- Trees ----------------
+
+    static Report speciesDistribution(List<Tree> trees) {
+        Report report = new Report("Species Distribution", "Species", "Trees", "Share");
+        long start = System.nanoTime();
+        Map<String, Long> counts;
+        if (trees instanceof TreeColumns) {
+            TreeColumns columns = (TreeColumns) trees;
+            int codes = columns.dictionarySize();
+            long[] byCode = IntStream.range(0, columns.size()).parallel().collect(
+                    () -> new long[codes], (acc, row) -> acc[columns.speciesCodeAt(row)]++, ForestReports::addInto);
+            counts = new HashMap<>();
+            for (int c = 0; c < codes; c++) {
+                if (byCode[c] > 0) counts.put(columns.speciesForCode(c), byCode[c]);
+            }
+        } else {
+            counts = trees.parallelStream().collect(Collectors.groupingBy(t -> t.species, Collectors.counting()));
+        }
+        addCounts(report, counts, trees.size());
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // Mean and exact percentiles; the ages are copied out and parallel-sorted.
+    static Report ageStatistics(List<Tree> trees) {
+        Report report = new Report("Tree Age Statistics", "Statistic", "Age");
+        long start = System.nanoTime();
+        int[] ages = rows(trees.size()).map(ageColumn(trees)).toArray();
+        if (ages.length > 0) {
+            Arrays.parallelSort(ages);
+            double mean = (double) IntStream.of(ages).parallel().asLongStream().sum() / ages.length;
+            report.rows.add(new Object[]{"Count", ages.length});
+            report.rows.add(new Object[]{"Mean", String.format("%.2f", mean)});
+            report.rows.add(new Object[]{"Min", ages[0]});
+            report.rows.add(new Object[]{"P25", percentile(ages, 25)});
+            report.rows.add(new Object[]{"Median", percentile(ages, 50)});
+            report.rows.add(new Object[]{"P75", percentile(ages, 75)});
+            report.rows.add(new Object[]{"P90", percentile(ages, 90)});
+            report.rows.add(new Object[]{"P99", percentile(ages, 99)});
+            report.rows.add(new Object[]{"Max", ages[ages.length - 1]});
+        }
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // At most HISTOGRAM_BUCKETS equal-width buckets from the youngest to the oldest tree.
+    static Report ageHistogram(List<Tree> trees) {
+        Report report = new Report("Tree Age Histogram", "Ages", "Trees", "Share");
+        long start = System.nanoTime();
+        IntUnaryOperator age = ageColumn(trees);
+        IntSummaryStatistics stats = rows(trees.size()).map(age).summaryStatistics();
+        if (stats.getCount() > 0) {
+            long min = stats.getMin();
+            long span = (long) stats.getMax() - min + 1;
+            long width = Math.max(1, (span + HISTOGRAM_BUCKETS - 1) / HISTOGRAM_BUCKETS);
+            int buckets = (int) ((span + width - 1) / width);
+            long[] counts = rows(trees.size()).collect(
+                    () -> new long[buckets], (acc, row) -> acc[(int) ((age.applyAsInt(row) - min) / width)]++, ForestReports::addInto);
+            for (int b = 0; b < buckets; b++) {
+                long lo = min + b * width;
+                report.rows.add(new Object[]{lo + " - " + (lo + width - 1), counts[b], share(counts[b], stats.getCount())});
+            }
+        }
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // --------------- Wildlife and zones ----------------
+
+    static Report sightingsPerAnimal(List<Wildlife> wildlifeList) {
+        Report report = new Report("Sightings per Animal", "Animal", "Sightings", "Share");
+        long start = System.nanoTime();
+        Map<String, Long> counts = wildlifeList.parallelStream().collect(Collectors.groupingBy(w -> w.animal, Collectors.counting()));
+        addCounts(report, counts, wildlifeList.size());
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    static Report zonesPerOfficer(List<ForestZone> zones) {
+        Report report = new Report("Zones per Officer", "Officer", "Zones", "Share");
+        long start = System.nanoTime();
+        Map<String, Long> counts = zones.parallelStream().collect(Collectors.groupingBy(z -> z.officer, Collectors.counting()));
+        addCounts(report, counts, zones.size());
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // --------------- Helpers ----------------
+
+    private static IntStream rows(int size) {
+        return IntStream.range(0, size).parallel();
+    }
+
+    private static IntUnaryOperator ageColumn(List<Tree> trees) {
+        if (trees instanceof TreeColumns) return ((TreeColumns) trees)::age;
+        return row -> trees.get(row).age;
+    }
+
+    private static void addInto(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) into[i] += from[i];
+    }
+
+    // Largest count first, ties by name.
+    private static void addCounts(Report report, Map<String, Long> counts, long total) {
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(e -> report.rows.add(new Object[]{e.getKey(), e.getValue(), share(e.getValue(), total)}));
+    }
+
+    // Nearest-rank percentile of a sorted array.
+    private static int percentile(int[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static String share(long count, long total) {
+        return String.format("%.1f%%", total == 0 ? 0 : count * 100.0 / total);
+    }
+}
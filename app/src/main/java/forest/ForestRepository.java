@@ -0,0 +1,833 @@
+package forest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.function.ToLongFunction;
+
+// ===================== REPOSITORY =====================
+
+// The one home of the zone, tree and sighting records, shared by the
+// console and Swing front ends and by background jobs (imports, saves,
+// reports). Owns the lists, the ForestIndex and the ForestJournal.
+//
+// Reads of the records are lock-free: snapshot() hands out read-only views
+// of the three lists as of the last finished write, published through
+// volatile fields. Writes are striped by record kind: each kind has a
+// read/write lock guarding its list and its part of the index, so a tree
+// import never waits for a sighting being added. Index lookups take the
+// read side of their kind's lock.
+//
+// A write is journaled first and only then appended and published, so a
+// reader never sees a record that is not on disk and a failed write leaves
+// nothing to undo. Every write holds the commit gate shared from journal
+// append to publish; a checkpoint holds it exclusively just long enough to
+// roll the journal segment and take the snapshot, so the saved checkpoint
+// always matches the segments it replaces.
+//
+// Each save or autosave checkpoint is followed by rewriting the
+// ZonePartitions files of the zones written to since their files were last
+// written, from the same snapshot.
+//
+// Bulk tree jobs (TreeUpdates: age rollover, species or zone reassignment,
+// purges) change the tree records in place rather than appending. They
+// hold the tree lock like an add, so lookups wait for them, but a snapshot
+// taken before a job can see its changes; a purge, which renumbers the
+// rows, publishes a fresh tree view.
+//
+// Sightings older than the hot window (SightingArchive.hotMonths) are
+// moved into the SightingArchive on load. The wildlife list, its index,
+// the journal's checkpoints and the zone files then hold only the hot
+// sightings; the wildlife view in snapshot() puts the archived ones in
+// front of them, and the sighting queries add what the archive finds to
+// what the index finds, with the index's rows moved up past the archived
+// ones. Prefix search covers the hot sightings only.
+//
+// Loads, saves, adds and index lookups are timed into ForestMetrics, and
+// their failures counted there before they are thrown on.
+class ForestRepository {
+    private static final ForestMetrics.Operation LOAD = ForestMetrics.operation("loadData");
+    private static final ForestMetrics.Operation SAVE = ForestMetrics.operation("saveData");
+    private static final ForestMetrics.Operation COMPACTION = ForestMetrics.operation("compaction");
+    private static final ForestMetrics.Operation ARCHIVE = ForestMetrics.operation("archiveSightings");
+    private static final ForestMetrics.Operation ADD_ZONES = ForestMetrics.operation("addZones");
+    private static final ForestMetrics.Operation ADD_TREES = ForestMetrics.operation("addTrees");
+    private static final ForestMetrics.Operation ADD_WILDLIFE = ForestMetrics.operation("addWildlife");
+    private static final ForestMetrics.Operation UPDATE_TREES = ForestMetrics.operation("updateTrees");
+    private static final ForestMetrics.Operation SEARCH_ZONE = ForestMetrics.sampledOperation("searchZone");
+    private static final ForestMetrics.Operation SEARCH_TREE = ForestMetrics.sampledOperation("searchTree");
+    private static final ForestMetrics.Operation FILTER_TREES = ForestMetrics.sampledOperation("filterTrees");
+    private static final ForestMetrics.Operation FILTER_WILDLIFE = ForestMetrics.sampledOperation("filterWildlife");
+    private static final ForestMetrics.Operation ZONE_RECORDS = ForestMetrics.sampledOperation("zoneRecords");
+    private static final ForestMetrics.Operation AREA_SEARCH = ForestMetrics.sampledOperation("areaSearch");
+    private static final ForestMetrics.Operation PREFIX_SEARCH = ForestMetrics.sampledOperation("prefixSearch");
+    private static final ForestMetrics.Operation TRENDS = ForestMetrics.sampledOperation("wildlifeTrends");
+    private static final LongAdder ZONES_ADDED = ForestMetrics.counter("zonesAdded");
+    private static final LongAdder TREES_ADDED = ForestMetrics.counter("treesAdded");
+    private static final LongAdder WILDLIFE_ADDED = ForestMetrics.counter("wildlifeAdded");
+    private static final LongAdder DUPLICATES_REJECTED = ForestMetrics.counter("duplicatesRejected");
+    private static final LongAdder SIGHTINGS_ARCHIVED = ForestMetrics.counter("sightingsArchived");
+    private static final LongAdder TREES_UPDATED = ForestMetrics.counter("treesUpdated");
+    private static final LongAdder TREES_PURGED = ForestMetrics.counter("treesPurged");
+    // Records sampled per collection by heapEstimates().
+    private static final int SAMPLES = 256;
+
+    // Views of the three lists. Rows returned by the index queries are valid
+    // in any snapshot taken after the query, until a tree purge; the query*
+    // methods return tree rows with their view instead (see Rows). Tree
+    // values can change under a bulk update (see TreeUpdates).
+    static class Snapshot {
+        final List<ForestZone> zones;
+        final List<Tree> trees;
+        final List<Wildlife> wildlifeList;
+
+        Snapshot(List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList) {
+            this.zones = zones;
+            this.trees = trees;
+            this.wildlifeList = wildlifeList;
+        }
+
+        List<?> of(CsvImporter.Kind kind) {
+            switch (kind) {
+                case ZONES: return zones;
+                case TREES: return trees;
+                default: return wildlifeList;
+            }
+        }
+    }
+
+    // Rows an index query matched and the view they are rows of, read
+    // under the same lock. A purge renumbers tree rows, so callers that
+    // show tree results read them from this view, not a later snapshot().
+    static final class Rows<T> {
+        final int[] rows;
+        final List<T> view;
+        final int total;    // matches before a limit cut rows short
+
+        Rows(int[] rows, List<T> view, int total) {
+            this.rows = rows;
+            this.view = view;
+            this.total = total;
+        }
+
+        List<T> records() {
+            return RecordPager.rows(view, rows);
+        }
+
+        PrefixIndex.Matches matches() {
+            return new PrefixIndex.Matches(rows, total);
+        }
+    }
+
+    private final AppendOnlyList<ForestZone> zones = new AppendOnlyList<>();
+    private final List<Tree> trees;
+    private final AppendOnlyList<Wildlife> wildlifeList = new AppendOnlyList<>();
+    private final ForestIndex index = new ForestIndex();
+    private final ForestJournal journal;
+    private final SightingArchive archive;
+    private final ZonePartitions partitions;
+    // Zones whose partition file is behind; a concurrent set because writes
+    // of different kinds add to it at the same time.
+    private final Set<String> staleZones = ConcurrentHashMap.newKeySet();
+    // The partition writes of the last save; they read tree rows through
+    // the views until they complete, failed or not.
+    private volatile CompletableFuture<Void> partitionWrites = CompletableFuture.completedFuture(null);
+
+    private final ReentrantReadWriteLock zoneLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock treeLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock wildlifeLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+
+    private volatile List<ForestZone> zonesView = Collections.emptyList();
+    private volatile List<Tree> treesView = Collections.emptyList();
+    private volatile List<Wildlife> wildlifeView = Collections.emptyList();
+    // The hot sightings alone, which is what the index rows point into.
+    private volatile List<Wildlife> hotView = Collections.emptyList();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Autosaver autosaver;
+
+    // Tree store picked by -Dforest.treeStore.
+    ForestRepository(Path dir) {
+        this(dir, TreeColumns.newTreeStore());
+    }
+
+    // trees must be an empty AppendOnlyList or TreeColumns.
+    ForestRepository(Path dir, List<Tree> trees) {
+        if (!(trees instanceof AppendOnlyList) && !(trees instanceof TreeColumns)) {
+            throw new IllegalArgumentException("Unsupported tree store: " + trees.getClass().getName());
+        }
+        this.trees = trees;
+        this.journal = new ForestJournal(dir, zones, trees, wildlifeList);
+        this.archive = new SightingArchive(dir);
+        this.partitions = ZonePartitions.ENABLED ? new ZonePartitions(dir) : null;
+    }
+
+    // --------------- Load & save ----------------
+
+    // Reads forest.dat, its deltas and the journal, opens the sighting
+    // archive, archives what has left the hot window and rebuilds the
+    // indexes. Returns false if nothing was on disk. progress gets 0-100 as
+    // bytes are read.
+    boolean load(IntConsumer progress) throws IOException {
+        long start = LOAD.start();
+        zoneLock.writeLock().lock();
+        treeLock.writeLock().lock();
+        wildlifeLock.writeLock().lock();
+        gate.writeLock().lock();
+        try {
+            boolean found = journal.load(progress);
+            archive.open(journal.snapshotCovered());
+            found |= archive.size() > 0;
+            archiveOldSightings();
+            index.rebuild(zones, trees, wildlifeList);
+            staleZones.clear();
+            // Counts cannot tell whether a zone's trees were edited in place.
+            if (partitions != null) staleZones.addAll(journal.editedZones());
+            if (partitions != null) {
+                // Catches up after a crash between a checkpoint and its
+                // partition writes, or with partitions turned on for the first time.
+                for (String zoneId : index.zoneIds()) {
+                    if (!partitions.isCurrent(zoneId, index.findZone(zoneId) != null,
+                            index.findTreesInZone(zoneId).length, index.findWildlifeInZone(zoneId).length)) {
+                        staleZones.add(zoneId);
+                    }
+                }
+            }
+            publishZones();
+            publishTrees();
+            publishWildlife();
+            return found;
+        } catch (IOException | RuntimeException e) {
+            LOAD.failed(e);
+            throw e;
+        } finally {
+            gate.writeLock().unlock();
+            wildlifeLock.writeLock().unlock();
+            treeLock.writeLock().unlock();
+            zoneLock.writeLock().unlock();
+            LOAD.stop(start);
+        }
+    }
+
+    boolean load() throws IOException {
+        return load(percent -> { });
+    }
+
+    // Moves the sightings dated before the hot window from the wildlife
+    // list into the archive: stages them there, writes a full checkpoint
+    // without them and commits the archive once that has landed. If either
+    // write fails before forest.dat is replaced the archive is cut back and
+    // everything stays on the heap. Called from load() with every lock held.
+    private void archiveOldSightings() throws IOException {
+        int hotFrom = SightingArchive.hotFrom();
+        if (hotFrom == ForestIndex.NO_DATE) return;
+        List<Wildlife> old = new ArrayList<>();
+        List<Wildlife> hot = new ArrayList<>(wildlifeList.size());
+        for (Wildlife w : wildlifeList) {
+            if (w.epochDay != ForestIndex.NO_DATE && w.epochDay < hotFrom) old.add(w);
+            else hot.add(w);
+        }
+        if (old.isEmpty()) return;
+
+        long start = ARCHIVE.start();
+        try {
+            long covered = journal.activeSegment();
+            try {
+                archive.stage(old, covered);
+                journal.requireFullCheckpoint();
+                publishZones();
+                publishTrees();
+                journal.checkpointAsync(zonesView, treesView, Collections.unmodifiableList(hot)).join();
+            } catch (IOException | CompletionException e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                ARCHIVE.failed(cause);
+                // forest.dat is the commit point: once it covers the step,
+                // only the clean-up after it failed.
+                if (journal.snapshotCovered() < covered) {
+                    archive.rollback();
+                    System.err.println("Old sightings not archived: " + cause.getMessage());
+                    return;
+                }
+            }
+            archive.commit();
+        } finally {
+            ARCHIVE.stop(start);
+        }
+        wildlifeList.clear();
+        wildlifeList.addAll(hot);
+        SIGHTINGS_ARCHIVED.add(old.size());
+    }
+
+    // Folds everything written so far into a checkpoint (a delta file, or a
+    // full forest.dat now and then) on the journal's compactor thread, then
+    // rewrites the stale zone partitions. Only the segment roll happens on
+    // the calling thread.
+    //
+    // The gate is held exclusively throughout, so no write is half done and
+    // the index rows agree with the views.
+    CompletableFuture<Void> checkpointAsync() {
+        long start = SAVE.start();
+        CompletableFuture<Void> saved;
+        gate.writeLock().lock();
+        try {
+            CompletableFuture<Void> checkpoint = journal.checkpointAsync(zonesView, treesView, hotView);
+            saved = partitions == null || staleZones.isEmpty() ? checkpoint : thenWritePartitions(checkpoint);
+        } finally {
+            gate.writeLock().unlock();
+        }
+        saved.whenComplete((v, e) -> {
+            SAVE.stop(start);
+            if (e != null) SAVE.failed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        });
+        return saved;
+    }
+
+    // Called with the gate held exclusively.
+    private CompletableFuture<Void> thenWritePartitions(CompletableFuture<Void> checkpoint) {
+        List<String> ids = new ArrayList<>(staleZones);
+        staleZones.clear();
+        List<ZonePartitions.Partition> stale = new ArrayList<>(ids.size());
+        for (String zoneId : ids) {
+            stale.add(new ZonePartitions.Partition(zoneId, index.findZone(zoneId),
+                    RecordPager.rows(treesView, index.findTreesInZone(zoneId)),
+                    RecordPager.rows(hotView, index.findWildlifeInZone(zoneId)), null));
+        }
+        CompletableFuture<Void> written = checkpoint.thenCompose(v -> partitions.writeAsync(stale));
+        written.whenComplete((v, e) -> {
+            if (e != null) staleZones.addAll(ids);
+        });
+        partitionWrites = written;
+        return written;
+    }
+
+    // Waits until no checkpoint or partition write is reading the tree
+    // rows, so a bulk tree job can change them in place. Called with the
+    // gate's read lock held, which keeps new saves from starting until the
+    // job is done. A failed write was reported by the save that started it.
+    private void awaitSaves() throws IOException {
+        journal.awaitCheckpoints();
+        try {
+            partitionWrites.join();
+        } catch (CompletionException | CancellationException e) {
+            // the zones stay stale and are written again by the next save
+        }
+    }
+
+    void checkpoint() throws IOException {
+        try {
+            checkpointAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    void close() throws IOException {
+        Autosaver a = autosaver;
+        if (a != null) a.stop();
+        journal.close();
+    }
+
+    // Starts background checkpoints after writes; see Autosaver.
+    synchronized void startAutosave() {
+        if (autosaver == null) autosaver = new Autosaver(this);
+    }
+
+    // Records that are only in the journal so far, not in a checkpoint,
+    // counting trees edited since as well.
+    long unsavedRecords() {
+        return zonesView.size() + (long) treesView.size() + hotView.size() - journal.checkpointedRecords() + journal.pendingEdits();
+    }
+
+    LatencyHistogram checkpointLatency() {
+        return journal.checkpointLatency();
+    }
+
+    // One line for the front ends: backlog, delta files, checkpoint latency
+    // and autosave runs.
+    String saveStatus() {
+        LatencyHistogram h = journal.checkpointLatency();
+        StringBuilder out = new StringBuilder();
+        out.append(unsavedRecords()).append(" unsaved record(s), ")
+           .append(journal.deltaFiles()).append(" delta file(s); checkpoints: ").append(h.count());
+        if (h.count() > 0) {
+            out.append(String.format(" (p50 %.1f ms, p99 %.1f ms, max %.1f ms)",
+                    h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.max() / 1e6));
+        }
+        Autosaver a = autosaver;
+        if (a == null) {
+            out.append("; autosave off");
+        } else {
+            out.append("; autosaves: ").append(a.runs());
+            if (a.failures() > 0) out.append(", ").append(a.failures()).append(" failed (").append(a.lastFailure()).append(')');
+        }
+        return out.toString();
+    }
+
+    // Bytes on disk: forest.dat, the delta files, the journal segments, the
+    // zone partition files and the sighting archive.
+    Map<String, Long> fileSizes() throws IOException {
+        long[] journalBytes = journal.fileBytes();
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        sizes.put("snapshot", journalBytes[0]);
+        sizes.put("deltas", journalBytes[1]);
+        sizes.put("journal", journalBytes[2]);
+        sizes.put("zonePartitions", partitions == null ? 0 : partitions.bytes());
+        sizes.put("archive", archive.bytes());
+        return sizes;
+    }
+
+    // Estimated heap held by each record collection, assuming compressed
+    // references: the list slots and records plus the Strings a record
+    // owns. Pooled values (species, officers, animals, locations, dates,
+    // zone references) are shared and counted once under "valuePool". Per
+    // record Strings are sampled, so this is cheap enough to poll. Archived
+    // sightings are mapped, not on the heap; only their strings are.
+    Map<String, Long> heapEstimates() {
+        Snapshot s = snapshot();
+        Map<String, Long> bytes = new LinkedHashMap<>();
+        bytes.put("zones", slotBytes(s.zones.size())
+                + sampledBytes(s.zones, z -> 24 + stringBytes(z.zoneId) + stringBytes(z.zoneName)));
+        if (trees instanceof TreeColumns) {
+            treeLock.readLock().lock();
+            try {
+                bytes.put("trees", ((TreeColumns) trees).heapBytes());
+            } finally {
+                treeLock.readLock().unlock();
+            }
+        } else {
+            bytes.put("trees", slotBytes(s.trees.size()) + sampledBytes(s.trees, t -> 32 + stringBytes(t.treeId)));
+        }
+        List<Wildlife> hot = hotView;
+        bytes.put("wildlife", slotBytes(hot.size()) + 48L * hot.size());
+        bytes.put("archiveStrings", archive.strings() * 96L);
+        // A map node and a String of a dozen characters per value.
+        bytes.put("valuePool", ValuePool.size() * 96L);
+        return bytes;
+    }
+
+    // AppendOnlyList slots: one reference each, in chunks of 4096.
+    private static long slotBytes(int records) {
+        return (records + 4095L) / 4096 * (16 + 4 * 4096L);
+    }
+
+    // records.size() times the mean of perRecord over up to SAMPLES evenly
+    // spaced records.
+    private static <T> long sampledBytes(List<T> records, ToLongFunction<T> perRecord) {
+        int n = records.size();
+        if (n == 0) return 0;
+        int samples = Math.min(n, SAMPLES);
+        long total = 0;
+        for (int i = 0; i < samples; i++) total += perRecord.applyAsLong(records.get((int) ((long) i * n / samples)));
+        return total * n / samples;
+    }
+
+    // A compact (Latin-1) String and its byte[]; null costs nothing.
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 24 + ((16 + s.length() + 7) & ~7L);
+    }
+
+    // --------------- Writes ----------------
+
+    // Returns false if the zone ID is already taken.
+    boolean addZone(ForestZone zone) throws IOException {
+        return addZones(Collections.singletonList(zone)).isEmpty();
+    }
+
+    // Returns false if the tree ID is already taken.
+    boolean addTree(Tree tree) throws IOException {
+        return addTrees(Collections.singletonList(tree)).isEmpty();
+    }
+
+    void addWildlife(Wildlife sighting) throws IOException {
+        addWildlife(Collections.singletonList(sighting));
+    }
+
+    // The batch adds journal a whole batch with one write (and usually one
+    // fsync). They return the records rejected because the ID already
+    // exists, in the repository or earlier in the same batch.
+    List<ForestZone> addZones(List<ForestZone> batch) throws IOException {
+        long start = ADD_ZONES.start();
+        List<ForestZone> accepted = new ArrayList<>(batch.size());
+        List<ForestZone> rejected = new ArrayList<>();
+        zoneLock.writeLock().lock();
+        gate.readLock().lock();
+        try {
+            Set<String> ids = new HashSet<>();
+            for (ForestZone z : batch) {
+                if (index.findZone(z.zoneId) != null || !ids.add(z.zoneId)) rejected.add(z);
+                else accepted.add(z);
+            }
+            journal.logZones(accepted);
+            for (ForestZone z : accepted) {
+                index.addZone(z, zones.size());
+                zones.add(z);
+                staleZones.add(z.zoneId);
+            }
+            publishZones();
+        } catch (IOException | RuntimeException e) {
+            ADD_ZONES.failed(e);
+            throw e;
+        } finally {
+            gate.readLock().unlock();
+            zoneLock.writeLock().unlock();
+            ADD_ZONES.stop(start);
+        }
+        ZONES_ADDED.add(accepted.size());
+        DUPLICATES_REJECTED.add(rejected.size());
+        afterWrite();
+        return rejected;
+    }
+
+    List<Tree> addTrees(List<Tree> batch) throws IOException {
+        long start = ADD_TREES.start();
+        List<Tree> accepted = new ArrayList<>(batch.size());
+        List<Tree> rejected = new ArrayList<>();
+        treeLock.writeLock().lock();
+        gate.readLock().lock();
+        try {
+            Set<String> ids = new HashSet<>();
+            for (Tree t : batch) {
+                if (index.findTree(t.treeId) != null || !ids.add(t.treeId)) rejected.add(t);
+                else accepted.add(t);
+            }
+            journal.logTrees(accepted);
+            for (Tree t : accepted) {
+                index.addTree(t, trees.size());
+                trees.add(t);
+                if (t.zoneId != null) staleZones.add(t.zoneId);
+            }
+            publishTrees();
+        } catch (IOException | RuntimeException e) {
+            ADD_TREES.failed(e);
+            throw e;
+        } finally {
+            gate.readLock().unlock();
+            treeLock.writeLock().unlock();
+            ADD_TREES.stop(start);
+        }
+        TREES_ADDED.add(accepted.size());
+        DUPLICATES_REJECTED.add(rejected.size());
+        afterWrite();
+        return rejected;
+    }
+
+    void addWildlife(List<Wildlife> batch) throws IOException {
+        long start = ADD_WILDLIFE.start();
+        wildlifeLock.writeLock().lock();
+        gate.readLock().lock();
+        try {
+            journal.logWildlife(batch);
+            for (Wildlife w : batch) {
+                index.addWildlife(w, wildlifeList.size());
+                wildlifeList.add(w);
+                if (w.zoneId != null) staleZones.add(w.zoneId);
+            }
+            publishWildlife();
+        } catch (IOException | RuntimeException e) {
+            ADD_WILDLIFE.failed(e);
+            throw e;
+        } finally {
+            gate.readLock().unlock();
+            wildlifeLock.writeLock().unlock();
+            ADD_WILDLIFE.stop(start);
+        }
+        WILDLIFE_ADDED.add(batch.size());
+        afterWrite();
+    }
+
+    // Runs a bulk tree job (see TreeUpdates): plans it over the tree store,
+    // journals the changed trees as one record, then changes them in place
+    // (or takes them out, for a purge) and updates the index entries of the
+    // rows it changed or moved.
+    TreeUpdates.Result updateTrees(TreeUpdates.Job job) throws IOException {
+        long started = System.nanoTime();
+        long start = UPDATE_TREES.start();
+        TreeUpdates.Plan plan;
+        treeLock.writeLock().lock();
+        gate.readLock().lock();
+        try {
+            awaitSaves();
+            plan = TreeUpdates.plan(job, trees);
+            if (plan.changed > 0) {
+                if (job.kind == TreeUpdates.Kind.PURGE) {
+                    TreeUpdates.Removal removal = journal.logTreeDeletes(plan.records, plan.rows);
+                    index.purgeTrees(removal, () -> TreeUpdates.remove(trees, removal));
+                } else if (job.kind == TreeUpdates.Kind.AGE && plan.changed == trees.size()) {
+                    journal.logTreeUpdates(plan.records, plan.rows);
+                    TreeUpdates.apply(plan, trees);
+                    index.shiftTreeAges(job.years);
+                } else {
+                    journal.logTreeUpdates(plan.records, plan.rows);
+                    index.updateTrees(plan.rows, job.kind == TreeUpdates.Kind.SPECIES, () -> TreeUpdates.apply(plan, trees));
+                }
+                staleZones.addAll(plan.zones);
+                publishTrees();
+            }
+        } catch (IOException | RuntimeException e) {
+            UPDATE_TREES.failed(e);
+            throw e;
+        } finally {
+            gate.readLock().unlock();
+            treeLock.writeLock().unlock();
+            UPDATE_TREES.stop(start);
+        }
+        if (job.kind == TreeUpdates.Kind.PURGE) TREES_PURGED.add(plan.changed);
+        else TREES_UPDATED.add(plan.changed);
+        if (plan.changed > 0) afterWrite();
+        return new TreeUpdates.Result(job, plan.matched, plan.changed, System.nanoTime() - started);
+    }
+
+    // Called with the kind's write lock held.
+    private void publishZones() {
+        zonesView = zones.snapshot();
+        version.incrementAndGet();
+    }
+
+    private void publishTrees() {
+        treesView = trees instanceof TreeColumns ? ((TreeColumns) trees).snapshot() : ((AppendOnlyList<Tree>) trees).snapshot();
+        version.incrementAndGet();
+    }
+
+    private void publishWildlife() {
+        hotView = wildlifeList.snapshot();
+        wildlifeView = archive.withHot(hotView);
+        version.incrementAndGet();
+    }
+
+    // Tells the autosave, and compacts in the background once the active
+    // journal segment is large.
+    private void afterWrite() {
+        Autosaver a = autosaver;
+        if (a != null) a.dirty();
+        if (!journal.compactionDue()) return;
+        long start = COMPACTION.start();
+        CompletableFuture<Void> compaction;
+        gate.writeLock().lock();
+        try {
+            if (!journal.compactionDue()) return;
+            // Partitions wait for the next save or autosave: a bulk import
+            // compacts every few MB and would rewrite the same zones each time.
+            compaction = journal.checkpointAsync(zonesView, treesView, hotView);
+        } finally {
+            gate.writeLock().unlock();
+        }
+        compaction.whenComplete((v, e) -> {
+            COMPACTION.stop(start);
+            if (e == null) return;
+            COMPACTION.failed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            System.err.println("Journal compaction failed: " + e.getMessage());
+        });
+    }
+
+    // --------------- Reads ----------------
+
+    Snapshot snapshot() {
+        return new Snapshot(zonesView, treesView, wildlifeView);
+    }
+
+    // Bumped by every write; a reader can compare it to skip a refresh.
+    long version() {
+        return version.get();
+    }
+
+    ForestZone findZone(String zoneId) {
+        long start = SEARCH_ZONE.start();
+        zoneLock.readLock().lock();
+        try {
+            return index.findZone(zoneId);
+        } finally {
+            zoneLock.readLock().unlock();
+            SEARCH_ZONE.stop(start);
+        }
+    }
+
+    Tree findTree(String treeId) {
+        long start = SEARCH_TREE.start();
+        treeLock.readLock().lock();
+        try {
+            return index.findTree(treeId);
+        } finally {
+            treeLock.readLock().unlock();
+            SEARCH_TREE.stop(start);
+        }
+    }
+
+    // See ForestIndex.findTrees.
+    int[] findTrees(String species, int minAge, int maxAge) {
+        long start = FILTER_TREES.start();
+        treeLock.readLock().lock();
+        try {
+            return index.findTrees(species, minAge, maxAge);
+        } finally {
+            treeLock.readLock().unlock();
+            FILTER_TREES.stop(start);
+        }
+    }
+
+    // See ForestIndex.findTreesInZone.
+    int[] findTreesInZone(String zoneId) {
+        long start = ZONE_RECORDS.start();
+        treeLock.readLock().lock();
+        try {
+            return index.findTreesInZone(zoneId);
+        } finally {
+            treeLock.readLock().unlock();
+            ZONE_RECORDS.stop(start);
+        }
+    }
+
+    // Trees of the given species and ages (see findTrees) that reference
+    // zoneId, or in any zone if it is null, with the view they index.
+    Rows<Tree> queryTrees(String species, int minAge, int maxAge, String zoneId) {
+        long start = FILTER_TREES.start();
+        treeLock.readLock().lock();
+        try {
+            int[] rows = index.findTrees(species, minAge, maxAge);
+            if (zoneId != null) rows = ForestIndex.intersect(rows, index.findTreesInZone(zoneId));
+            return new Rows<>(rows, treesView, rows.length);
+        } finally {
+            treeLock.readLock().unlock();
+            FILTER_TREES.stop(start);
+        }
+    }
+
+    // The trees referencing zoneId, with the view they index.
+    Rows<Tree> queryTreesInZone(String zoneId) {
+        long start = ZONE_RECORDS.start();
+        treeLock.readLock().lock();
+        try {
+            int[] rows = index.findTreesInZone(zoneId);
+            return new Rows<>(rows, treesView, rows.length);
+        } finally {
+            treeLock.readLock().unlock();
+            ZONE_RECORDS.stop(start);
+        }
+    }
+
+    int[] findWildlifeInZone(String zoneId) {
+        long start = ZONE_RECORDS.start();
+        wildlifeLock.readLock().lock();
+        try {
+            return withArchived(archive.findInZone(zoneId), index.findWildlifeInZone(zoneId));
+        } finally {
+            wildlifeLock.readLock().unlock();
+            ZONE_RECORDS.stop(start);
+        }
+    }
+
+    // See ForestIndex.findWildlife. The archive reads only the months in
+    // the date range.
+    int[] findWildlife(String animal, String location, int fromDay, int toDay) {
+        long start = FILTER_WILDLIFE.start();
+        wildlifeLock.readLock().lock();
+        try {
+            return withArchived(archive.find(animal, location, fromDay, toDay), index.findWildlife(animal, location, fromDay, toDay));
+        } finally {
+            wildlifeLock.readLock().unlock();
+            FILTER_WILDLIFE.stop(start);
+        }
+    }
+
+    // See SpatialGrid.findInBox.
+    int[] findWildlifeInBox(double minLat, double maxLat, double minLon, double maxLon) {
+        long start = AREA_SEARCH.start();
+        wildlifeLock.readLock().lock();
+        try {
+            int[] hot = index.grid().findInBox(minLat, maxLat, minLon, maxLon);
+            return withArchived(archive.findInBox(minLat, maxLat, minLon, maxLon), hot);
+        } finally {
+            wildlifeLock.readLock().unlock();
+            AREA_SEARCH.stop(start);
+        }
+    }
+
+    // See SpatialGrid.findNear.
+    int[] findWildlifeNear(double lat, double lon, double km) {
+        long start = AREA_SEARCH.start();
+        wildlifeLock.readLock().lock();
+        try {
+            int[] hot = index.grid().findNear(lat, lon, km);
+            if (archive.size() == 0) return hot;
+            return nearestFirst(withArchived(archive.findNear(lat, lon, km), hot), wildlifeView, lat, lon);
+        } finally {
+            wildlifeLock.readLock().unlock();
+            AREA_SEARCH.stop(start);
+        }
+    }
+
+    // See ForestIndex.findPrefix.
+    PrefixIndex.Matches findPrefix(CsvImporter.Kind kind, String field, String prefix, int limit) {
+        return queryPrefix(kind, field, prefix, limit).matches();
+    }
+
+    // The same, with the view of kind's records that the rows index.
+    Rows<?> queryPrefix(CsvImporter.Kind kind, String field, String prefix, int limit) {
+        long start = PREFIX_SEARCH.start();
+        ReentrantReadWriteLock lock = kind == CsvImporter.Kind.ZONES ? zoneLock : kind == CsvImporter.Kind.TREES ? treeLock : wildlifeLock;
+        lock.readLock().lock();
+        try {
+            PrefixIndex.Matches matches = index.findPrefix(kind, field, prefix, limit);
+            int[] rows = kind == CsvImporter.Kind.WILDLIFE && archive.size() > 0 ? withArchived(new int[0], matches.rows) : matches.rows;
+            return new Rows<>(rows, snapshot().of(kind), matches.total);
+        } finally {
+            lock.readLock().unlock();
+            PREFIX_SEARCH.stop(start);
+        }
+    }
+
+    // See SightingRollup.monthlyCounts; archived months are counted from
+    // the archive.
+    int[] monthlyCounts(String animal, String location, YearMonth from, YearMonth to) {
+        long start = TRENDS.start();
+        wildlifeLock.readLock().lock();
+        try {
+            int[] counts = index.rollup().monthlyCounts(animal, location, from, to);
+            archive.addMonthlyCounts(animal, location, from, to, counts);
+            return counts;
+        } finally {
+            wildlifeLock.readLock().unlock();
+            TRENDS.stop(start);
+        }
+    }
+
+    // Sightings in the archive, in front of the hot ones.
+    int archivedSightings() {
+        return archive.size();
+    }
+
+    // Archive rows followed by index rows moved past them; called with the
+    // sighting lock held, so the archive is the one the index rows follow.
+    private int[] withArchived(int[] archived, int[] hot) {
+        int offset = archive.size();
+        if (archived.length == 0 && offset == 0) return hot;
+        int[] rows = Arrays.copyOf(archived, archived.length + hot.length);
+        for (int i = 0; i < hot.length; i++) rows[archived.length + i] = hot[i] + offset;
+        return rows;
+    }
+
+    // Rows ordered by distance from lat/lon, ties in row order, as
+    // SpatialGrid.findNear returns them.
+    private static int[] nearestFirst(int[] rows, List<Wildlife> view, double lat, double lon) {
+        double[] km = new double[rows.length];
+        Integer[] order = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            Wildlife w = view.get(rows[i]);
+            km[i] = SpatialGrid.distanceKm(lat, lon, w.lat, w.lon);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> km[a] != km[b] ? Double.compare(km[a], km[b]) : Integer.compare(rows[a], rows[b]));
+        int[] result = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) result[i] = rows[order[i]];
+        return result;
+    }
+}
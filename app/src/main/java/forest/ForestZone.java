@@ -0,0 +1,38 @@
+package forest;
+
+import java.io.*;
+
+// Forest Zone Class
+class ForestZone implements Serializable {
+    // Value computed for the class before it moved into a package, so
+    // serialized files from older versions still load.
+    private static final long serialVersionUID = 4018554671911594381L;
+
+    String zoneId;
+    String zoneName;
+    String officer;
+
+    ForestZone(String zoneId, String zoneName, String officer) {
+        this.zoneId = zoneId;
+        this.zoneName = zoneName;
+        this.officer = ValuePool.canonical(officer);
+    }
+
+    // A tree's or sighting's zone reference: blank, null or "*" means none
+    // (null); anything else is trimmed and pooled.
+    static String reference(String zoneId) {
+        if (zoneId == null || zoneId.trim().isEmpty() || zoneId.trim().equals("*")) return null;
+        return ValuePool.canonical(zoneId.trim());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        officer = ValuePool.canonical(officer);
+    }
+
+    public String toString() {
+        return "Zone ID: " + zoneId +
+               ", Name: " + zoneName +
+               ", Officer: " + officer;
+    }
+}
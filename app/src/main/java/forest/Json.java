@@ -0,0 +1,209 @@
+package forest;
+
+import java.util.*;
+
+// ===================== JSON =====================
+
+// Just enough JSON for the HTTP API: writing records and parsing request
+// bodies. parse() returns Map (insertion ordered), List, String, Double,
+// Boolean or null.
+final class Json {
+    private final String text;
+    private int pos;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    // --------------- Writing ----------------
+
+    // Appends s as a JSON string literal.
+    static StringBuilder quote(StringBuilder out, String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (ch < 0x20) out.append(String.format("\\u%04x", (int) ch));
+                    else out.append(ch);
+            }
+        }
+        return out.append('"');
+    }
+
+    // Appends a zone, tree or sighting as an object keyed by the CSV column
+    // names, the same shape RecordExporter writes as JSON Lines.
+    static StringBuilder record(StringBuilder out, Object record) {
+        if (record instanceof ForestZone) {
+            ForestZone z = (ForestZone) record;
+            quote(out.append("{\"zoneId\":"), z.zoneId);
+            quote(out.append(",\"zoneName\":"), z.zoneName);
+            quote(out.append(",\"officer\":"), z.officer);
+        } else if (record instanceof Tree) {
+            Tree t = (Tree) record;
+            quote(out.append("{\"treeId\":"), t.treeId);
+            quote(out.append(",\"species\":"), t.species);
+            out.append(",\"age\":").append(t.age);
+            zoneId(out, t.zoneId);
+        } else {
+            Wildlife w = (Wildlife) record;
+            quote(out.append("{\"animal\":"), w.animal);
+            quote(out.append(",\"location\":"), w.location);
+            quote(out.append(",\"date\":"), w.date);
+            out.append(",\"lat\":").append(w.hasPosition() ? String.valueOf(w.lat) : "null");
+            out.append(",\"lon\":").append(w.hasPosition() ? String.valueOf(w.lon) : "null");
+            zoneId(out, w.zoneId);
+        }
+        return out.append('}');
+    }
+
+    private static void zoneId(StringBuilder out, String zoneId) {
+        out.append(",\"zoneId\":");
+        if (zoneId == null) out.append("null");
+        else quote(out, zoneId);
+    }
+
+    // --------------- Parsing ----------------
+
+    static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipSpace();
+        if (json.pos != text.length()) throw json.error("unexpected trailing data");
+        return value;
+    }
+
+    private Object value() {
+        skipSpace();
+        if (pos >= text.length()) throw error("unexpected end of input");
+        char ch = text.charAt(pos);
+        switch (ch) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if (ch == '-' || (ch >= '0' && ch <= '9')) return number();
+                throw error("unexpected '" + ch + "'");
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+        skipSpace();
+        if (peek() == '}') {
+            pos++;
+            return map;
+        }
+        while (true) {
+            skipSpace();
+            if (peek() != '"') throw error("expected a field name");
+            String key = string();
+            skipSpace();
+            expect(':');
+            map.put(key, value());
+            skipSpace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect('}');
+                return map;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        pos++;
+        skipSpace();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+        while (true) {
+            list.add(value());
+            skipSpace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect(']');
+                return list;
+            }
+        }
+    }
+
+    private String string() {
+        pos++;
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            if (pos >= text.length()) throw error("unterminated string");
+            char ch = text.charAt(pos++);
+            if (ch == '"') return out.toString();
+            if (ch != '\\') {
+                out.append(ch);
+                continue;
+            }
+            if (pos >= text.length()) throw error("unterminated string");
+            char esc = text.charAt(pos++);
+            switch (esc) {
+                case '"': case '\\': case '/': out.append(esc); break;
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > text.length()) throw error("bad \\u escape");
+                    try {
+                        out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("bad \\u escape");
+                    }
+                    pos += 4;
+                    break;
+                default: throw error("bad escape \\" + esc);
+            }
+        }
+    }
+
+    private Double number() {
+        int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) pos++;
+        try {
+            return Double.valueOf(text.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw error("bad number");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, pos)) throw error("unexpected token");
+        pos += word.length();
+        return value;
+    }
+
+    private void expect(char ch) {
+        if (peek() != ch) throw error("expected '" + ch + "'");
+        pos++;
+    }
+
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : '\0';
+    }
+
+    private void skipSpace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at offset " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,76 @@
+package forest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// ===================== LATENCY HISTOGRAM =====================
+
+// Lock-free latency recorder for request and operation timings. Values are
+// nanoseconds, counted in log-linear buckets: each power of two is split
+// into 16 sub-buckets, so any reported percentile is within about 6% of the
+// true value, from 1 ns up to hours, in a fixed 8 KB of counters. Any
+// number of threads may record while another reads.
+class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        max.accumulate(nanos);
+    }
+
+    long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+        return n;
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100), or 0
+    // if nothing was recorded.
+    long percentile(double percent) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += snapshot[i] = counts.get(i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percent / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), max());
+        }
+        return max();
+    }
+
+    // Values below SUB get a bucket each; above that, bucket = 16 per
+    // power of two, picked by the top SUB_BITS bits below the leading one.
+    private static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB) return bucket;
+        int exp = bucket / SUB + SUB_BITS - 1;
+        long sub = bucket % SUB;
+        long lower = (1L << exp) | (sub << (exp - SUB_BITS));
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+
+    // One line: sample count, p50, p90, p99, p99.9 and max in milliseconds.
+    String summary() {
+        return String.format("n=%d p50=%.3f ms p90=%.3f ms p99=%.3f ms p99.9=%.3f ms max=%.3f ms",
+                count(), percentile(50) / 1e6, percentile(90) / 1e6, percentile(99) / 1e6,
+                percentile(99.9) / 1e6, max() / 1e6);
+    }
+}
@@ -0,0 +1,86 @@
+package forest;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+// ===================== LIST TABLE MODEL =====================
+
+// Table model that reads cells straight from a repository snapshot instead
+// of copying every record into Vectors. Only visible cells are ever asked for.
+// The model starts empty and only moves to a newer snapshot when
+// rowsAppended() or reload() is called, so an add fires a single
+// rows-inserted event instead of a full rebuild, and the rows never change
+// under the table between those calls.
+class ListTableModel<T> extends AbstractTableModel {
+    interface CellReader<T> {
+        Object read(T record, int column);
+    }
+
+    private final Supplier<List<T>> source;
+    private final String[] columns;
+    private final CellReader<T> reader;
+    private List<T> records = Collections.emptyList();
+    private int[] filter;   // list rows to show, or null for all of them
+
+    ListTableModel(Supplier<List<T>> source, String[] columns, CellReader<T> reader) {
+        this.source = source;
+        this.columns = columns;
+        this.reader = reader;
+    }
+
+    @Override
+    public int getRowCount() {
+        return filter != null ? filter.length : records.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return reader.read(records.get(filter != null ? filter[row] : row), column);
+    }
+
+    // Shows only the rows of an index query, read from the view the query
+    // returned them with: a later snapshot may have renumbered them.
+    @SuppressWarnings("unchecked")
+    void setFilter(ForestRepository.Rows<?> matches) {
+        filter = matches.rows;
+        records = (List<T>) matches.view;
+        fireTableDataChanged();
+    }
+
+    boolean isFiltered() {
+        return filter != null;
+    }
+
+    // Announces records added to the end of the list since the last call.
+    // While a filter is shown, new rows are picked up when it is cleared.
+    void rowsAppended() {
+        List<T> latest = source.get();
+        int old = records.size();
+        records = latest;
+        if (filter != null) return;
+        if (latest.size() > old) {
+            fireTableRowsInserted(old, latest.size() - 1);
+        } else if (latest.size() < old) {
+            fireTableDataChanged();
+        }
+    }
+
+    // For changes that are not plain appends, e.g. a reload from disk.
+    void reload() {
+        filter = null;
+        records = source.get();
+        fireTableDataChanged();
+    }
+}
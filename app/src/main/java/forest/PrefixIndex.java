@@ -0,0 +1,245 @@
+package forest;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+// ===================== PREFIX INDEX =====================
+
+// Sorted-array index over one text field of a record list, for prefix
+// ("as you type") search. It holds only row numbers, ordered by the field's
+// key (ForestIndex.key, so matching ignores case); the keys themselves are
+// read back from the list through the field accessor when comparing. All
+// rows whose key starts with a prefix are one contiguous run of the array,
+// found with two binary searches, so counting the matches costs O(log n)
+// and fetching the first `limit` of them O(log n + limit), however many
+// millions of rows there are.
+//
+// New rows are appended, with their keys, to a small unsorted tail rather
+// than inserted into the big array, so an add is O(1). Once the tail holds
+// TAIL_SIZE rows it is sorted and merged in. A query scans the tail's keys
+// (a few microseconds) and merges its matches with the run from the array.
+// Within one key rows stay in entry order: ascending, except for rows that
+// a bulk tree job took out and added back (removeRows, then add).
+//
+// Not thread-safe; ForestIndex's owner guards it with the kind's lock.
+class PrefixIndex {
+    static final int TAIL_SIZE = 8192;
+
+    // Up to `limit` matching rows in key order, and how many there are in all.
+    static final class Matches {
+        final int[] rows;
+        final int total;
+
+        Matches(int[] rows, int total) {
+            this.rows = rows;
+            this.total = total;
+        }
+    }
+
+    private final IntFunction<String> field;
+    private int[] sorted = new int[0];
+    private int sortedSize;
+    private final int[] tail = new int[TAIL_SIZE];
+    private final String[] tailKeys = new String[TAIL_SIZE];
+    private int tailSize;
+
+    // field reads the indexed value of a list row.
+    PrefixIndex(IntFunction<String> field) {
+        this.field = field;
+    }
+
+    // --------------- Maintenance ----------------
+
+    // row is where the record is about to be appended, so it cannot be read
+    // back yet; value is its field. Also adds back a row taken out with
+    // removeRows.
+    void add(String value, int row) {
+        if (tailSize == TAIL_SIZE) mergeTail();
+        tail[tailSize] = row;
+        tailKeys[tailSize++] = ForestIndex.key(value);
+    }
+
+    // Indexes rows 0 .. rows-1 from scratch (after a load). The keys are read
+    // once up front rather than on every comparison.
+    void rebuild(int rows) {
+        String[] keys = new String[rows];
+        for (int row = 0; row < rows; row++) keys[row] = ForestIndex.key(field.apply(row));
+        int[] order = new int[rows];
+        for (int row = 0; row < rows; row++) order[row] = row;
+        mergeSort(order, new int[rows], 0, rows, keys);
+        sorted = order;
+        sortedSize = rows;
+        clearTail();
+    }
+
+    // Takes the rows out in one pass over the array and the tail, reading no
+    // keys: O(n) int moves, where a rebuild reads and sorts every key.
+    void removeRows(BitSet rows) {
+        int n = 0;
+        for (int i = 0; i < sortedSize; i++) {
+            if (!rows.get(sorted[i])) sorted[n++] = sorted[i];
+        }
+        sortedSize = n;
+        int m = 0;
+        for (int i = 0; i < tailSize; i++) {
+            if (rows.get(tail[i])) continue;
+            tail[m] = tail[i];
+            tailKeys[m++] = tailKeys[i];
+        }
+        Arrays.fill(tailKeys, m, tailSize, null);
+        tailSize = m;
+    }
+
+    private void clearTail() {
+        Arrays.fill(tailKeys, 0, tailSize, null);
+        tailSize = 0;
+    }
+
+    // A tail row goes after the sorted rows with an equal key, as it is
+    // usually newer. Fills the merged array from the back,
+    // galloping back from the previous insertion point: tail keys that land
+    // close together (the same species, IDs in sequence) cost a compare or
+    // two each instead of a full binary search.
+    private void mergeTail() {
+        int[] order = tailOrder(tailSize);
+        int[] merged = new int[sortedSize + tailSize];
+        int end = sortedSize;
+        int out = merged.length;
+        for (int i = tailSize - 1; i >= 0; i--) {
+            int at = gallopBack(sorted, end, tailKeys[order[i]]);
+            int run = end - at;
+            out -= run;
+            System.arraycopy(sorted, at, merged, out, run);
+            merged[--out] = tail[order[i]];
+            end = at;
+        }
+        System.arraycopy(sorted, 0, merged, 0, end);
+        sorted = merged;
+        sortedSize = merged.length;
+        clearTail();
+    }
+
+    // Tail positions 0 .. count-1 sorted by key.
+    private int[] tailOrder(int count) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        return sortTail(order);
+    }
+
+    // Stable, so equal keys stay in row order.
+    private int[] sortTail(int[] positions) {
+        mergeSort(positions, new int[positions.length], 0, positions.length, tailKeys);
+        return positions;
+    }
+
+    // --------------- Queries ----------------
+
+    // Rows whose key starts with prefix (case-insensitive), at most limit of
+    // them, ordered by key and then by row.
+    Matches find(String prefix, int limit) {
+        String p = ForestIndex.key(prefix);
+        int lo = lowerBound(sorted, sortedSize, p);
+        int hi = prefixEnd(sorted, lo, sortedSize, p);
+
+        int tailHits = 0;
+        int[] hits = new int[tailSize];
+        for (int i = 0; i < tailSize; i++) {
+            if (tailKeys[i].startsWith(p)) hits[tailHits++] = i;
+        }
+        hits = sortTail(Arrays.copyOf(hits, tailHits));
+        int total = hi - lo + tailHits;
+
+        int[] rows = new int[Math.min(Math.max(limit, 0), total)];
+        int i = lo, j = 0;
+        String a = i < hi ? key(sorted[i]) : null;
+        for (int n = 0; n < rows.length; n++) {
+            if (j == tailHits || (a != null && a.compareTo(tailKeys[hits[j]]) <= 0)) {
+                rows[n] = sorted[i];
+                a = ++i < hi ? key(sorted[i]) : null;
+            } else {
+                rows[n] = tail[hits[j++]];
+            }
+        }
+        return new Matches(rows, total);
+    }
+
+    // --------------- Binary searches ----------------
+
+    private String key(int row) {
+        return ForestIndex.key(field.apply(row));
+    }
+
+    // First position in rows[0, size) whose key is >= p.
+    private int lowerBound(int[] rows, int size, String p) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key(rows[mid]).compareTo(p) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // upperBound over rows[0, end), probing end-1, end-2, end-4, ... first.
+    private int gallopBack(int[] rows, int end, String key) {
+        int hi = end;
+        int step = 1;
+        int probe = end - 1;
+        while (probe >= 0 && key(rows[probe]).compareTo(key) > 0) {
+            hi = probe;
+            step <<= 1;
+            probe = end - step;
+        }
+        return upperBound(rows, Math.max(probe + 1, 0), hi, key);
+    }
+
+    // First position in rows[from, to) whose key is > key.
+    private int upperBound(int[] rows, int from, int to, String key) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key(rows[mid]).compareTo(key) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // From lowerBound(p), the keys starting with p come first: the first
+    // position in rows[from, to) whose key does not start with p.
+    private int prefixEnd(int[] rows, int from, int to, String p) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key(rows[mid]).startsWith(p)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Stable, so rows with equal keys keep their entry order.
+    private static void mergeSort(int[] rows, int[] scratch, int from, int to, String[] keys) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= from && keys[rows[j]].compareTo(keys[row]) > 0) {
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(rows, scratch, from, mid, keys);
+        mergeSort(rows, scratch, mid, to, keys);
+        if (keys[rows[mid - 1]].compareTo(keys[rows[mid]]) <= 0) return;
+        System.arraycopy(rows, from, scratch, from, to - from);
+        int i = from, j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && keys[scratch[i]].compareTo(keys[scratch[j]]) <= 0)) rows[k] = scratch[i++];
+            else rows[k] = scratch[j++];
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package forest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.IntConsumer;
+
+// ===================== PROGRESS STREAM =====================
+
+// Input stream that reports how far through a known number of bytes the
+// reads have got. Percent callbacks fire only when the value changes.
+// A Counter may be shared by readers on several threads.
+class ProgressStream extends FilterInputStream {
+    static class Counter {
+        private final long total;
+        private final IntConsumer progress;
+        private long read;
+        private int lastPercent = -1;
+
+        Counter(long total, IntConsumer progress) {
+            this.total = total;
+            this.progress = progress;
+        }
+
+        synchronized void add(long n) {
+            read += n;
+            int percent = total == 0 ? 100 : (int) Math.min(100, read * 100 / total);
+            if (percent != lastPercent) {
+                lastPercent = percent;
+                progress.accept(percent);
+            }
+        }
+    }
+
+    private final Counter counter;
+
+    ProgressStream(InputStream in, Counter counter) {
+        super(in);
+        this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) counter.add(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) counter.add(n);
+        return n;
+    }
+}
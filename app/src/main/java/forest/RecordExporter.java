@@ -0,0 +1,306 @@
+package forest;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// ===================== STREAMING EXPORT =====================
+
+// Writes zones, trees or sightings to CSV (the layout CsvImporter reads
+// back) or JSON Lines. Fields are encoded as UTF-8 straight from the record
+// fields into one reusable buffer that is drained into a FileChannel, so no
+// String is built per record; columnar tree IDs are copied as stored bytes.
+class RecordExporter {
+    enum Format {
+        CSV, JSONL;
+
+        static Format parse(String name) {
+            switch (name.toLowerCase()) {
+                case "csv": return CSV;
+                case "json": case "jsonl": return JSONL;
+                default: throw new IllegalArgumentException("Unknown export format: " + name + " (use csv or jsonl)");
+            }
+        }
+    }
+
+    static class Result {
+        long records;
+        long bytes;
+        long nanos;
+
+        double bytesPerSecond() {
+            return nanos == 0 ? 0 : bytes * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d records exported, %.1f MB in %.2f s (%.1f MB/s)",
+                    records, bytes / 1e6, nanos / 1e9, bytesPerSecond() / 1e6);
+        }
+    }
+
+    private static final int BUFFER = 1 << 20;
+
+    private final CsvImporter.Kind kind;
+    private final Format format;
+    // JSONL: {"col0":  ,"col1":  ... as bytes, built once.
+    private final byte[][] keys;
+
+    private final byte[] buf = new byte[BUFFER];
+    private int pos;
+    private FileChannel channel;
+    private long written;
+
+    RecordExporter(CsvImporter.Kind kind, Format format) {
+        this.kind = kind;
+        this.format = format;
+        keys = new byte[kind.columns.length][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((i == 0 ? "{\"" : ",\"") + kind.columns[i] + "\":").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // records must be a snapshot list (or otherwise not change while it is
+    // written). Replaces the file.
+    Result export(List<?> records, Path file) throws IOException {
+        Result result = new Result();
+        long start = System.nanoTime();
+        pos = 0;
+        written = 0;
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel = out;
+            if (format == Format.CSV) {
+                for (int i = 0; i < kind.columns.length; i++) {
+                    if (i > 0) put(',');
+                    putText(kind.columns[i]);
+                }
+                put('\n');
+            }
+            if (records instanceof TreeColumns) writeColumns((TreeColumns) records);
+            else for (Object record : records) write(record);
+            drain();
+            result.records = records.size();
+        } finally {
+            channel = null;
+        }
+        result.bytes = written;
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // --------------- Records ----------------
+
+    private void write(Object record) throws IOException {
+        if (record instanceof ForestZone) {
+            ForestZone z = (ForestZone) record;
+            text(0, z.zoneId);
+            text(1, z.zoneName);
+            text(2, z.officer);
+        } else if (record instanceof Tree) {
+            Tree t = (Tree) record;
+            text(0, t.treeId);
+            text(1, t.species);
+            number(2, t.age);
+            optionalText(3, t.zoneId);
+        } else {
+            Wildlife w = (Wildlife) record;
+            text(0, w.animal);
+            text(1, w.location);
+            text(2, w.date);
+            degrees(3, w.lat);
+            degrees(4, w.lon);
+            optionalText(5, w.zoneId);
+        }
+        endRecord();
+    }
+
+    // Species are encoded once per dictionary entry, IDs copied as stored.
+    private void writeColumns(TreeColumns trees) throws IOException {
+        byte[][] species = new byte[trees.dictionarySize()][];
+        for (int code = 0; code < species.length; code++) {
+            species[code] = trees.speciesForCode(code).getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] ids = trees.idBytes();
+        for (int row = 0; row < trees.size(); row++) {
+            startField(0);
+            putUtf8(ids, trees.idStart(row), trees.idEnd(row));
+            endField();
+            startField(1);
+            byte[] name = species[trees.speciesCodeAt(row)];
+            putUtf8(name, 0, name.length);
+            endField();
+            number(2, trees.age(row));
+            optionalText(3, trees.zoneId(row));
+            endRecord();
+        }
+    }
+
+    // --------------- Fields ----------------
+
+    private void text(int column, String value) throws IOException {
+        startField(column);
+        putText(value == null ? "" : value);
+        endField();
+    }
+
+    // null is an empty CSV field or a JSON null.
+    private void optionalText(int column, String value) throws IOException {
+        if (value != null) {
+            text(column, value);
+        } else if (format == Format.JSONL) {
+            putRaw(keys[column]);
+            putText("null");
+        } else {
+            put(',');
+        }
+    }
+
+    private void number(int column, int value) throws IOException {
+        if (format == Format.JSONL) putRaw(keys[column]);
+        else if (column > 0) put(',');
+        putInt(value);
+    }
+
+    // Decimal degrees with six places; NaN (no position) is an empty CSV
+    // field or a JSON null.
+    private void degrees(int column, double value) throws IOException {
+        if (format == Format.JSONL) putRaw(keys[column]);
+        else put(',');
+        if (Double.isNaN(value)) {
+            if (format == Format.JSONL) putText("null");
+            return;
+        }
+        int micros = Wildlife.toMicros(value);
+        if (micros < 0) put('-');
+        int abs = Math.abs(micros);
+        putInt(abs / 1_000_000);
+        put('.');
+        for (int scale = 100_000, frac = abs % 1_000_000; scale > 0; scale /= 10) put('0' + frac / scale % 10);
+    }
+
+    // Text fields are always quoted: CSV quoting is harmless for plain
+    // values and keeps commas and quotes in names intact.
+    private void startField(int column) throws IOException {
+        if (format == Format.JSONL) putRaw(keys[column]);
+        else if (column > 0) put(',');
+        put('"');
+    }
+
+    private void endField() throws IOException {
+        put('"');
+    }
+
+    private void endRecord() throws IOException {
+        if (format == Format.JSONL) put('}');
+        put('\n');
+    }
+
+    // --------------- Encoding ----------------
+
+    // UTF-8 encodes s into the buffer, escaping for the current format:
+    // CSV doubles quotes, JSON escapes quotes, backslashes and control chars.
+    private void putText(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch < 0x80) {
+                if (ch == '"') {
+                    if (format == Format.CSV) put('"');
+                    else put('\\');
+                    put('"');
+                } else if (format == Format.JSONL && (ch == '\\' || ch < 0x20)) {
+                    putJsonEscape(ch);
+                } else {
+                    put(ch);
+                }
+            } else if (ch < 0x800) {
+                put(0xC0 | (ch >> 6));
+                put(0x80 | (ch & 0x3F));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(ch, s.charAt(++i));
+                put(0xF0 | (cp >> 18));
+                put(0x80 | ((cp >> 12) & 0x3F));
+                put(0x80 | ((cp >> 6) & 0x3F));
+                put(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(ch)) {
+                put('?');
+            } else {
+                put(0xE0 | (ch >> 12));
+                put(0x80 | ((ch >> 6) & 0x3F));
+                put(0x80 | (ch & 0x3F));
+            }
+        }
+    }
+
+    private void putJsonEscape(char ch) throws IOException {
+        put('\\');
+        switch (ch) {
+            case '\\': put('\\'); return;
+            case '\n': put('n'); return;
+            case '\r': put('r'); return;
+            case '\t': put('t'); return;
+            default:
+                put('u');
+                put('0');
+                put('0');
+                put(Character.forDigit(ch >> 4, 16));
+                put(Character.forDigit(ch & 0xF, 16));
+        }
+    }
+
+    // Copies UTF-8 bytes with the same escaping as putText. Only ASCII
+    // quotes, backslashes and control bytes need it, and those bytes never
+    // occur inside a multi-byte sequence.
+    private void putUtf8(byte[] bytes, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '"') {
+                put(format == Format.CSV ? '"' : '\\');
+                put('"');
+            } else if (format == Format.JSONL && (b == '\\' || (b >= 0 && b < 0x20))) {
+                putJsonEscape((char) b);
+            } else {
+                put(b);
+            }
+        }
+    }
+
+    private void putRaw(byte[] bytes) throws IOException {
+        if (pos + bytes.length > buf.length) drain();
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void putInt(int value) throws IOException {
+        if (value < 0) {
+            put('-');
+            if (value == Integer.MIN_VALUE) {
+                putText("2147483648");
+                return;
+            }
+            value = -value;
+        }
+        if (pos + 10 > buf.length) drain();
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) digits++;
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += digits;
+    }
+
+    private void put(int b) throws IOException {
+        if (pos == buf.length) drain();
+        buf[pos++] = (byte) b;
+    }
+
+    private void drain() throws IOException {
+        ByteBuffer chunk = ByteBuffer.wrap(buf, 0, pos);
+        while (chunk.hasRemaining()) written += channel.write(chunk);
+        pos = 0;
+    }
+}
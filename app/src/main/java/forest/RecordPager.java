@@ -0,0 +1,99 @@
+package forest;
+
+import java.util.*;
+
+// ===================== PAGED VIEWS =====================
+
+// Offset/limit pages over a record list, optionally sorted, for the console
+// views. A sorted page keeps only offset + limit rows in a bounded heap while
+// it scans, so the early pages of a 10M-row list cost one pass and no copy
+// of the list. Ties are broken by row number, so pages never overlap.
+class RecordPager {
+    // Records without a zone sort after all others.
+    private static final Comparator<String> NO_ZONE_LAST = Comparator.nullsLast(Comparator.naturalOrder());
+
+    // Sort fields per kind; "-field" sorts descending, "*" or null keeps
+    // entry order.
+    static String fields(CsvImporter.Kind kind) {
+        return String.join(", ", kind.columns);
+    }
+
+    static Comparator<Object> order(CsvImporter.Kind kind, String field) {
+        if (field == null || field.equals("*")) return null;
+        boolean descending = field.startsWith("-");
+        String name = descending ? field.substring(1) : field;
+        Comparator<Object> order = null;
+        switch (kind) {
+            case ZONES:
+                if (name.equalsIgnoreCase("zoneId")) order = Comparator.comparing(o -> ((ForestZone) o).zoneId);
+                else if (name.equalsIgnoreCase("zoneName")) order = Comparator.comparing(o -> ((ForestZone) o).zoneName);
+                else if (name.equalsIgnoreCase("officer")) order = Comparator.comparing(o -> ((ForestZone) o).officer);
+                break;
+            case TREES:
+                if (name.equalsIgnoreCase("treeId")) order = Comparator.comparing(o -> ((Tree) o).treeId);
+                else if (name.equalsIgnoreCase("species")) order = Comparator.comparing(o -> ((Tree) o).species);
+                else if (name.equalsIgnoreCase("age")) order = Comparator.comparingInt(o -> ((Tree) o).age);
+                else if (name.equalsIgnoreCase("zoneId")) order = Comparator.comparing(o -> ((Tree) o).zoneId, NO_ZONE_LAST);
+                break;
+            default:
+                if (name.equalsIgnoreCase("animal")) order = Comparator.comparing(o -> ((Wildlife) o).animal);
+                else if (name.equalsIgnoreCase("location")) order = Comparator.comparing(o -> ((Wildlife) o).location);
+                // Undated sightings (NO_DATE) sort first.
+                else if (name.equalsIgnoreCase("date")) order = Comparator.comparingInt(o -> ((Wildlife) o).epochDay);
+                // Sightings without a position (NaN) sort after all others.
+                else if (name.equalsIgnoreCase("lat")) order = Comparator.comparingDouble(o -> ((Wildlife) o).lat);
+                else if (name.equalsIgnoreCase("lon")) order = Comparator.comparingDouble(o -> ((Wildlife) o).lon);
+                else if (name.equalsIgnoreCase("zoneId")) order = Comparator.comparing(o -> ((Wildlife) o).zoneId, NO_ZONE_LAST);
+                break;
+        }
+        if (order == null) throw new IllegalArgumentException("Unknown sort field: " + name + " (use " + fields(kind) + ")");
+        return descending ? order.reversed() : order;
+    }
+
+    // Read-only list of the given rows of records (index query results),
+    // fetched as they are read.
+    static <T> List<T> rows(List<T> records, int[] rows) {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int i) {
+                return records.get(rows[i]);
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        };
+    }
+
+    // Rows offset .. offset + limit - 1 of records in the given order (null =
+    // entry order, returned as a subList view). Returns fewer rows, or none,
+    // past the end.
+    static <T> List<T> page(List<T> records, int offset, int limit, Comparator<? super T> order) {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit cannot be negative");
+        int size = records.size();
+        if (offset >= size || limit == 0) return Collections.emptyList();
+        int end = (int) Math.min(size, (long) offset + limit);
+        if (order == null) return records.subList(offset, end);
+
+        // Max-heap of the best `end` rows seen so far; the root is the worst.
+        Comparator<Integer> byRow = (a, b) -> {
+            int c = order.compare(records.get(a), records.get(b));
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+        PriorityQueue<Integer> heap = new PriorityQueue<>(end + 1, byRow.reversed());
+        for (int row = 0; row < size; row++) {
+            if (heap.size() < end) {
+                heap.add(row);
+            } else if (byRow.compare(row, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(row);
+            }
+        }
+        Integer[] rows = heap.toArray(new Integer[0]);
+        Arrays.sort(rows, byRow);
+        List<T> page = new ArrayList<>(end - offset);
+        for (int i = offset; i < end; i++) page.add(records.get(rows[i]));
+        return page;
+    }
+}
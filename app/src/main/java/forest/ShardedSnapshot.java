@@ -0,0 +1,286 @@
+package forest;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+
+// ===================== SHARDED SNAPSHOT =====================
+
+// Storage mode for the full snapshot that splits each collection into
+// shard files of SHARD_RECORDS records, so that loads and full checkpoints
+// use every core instead of one. Enabled with -Dforest.storage=sharded;
+// the shard size is -Dforest.shard.records (default 1,048,576).
+//
+// forest.dat then holds a small manifest instead of the records:
+//
+//   "FRSM" | u16 version | i64 covered journal segment | i32 shards
+//   per shard: u8 kind ('Z', 'T', 'W') | i64 first row | i64 records | i64 bytes
+//              | UTF file name
+//   i32 CRC32C of the above
+//
+// Each shard, forest.shard.<covered segment>.<kind><n>, is a ForestFile of
+// its own (string table, CRC-checked blocks) holding one contiguous slice
+// of one collection, so shards decode independently: read() decodes them
+// all in parallel on the common fork/join pool and appends each to its list
+// as soon as the shards before it are in; write() writes them in parallel,
+// then the manifest, which it moves over forest.dat as the commit point.
+// Shards no manifest lists any more are deleted after that. Deltas stay
+// single files; they are small.
+//
+// Either mode reads a forest.dat written in the other; the next full
+// checkpoint rewrites it in the configured one.
+class ShardedSnapshot {
+    static final int SHARD_RECORDS = Math.max(1, Integer.getInteger("forest.shard.records", 1 << 20));
+
+    private static final byte[] MAGIC = {'F', 'R', 'S', 'M'};
+    private static final int VERSION = 1;
+    private static final String SHARD_PREFIX = "forest.shard.";
+
+    private static volatile boolean enabled = "sharded".equalsIgnoreCase(System.getProperty("forest.storage"));
+
+    // What a manifest lists.
+    static class Manifest {
+        long coveredSegment;
+        final List<Shard> shards = new ArrayList<>();
+
+        // Bytes in the shards plus the manifest itself.
+        long bytes;
+    }
+
+    static class Shard {
+        final byte kind;
+        final long first;      // row of its first record in the collection
+        final long records;
+        final long bytes;
+        final String file;
+
+        Shard(byte kind, long first, long records, long bytes, String file) {
+            this.kind = kind;
+            this.first = first;
+            this.records = records;
+            this.bytes = bytes;
+            this.file = file;
+        }
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    // For benchmarks comparing the two modes in one JVM.
+    static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    // --------------- Manifest ----------------
+
+    // True if the file starts like a manifest rather than a ForestFile.
+    static boolean isManifest(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] magic = in.readNBytes(MAGIC.length);
+            return Arrays.equals(magic, MAGIC);
+        }
+    }
+
+    static Manifest readManifest(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < MAGIC.length + 4) throw new IOException(path + " is truncated");
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt()) {
+            throw new IOException(path + " has a corrupt shard manifest");
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException(path + " is not a shard manifest");
+            int version = in.readUnsignedShort();
+            if (version > VERSION) throw new IOException(path + " was written by a newer version (manifest " + version + ")");
+            Manifest m = new Manifest();
+            m.coveredSegment = in.readLong();
+            m.bytes = bytes.length;
+            for (int i = in.readInt(); i > 0; i--) {
+                Shard s = new Shard(in.readByte(), in.readLong(), in.readLong(), in.readLong(), in.readUTF());
+                m.shards.add(s);
+                m.bytes += s.bytes;
+            }
+            return m;
+        }
+    }
+
+    private static void writeManifest(Path path, Manifest m) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            out.write(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(m.coveredSegment);
+            out.writeInt(m.shards.size());
+            for (Shard s : m.shards) {
+                out.writeByte(s.kind);
+                out.writeLong(s.first);
+                out.writeLong(s.records);
+                out.writeLong(s.bytes);
+                out.writeUTF(s.file);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buf.toByteArray());
+            out.writeInt((int) crc.getValue());
+        }
+        try (FileOutputStream fos = new FileOutputStream(path.toFile())) {
+            fos.write(buf.toByteArray());
+            fos.getFD().sync();
+        }
+    }
+
+    // Bytes in forest.dat and, if it is a manifest, its shards.
+    static long size(Path snapshot) throws IOException {
+        return isManifest(snapshot) ? readManifest(snapshot).bytes : Files.size(snapshot);
+    }
+
+    // --------------- Write ----------------
+
+    // Writes the lists as shards plus a manifest that replaces snapshot
+    // (forest.dat), then deletes the shards it no longer lists. Returns the
+    // manifest written.
+    static Manifest write(Path snapshot, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList, long covered) throws IOException {
+        Path dir = snapshot.toAbsolutePath().getParent();
+        List<Shard> planned = new ArrayList<>();
+        plan(ForestJournal.ZONE, zones.size(), covered, planned);
+        plan(ForestJournal.TREE, trees.size(), covered, planned);
+        plan(ForestJournal.WILDLIFE, wildlifeList.size(), covered, planned);
+
+        Manifest m = new Manifest();
+        m.coveredSegment = covered;
+        try {
+            m.shards.addAll(planned.parallelStream().map(s -> {
+                int from = (int) s.first;
+                int to = (int) (s.first + s.records);
+                List<ForestZone> z = s.kind == ForestJournal.ZONE ? zones.subList(from, to) : Collections.emptyList();
+                List<Tree> t = s.kind == ForestJournal.TREE ? trees.subList(from, to) : Collections.emptyList();
+                List<Wildlife> w = s.kind == ForestJournal.WILDLIFE ? wildlifeList.subList(from, to) : Collections.emptyList();
+                Path file = dir.resolve(s.file);
+                try {
+                    ForestFile.write(file, z, t, w, covered);
+                    return new Shard(s.kind, s.first, s.records, Files.size(file), s.file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).collect(Collectors.toList()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        writeManifest(tmp, m);
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        m.bytes = Files.size(snapshot);
+        for (Shard s : m.shards) m.bytes += s.bytes;
+        deleteUnlisted(snapshot);
+        return m;
+    }
+
+    // Adds the shards for count records of one kind; their byte counts are
+    // filled in once written.
+    private static void plan(byte kind, int count, long covered, List<Shard> shards) {
+        for (int n = 0, from = 0; from < count; n++, from += SHARD_RECORDS) {
+            shards.add(new Shard(kind, from, Math.min(SHARD_RECORDS, count - from), 0,
+                    SHARD_PREFIX + covered + "." + (char) Character.toLowerCase(kind) + n));
+        }
+    }
+
+    // Deletes every shard file the current forest.dat does not list: all of
+    // them once forest.dat is a single file again.
+    static void deleteUnlisted(Path snapshot) throws IOException {
+        Path dir = snapshot.toAbsolutePath().getParent();
+        Set<String> listed = new HashSet<>();
+        if (Files.exists(snapshot) && isManifest(snapshot)) {
+            for (Shard s : readManifest(snapshot).shards) listed.add(s.file);
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, SHARD_PREFIX + "*")) {
+            for (Path p : ds) {
+                if (!listed.contains(p.getFileName().toString())) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    // --------------- Read ----------------
+
+    // Decodes every shard the manifest lists in parallel and appends each
+    // to its list, in manifest order, once the shards before it are in; so
+    // at most the shards decoded ahead of the merge are held twice.
+    // Returns the manifest as a header.
+    static ForestFile.Header read(Path snapshot, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList,
+                                  ProgressStream.Counter counter) throws IOException {
+        Manifest m = readManifest(snapshot);
+        Path dir = snapshot.toAbsolutePath().getParent();
+        counter.add(m.bytes - sum(m.shards));
+
+        List<CompletableFuture<List<?>>> decoding = new ArrayList<>();
+        for (Shard s : m.shards) {
+            decoding.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return decode(dir.resolve(s.file), s, counter);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, ForkJoinPool.commonPool()));
+        }
+        try {
+            for (int i = 0; i < decoding.size(); i++) {
+                Shard s = m.shards.get(i);
+                List<?> target = s.kind == ForestJournal.ZONE ? zones : s.kind == ForestJournal.TREE ? trees : wildlifeList;
+                if (target.size() != s.first) throw new IOException(snapshot + " lists " + s.file + " out of order");
+                merge(s.kind, decoding.get(i).join(), zones, trees, wildlifeList);
+                decoding.set(i, null);
+            }
+        } catch (CompletionException e) {
+            decoding.forEach(f -> {
+                if (f != null) f.cancel(false);
+            });
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw e;
+        }
+
+        ForestFile.Header h = new ForestFile.Header();
+        h.version = ForestFile.VERSION;
+        h.coveredSegment = m.coveredSegment;
+        h.zones = zones.size();
+        h.trees = trees.size();
+        h.wildlife = wildlifeList.size();
+        return h;
+    }
+
+    // One shard's records, checked against what the manifest says it holds.
+    private static List<?> decode(Path file, Shard s, ProgressStream.Counter counter) throws IOException {
+        List<ForestZone> z = new ArrayList<>();
+        List<Tree> t = new ArrayList<>();
+        List<Wildlife> w = new ArrayList<>();
+        ForestFile.Header h = ForestFile.read(file, z, t, w, counter);
+        long records = s.kind == ForestJournal.ZONE ? h.zones : s.kind == ForestJournal.TREE ? h.trees : h.wildlife;
+        if (records != s.records || h.zones + h.trees + h.wildlife != records) {
+            throw new IOException(file + " does not hold the records its manifest lists");
+        }
+        return s.kind == ForestJournal.ZONE ? z : s.kind == ForestJournal.TREE ? t : w;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void merge(byte kind, List<?> shard, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList) {
+        switch (kind) {
+            case ForestJournal.ZONE: zones.addAll((List<ForestZone>) shard); break;
+            case ForestJournal.TREE: trees.addAll((List<Tree>) shard); break;
+            default: wildlifeList.addAll((List<Wildlife>) shard); break;
+        }
+    }
+
+    private static long sum(List<Shard> shards) {
+        long total = 0;
+        for (Shard s : shards) total += s.bytes;
+        return total;
+    }
+}
@@ -0,0 +1,633 @@
+package forest;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+// ===================== SIGHTING ARCHIVE =====================
+
+// Month-partitioned, append-only store for old sightings, so that the
+// wildlife list on the heap (and forest.dat) only holds a hot window of
+// recent ones. With -Dforest.wildlife.hotMonths=N every load moves the
+// sightings dated before the first day of the month N-1 months back into
+// archive/ next to forest.dat; undated sightings and newer ones stay on the
+// heap. The default, 0, archives nothing, but an archive already on disk
+// is read either way.
+//
+// Files:
+//   sightings.YYYY-MM.dat  one partition per month: "FRSA" | u16 version |
+//                          u16 record bytes | 8 reserved bytes, then records
+//                          of RECORD_BYTES each:
+//                          i32 epoch day | i32 animal | i32 location |
+//                          i32 date | i32 zone (or -1) | i32 lat, i32 lon
+//                          in microdegrees (or MIN_VALUE)
+//   strings.dat            every text value once, as writeUTF; records
+//                          hold a value's number in it
+//   catalog.dat            "FRSC" | u16 version | committed lengths |
+//                          u8 pending | if pending: i64 covered segment,
+//                          pending lengths | i32 CRC32C of the above
+//   where lengths are: i64 string bytes | i32 strings | i32 partitions |
+//                      per partition: i32 month | i32 records
+//
+// Partitions are read through read-only memory maps, so an archived
+// sighting takes no heap until it is asked for, and only while the caller
+// holds on to it: get() decodes it afresh each time. In the repository's
+// wildlife list the archived sightings come first, month by month, then
+// the hot ones. Queries scan the mapped records in place, one partition
+// per task on the common fork/join pool, and skip the months outside a
+// date range (partition pruning); monthly counts without an animal or
+// location are read off the catalog.
+//
+// Archiving appends to the strings and partitions, then records the new
+// lengths in the catalog as pending until forest.dat covers a given
+// journal segment; the repository then writes a full checkpoint of what is
+// left on the heap. open() keeps the pending lengths if forest.dat covers
+// that segment, i.e. the checkpoint landed, and otherwise cuts the files
+// back, so each sighting is in exactly one of forest.dat and the archive.
+//
+// The state is replaced as a whole by open() and commit(), which the
+// repository calls with every lock held; readers take it once per call.
+class SightingArchive {
+    static final int RECORD_BYTES = 28;
+
+    private static final int HEADER_BYTES = 16;
+    private static final byte[] PARTITION_MAGIC = {'F', 'R', 'S', 'A'};
+    private static final byte[] CATALOG_MAGIC = {'F', 'R', 'S', 'C'};
+    private static final int VERSION = 1;
+    private static final String DIR = "archive";
+    private static final String CATALOG = "catalog.dat";
+    private static final String STRINGS = "strings.dat";
+    private static final String PREFIX = "sightings.";
+    private static final String SUFFIX = ".dat";
+    private static final int NONE = -1;
+    private static final int NO_POSITION = Integer.MIN_VALUE;
+
+    private static volatile int hotMonths = Math.max(0, Integer.getInteger("forest.wildlife.hotMonths", 0));
+
+    // Strings and per-month record counts, as a catalog lists them.
+    private static final class Lengths {
+        long stringBytes;
+        int strings;
+        final TreeMap<Integer, Integer> records = new TreeMap<>();
+
+        Lengths copy() {
+            Lengths l = new Lengths();
+            l.stringBytes = stringBytes;
+            l.strings = strings;
+            l.records.putAll(records);
+            return l;
+        }
+    }
+
+    // One month's records.
+    private static final class Partition {
+        final int month;        // year * 12 + month - 1
+        final int records;
+        final int firstDay;     // epoch days the month spans
+        final int lastDay;
+        final int firstRow;     // archive row of its first record
+        final ByteBuffer map;   // the records, past the header
+
+        Partition(int month, int records, int firstRow, ByteBuffer map) {
+            this.month = month;
+            this.records = records;
+            this.firstRow = firstRow;
+            this.map = map;
+            YearMonth ym = YearMonth.of(month / 12, month % 12 + 1);
+            this.firstDay = (int) ym.atDay(1).toEpochDay();
+            this.lastDay = (int) ym.atEndOfMonth().toEpochDay();
+        }
+    }
+
+    // What open() or commit() mapped; never changed afterwards.
+    private static final class State {
+        final String[] strings;
+        final String[] keys;                    // ForestIndex.key of each string
+        final HashMap<String, Integer> numbers; // string -> its number
+        final Partition[] partitions;           // by month
+        final int records;
+
+        State(String[] strings, Partition[] partitions) {
+            this.strings = strings;
+            this.keys = new String[strings.length];
+            this.numbers = new HashMap<>(strings.length * 2);
+            for (int i = 0; i < strings.length; i++) {
+                keys[i] = ForestIndex.key(strings[i]);
+                numbers.put(strings[i], i);
+            }
+            this.partitions = partitions;
+            int records = 0;
+            for (Partition p : partitions) records += p.records;
+            this.records = records;
+        }
+
+        // Numbers of the strings equal to value, ignoring case.
+        BitSet matching(String value) {
+            String key = ForestIndex.key(value);
+            BitSet out = new BitSet(strings.length);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) out.set(i);
+            }
+            return out;
+        }
+    }
+
+    private static final State EMPTY = new State(new String[0], new Partition[0]);
+
+    // Tests one record, at offset in its partition's map.
+    private interface RecordTest {
+        boolean test(ByteBuffer map, int offset);
+    }
+
+    private final Path dir;
+    private volatile State state = EMPTY;
+    private Lengths committed = new Lengths();
+    private Lengths pending;
+
+    // dataDir is the directory holding forest.dat. Empty until open().
+    SightingArchive(Path dataDir) {
+        this.dir = dataDir.resolve(DIR);
+    }
+
+    static int hotMonths() {
+        return hotMonths;
+    }
+
+    // For benchmarks comparing runs with and without an archive.
+    static void setHotMonths(int months) {
+        hotMonths = Math.max(0, months);
+    }
+
+    // Epoch day of the first day of the hot window, or ForestIndex.NO_DATE
+    // when nothing is to be archived.
+    static int hotFrom() {
+        int months = hotMonths;
+        if (months == 0) return ForestIndex.NO_DATE;
+        return (int) YearMonth.now().minusMonths(months - 1).atDay(1).toEpochDay();
+    }
+
+    // --------------- Open ----------------
+
+    // Reads the catalog, settles a pending archiving step against the
+    // segment forest.dat covers, cuts the files back to the lengths kept
+    // and maps the partitions. With no archive on disk it opens empty.
+    void open(long snapshotCovered) throws IOException {
+        pending = null;
+        committed = new Lengths();
+        state = EMPTY;
+        if (!Files.isDirectory(dir)) return;
+        Path catalog = dir.resolve(CATALOG);
+        if (Files.exists(catalog)) {
+            Lengths[] read = new Lengths[2];
+            long covered = readCatalog(catalog, read);
+            if (read[1] != null) {
+                if (snapshotCovered >= covered) committed = read[1];
+                else committed = read[0];
+                writeCatalog(committed, null, 0);
+            } else {
+                committed = read[0];
+            }
+        }
+        // Also clears what a step that failed before its first catalog left.
+        cut(committed);
+        state = map(committed);
+    }
+
+    // Truncates strings.dat and the partitions to the given lengths and
+    // deletes partitions they do not list.
+    private void cut(Lengths keep) throws IOException {
+        truncate(dir.resolve(STRINGS), keep.stringBytes);
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path p : ds) {
+                Integer month = month(p);
+                if (month == null || !keep.records.containsKey(month)) Files.delete(p);
+            }
+        }
+        for (Map.Entry<Integer, Integer> e : keep.records.entrySet()) {
+            truncate(partitionPath(e.getKey()), HEADER_BYTES + (long) e.getValue() * RECORD_BYTES);
+        }
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        if (length == 0 && !Files.exists(file)) return;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (ch.size() < length) throw new IOException(file + " is shorter than the archive catalog says");
+            if (ch.size() > length) {
+                ch.truncate(length);
+                ch.force(true);
+            }
+        }
+    }
+
+    private State map(Lengths lengths) throws IOException {
+        String[] strings = new String[lengths.strings];
+        if (lengths.strings > 0) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve(STRINGS))))) {
+                for (int i = 0; i < strings.length; i++) strings[i] = in.readUTF();
+            }
+        }
+        List<Partition> partitions = new ArrayList<>(lengths.records.size());
+        long row = 0;
+        for (Map.Entry<Integer, Integer> e : lengths.records.entrySet()) {
+            Path file = partitionPath(e.getKey());
+            int records = e.getValue();
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                if (ch.read(header, 0) < HEADER_BYTES) throw new IOException(file + " is truncated");
+                header.flip();
+                byte[] magic = new byte[PARTITION_MAGIC.length];
+                header.get(magic);
+                if (!Arrays.equals(magic, PARTITION_MAGIC)) throw new IOException(file + " is not an archive partition");
+                int version = header.getShort() & 0xFFFF;
+                if (version > VERSION) throw new IOException(file + " was written by a newer version (partition " + version + ")");
+                if ((header.getShort() & 0xFFFF) != RECORD_BYTES) throw new IOException(file + " has records of another size");
+                // A map holds at most 2 GB; the partition's size is checked when it is appended to.
+                ByteBuffer map = records == 0 ? ByteBuffer.allocate(0)
+                        : ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) records * RECORD_BYTES);
+                partitions.add(new Partition(e.getKey(), records, (int) row, map));
+            }
+            row += records;
+        }
+        return new State(strings, partitions.toArray(new Partition[0]));
+    }
+
+    // --------------- Archiving ----------------
+
+    // Appends dated sightings to their months' partitions and records the
+    // new lengths in the catalog as pending until forest.dat covers segment
+    // covered. Nothing is visible until commit(); rollback() undoes it.
+    void stage(List<Wildlife> sightings, long covered) throws IOException {
+        State s = state;
+        Lengths next = committed.copy();
+        if ((long) s.records + sightings.size() > Integer.MAX_VALUE) throw new IOException("Archive would exceed " + Integer.MAX_VALUE + " sightings");
+        Files.createDirectories(dir);
+
+        // Encode first, adding strings the archive does not hold yet.
+        HashMap<String, Integer> numbers = new HashMap<>(s.numbers);
+        ByteArrayOutputStream newStrings = new ByteArrayOutputStream();
+        DataOutputStream stringsOut = new DataOutputStream(newStrings);
+        TreeMap<Integer, ByteArrayOutputStream> byMonth = new TreeMap<>();
+        for (Wildlife w : sightings) {
+            if (w.epochDay == ForestIndex.NO_DATE) throw new IllegalArgumentException("Undated sightings are not archived: " + w);
+            int month = monthIndex(LocalDate.ofEpochDay(w.epochDay));
+            DataOutputStream out = new DataOutputStream(byMonth.computeIfAbsent(month, m -> new ByteArrayOutputStream()));
+            out.writeInt(w.epochDay);
+            out.writeInt(number(w.animal, numbers, stringsOut));
+            out.writeInt(number(w.location, numbers, stringsOut));
+            out.writeInt(number(w.date, numbers, stringsOut));
+            out.writeInt(w.zoneId == null ? NONE : number(w.zoneId, numbers, stringsOut));
+            out.writeInt(w.hasPosition() ? Wildlife.toMicros(w.lat) : NO_POSITION);
+            out.writeInt(w.hasPosition() ? Wildlife.toMicros(w.lon) : NO_POSITION);
+        }
+        stringsOut.flush();
+
+        if (newStrings.size() > 0) {
+            append(dir.resolve(STRINGS), next.stringBytes, newStrings.toByteArray(), false);
+            next.stringBytes += newStrings.size();
+            next.strings = numbers.size();
+        }
+        for (Map.Entry<Integer, ByteArrayOutputStream> e : byMonth.entrySet()) {
+            int month = e.getKey();
+            int had = next.records.getOrDefault(month, 0);
+            long records = had + (long) e.getValue().size() / RECORD_BYTES;
+            if (records * RECORD_BYTES > Integer.MAX_VALUE) throw new IOException("Archive partition " + monthName(month) + " is full");
+            append(partitionPath(month), HEADER_BYTES + (long) had * RECORD_BYTES, e.getValue().toByteArray(), !next.records.containsKey(month));
+            next.records.put(month, (int) records);
+        }
+        writeCatalog(committed, next, covered);
+        pending = next;
+    }
+
+    // Makes the staged sightings part of the archive.
+    void commit() throws IOException {
+        if (pending == null) return;
+        writeCatalog(pending, null, 0);
+        committed = pending;
+        pending = null;
+        state = map(committed);
+    }
+
+    // Cuts the files back to the committed lengths, also after a stage()
+    // that failed half way. Only safe while forest.dat does not cover the
+    // staged step's segment.
+    void rollback() throws IOException {
+        pending = null;
+        if (!Files.isDirectory(dir)) return;
+        writeCatalog(committed, null, 0);
+        cut(committed);
+    }
+
+    private static int number(String value, HashMap<String, Integer> numbers, DataOutputStream out) throws IOException {
+        Integer n = numbers.get(value);
+        if (n != null) return n;
+        n = numbers.size();
+        numbers.put(value, n);
+        out.writeUTF(value);
+        return n;
+    }
+
+    // Writes bytes at offset (where the committed part ends) and forces
+    // them to disk; a new partition gets its header first.
+    private static void append(Path file, long offset, byte[] bytes, boolean create) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (create) {
+                ch.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.put(PARTITION_MAGIC).putShort((short) VERSION).putShort((short) RECORD_BYTES).position(HEADER_BYTES).flip();
+                while (header.hasRemaining()) ch.write(header, header.position());
+            }
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) ch.write(buf, offset + buf.position());
+            ch.force(false);
+        }
+    }
+
+    // --------------- Catalog ----------------
+
+    // Fills read[0] with the committed lengths and read[1] with the pending
+    // ones, or null; returns the pending step's covered segment.
+    private long readCatalog(Path path, Lengths[] read) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < CATALOG_MAGIC.length + 4) throw new IOException(path + " is truncated");
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt()) {
+            throw new IOException(path + " is corrupt");
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4))) {
+            byte[] magic = new byte[CATALOG_MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, CATALOG_MAGIC)) throw new IOException(path + " is not an archive catalog");
+            int version = in.readUnsignedShort();
+            if (version > VERSION) throw new IOException(path + " was written by a newer version (catalog " + version + ")");
+            read[0] = readLengths(in);
+            long covered = 0;
+            read[1] = null;
+            if (in.readBoolean()) {
+                covered = in.readLong();
+                read[1] = readLengths(in);
+            }
+            return covered;
+        }
+    }
+
+    private static Lengths readLengths(DataInputStream in) throws IOException {
+        Lengths l = new Lengths();
+        l.stringBytes = in.readLong();
+        l.strings = in.readInt();
+        for (int i = in.readInt(); i > 0; i--) l.records.put(in.readInt(), in.readInt());
+        return l;
+    }
+
+    private static void writeLengths(DataOutputStream out, Lengths l) throws IOException {
+        out.writeLong(l.stringBytes);
+        out.writeInt(l.strings);
+        out.writeInt(l.records.size());
+        for (Map.Entry<Integer, Integer> e : l.records.entrySet()) {
+            out.writeInt(e.getKey());
+            out.writeInt(e.getValue());
+        }
+    }
+
+    // Written to a temporary file and moved over the catalog.
+    private void writeCatalog(Lengths lengths, Lengths pendingLengths, long covered) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            out.write(CATALOG_MAGIC);
+            out.writeShort(VERSION);
+            writeLengths(out, lengths);
+            out.writeBoolean(pendingLengths != null);
+            if (pendingLengths != null) {
+                out.writeLong(covered);
+                writeLengths(out, pendingLengths);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buf.toByteArray());
+            out.writeInt((int) crc.getValue());
+        }
+        Path catalog = dir.resolve(CATALOG);
+        Path tmp = dir.resolve(CATALOG + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile())) {
+            fos.write(buf.toByteArray());
+            fos.getFD().sync();
+        }
+        Files.move(tmp, catalog, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // --------------- Reads ----------------
+
+    int size() {
+        return state.records;
+    }
+
+    int partitions() {
+        return state.partitions.length;
+    }
+
+    // Text values held once for all archived sightings.
+    int strings() {
+        return state.strings.length;
+    }
+
+    // Bytes in the archive's files.
+    long bytes() throws IOException {
+        long total = 0;
+        if (!Files.isDirectory(dir)) return total;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) {
+                try {
+                    total += Files.size(p);
+                } catch (NoSuchFileException e) {
+                    // the catalog's temporary file, moved in the meantime
+                }
+            }
+        }
+        return total;
+    }
+
+    // The archived sightings followed by hot, as one list; archived rows
+    // are decoded on every get().
+    List<Wildlife> withHot(List<Wildlife> hot) {
+        State s = state;
+        if (s.records == 0) return hot;
+        return new Combined(s, hot);
+    }
+
+    private static final class Combined extends AbstractList<Wildlife> implements RandomAccess {
+        private final State state;
+        private final List<Wildlife> hot;
+
+        Combined(State state, List<Wildlife> hot) {
+            this.state = state;
+            this.hot = hot;
+        }
+
+        @Override
+        public int size() {
+            return state.records + hot.size();
+        }
+
+        @Override
+        public Wildlife get(int row) {
+            Objects.checkIndex(row, size());
+            return row < state.records ? decode(state, row) : hot.get(row - state.records);
+        }
+    }
+
+    private static Wildlife decode(State s, int row) {
+        Partition p = partition(s, row);
+        ByteBuffer m = p.map;
+        int o = (row - p.firstRow) * RECORD_BYTES;
+        int zone = m.getInt(o + 16);
+        int latE6 = m.getInt(o + 20);
+        double lat = latE6 == NO_POSITION ? Double.NaN : Wildlife.fromMicros(latE6);
+        double lon = latE6 == NO_POSITION ? Double.NaN : Wildlife.fromMicros(m.getInt(o + 24));
+        return new Wildlife(s.strings[m.getInt(o + 4)], s.strings[m.getInt(o + 8)], s.strings[m.getInt(o + 12)],
+                lat, lon, zone == NONE ? null : s.strings[zone]);
+    }
+
+    // The partition holding an archive row.
+    private static Partition partition(State s, int row) {
+        int lo = 0, hi = s.partitions.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (s.partitions[mid].firstRow <= row) lo = mid;
+            else hi = mid - 1;
+        }
+        return s.partitions[lo];
+    }
+
+    // --------------- Queries ----------------
+
+    // Rows (ascending) of archived sightings matching animal and location
+    // (null = any, ignoring case) between two epoch days inclusive
+    // (NO_DATE = open), as ForestIndex.findWildlife; only the months
+    // overlapping the range are read.
+    int[] find(String animal, String location, int fromDay, int toDay) {
+        State s = state;
+        int lo = fromDay == ForestIndex.NO_DATE ? Integer.MIN_VALUE + 1 : fromDay;
+        int hi = toDay == ForestIndex.NO_DATE ? Integer.MAX_VALUE : toDay;
+        if (s.records == 0 || lo > hi) return new int[0];
+        BitSet animals = animal == null ? null : s.matching(animal);
+        BitSet locations = location == null ? null : s.matching(location);
+        if ((animals != null && animals.isEmpty()) || (locations != null && locations.isEmpty())) return new int[0];
+        return scan(s, p -> p.lastDay >= lo && p.firstDay <= hi, (m, o) -> {
+            int day = m.getInt(o);
+            return day >= lo && day <= hi
+                    && (animals == null || animals.get(m.getInt(o + 4)))
+                    && (locations == null || locations.get(m.getInt(o + 8)));
+        });
+    }
+
+    // Rows (ascending) of archived sightings referencing the zone (exact ID).
+    int[] findInZone(String zoneId) {
+        State s = state;
+        Integer number = s.numbers.get(zoneId);
+        if (number == null) return new int[0];
+        int zone = number;
+        return scan(s, p -> true, (m, o) -> m.getInt(o + 16) == zone);
+    }
+
+    // Rows (ascending) in the box, as SpatialGrid.findInBox, whose checks
+    // the caller has run.
+    int[] findInBox(double minLat, double maxLat, double minLon, double maxLon) {
+        return scan(state, p -> true, (m, o) -> {
+            int latE6 = m.getInt(o + 20);
+            if (latE6 == NO_POSITION) return false;
+            double lat = Wildlife.fromMicros(latE6);
+            double lon = Wildlife.fromMicros(m.getInt(o + 24));
+            if (lat < minLat || lat > maxLat) return false;
+            return minLon <= maxLon ? lon >= minLon && lon <= maxLon : lon >= minLon || lon <= maxLon;
+        });
+    }
+
+    // Rows (ascending, not nearest first) within km of lat/lon, as
+    // SpatialGrid.findNear, whose checks the caller has run.
+    int[] findNear(double lat, double lon, double km) {
+        double band = Math.toDegrees(km / SpatialGrid.EARTH_RADIUS_KM);
+        return scan(state, p -> true, (m, o) -> {
+            int latE6 = m.getInt(o + 20);
+            if (latE6 == NO_POSITION) return false;
+            double pLat = Wildlife.fromMicros(latE6);
+            return Math.abs(pLat - lat) <= band
+                    && SpatialGrid.distanceKm(lat, lon, pLat, Wildlife.fromMicros(m.getInt(o + 24))) <= km;
+        });
+    }
+
+    // Adds archived sightings per month from..to to counts (one slot per
+    // month, as SightingRollup.monthlyCounts returns them).
+    void addMonthlyCounts(String animal, String location, YearMonth from, YearMonth to, int[] counts) {
+        State s = state;
+        int first = monthIndex(from.atDay(1));
+        int last = monthIndex(to.atDay(1));
+        if (s.records == 0 || last < first) return;
+        BitSet animals = animal == null ? null : s.matching(animal);
+        BitSet locations = location == null ? null : s.matching(location);
+        if ((animals != null && animals.isEmpty()) || (locations != null && locations.isEmpty())) return;
+        // One partition per month, so each task adds to its own slot.
+        Arrays.stream(s.partitions).parallel().filter(p -> p.month >= first && p.month <= last).forEach(p -> {
+            int n = 0;
+            if (animals == null && locations == null) {
+                n = p.records;
+            } else {
+                for (int i = 0, o = 0; i < p.records; i++, o += RECORD_BYTES) {
+                    if ((animals == null || animals.get(p.map.getInt(o + 4)))
+                            && (locations == null || locations.get(p.map.getInt(o + 8)))) n++;
+                }
+            }
+            counts[p.month - first] += n;
+        });
+    }
+
+    // Rows of the records that pass test, in the partitions picked, each
+    // partition scanned as its own task.
+    private static int[] scan(State s, Predicate<Partition> pick, RecordTest test) {
+        int[][] found = Arrays.stream(s.partitions).parallel().filter(pick).map(p -> {
+            ForestIndex.IntList out = new ForestIndex.IntList();
+            for (int i = 0, o = 0; i < p.records; i++, o += RECORD_BYTES) {
+                if (test.test(p.map, o)) out.add(p.firstRow + i);
+            }
+            return Arrays.copyOf(out.rows, out.size);
+        }).toArray(int[][]::new);
+        int n = 0;
+        for (int[] rows : found) n += rows.length;
+        int[] result = new int[n];
+        int pos = 0;
+        for (int[] rows : found) {
+            System.arraycopy(rows, 0, result, pos, rows.length);
+            pos += rows.length;
+        }
+        return result;
+    }
+
+    // --------------- Files ----------------
+
+    private Path partitionPath(int month) {
+        return dir.resolve(PREFIX + monthName(month) + SUFFIX);
+    }
+
+    private static String monthName(int month) {
+        return String.format("%04d-%02d", month / 12, month % 12 + 1);
+    }
+
+    // The month in a partition's file name, or null if it is not one.
+    private static Integer month(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            YearMonth ym = YearMonth.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+            return ym.getYear() * 12 + ym.getMonthValue() - 1;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static int monthIndex(LocalDate d) {
+        return d.getYear() * 12 + d.getMonthValue() - 1;
+    }
+}
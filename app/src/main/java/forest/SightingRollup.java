@@ -0,0 +1,171 @@
+package forest;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+// ===================== SIGHTING ROLLUPS =====================
+
+// Sighting counts kept up to date as sightings are added, so trend views
+// never rescan the wildlife list.
+//
+// Animals and locations are dictionary-coded (code 0 means "all") and a
+// count is addressed by one packed long: animal | location | period.
+//   daily    (animal, location, epoch day)                  exact pairs only
+//   monthly  (animal or all, location or all, month index)  every combination
+// Each sighting therefore touches one daily and four monthly counters.
+// Text is matched case-insensitively, like the secondary indexes.
+class SightingRollup {
+    private static final int CODE_BITS = 21;
+    private static final int PERIOD_BITS = 22;
+    private static final long PERIOD_MASK = (1L << PERIOD_BITS) - 1;
+    private static final int DAY_OFFSET = 1 << (PERIOD_BITS - 1);
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("M-uuuu");
+
+    private final HashMap<String, Integer> animals = new HashMap<>();
+    private final HashMap<String, Integer> locations = new HashMap<>();
+    private final LongIntMap daily = new LongIntMap();
+    private final LongIntMap monthly = new LongIntMap();
+    private long undated;
+
+    void add(Wildlife w) {
+        if (w.epochDay == ForestIndex.NO_DATE) {
+            undated++;
+            return;
+        }
+        int animal = code(animals, w.animal);
+        int location = code(locations, w.location);
+        int month = monthIndex(LocalDate.ofEpochDay(w.epochDay));
+
+        daily.add(pack(animal, location, w.epochDay + DAY_OFFSET), 1);
+        monthly.add(pack(animal, location, month), 1);
+        monthly.add(pack(animal, 0, month), 1);
+        monthly.add(pack(0, location, month), 1);
+        monthly.add(pack(0, 0, month), 1);
+    }
+
+    void clear() {
+        animals.clear();
+        locations.clear();
+        daily.clear();
+        monthly.clear();
+        undated = 0;
+    }
+
+    // --------------- Queries ----------------
+
+    // Sightings per month from..to inclusive; null animal or location means all.
+    int[] monthlyCounts(String animal, String location, YearMonth from, YearMonth to) {
+        int first = monthIndex(from.atDay(1));
+        int last = monthIndex(to.atDay(1));
+        if (last < first) return new int[0];
+        int a = lookup(animals, animal);
+        int l = lookup(locations, location);
+        int[] counts = new int[last - first + 1];
+        if (a < 0 || l < 0) return counts;
+        for (int m = first; m <= last; m++) counts[m - first] = monthly.get(pack(a, l, m));
+        return counts;
+    }
+
+    // Sightings of one animal at one location on one day.
+    int dailyCount(String animal, String location, LocalDate day) {
+        int a = lookup(animals, animal);
+        int l = lookup(locations, location);
+        if (a <= 0 || l <= 0) return 0;
+        return daily.get(pack(a, l, (int) day.toEpochDay() + DAY_OFFSET));
+    }
+
+    // Sightings whose date could not be parsed and so are in no rollup.
+    long undated() {
+        return undated;
+    }
+
+    // MM-YYYY, or null if the text is not a month.
+    static YearMonth parseMonth(String text) {
+        try {
+            return YearMonth.parse(text.trim(), MONTH);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static int lookup(HashMap<String, Integer> dict, String value) {
+        if (value == null) return 0;
+        Integer code = dict.get(ForestIndex.key(value));
+        return code == null ? -1 : code;
+    }
+
+    private static int code(HashMap<String, Integer> dict, String value) {
+        return dict.computeIfAbsent(ForestIndex.key(value), k -> dict.size() + 1);
+    }
+
+    private static int monthIndex(LocalDate d) {
+        return d.getYear() * 12 + d.getMonthValue() - 1;
+    }
+
+    private static long pack(int animal, int location, int period) {
+        return ((long) animal << (CODE_BITS + PERIOD_BITS)) | ((long) location << PERIOD_BITS) | (period & PERIOD_MASK);
+    }
+
+    // Open-addressed long -> int map; counts never need boxing.
+    private static class LongIntMap {
+        private long[] keys = new long[64];
+        private int[] values = new int[64];
+        private boolean[] used = new boolean[64];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; used[i]; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return 0;
+        }
+
+        void add(long key, int delta) {
+            if ((size + 1) * 2 > keys.length) resize();
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (used[i] && keys[i] != key) i = (i + 1) & mask;
+            if (!used[i]) {
+                used[i] = true;
+                keys[i] = key;
+                size++;
+            }
+            values[i] += delta;
+        }
+
+        void clear() {
+            keys = new long[64];
+            values = new int[64];
+            used = new boolean[64];
+            size = 0;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (!oldUsed[j]) continue;
+                int i = mix(oldKeys[j]) & mask;
+                while (used[i]) i = (i + 1) & mask;
+                used[i] = true;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return (int) (key ^ (key >>> 32));
+        }
+    }
+}
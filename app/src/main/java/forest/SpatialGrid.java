@@ -0,0 +1,202 @@
+package forest;
+
+import java.util.*;
+
+// ===================== SPATIAL GRID =====================
+
+// Uniform latitude/longitude grid over the sightings that have a position,
+// kept up to date as sightings are added, for bounding-box and radius
+// queries. Cells are CELL_DEGREES on a side (default 0.05 degrees, about
+// 5.5 km north-south) and only occupied cells exist, in a HashMap keyed by
+// cell number. Each cell keeps its rows together with their positions in
+// microdegrees, so a query reads the candidate cells and nothing else.
+//
+// A query visits the cells the box overlaps, or, for a box wider than the
+// data, just the occupied cells, so its cost follows the number of
+// sightings near the area rather than the total. Cells that lie wholly
+// inside a box are taken without checking each point. Longitudes wrap: a
+// box with minLon > maxLon crosses the 180th meridian, and so may a radius.
+//
+// Not thread-safe; ForestRepository guards it with the sighting lock.
+class SpatialGrid {
+    static final double CELL_DEGREES = Double.parseDouble(System.getProperty("forest.geo.cellDegrees", "0.05"));
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final int ROWS = (int) Math.ceil(180 / CELL_DEGREES);
+    private static final int COLUMNS = (int) Math.ceil(360 / CELL_DEGREES);
+
+    // Rows and their positions in microdegrees.
+    private static final class Cell {
+        int[] rows = new int[4];
+        int[] lat = new int[4];
+        int[] lon = new int[4];
+        int size;
+
+        void add(int row, int latE6, int lonE6) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                lat = Arrays.copyOf(lat, size * 2);
+                lon = Arrays.copyOf(lon, size * 2);
+            }
+            rows[size] = row;
+            lat[size] = latE6;
+            lon[size] = lonE6;
+            size++;
+        }
+    }
+
+    // Rows found by a radius query and their distances.
+    private static final class Hits {
+        int[] rows = new int[16];
+        double[] km = new double[16];
+        int size;
+
+        void add(int row, double distance) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                km = Arrays.copyOf(km, size * 2);
+            }
+            rows[size] = row;
+            km[size++] = distance;
+        }
+
+        // Ties (equal distance) in row order.
+        int[] nearestFirst() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> km[a] != km[b] ? Double.compare(km[a], km[b]) : Integer.compare(rows[a], rows[b]));
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) result[i] = rows[order[i]];
+            return result;
+        }
+    }
+
+    // Called for each point inside the scanned box.
+    private interface Visitor {
+        void visit(int row, double lat, double lon);
+    }
+
+    private final HashMap<Long, Cell> cells = new HashMap<>();
+    private int points;
+
+    // --------------- Maintenance ----------------
+
+    // Sightings without a position are skipped.
+    void add(Wildlife w, int row) {
+        if (!w.hasPosition()) return;
+        cells.computeIfAbsent(key(cellRow(w.lat), cellColumn(w.lon)), k -> new Cell())
+             .add(row, Wildlife.toMicros(w.lat), Wildlife.toMicros(w.lon));
+        points++;
+    }
+
+    void clear() {
+        cells.clear();
+        points = 0;
+    }
+
+    // Sightings with a position.
+    int size() {
+        return points;
+    }
+
+    // --------------- Queries ----------------
+
+    // Rows (ascending) with minLat <= lat <= maxLat and lon between minLon
+    // and maxLon, eastwards, so minLon > maxLon crosses the 180th meridian.
+    int[] findInBox(double minLat, double maxLat, double minLon, double maxLon) {
+        Wildlife.checkPosition(minLat, minLon);
+        Wildlife.checkPosition(maxLat, maxLon);
+        if (minLat > maxLat) throw new IllegalArgumentException("minimum latitude is above the maximum");
+        ForestIndex.IntList out = new ForestIndex.IntList();
+        scan(minLat, maxLat, minLon, maxLon, (row, lat, lon) -> out.add(row));
+        int[] result = Arrays.copyOf(out.rows, out.size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // Rows within km kilometres (great-circle) of lat/lon, nearest first.
+    int[] findNear(double lat, double lon, double km) {
+        Wildlife.checkPosition(lat, lon);
+        if (!(km >= 0)) throw new IllegalArgumentException("radius cannot be negative: " + km);
+
+        // Bounding box of the circle; it takes every longitude once it
+        // reaches a pole.
+        double r = km / EARTH_RADIUS_KM;
+        double minLat = lat - Math.toDegrees(r);
+        double maxLat = lat + Math.toDegrees(r);
+        double minLon = -180, maxLon = 180;
+        if (minLat > -90 && maxLat < 90) {
+            double dLon = Math.toDegrees(Math.asin(Math.sin(r) / Math.cos(Math.toRadians(lat))));
+            minLon = lon - dLon;
+            maxLon = lon + dLon;
+            if (minLon < -180) minLon += 360;
+            if (maxLon > 180) maxLon -= 360;
+        }
+        Hits hits = new Hits();
+        scan(Math.max(minLat, -90), Math.min(maxLat, 90), minLon, maxLon, (row, pLat, pLon) -> {
+            double d = distanceKm(lat, lon, pLat, pLon);
+            if (d <= km) hits.add(row, d);
+        });
+        return hits.nearestFirst();
+    }
+
+    // Great-circle (haversine) distance.
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Visits every point inside the box.
+    private void scan(double minLat, double maxLat, double minLon, double maxLon, Visitor visitor) {
+        if (minLon > maxLon) {
+            scan(minLat, maxLat, minLon, 180, visitor);
+            scan(minLat, maxLat, -180, maxLon, visitor);
+            return;
+        }
+        int row0 = cellRow(minLat), row1 = cellRow(maxLat);
+        int col0 = cellColumn(minLon), col1 = cellColumn(maxLon);
+        long overlapped = (long) (row1 - row0 + 1) * (col1 - col0 + 1);
+        if (overlapped > cells.size()) {
+            for (Map.Entry<Long, Cell> e : cells.entrySet()) {
+                long key = e.getKey();
+                int row = (int) (key / COLUMNS), col = (int) (key % COLUMNS);
+                if (row >= row0 && row <= row1 && col >= col0 && col <= col1) {
+                    scanCell(e.getValue(), row, col, minLat, maxLat, minLon, maxLon, visitor);
+                }
+            }
+        } else {
+            for (int row = row0; row <= row1; row++) {
+                for (int col = col0; col <= col1; col++) {
+                    Cell cell = cells.get(key(row, col));
+                    if (cell != null) scanCell(cell, row, col, minLat, maxLat, minLon, maxLon, visitor);
+                }
+            }
+        }
+    }
+
+    private static void scanCell(Cell cell, int row, int col, double minLat, double maxLat, double minLon, double maxLon,
+                                 Visitor visitor) {
+        boolean inside = row * CELL_DEGREES - 90 >= minLat && (row + 1) * CELL_DEGREES - 90 <= maxLat
+                && col * CELL_DEGREES - 180 >= minLon && (col + 1) * CELL_DEGREES - 180 <= maxLon;
+        for (int i = 0; i < cell.size; i++) {
+            double lat = Wildlife.fromMicros(cell.lat[i]);
+            double lon = Wildlife.fromMicros(cell.lon[i]);
+            if (inside || (lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon)) visitor.visit(cell.rows[i], lat, lon);
+        }
+    }
+
+    private static int cellRow(double lat) {
+        return Math.min((int) ((lat + 90) / CELL_DEGREES), ROWS - 1);
+    }
+
+    private static int cellColumn(double lon) {
+        return Math.min((int) ((lon + 180) / CELL_DEGREES), COLUMNS - 1);
+    }
+
+    private static long key(int row, int col) {
+        return (long) row * COLUMNS + col;
+    }
+}
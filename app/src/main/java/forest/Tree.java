@@ -0,0 +1,41 @@
+package forest;
+
+import java.io.*;
+
+// Tree Class
+class Tree implements Serializable {
+    // Value computed for the class before it moved into a package, so
+    // serialized files from older versions still load.
+    private static final long serialVersionUID = 4335219053654538640L;
+
+    String treeId;
+    String species;
+    int age;
+    // ID of the zone the tree stands in, or null. Not checked against the
+    // zone list, so records can arrive before their zone. Transient because
+    // the Java serialized form is only ever read, from files that predate it.
+    transient String zoneId;
+
+    Tree(String treeId, String species, int age) {
+        this(treeId, species, age, null);
+    }
+
+    Tree(String treeId, String species, int age, String zoneId) {
+        this.treeId = treeId;
+        this.species = ValuePool.canonical(species);
+        this.age = age;
+        this.zoneId = ForestZone.reference(zoneId);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        species = ValuePool.canonical(species);
+    }
+
+    public String toString() {
+        return "Tree ID: " + treeId +
+               ", Species: " + species +
+               ", Age: " + age + " years" +
+               (zoneId != null ? ", Zone: " + zoneId : "");
+    }
+}
@@ -0,0 +1,570 @@
+package forest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// ===================== COLUMNAR TREE STORE =====================
+
+// Column-per-field backing store for the tree inventory, enabled with
+// -Dforest.treeStore=columnar. Instead of one Tree object (two Strings and
+// an int) per record it keeps:
+//   - ages in an int[]
+//   - species as dictionary codes in an int[], one String per distinct species
+//   - zone references the same way, in a dictionary of their own (-1 = none)
+//   - tree IDs as UTF-8 bytes packed into one byte[], with each row's start
+//     and end offset in two int[]s
+//   - an open-addressed int[] hash over the IDs for primary key lookups
+// That is roughly 35 bytes per tree instead of well over 100.
+//
+// Changing a row's ID appends the new bytes and leaves the old ones
+// unreferenced; once those make up half of the byte[], the IDs are packed
+// into new arrays. The byte[] and the two offset arrays are only ever
+// replaced together, so a snapshot's offsets always point into its bytes.
+//
+// It is a List<Tree>, so the views, the table and the journal keep working
+// unchanged: get() hands out a short-lived Tree built from the columns.
+// Changing a returned Tree does not write back; use set() instead, or the
+// column setters TreeUpdates uses to change rows in place.
+class TreeColumns extends AbstractList<Tree> implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private transient int size;
+    private transient int[] ages;
+    private transient int[] speciesCodes;
+    private transient byte[] idBytes;
+    private transient int idBytesUsed;
+    private transient int idBytesFree;       // bytes no row refers to any more
+    private transient int[] idStarts;        // row i spans idStarts[i] .. idEnds[i]
+    private transient int[] idEnds;
+
+    // Species dictionary, shared with the snapshots.
+    private transient CodeBook dictionary;
+
+    // Zone reference column and dictionary, handled like species.
+    private transient int[] zoneCodes;
+    private transient CodeBook zoneDictionary;
+
+    // Row + 1 per slot, 0 = empty. Linear probing over the UTF-8 ID bytes.
+    // Owner only: snapshots have none (see snapshot()).
+    private transient int[] idTable;
+
+    // Distinct values numbered in order of first use. Entries are only ever
+    // added; the array is replaced when it fills, and the owner and its
+    // snapshots share this object rather than the array, so a snapshot
+    // taken before a bulk update also sees the values the update adds.
+    // Only the owner adds; snapshots look codes up from other threads, so
+    // the value is published before its code.
+    private static final class CodeBook {
+        volatile String[] values = new String[16];
+        volatile int size;
+        final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+        String value(int code) {
+            return values[code];
+        }
+
+        int codeFor(String value) {
+            Integer known = codes.get(value);
+            if (known != null) return known;
+            int code = size;
+            String[] v = values;
+            if (code == v.length) v = Arrays.copyOf(v, code * 2);
+            v[code] = value;
+            values = v;
+            size = code + 1;
+            codes.put(value, code);
+            return code;
+        }
+    }
+
+    TreeColumns() {
+        this(16);
+    }
+
+    TreeColumns(int capacity) {
+        capacity = Math.max(capacity, 16);
+        ages = new int[capacity];
+        speciesCodes = new int[capacity];
+        idStarts = new int[capacity];
+        idEnds = new int[capacity];
+        idBytes = new byte[capacity * 8];
+        dictionary = new CodeBook();
+        zoneCodes = new int[capacity];
+        zoneDictionary = new CodeBook();
+        idTable = new int[tableSizeFor(capacity)];
+    }
+
+    // Picks the repository's tree store based on -Dforest.treeStore.
+    static List<Tree> newTreeStore() {
+        if ("columnar".equalsIgnoreCase(System.getProperty("forest.treeStore"))) return new TreeColumns();
+        return new AppendOnlyList<>();
+    }
+
+    // --------------- List access ----------------
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Tree get(int row) {
+        Objects.checkIndex(row, size);
+        return new Tree(treeId(row), species(row), ages[row], zoneId(row));
+    }
+
+    String treeId(int row) {
+        return new String(idBytes, idStarts[row], idEnds[row] - idStarts[row], StandardCharsets.UTF_8);
+    }
+
+    // Raw access for writers that copy IDs without decoding them: row's ID
+    // is idBytes()[idStart(row) .. idEnd(row)), UTF-8.
+    byte[] idBytes() {
+        return idBytes;
+    }
+
+    int idStart(int row) {
+        return idStarts[row];
+    }
+
+    int idEnd(int row) {
+        return idEnds[row];
+    }
+
+    String species(int row) {
+        return dictionary.value(speciesCodes[row]);
+    }
+
+    int age(int row) {
+        return ages[row];
+    }
+
+    // The tree's zone reference, or null.
+    String zoneId(int row) {
+        int code = zoneCodes[row];
+        return code < 0 ? null : zoneDictionary.value(code);
+    }
+
+    int zoneCodeAt(int row) {
+        return zoneCodes[row];
+    }
+
+    @Override
+    public boolean add(Tree t) {
+        byte[] id = t.treeId.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(size + 1, id.length);
+
+        writeId(size, id);
+        ages[size] = t.age;
+        speciesCodes[size] = dictionary.codeFor(t.species);
+        zoneCodes[size] = zoneCodeFor(t.zoneId);
+        size++;
+        modCount++;
+
+        if (size * 2 > idTable.length) rehash(idTable.length * 2);
+        else insertId(size - 1);
+        return true;
+    }
+
+    // Rewrites a row in place, as a bulk update does. A new ID is appended
+    // to the ID bytes, and the row's offsets are written into copies of the
+    // offset arrays, so a snapshot keeps reading the old ID.
+    @Override
+    public Tree set(int row, Tree t) {
+        Tree old = get(row);
+        ages[row] = t.age;
+        speciesCodes[row] = dictionary.codeFor(t.species);
+        zoneCodes[row] = zoneCodeFor(t.zoneId);
+        if (!old.treeId.equals(t.treeId)) {
+            byte[] id = t.treeId.getBytes(StandardCharsets.UTF_8);
+            deleteId(row);
+            idBytesFree += idEnds[row] - idStarts[row];
+            ensureCapacity(size, id.length);
+            idStarts = idStarts.clone();
+            idEnds = idEnds.clone();
+            writeId(row, id);
+            insertId(row);
+            if (idBytesFree > idBytesUsed / 2) packIds();
+        }
+        return old;
+    }
+
+    // The rows after row move down one, as for any List.
+    @Override
+    public Tree remove(int row) {
+        Tree old = get(row);
+        BitSet removed = new BitSet();
+        removed.set(row);
+        removeRows(removed);
+        return old;
+    }
+
+    // Starts over with fresh arrays, so snapshots taken before keep their rows.
+    @Override
+    public void clear() {
+        TreeColumns empty = new TreeColumns();
+        size = 0;
+        ages = empty.ages;
+        speciesCodes = empty.speciesCodes;
+        zoneCodes = empty.zoneCodes;
+        idStarts = empty.idStarts;
+        idEnds = empty.idEnds;
+        idBytes = empty.idBytes;
+        idBytesUsed = 0;
+        idBytesFree = 0;
+        dictionary = empty.dictionary;
+        zoneDictionary = empty.zoneDictionary;
+        idTable = empty.idTable;
+        modCount++;
+    }
+
+    // Drops the rows set in removed; the rest move down in order. The
+    // survivors are copied into new arrays, so snapshots taken before keep
+    // their rows. For remove(int); a purge uses moveRows instead.
+    private void removeRows(BitSet removed) {
+        int kept = size - removed.get(0, size).cardinality();
+        int capacity = Math.max(kept, 16);
+        int[] newAges = new int[capacity];
+        int[] newSpecies = new int[capacity];
+        int[] newZones = new int[capacity];
+        int[] newStarts = new int[capacity];
+        int[] newEnds = new int[capacity];
+        byte[] newIds = new byte[Math.max(idBytesUsed - idBytesFree, 16)];
+        int n = 0, used = 0;
+        for (int row = removed.nextClearBit(0); row < size; row = removed.nextClearBit(row + 1)) {
+            newAges[n] = ages[row];
+            newSpecies[n] = speciesCodes[row];
+            newZones[n] = zoneCodes[row];
+            int length = idEnds[row] - idStarts[row];
+            System.arraycopy(idBytes, idStarts[row], newIds, used, length);
+            newStarts[n] = used;
+            used += length;
+            newEnds[n++] = used;
+        }
+        ages = newAges;
+        speciesCodes = newSpecies;
+        zoneCodes = newZones;
+        idStarts = newStarts;
+        idEnds = newEnds;
+        idBytes = newIds;
+        idBytesUsed = used;
+        idBytesFree = 0;
+        size = n;
+        modCount++;
+        rehash(tableSizeFor(capacity));
+    }
+
+    // Moves row from[i] to row to[i], in order, then cuts the store to
+    // newSize rows (see TreeUpdates.Removal); removed are the rows that go.
+    // The columns a move writes are copied first, as removeRows copies the
+    // survivors, so snapshots taken before keep their rows; a moved ID
+    // keeps its bytes, which no row rewrites.
+    void moveRows(BitSet removed, int[] from, int[] to, int newSize) {
+        for (int row = removed.nextSetBit(0); row >= 0 && row < size; row = removed.nextSetBit(row + 1)) {
+            deleteId(row);
+            idBytesFree += idEnds[row] - idStarts[row];
+        }
+        if (from.length > 0) {
+            ages = ages.clone();
+            speciesCodes = speciesCodes.clone();
+            zoneCodes = zoneCodes.clone();
+            idStarts = idStarts.clone();
+            idEnds = idEnds.clone();
+        }
+        for (int i = 0; i < from.length; i++) {
+            int source = from[i], target = to[i];
+            deleteId(source);
+            ages[target] = ages[source];
+            speciesCodes[target] = speciesCodes[source];
+            zoneCodes[target] = zoneCodes[source];
+            idStarts[target] = idStarts[source];
+            idEnds[target] = idEnds[source];
+            insertId(target);
+        }
+        size = newSize;
+        modCount++;
+        if (idBytesFree > idBytesUsed / 2) packIds();
+    }
+
+    // Frozen view of the first size() rows that shares the column arrays.
+    // Rows below size() are never rewritten by add(), so other threads can
+    // read the view (once safely published) while the owner keeps appending.
+    // A bulk update writes the shared columns in place, one int per field,
+    // so the view sees it; a purge (moveRows) and an ID change (set) write
+    // into copies instead, which the next view picks up.
+    //
+    // The view has no ID hash: the owner rewrites its table in place, which
+    // a reader on another thread could not follow. Look IDs up in the owner
+    // (ForestIndex does, under the repository's lock); findRow on a view
+    // throws.
+    TreeColumns snapshot() {
+        TreeColumns view = new TreeColumns(0);
+        view.size = size;
+        view.ages = ages;
+        view.speciesCodes = speciesCodes;
+        view.idBytes = idBytes;
+        view.idBytesUsed = idBytesUsed;
+        view.idBytesFree = idBytesFree;
+        view.idStarts = idStarts;
+        view.idEnds = idEnds;
+        view.dictionary = dictionary;
+        view.zoneCodes = zoneCodes;
+        view.zoneDictionary = zoneDictionary;
+        view.idTable = null;
+        return view;
+    }
+
+    // --------------- Primary key lookup ----------------
+
+    // Returns the row holding treeId, or -1. Owner only.
+    int findRow(String treeId) {
+        if (idTable == null) throw new UnsupportedOperationException("Tree ID lookup on a snapshot");
+        byte[] id = treeId.getBytes(StandardCharsets.UTF_8);
+        int mask = idTable.length - 1;
+        for (int slot = hash(id, 0, id.length) & mask; ; slot = (slot + 1) & mask) {
+            int entry = idTable[slot];
+            if (entry == 0) return -1;
+            int row = entry - 1;
+            if (Arrays.equals(idBytes, idStarts[row], idEnds[row], id, 0, id.length)) return row;
+        }
+    }
+
+    private void insertId(int row) {
+        int mask = idTable.length - 1;
+        int slot = rowHash(row) & mask;
+        while (idTable[slot] != 0) slot = (slot + 1) & mask;
+        idTable[slot] = row + 1;
+    }
+
+    // Backward-shift delete so probe chains stay intact without tombstones.
+    private void deleteId(int row) {
+        int mask = idTable.length - 1;
+        int slot = rowHash(row) & mask;
+        while (idTable[slot] != row + 1) {
+            if (idTable[slot] == 0) return;
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        for (int next = (hole + 1) & mask; idTable[next] != 0; next = (next + 1) & mask) {
+            int home = rowHash(idTable[next] - 1) & mask;
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                idTable[hole] = idTable[next];
+                hole = next;
+            }
+        }
+        idTable[hole] = 0;
+    }
+
+    private void rehash(int tableSize) {
+        idTable = new int[tableSize];
+        for (int row = 0; row < size; row++) insertId(row);
+    }
+
+    private int rowHash(int row) {
+        return hash(idBytes, idStarts[row], idEnds[row]);
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 1;
+        for (int i = from; i < to; i++) h = 31 * h + bytes[i];
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int rows) {
+        int n = Integer.highestOneBit(Math.max(rows * 2 - 1, 16));
+        return n << 1;
+    }
+
+    // --------------- Column scans ----------------
+
+    // Trees per species, counted over the code column without touching any String.
+    Map<String, Integer> countBySpecies() {
+        int[] counts = new int[dictionary.values.length];
+        for (int i = 0; i < size; i++) counts[speciesCodes[i]]++;
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0) result.put(dictionary.value(c), counts[c]);
+        }
+        return result;
+    }
+
+    int countAgeBetween(int minAge, int maxAge) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int a = ages[i];
+            if (a >= minAge && a <= maxAge) count++;
+        }
+        return count;
+    }
+
+    // Dictionary code for a species, or -1 if no tree has it.
+    int speciesCode(String species) {
+        Integer code = dictionary.codes.get(species);
+        return code == null ? -1 : code;
+    }
+
+    // Dictionary code for a zone reference, or -1 if no tree has it.
+    int zoneCode(String zoneId) {
+        Integer code = zoneDictionary.codes.get(zoneId);
+        return code == null ? -1 : code;
+    }
+
+    int speciesCodeAt(int row) {
+        return speciesCodes[row];
+    }
+
+    // Codes run 0 .. dictionarySize() - 1.
+    int dictionarySize() {
+        return dictionary.size;
+    }
+
+    String speciesForCode(int code) {
+        return dictionary.value(code);
+    }
+
+    // --------------- In-place updates ----------------
+
+    // The code for a species or zone reference (-1 for none), added to the
+    // dictionary if new. Owner only, before rows are set to it.
+    int internSpecies(String species) {
+        return dictionary.codeFor(species);
+    }
+
+    int internZone(String zoneId) {
+        return zoneCodeFor(zoneId);
+    }
+
+    // Rewrite one column of a row. Rows are disjoint, so a bulk update may
+    // set different rows from several threads at once.
+    void setAge(int row, int age) {
+        ages[row] = age;
+    }
+
+    void setSpeciesCode(int row, int code) {
+        speciesCodes[row] = code;
+    }
+
+    void setZoneCode(int row, int code) {
+        zoneCodes[row] = code;
+    }
+
+    // Heap held by the column arrays and the ID hash (the array lengths,
+    // not just the used rows). Dictionary Strings are pooled and left out.
+    long heapBytes() {
+        return 16L * 8 + 4L * ages.length + 4L * speciesCodes.length + 4L * zoneCodes.length
+                + 4L * idStarts.length + 4L * idEnds.length + idBytes.length + (idTable == null ? 0 : 4L * idTable.length)
+                + 4L * dictionary.values.length + 4L * zoneDictionary.values.length;
+    }
+
+    // --------------- Storage ----------------
+
+    private int zoneCodeFor(String zoneId) {
+        return zoneId == null ? -1 : zoneDictionary.codeFor(zoneId);
+    }
+
+    // Growing the ID bytes copies the offsets too, so that offsets the
+    // owner writes later never reach a snapshot still holding the old bytes.
+    private void ensureCapacity(int rows, int extraIdBytes) {
+        if (rows > ages.length) {
+            int cap = Math.max(rows, ages.length + (ages.length >> 1));
+            ages = Arrays.copyOf(ages, cap);
+            speciesCodes = Arrays.copyOf(speciesCodes, cap);
+            zoneCodes = Arrays.copyOf(zoneCodes, cap);
+            idStarts = Arrays.copyOf(idStarts, cap);
+            idEnds = Arrays.copyOf(idEnds, cap);
+        }
+        if (idBytesUsed + extraIdBytes > idBytes.length) {
+            idBytes = Arrays.copyOf(idBytes, Math.max(idBytesUsed + extraIdBytes, idBytes.length + (idBytes.length >> 1)));
+            idStarts = idStarts.clone();
+            idEnds = idEnds.clone();
+        }
+    }
+
+    // Appends id to the ID bytes as row's ID; the caller made room, and
+    // for a row a snapshot can see, copied the offset arrays.
+    private void writeId(int row, byte[] id) {
+        System.arraycopy(id, 0, idBytes, idBytesUsed, id.length);
+        idStarts[row] = idBytesUsed;
+        idBytesUsed += id.length;
+        idEnds[row] = idBytesUsed;
+    }
+
+    // Copies the IDs of the rows into new arrays, dropping the bytes no row
+    // refers to. Row numbers and the ID hash stay as they are.
+    private void packIds() {
+        byte[] packed = new byte[Math.max(idBytesUsed - idBytesFree, 16)];
+        int[] starts = new int[idStarts.length];
+        int[] ends = new int[idEnds.length];
+        int used = 0;
+        for (int row = 0; row < size; row++) {
+            int length = idEnds[row] - idStarts[row];
+            System.arraycopy(idBytes, idStarts[row], packed, used, length);
+            starts[row] = used;
+            used += length;
+            ends[row] = used;
+        }
+        idBytes = packed;
+        idStarts = starts;
+        idEnds = ends;
+        idBytesUsed = used;
+        idBytesFree = 0;
+    }
+
+    // Serialized as trimmed columns rather than one object per tree. Zone
+    // references are left out, like Tree.zoneId: the form is only read back
+    // from old snapshots.
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        out.writeInt(dictionary.size);
+        for (int c = 0; c < dictionary.size; c++) out.writeUTF(dictionary.value(c));
+        for (int i = 0; i < size; i++) {
+            out.writeInt(ages[i]);
+            out.writeInt(speciesCodes[i]);
+        }
+        // Offsets as if the IDs were packed: row i spans offset i .. i + 1.
+        int offset = 0;
+        out.writeInt(0);
+        for (int i = 0; i < size; i++) {
+            offset += idEnds[i] - idStarts[i];
+            out.writeInt(offset);
+        }
+        for (int i = 0; i < size; i++) out.write(idBytes, idStarts[i], idEnds[i] - idStarts[i]);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int n = in.readInt();
+        int dictSize = in.readInt();
+        CodeBook dict = new CodeBook();
+        for (int c = 0; c < dictSize; c++) dict.codeFor(in.readUTF());
+        int capacity = Math.max(n, 16);
+        ages = new int[capacity];
+        speciesCodes = new int[capacity];
+        for (int i = 0; i < n; i++) {
+            ages[i] = in.readInt();
+            speciesCodes[i] = in.readInt();
+        }
+        idStarts = new int[capacity];
+        idEnds = new int[capacity];
+        int offset = in.readInt();
+        for (int i = 0; i < n; i++) {
+            idStarts[i] = offset;
+            offset = in.readInt();
+            idEnds[i] = offset;
+        }
+        idBytesUsed = offset;
+        idBytesFree = 0;
+        idBytes = new byte[Math.max(idBytesUsed, 16)];
+        in.readFully(idBytes, 0, idBytesUsed);
+        size = n;
+        dictionary = dict;
+        zoneCodes = new int[capacity];
+        Arrays.fill(zoneCodes, -1);
+        zoneDictionary = new CodeBook();
+        rehash(tableSizeFor(capacity));
+    }
+}
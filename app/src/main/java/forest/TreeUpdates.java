@@ -0,0 +1,584 @@
+package forest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// ===================== BULK TREE UPDATES =====================
+
+// Bulk jobs over the tree inventory: the annual age rollover (years added
+// to the age of every tree), giving the trees a Selection picks a new
+// species or zone, and purging trees that have been felled.
+// ForestRepository.updateTrees runs them.
+//
+// A job makes two passes over the tree store, each split into chunks of
+// CHUNK rows (-Dforest.jobs.chunk, default 65,536) run in parallel on the
+// common fork/join pool:
+//   - plan() finds the rows the job changes (a tree that already has the
+//     new species or zone is left alone) and encodes their journal records;
+//   - apply() writes the new values into those rows in place: the Tree
+//     objects of an AppendOnlyList, or the columns of a TreeColumns, with
+//     no Tree allocated or replaced.
+// A purge takes the planned rows out instead (see Removal): each removed
+// row below the new size is refilled with a surviving tree from above it,
+// so a purge moves as many rows as it removes and leaves the rest where
+// they are.
+//
+// On disk, updates and purges are keyed by tree ID. The repository
+// journals a job's planned records as one frame between the two passes, so
+// a job is replayed whole or not at all; the next checkpoint's delta then
+// holds the current values of the checkpointed trees changed since the last
+// one and the IDs of those purged (see ForestJournal), so a job never
+// rewrites forest.dat. setById and rowsOf apply both on load.
+class TreeUpdates {
+    static final int CHUNK = Math.max(1, Integer.getInteger("forest.jobs.chunk", 1 << 16));
+
+    enum Kind { AGE, SPECIES, ZONE, PURGE }
+
+    // Which trees a job touches: those meeting every condition given.
+    // species is matched ignoring case, like the index; zoneId exactly.
+    static final class Selection {
+        static final Selection ALL = new Selection(null, Integer.MIN_VALUE, Integer.MAX_VALUE, null, null);
+
+        final String species;      // null = any
+        final int minAge;
+        final int maxAge;
+        final String zoneId;       // null = any
+        final Set<String> ids;     // null = any
+
+        Selection(String species, int minAge, int maxAge, String zoneId, Collection<String> ids) {
+            this.species = species == null || species.trim().isEmpty() ? null : species;
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+            this.zoneId = ForestZone.reference(zoneId);
+            this.ids = ids == null ? null : new HashSet<>(ids);
+        }
+
+        boolean isAll() {
+            return species == null && minAge == Integer.MIN_VALUE && maxAge == Integer.MAX_VALUE && zoneId == null && ids == null;
+        }
+
+        // From named conditions, as the batch commands and the HTTP API take
+        // them: species, minAge, maxAge, zoneId and ids (comma separated).
+        static Selection parse(Map<String, String> conditions) {
+            for (String name : conditions.keySet()) {
+                if (!List.of("species", "minAge", "maxAge", "zoneId", "ids").contains(name)) {
+                    throw new IllegalArgumentException("Unknown condition " + name + "; use species, minAge, maxAge, zoneId or ids");
+                }
+            }
+            String ids = conditions.get("ids");
+            return new Selection(conditions.get("species"), age(conditions, "minAge", Integer.MIN_VALUE),
+                    age(conditions, "maxAge", Integer.MAX_VALUE), conditions.get("zoneId"), ids == null ? null : splitIds(ids));
+        }
+
+        // The same conditions, also requiring one of ids (e.g. a felling list).
+        Selection withIds(Collection<String> more) {
+            Set<String> both = new HashSet<>(more);
+            if (ids != null) both.retainAll(ids);
+            return new Selection(species, minAge, maxAge, zoneId, both);
+        }
+
+        private static int age(Map<String, String> conditions, String name, int otherwise) {
+            String v = conditions.get(name);
+            if (v == null) return otherwise;
+            try {
+                return Integer.parseInt(v.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(name + " must be a number: " + v);
+            }
+        }
+
+        public String toString() {
+            if (isAll()) return "all trees";
+            List<String> parts = new ArrayList<>();
+            if (species != null) parts.add("species " + species);
+            if (minAge != Integer.MIN_VALUE || maxAge != Integer.MAX_VALUE) {
+                parts.add("age " + (minAge == Integer.MIN_VALUE ? "*" : minAge) + "-" + (maxAge == Integer.MAX_VALUE ? "*" : maxAge));
+            }
+            if (zoneId != null) parts.add("zone " + zoneId);
+            if (ids != null) parts.add(ids.size() + " listed ID(s)");
+            return String.join(", ", parts);
+        }
+    }
+
+    // What to do to the selected trees.
+    static final class Job {
+        static final int MAX_YEARS = 1000;
+
+        final Kind kind;
+        final Selection selection;
+        final int years;           // AGE
+        final String value;        // SPECIES (pooled), ZONE (a reference, null = none)
+
+        private Job(Kind kind, Selection selection, int years, String value) {
+            this.kind = kind;
+            this.selection = selection;
+            this.years = years;
+            this.value = value;
+        }
+
+        static Job age(int years, Selection selection) {
+            if (years <= 0 || years > MAX_YEARS) {
+                throw new IllegalArgumentException("Years to add must be between 1 and " + MAX_YEARS + ": " + years);
+            }
+            return new Job(Kind.AGE, selection, years, null);
+        }
+
+        static Job species(String species, Selection selection) {
+            if (species == null || species.trim().isEmpty()) throw new IllegalArgumentException("Species is empty");
+            return new Job(Kind.SPECIES, selection, 0, ValuePool.canonical(species.trim()));
+        }
+
+        // A blank zone ID or "*" takes the trees out of their zone.
+        static Job zone(String zoneId, Selection selection) {
+            return new Job(Kind.ZONE, selection, 0, ForestZone.reference(zoneId));
+        }
+
+        // Refuses to purge every tree; a purge must say which ones.
+        static Job purge(Selection selection) {
+            if (selection.isAll()) throw new IllegalArgumentException("A purge needs a condition or a list of tree IDs");
+            return new Job(Kind.PURGE, selection, 0, null);
+        }
+    }
+
+    // What a job did.
+    static final class Result {
+        final Job job;
+        final int matched;         // trees the selection picked
+        final int changed;         // of those, the ones changed or purged
+        final long nanos;
+
+        Result(Job job, int matched, int changed, long nanos) {
+            this.job = job;
+            this.matched = matched;
+            this.changed = changed;
+            this.nanos = nanos;
+        }
+
+        public String toString() {
+            String of = changed == matched ? changed + " tree(s)" : changed + " of " + matched + " matching tree(s)";
+            String done;
+            switch (job.kind) {
+                case AGE: done = "Added " + job.years + " year(s) to the age of " + of; break;
+                case SPECIES: done = "Set species " + job.value + " on " + of; break;
+                case ZONE: done = "Moved " + of + (job.value == null ? " out of their zone" : " to zone " + job.value); break;
+                default: done = "Purged " + of; break;
+            }
+            return String.format("%s (%s) in %.1f ms", done, job.selection, nanos / 1e6);
+        }
+    }
+
+    // The rows a job changes and the journal records for them.
+    static final class Plan {
+        final Job job;
+        final BitSet rows = new BitSet();
+        int matched;
+        int changed;
+        // ForestJournal tree update (or, for a purge, delete) records, one
+        // array per chunk, in row order.
+        final List<byte[]> records = new ArrayList<>();
+        // Zones the changed trees reference, before and after.
+        final Set<String> zones = new HashSet<>();
+
+        Plan(Job job) {
+            this.job = job;
+        }
+    }
+
+    private static final class Chunk {
+        final int[] rows;
+        final int count;
+        final int matched;
+        final byte[] records;
+        final Set<String> zones;
+
+        Chunk(int[] rows, int count, int matched, byte[] records, Set<String> zones) {
+            this.rows = rows;
+            this.count = count;
+            this.matched = matched;
+            this.records = records;
+            this.zones = zones;
+        }
+    }
+
+    // How a purge takes rows out of a store of size rows: the survivors at
+    // or above the new size move, in order, from[i] to to[i], into the
+    // removed rows below it, and the store is cut to size - rows.
+    // Rows below keep (those a checkpoint holds, see ForestJournal) are
+    // refilled from below keep, so they stay a prefix of the store: kept of
+    // them remain, and every row from kept up is one the checkpoint lacks.
+    // from is ascending; a row a survivor below keep leaves may be refilled
+    // by a later move.
+    static final class Removal {
+        final BitSet rows;
+        final int size;
+        final int kept;
+        final int[] from;
+        final int[] to;
+
+        private Removal(BitSet rows, int size, int kept, int[] from, int[] to) {
+            this.rows = rows;
+            this.size = size;
+            this.kept = kept;
+            this.from = from;
+            this.to = to;
+        }
+
+        // The removed rows and the ones moved away: what an index over the
+        // store must drop before the moves.
+        BitSet vacated() {
+            BitSet vacated = (BitSet) rows.clone();
+            for (int row : from) vacated.set(row);
+            return vacated;
+        }
+
+        // The rows moved into: what it must add back after them.
+        BitSet filled() {
+            BitSet filled = new BitSet();
+            for (int row : to) filled.set(row);
+            return filled;
+        }
+
+        // Renumbers row bits as the moves renumber the rows; removed rows drop out.
+        void remap(BitSet bits) {
+            bits.andNot(rows);
+            for (int i = 0; i < from.length; i++) {
+                if (!bits.get(from[i])) continue;
+                bits.clear(from[i]);
+                bits.set(to[i]);
+            }
+        }
+    }
+
+    static Removal removal(BitSet rows, int size, int keep) {
+        keep = Math.min(keep, size);
+        int kept = keep - rows.get(0, keep).cardinality();
+        int left = size - rows.get(0, size).cardinality();
+        ForestIndex.IntList from = new ForestIndex.IntList();
+        ForestIndex.IntList to = new ForestIndex.IntList();
+        // Below keep: the survivors in [kept, keep) fill the removed rows under kept.
+        int hole = rows.nextSetBit(0);
+        for (int row = rows.nextClearBit(kept); row < keep; row = rows.nextClearBit(row + 1)) {
+            from.add(row);
+            to.add(hole);
+            hole = rows.nextSetBit(hole + 1);
+        }
+        // Above: every row in [kept, keep) is free now, and so is every
+        // removed row from keep up; the survivors past left fill them.
+        int slot = kept;
+        for (int row = rows.nextClearBit(Math.max(left, keep)); row < size; row = rows.nextClearBit(row + 1)) {
+            while (slot >= keep && !rows.get(slot)) slot++;
+            from.add(row);
+            to.add(slot++);
+        }
+        return new Removal((BitSet) rows.clone(), left, kept, Arrays.copyOf(from.rows, from.size), Arrays.copyOf(to.rows, to.size));
+    }
+
+    // --------------- Plan ----------------
+
+    // Read-only: may run while nothing else writes to trees. Throws
+    // IllegalArgumentException, before anything is journaled or changed, if
+    // an age rollover would take a tree's age past Integer.MAX_VALUE.
+    static Plan plan(Job job, List<Tree> trees) {
+        Plan plan = new Plan(job);
+        Matcher matcher = new Matcher(job.selection, trees);
+        if (matcher.none) return plan;
+        int n = trees.size();
+        List<Chunk> chunks = IntStream.range(0, (n + CHUNK - 1) / CHUNK).parallel()
+                .mapToObj(c -> planChunk(job, trees, matcher, c * CHUNK, Math.min(n, (c + 1) * CHUNK)))
+                .collect(Collectors.toList());
+        for (Chunk c : chunks) {
+            for (int i = 0; i < c.count; i++) plan.rows.set(c.rows[i]);
+            plan.matched += c.matched;
+            plan.changed += c.count;
+            if (c.count > 0) plan.records.add(c.records);
+            plan.zones.addAll(c.zones);
+        }
+        return plan;
+    }
+
+    private static Chunk planChunk(Job job, List<Tree> trees, Matcher matcher, int from, int to) {
+        TreeColumns columns = matcher.columns;
+        int[] rows = new int[64];
+        int count = 0, matched = 0;
+        Set<String> zones = new HashSet<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (int row = from; row < to; row++) {
+                String id, species, zoneId;
+                int age;
+                if (columns != null) {
+                    if (!matcher.matches(row)) continue;
+                    id = null;
+                    species = columns.species(row);
+                    age = columns.age(row);
+                    zoneId = columns.zoneId(row);
+                } else {
+                    Tree t = trees.get(row);
+                    if (!matcher.matches(t)) continue;
+                    id = t.treeId;
+                    species = t.species;
+                    age = t.age;
+                    zoneId = t.zoneId;
+                }
+                matched++;
+                if ((job.kind == Kind.SPECIES && species.equals(job.value)) || (job.kind == Kind.ZONE && Objects.equals(zoneId, job.value))) {
+                    continue;
+                }
+                if (id == null) id = columns.treeId(row);
+                if (count == rows.length) rows = Arrays.copyOf(rows, count * 2);
+                rows[count++] = row;
+                if (zoneId != null) zones.add(zoneId);
+                switch (job.kind) {
+                    case AGE: ForestJournal.writeTreeUpdate(out, id, species, olderBy(id, age, job.years), zoneId); break;
+                    case SPECIES: ForestJournal.writeTreeUpdate(out, id, job.value, age, zoneId); break;
+                    case ZONE:
+                        ForestJournal.writeTreeUpdate(out, id, species, age, job.value);
+                        if (job.value != null) zones.add(job.value);
+                        break;
+                    default: ForestJournal.writeTreeDelete(out, id); break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a ByteArrayOutputStream does not throw
+        }
+        return new Chunk(rows, count, matched, bytes.toByteArray(), zones);
+    }
+
+    private static int olderBy(String id, int age, int years) {
+        try {
+            return Math.addExact(age, years);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Adding " + years + " year(s) to tree " + id + " (age " + age + ") overflows its age");
+        }
+    }
+
+    // A Selection prepared for one store: species compared by dictionary
+    // code in the columnar store, listed IDs looked up once.
+    private static final class Matcher {
+        final Selection s;
+        final TreeColumns columns;
+        final String speciesKey;
+        boolean[] speciesCodes;    // columnar: codes whose species matches
+        int zoneCode;              // columnar
+        BitSet idRows;             // columnar: rows of the listed IDs
+        boolean none;              // nothing can match
+
+        Matcher(Selection s, List<Tree> trees) {
+            this.s = s;
+            this.columns = trees instanceof TreeColumns ? (TreeColumns) trees : null;
+            this.speciesKey = s.species == null ? null : ForestIndex.key(s.species);
+            none = s.minAge > s.maxAge;
+            if (columns == null) return;
+            if (speciesKey != null) {
+                speciesCodes = new boolean[columns.dictionarySize()];
+                for (int c = 0; c < speciesCodes.length; c++) {
+                    speciesCodes[c] = ForestIndex.key(columns.speciesForCode(c)).equals(speciesKey);
+                }
+            }
+            if (s.zoneId != null) {
+                zoneCode = columns.zoneCode(s.zoneId);
+                none |= zoneCode < 0;
+            }
+            if (s.ids != null) {
+                idRows = new BitSet();
+                for (String id : s.ids) {
+                    int row = columns.findRow(id);
+                    if (row >= 0) idRows.set(row);
+                }
+            }
+        }
+
+        boolean matches(int row) {
+            if (idRows != null && !idRows.get(row)) return false;
+            int age = columns.age(row);
+            if (age < s.minAge || age > s.maxAge) return false;
+            if (speciesCodes != null && !speciesCodes[columns.speciesCodeAt(row)]) return false;
+            return s.zoneId == null || columns.zoneCodeAt(row) == zoneCode;
+        }
+
+        boolean matches(Tree t) {
+            if (t.age < s.minAge || t.age > s.maxAge) return false;
+            if (s.zoneId != null && !s.zoneId.equals(t.zoneId)) return false;
+            if (s.ids != null && !s.ids.contains(t.treeId)) return false;
+            return speciesKey == null || ForestIndex.key(t.species).equals(speciesKey);
+        }
+    }
+
+    // --------------- Apply ----------------
+
+    // Writes a planned update into its rows, in parallel chunks. Called
+    // with nothing else writing to trees.
+    static void apply(Plan plan, List<Tree> trees) {
+        Job job = plan.job;
+        if (job.kind == Kind.PURGE) throw new IllegalArgumentException("A purge is applied with remove()");
+        TreeColumns columns = trees instanceof TreeColumns ? (TreeColumns) trees : null;
+        // Dictionary entries are added here, once, not by the chunks.
+        int code = columns == null ? 0 : job.kind == Kind.SPECIES ? columns.internSpecies(job.value)
+                : job.kind == Kind.ZONE ? columns.internZone(job.value) : 0;
+        int n = trees.size();
+        IntStream.range(0, (n + CHUNK - 1) / CHUNK).parallel().forEach(c -> {
+            int to = Math.min(n, (c + 1) * CHUNK);
+            for (int row = plan.rows.nextSetBit(c * CHUNK); row >= 0 && row < to; row = plan.rows.nextSetBit(row + 1)) {
+                if (columns != null) {
+                    switch (job.kind) {
+                        case AGE: columns.setAge(row, columns.age(row) + job.years); break;
+                        case SPECIES: columns.setSpeciesCode(row, code); break;
+                        default: columns.setZoneCode(row, code); break;
+                    }
+                } else {
+                    Tree t = trees.get(row);
+                    switch (job.kind) {
+                        case AGE: t.age += job.years; break;
+                        case SPECIES: t.species = job.value; break;
+                        default: t.zoneId = job.value; break;
+                    }
+                }
+            }
+        });
+    }
+
+    // Makes a removal's moves in either tree store (or any other list, one
+    // row at a time). Called with nothing else writing to trees.
+    @SuppressWarnings("unchecked")
+    static void remove(List<Tree> trees, Removal removal) {
+        if (removal.rows.isEmpty()) return;
+        if (trees instanceof TreeColumns) {
+            ((TreeColumns) trees).moveRows(removal.rows, removal.from, removal.to, removal.size);
+        } else if (trees instanceof AppendOnlyList) {
+            ((AppendOnlyList<Tree>) trees).moveRows(removal.from, removal.to, removal.size);
+        } else {
+            for (int i = 0; i < removal.from.length; i++) trees.set(removal.to[i], trees.get(removal.from[i]));
+            while (trees.size() > removal.size) trees.remove(trees.size() - 1);
+        }
+    }
+
+    // Drops the rows from a store whose rows are all checkpointed, e.g.
+    // while a delta is read.
+    static void remove(List<Tree> trees, BitSet rows) {
+        remove(trees, removal(rows, trees.size(), trees.size()));
+    }
+
+    // --------------- Load ----------------
+
+    // Rows holding the given IDs; IDs not there are skipped. Adds the zones
+    // those trees reference to zones.
+    static BitSet rowsOf(List<Tree> trees, Collection<String> ids, Set<String> zones) {
+        return rowsOf(trees, new IdLookup(trees), ids, zones);
+    }
+
+    static BitSet rowsOf(List<Tree> trees, IdLookup lookup, Collection<String> ids, Set<String> zones) {
+        BitSet rows = new BitSet();
+        for (String id : ids) {
+            int row = lookup.row(id);
+            if (row < 0) continue;
+            rows.set(row);
+            String zoneId = lookup.columns != null ? lookup.columns.zoneId(row) : trees.get(row).zoneId;
+            if (zoneId != null) zones.add(zoneId);
+        }
+        return rows;
+    }
+
+    // Sets each tree that has the ID of one of values to that value, in
+    // place; values for IDs not there are skipped. Returns the rows set and
+    // adds their zones, before and after, to zones.
+    static BitSet setById(List<Tree> trees, List<Tree> values, Set<String> zones) {
+        return setById(trees, new IdLookup(trees), values, zones);
+    }
+
+    static BitSet setById(List<Tree> trees, IdLookup lookup, List<Tree> values, Set<String> zones) {
+        BitSet rows = new BitSet();
+        TreeColumns columns = lookup.columns;
+        for (Tree v : values) {
+            int row = lookup.row(v.treeId);
+            if (row < 0) continue;
+            rows.set(row);
+            String before;
+            if (columns != null) {
+                before = columns.zoneId(row);
+                columns.setAge(row, v.age);
+                columns.setSpeciesCode(row, columns.internSpecies(v.species));
+                columns.setZoneCode(row, columns.internZone(v.zoneId));
+            } else {
+                Tree t = trees.get(row);
+                before = t.zoneId;
+                t.species = v.species;
+                t.age = v.age;
+                t.zoneId = v.zoneId;
+            }
+            if (before != null) zones.add(before);
+            if (v.zoneId != null) zones.add(v.zoneId);
+        }
+        return rows;
+    }
+
+    // Tree ID to row: the columnar store's own hash, else a map of the
+    // trees (the first row wins, as in the index). A caller that keeps one
+    // across changes, as journal replay does, reports each tree it adds
+    // and each removal before it is applied.
+    static final class IdLookup {
+        final TreeColumns columns;
+        final HashMap<String, Integer> rows;
+
+        IdLookup(List<Tree> trees) {
+            columns = trees instanceof TreeColumns ? (TreeColumns) trees : null;
+            if (columns != null) {
+                rows = null;
+                return;
+            }
+            rows = new HashMap<>(trees.size() * 2);
+            for (int row = 0, n = trees.size(); row < n; row++) rows.putIfAbsent(trees.get(row).treeId, row);
+        }
+
+        int row(String id) {
+            if (columns != null) return columns.findRow(id);
+            Integer row = rows.get(id);
+            return row == null ? -1 : row;
+        }
+
+        void added(Tree t, int row) {
+            if (rows != null) rows.putIfAbsent(t.treeId, row);
+        }
+
+        // Drops the removed rows' IDs and renumbers the moved ones. A
+        // duplicate ID left in a surviving row is found again only by a
+        // fresh lookup.
+        void removing(List<Tree> trees, Removal removal) {
+            if (rows == null) return;
+            for (int row = removal.rows.nextSetBit(0); row >= 0; row = removal.rows.nextSetBit(row + 1)) {
+                rows.remove(trees.get(row).treeId, row);
+            }
+            for (int i = 0; i < removal.from.length; i++) {
+                rows.replace(trees.get(removal.from[i]).treeId, removal.from[i], removal.to[i]);
+            }
+        }
+    }
+
+    // --------------- ID lists ----------------
+
+    static List<String> splitIds(String ids) {
+        List<String> out = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            if (!id.trim().isEmpty()) out.add(id.trim());
+        }
+        return out;
+    }
+
+    // Tree IDs from a file, e.g. a felling log: the first comma-separated
+    // field of each line, skipping blank lines, # comments and a treeId
+    // header.
+    static List<String> readIds(Path file) throws IOException {
+        List<String> ids = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int comma = line.indexOf(',');
+            String id = (comma < 0 ? line : line.substring(0, comma)).trim();
+            if (id.isEmpty() || id.startsWith("#") || id.equalsIgnoreCase("treeId")) continue;
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,55 @@
+package forest;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// ===================== VALUE POOL =====================
+
+// Canonical instances for the low-cardinality text fields: species,
+// officer, animal, location, date and zone references. Millions of
+// records share a few hundred distinct values, so the record constructors
+// (and with them every load, replay, import and entry path) swap each
+// value for the pooled instance and the per-record copy becomes garbage
+// straight away.
+//
+// Unlike String.intern() the pool is an ordinary map on the heap, sized by
+// what the data actually holds. It stops growing at MAX_SIZE distinct
+// values, after which new values are kept as they are, so a field that
+// turns out to be high-cardinality cannot grow it without bound.
+// -Dforest.valuePool=false turns pooling off (for comparing memory use).
+final class ValuePool {
+    static final int MAX_SIZE = Integer.getInteger("forest.valuePool.maxSize", 1 << 20);
+
+    private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("forest.valuePool"));
+
+    private ValuePool() {
+    }
+
+    // The pooled instance equal to s (s itself the first time it is seen).
+    static String canonical(String s) {
+        if (s == null || !enabled) return s;
+        String pooled = POOL.get(s);
+        if (pooled != null) return pooled;
+        if (POOL.size() >= MAX_SIZE) return s;
+        pooled = POOL.putIfAbsent(s, s);
+        return pooled != null ? pooled : s;
+    }
+
+    static int size() {
+        return POOL.size();
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    // For memory comparisons; records built while disabled keep their own copies.
+    static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    // Forgets every pooled value; records keep the instances they hold.
+    static void clear() {
+        POOL.clear();
+    }
+}
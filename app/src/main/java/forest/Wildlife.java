@@ -0,0 +1,92 @@
+package forest;
+
+import java.io.*;
+
+// Wildlife Sighting Class
+class Wildlife implements Serializable {
+    // Matches the value computed for the class before epochDay was added
+    // and before it moved into a package, so serialized files from older
+    // versions still load.
+    private static final long serialVersionUID = -556845055745526874L;
+
+    String animal;
+    String location;
+    String date;
+    // date parsed once: days since 1970-01-01, or ForestIndex.NO_DATE
+    transient int epochDay;
+    // Position in degrees, rounded to whole microdegrees (about 0.1 m), or
+    // NaN for sightings recorded without one. Transient because the Java
+    // serialized form is only ever read, from files that predate positions.
+    transient double lat;
+    transient double lon;
+    // ID of the zone the sighting was made in, or null; see Tree.zoneId.
+    transient String zoneId;
+
+    Wildlife(String animal, String location, String date) {
+        this(animal, location, date, Double.NaN, Double.NaN, null);
+    }
+
+    Wildlife(String animal, String location, String date, double lat, double lon) {
+        this(animal, location, date, lat, lon, null);
+    }
+
+    // lat and lon are both NaN or both in range; see checkPosition.
+    Wildlife(String animal, String location, String date, double lat, double lon, String zoneId) {
+        this.animal = ValuePool.canonical(animal);
+        this.location = ValuePool.canonical(location);
+        this.date = ValuePool.canonical(date);
+        this.epochDay = ForestIndex.epochDay(date);
+        this.lat = Double.isNaN(lat) ? Double.NaN : fromMicros(toMicros(lat));
+        this.lon = Double.isNaN(lon) ? Double.NaN : fromMicros(toMicros(lon));
+        this.zoneId = ForestZone.reference(zoneId);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        animal = ValuePool.canonical(animal);
+        location = ValuePool.canonical(location);
+        date = ValuePool.canonical(date);
+        epochDay = ForestIndex.epochDay(date);
+        lat = lon = Double.NaN;
+    }
+
+    boolean hasPosition() {
+        return !Double.isNaN(lat);
+    }
+
+    // Throws IllegalArgumentException unless both are NaN (no position) or
+    // lat is within +-90 and lon within +-180.
+    static void checkPosition(double lat, double lon) {
+        if (Double.isNaN(lat) && Double.isNaN(lon)) return;
+        if (Double.isNaN(lat) || Double.isNaN(lon)) throw new IllegalArgumentException("give both latitude and longitude, or neither");
+        if (!(lat >= -90 && lat <= 90)) throw new IllegalArgumentException("latitude must be between -90 and 90: " + lat);
+        if (!(lon >= -180 && lon <= 180)) throw new IllegalArgumentException("longitude must be between -180 and 180: " + lon);
+    }
+
+    // Parses a coordinate; blank, null or "*" means none (NaN).
+    static double parseDegrees(String text, String name) {
+        if (text == null || text.trim().isEmpty() || text.trim().equals("*")) return Double.NaN;
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number: " + text);
+        }
+    }
+
+    // Degrees <-> whole microdegrees, the form positions are stored in.
+    static int toMicros(double degrees) {
+        return (int) Math.round(degrees * 1e6);
+    }
+
+    static double fromMicros(int micros) {
+        return micros / 1e6;
+    }
+
+    public String toString() {
+        return "Animal: " + animal +
+               ", Location: " + location +
+               ", Date: " + date +
+               (hasPosition() ? ", Position: " + lat + ", " + lon : "") +
+               (zoneId != null ? ", Zone: " + zoneId : "");
+    }
+}
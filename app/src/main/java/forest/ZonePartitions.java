@@ -0,0 +1,211 @@
+package forest;
+
+import java.io.*;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+// ===================== ZONE PARTITIONS =====================
+
+// Per-zone segment files, so an officer can open one zone without reading
+// the whole forest. zones/zone.<ID>.dat (the ID URL-encoded) holds the
+// zone's record, if there is one, and the trees and sightings that
+// reference it, in the ForestFile format. Records without a zone live only
+// in forest.dat, which stays the complete copy the repository loads.
+//
+// ForestRepository remembers which zones were written to since their
+// files were last written and, after each save or autosave checkpoint,
+// rewrites just those files, in parallel on the common fork/join pool; each
+// is written to a temporary file and moved into place, so a reader sees the
+// old file or the new one. A zone file is therefore as current as the last
+// save (the autosave keeps that within seconds of the last write).
+//
+// The reading side loads zone files on demand and keeps the most recently
+// used MAX_RESIDENT of them (-Dforest.zones.resident, default 4) in memory,
+// dropping the least recently used one when another is opened. A resident
+// zone whose file has been rewritten since is read again.
+//
+// -Dforest.zonePartitions=false stops the repository writing zone files.
+class ZonePartitions {
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("forest.zonePartitions"));
+    static final int MAX_RESIDENT = Math.max(1, Integer.getInteger("forest.zones.resident", 4));
+
+    private static final String DIR = "zones";
+    private static final String PREFIX = "zone.";
+    private static final String SUFFIX = ".dat";
+
+    // One zone's records.
+    static final class Partition {
+        final String zoneId;
+        final ForestZone zone;          // null if only referenced
+        final List<Tree> trees;
+        final List<Wildlife> wildlifeList;
+        final FileTime modified;        // of the file it was read from; null when built to be written
+
+        Partition(String zoneId, ForestZone zone, List<Tree> trees, List<Wildlife> wildlifeList, FileTime modified) {
+            this.zoneId = zoneId;
+            this.zone = zone;
+            this.trees = trees;
+            this.wildlifeList = wildlifeList;
+            this.modified = modified;
+        }
+    }
+
+    private final Path dir;
+    // Access order, so the eldest entry is the least recently used zone.
+    private final LinkedHashMap<String, Partition> resident = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Partition> eldest) {
+            return size() > MAX_RESIDENT;
+        }
+    };
+    private long loads;
+    private long hits;
+
+    // One writer thread, so successive checkpoints' files land in order.
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "forest-zone-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // dataDir is the directory holding forest.dat.
+    ZonePartitions(Path dataDir) {
+        this.dir = dataDir.resolve(DIR);
+    }
+
+    // --------------- Files ----------------
+
+    Path path(String zoneId) {
+        // URLEncoder leaves '*' alone, which is not safe in every file system.
+        return dir.resolve(PREFIX + URLEncoder.encode(zoneId, StandardCharsets.UTF_8).replace("*", "%2A") + SUFFIX);
+    }
+
+    // IDs of the zones that have a file, sorted.
+    List<String> zoneIds() throws IOException {
+        List<String> ids = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return ids;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path p : ds) {
+                String name = p.getFileName().toString();
+                ids.add(URLDecoder.decode(name.substring(PREFIX.length(), name.length() - SUFFIX.length()), StandardCharsets.UTF_8));
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    // Bytes in all zone files.
+    long bytes() throws IOException {
+        long total = 0;
+        if (!Files.isDirectory(dir)) return total;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path p : ds) {
+                try {
+                    total += Files.size(p);
+                } catch (NoSuchFileException e) {
+                    // replaced between the listing and the size
+                }
+            }
+        }
+        return total;
+    }
+
+    // True if the zone's file exists and holds the zone's record (if
+    // hasZone), exactly trees trees and sightings sightings. Records are
+    // appended, so equal counts mean the file is current, unless trees were
+    // edited in place; ForestRepository marks those zones stale itself.
+    boolean isCurrent(String zoneId, boolean hasZone, long trees, long sightings) {
+        Path file = path(zoneId);
+        if (!Files.exists(file)) return false;
+        try {
+            ForestFile.Header h = ForestFile.readHeader(file);
+            return h.zones == (hasZone ? 1 : 0) && h.trees == trees && h.wildlife == sightings;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // --------------- Writing ----------------
+
+    // Writes the partitions on the writer thread, all in parallel.
+    CompletableFuture<Void> writeAsync(List<Partition> partitions) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(partitions);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, writer);
+    }
+
+    void write(List<Partition> partitions) throws IOException {
+        if (partitions.isEmpty()) return;
+        Files.createDirectories(dir);
+        try {
+            partitions.parallelStream().forEach(p -> {
+                try {
+                    write(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void write(Partition p) throws IOException {
+        Path file = path(p.zoneId);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<ForestZone> zone = p.zone == null ? Collections.emptyList() : Collections.singletonList(p.zone);
+        // The covered segment is not used: zone files are never replayed onto.
+        ForestFile.write(tmp, zone, p.trees, p.wildlifeList, 0);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // --------------- Reading ----------------
+
+    // The zone's records, from memory if the zone is resident and its file
+    // unchanged, else read from its file (evicting the least recently used
+    // zone past MAX_RESIDENT). Throws NoSuchElementException if the zone has
+    // no file.
+    synchronized Partition open(String zoneId) throws IOException {
+        Path file = path(zoneId);
+        if (!Files.exists(file)) throw new NoSuchElementException("No partition for zone " + zoneId);
+        FileTime modified = Files.getLastModifiedTime(file);
+        Partition p = resident.get(zoneId);
+        if (p != null && p.modified.equals(modified)) {
+            hits++;
+            return p;
+        }
+
+        List<ForestZone> zone = new ArrayList<>(1);
+        List<Tree> trees = new ArrayList<>();
+        List<Wildlife> wildlifeList = new ArrayList<>();
+        ForestFile.read(file, zone, trees, wildlifeList, new ProgressStream.Counter(0, percent -> { }));
+        p = new Partition(zoneId, zone.isEmpty() ? null : zone.get(0),
+                Collections.unmodifiableList(trees), Collections.unmodifiableList(wildlifeList), modified);
+        resident.put(zoneId, p);
+        loads++;
+        return p;
+    }
+
+    // Resident zone IDs, least recently used first.
+    synchronized List<String> residentZones() {
+        return new ArrayList<>(resident.keySet());
+    }
+
+    // Zone files read, and opens served from memory.
+    synchronized long loads() {
+        return loads;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+}
@@ -0,0 +1,89 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Batch scripts: tokenizing, the commands, and failures reported per line.
+class BatchRunnerTest {
+    @TempDir
+    Path dir;
+
+    private static String run(ForestRepository repository, String script) throws IOException {
+        StringWriter out = new StringWriter();
+        new BatchRunner(repository, out).run(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)));
+        return out.toString();
+    }
+
+    private static List<List<String>> tokens(String text) throws IOException {
+        BatchRunner.Tokenizer tokenizer = new BatchRunner.Tokenizer(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        List<List<String>> lines = new ArrayList<>();
+        List<String> line = new ArrayList<>();
+        while (tokenizer.nextLine(line)) lines.add(new ArrayList<>(line));
+        return lines;
+    }
+
+    @Test
+    void tokenizerSplitsOnBlanksAndKeepsQuotedSpaces() throws IOException {
+        assertEquals(List.of(
+                List.of("add-zone", "Z1", "North Ridge", "Ada \"A\" Lovelace"),
+                List.of(),
+                List.of("add-tree", "T1", "Oak", "12"),
+                List.of("", "Åsa")),
+                tokens("add-zone Z1 \"North Ridge\"\t\"Ada \"\"A\"\" Lovelace\"\r\n\n  add-tree  T1 Oak 12\n\"\" Åsa"));
+    }
+
+    @Test
+    void runsCommandsAgainstTheRepository() throws IOException {
+        ForestRepository repository = new ForestRepository(dir);
+        repository.load();
+        String out = run(repository, String.join("\n",
+                "# comment",
+                "add-zone Z1 \"North Ridge\" Ada",
+                "add-tree T1 Oak 12 Z1",
+                "add-tree T2 Pine 40",
+                "add-tree T1 Birch 3",
+                "add-wildlife Deer Creek 5-3-2024 51.5 -0.12 Z1",
+                "search-tree T2",
+                "zone Z1",
+                "prefix trees treeId T",
+                "near 51.5 -0.12 1",
+                "set-species Heritage species=Oak",
+                "purge-trees maxAge=20",
+                "search-tree T1",
+                "bogus",
+                "add-tree T3 Oak old"));
+        repository.close();
+
+        assertTrue(out.contains("Line 5: Tree ID T1 already exists"), out);
+        assertTrue(out.contains("Record Found: Tree ID: T2, Species: Pine, Age: 40 years"), out);
+        assertTrue(out.contains("1 tree(s), 1 sighting(s)"), out);
+        assertTrue(out.contains("2 match(es)\n"), out);
+        assertTrue(out.contains("(0.00 km)"), out);
+        assertTrue(out.contains("No Tree Found: T1"), out);
+        assertTrue(out.contains("Line 14: unknown command: bogus"), out);
+        assertTrue(out.contains("Line 15: age must be a number: old"), out);
+    }
+
+    @Test
+    void aJournalFailureFailsItsLineAndTheScriptGoesOn() throws IOException {
+        ForestRepository repository = new ForestRepository(dir);
+        repository.load();
+        run(repository, "add-tree T1 Oak 12\nadd-tree T2 Pine 40\n");
+        repository.close();
+
+        String out = run(repository, "purge-trees species=Oak\nadd-tree T3 Ash 1\nsearch-tree T1\n");
+        assertTrue(out.contains("Line 1: failed: "), out);
+        assertTrue(out.contains("Line 2: not saved: "), out);
+        assertTrue(out.contains("Record Found: Tree ID: T1"), out);
+    }
+}
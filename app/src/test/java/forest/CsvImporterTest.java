@@ -0,0 +1,98 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// CSV import: header and BOM, quoting, per-line errors, duplicate IDs, and
+// chunks inserted in file order.
+class CsvImporterTest {
+    @TempDir
+    Path dir;
+
+    private ForestRepository repository() throws IOException {
+        ForestRepository repository = new ForestRepository(Files.createDirectories(dir.resolve("data")));
+        repository.load();
+        return repository;
+    }
+
+    private Path csv(String... lines) throws IOException {
+        return Files.write(dir.resolve("in.csv"), List.of(lines), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<?> records) {
+        return records.stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void splitsQuotedFields() {
+        assertEquals(List.of("Z1", "North, Ridge", "Ada \"A\" Lovelace", ""),
+                CsvImporter.splitCsv("Z1,\"North, Ridge\",\"Ada \"\"A\"\" Lovelace\","));
+    }
+
+    @Test
+    void skipsTheHeaderAndReportsBadRowsByLine() throws IOException {
+        ForestRepository repository = repository();
+        Path file = csv("\uFEFFtreeId,species,age,zoneId",
+                "T1,Oak,12,Z1",
+                "",
+                "T2,Pine,old",
+                "T3,Birch",
+                "T4,Ash,-1",
+                "T5,\"Silver Birch\",7",
+                "T1,Elm,3");
+        CsvImporter.Result result = new CsvImporter(CsvImporter.Kind.TREES, repository).run(file);
+        repository.close();
+
+        assertEquals(6, result.rows);
+        assertEquals(2, result.imported);
+        assertEquals(4, result.rejected);
+        assertEquals(List.of("Line 4: age must be a number: old", "Line 5: expected 3 or 4 fields, found 2",
+                "Line 6: age cannot be negative: -1", "Tree ID T1 already exists"), result.errors);
+        assertEquals(List.of("Tree ID: T1, Species: Oak, Age: 12 years, Zone: Z1", "Tree ID: T5, Species: Silver Birch, Age: 7 years"),
+                strings(repository.snapshot().trees));
+    }
+
+    @Test
+    void acceptsTheDatesTheIndexReads() throws IOException {
+        ForestRepository repository = repository();
+        Path file = csv("animal,location,date,lat,lon,zoneId",
+                "Deer,Creek,05-03-2024",
+                "Owl,Barn,5-3-2024,51.5,-0.12,Z1",
+                "Fox,Hill,31-2-2024",
+                "Hare,Field,2024-03-05",
+                "Badger,Sett,1-1-2020,91,0");
+        CsvImporter.Result result = new CsvImporter(CsvImporter.Kind.WILDLIFE, repository).run(file);
+
+        assertEquals(2, result.imported);
+        assertEquals(List.of("Line 4: date must be DD-MM-YYYY: 31-2-2024", "Line 5: date must be DD-MM-YYYY: 2024-03-05"),
+                result.errors.subList(0, 2));
+        assertEquals(3, result.rejected);
+        int day = ForestIndex.epochDay("5-3-2024");
+        assertEquals(2, repository.findWildlife(null, null, day, day).length);
+        repository.close();
+    }
+
+    @Test
+    void insertsChunksInFileOrder() throws IOException {
+        ForestRepository repository = repository();
+        List<String> lines = new ArrayList<>();
+        int n = CsvImporter.CHUNK_LINES * 2 + 17;
+        for (int i = 0; i < n; i++) lines.add("Z" + i + ",Zone " + i + ",Officer " + (i % 7));
+        CsvImporter.Result result = new CsvImporter(CsvImporter.Kind.ZONES, repository).run(csv(lines.toArray(new String[0])));
+        repository.close();
+
+        assertEquals(n, result.imported);
+        List<ForestZone> zones = repository.snapshot().zones;
+        for (int i = 0; i < n; i++) assertEquals("Z" + i, zones.get(i).zoneId);
+    }
+}
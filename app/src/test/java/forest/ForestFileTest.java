@@ -0,0 +1,94 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The forest.dat format: a full snapshot, and a version 5 delta whose 'X'
+// and 'U' blocks purge and update trees already read.
+class ForestFileTest {
+    @TempDir
+    Path dir;
+
+    static List<Tree> store(String kind) {
+        return kind.equals("columnar") ? new TreeColumns() : new AppendOnlyList<>();
+    }
+
+    private static ForestFile.Header read(Path path, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList) throws IOException {
+        return ForestFile.read(path, zones, trees, wildlifeList, new ProgressStream.Counter(1, percent -> { }));
+    }
+
+    private static List<String> strings(List<?> records) {
+        return records.stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    private static List<String> sorted(List<?> records) {
+        return records.stream().map(Object::toString).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void roundTripsAFullSnapshot() throws IOException {
+        List<ForestZone> zones = List.of(new ForestZone("Z1", "North Ridge", "Ada"), new ForestZone("Z2", "Lake", "Bo"));
+        List<Tree> trees = new ArrayList<>();
+        for (int i = 0; i < ForestFile.BLOCK_RECORDS + 10; i++) trees.add(new Tree("T" + i, i % 2 == 0 ? "Oak" : "Pine", i % 300, i % 5 == 0 ? "Z2" : null));
+        List<Wildlife> wildlifeList = List.of(new Wildlife("Deer", "Creek", "12-3-2024", 51.5, -0.12, "Z1"),
+                new Wildlife("Owl", "Barn", "1-1-2020"));
+        Path path = dir.resolve("forest.dat");
+        ForestFile.write(path, zones, trees, wildlifeList, 7);
+
+        List<ForestZone> z = new ArrayList<>();
+        List<Tree> t = new ArrayList<>();
+        List<Wildlife> w = new ArrayList<>();
+        ForestFile.Header h = read(path, z, t, w);
+        assertEquals(ForestFile.VERSION, h.version);
+        assertEquals(7, h.coveredSegment);
+        assertEquals(trees.size(), h.trees);
+        assertEquals(strings(zones), strings(z));
+        assertEquals(strings(trees), strings(t));
+        assertEquals(strings(wildlifeList), strings(w));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"list", "columnar"})
+    void deltaPurgesAndUpdatesByIdBeforeAddingRecords(String kind) throws IOException {
+        List<ForestZone> zones = List.of(new ForestZone("Z1", "North Ridge", "Ada"));
+        List<Tree> base = new ArrayList<>();
+        for (int i = 0; i < 20; i++) base.add(new Tree("T" + i, "Oak", i, i < 10 ? "Z1" : null));
+        Path snapshot = dir.resolve("forest.dat");
+        ForestFile.write(snapshot, zones, base, List.of(), 3);
+
+        List<Tree> updated = List.of(new Tree("T4", "Birch", 40, "Z2"), new Tree("T15", "Ash", 15, "Z1"), new Tree("T99", "Yew", 1, null));
+        List<String> deleted = List.of("T0", "T7", "T12", "T98");
+        List<Tree> added = List.of(new Tree("T20", "Pine", 2, "Z2"));
+        Path delta = dir.resolve("forest.delta.4");
+        ForestFile.write(delta, List.of(new ForestZone("Z2", "Lake", "Bo")), added, List.of(), updated, deleted, 4);
+
+        List<ForestZone> z = new ArrayList<>();
+        List<Tree> t = store(kind);
+        List<Wildlife> w = new ArrayList<>();
+        read(snapshot, z, t, w);
+        ForestFile.Header h = read(delta, z, t, w);
+
+        assertEquals(ForestFile.VERSION, h.version);
+        assertEquals(4, h.coveredSegment);
+        assertEquals(Set.of("Z1", "Z2"), h.editedZones);
+
+        Map<String, Tree> expected = new LinkedHashMap<>();
+        for (Tree tree : base) expected.put(tree.treeId, tree);
+        deleted.forEach(expected::remove);
+        for (Tree tree : updated) expected.replace(tree.treeId, tree);
+        for (Tree tree : added) expected.put(tree.treeId, tree);
+        assertEquals(sorted(new ArrayList<>(expected.values())), sorted(t));
+        // The new records follow the ones that were already there.
+        assertEquals(added.get(0).toString(), t.get(t.size() - 1).toString());
+        assertEquals(List.of("Z1", "Z2"), z.stream().map(zone -> zone.zoneId).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,99 @@
+package forest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The JSON routes over a real socket: inserts, lookups, filtered listings
+// with paging, bulk updates and purges, and the error statuses.
+class ForestHttpServerTest {
+    @TempDir
+    Path dir;
+
+    private ForestRepository repository;
+    private ForestHttpServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws IOException {
+        repository = new ForestRepository(dir);
+        repository.load();
+        server = ForestHttpServer.start(repository, 0);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.stop();
+        repository.close();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path));
+        request.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void assertResponse(int status, String body, HttpResponse<String> response) {
+        assertEquals(status, response.statusCode(), response.body());
+        assertEquals(body, response.body());
+    }
+
+    @Test
+    void insertsAndReadsRecords() throws Exception {
+        assertResponse(201, "{\"added\":2,\"rejected\":[]}", send("POST", "/zones",
+                "[{\"zoneId\":\"Z1\",\"zoneName\":\"North Ridge\",\"officer\":\"Ada\"},{\"zoneId\":\"Z2\",\"zoneName\":\"Lake\",\"officer\":\"Bo\"}]"));
+        assertResponse(201, "{\"added\":3,\"rejected\":[\"T1\"]}", send("POST", "/trees",
+                "[{\"treeId\":\"T1\",\"species\":\"Oak\",\"age\":12,\"zoneId\":\"Z1\"},{\"treeId\":\"T2\",\"species\":\"Pine\",\"age\":40},"
+                        + "{\"treeId\":\"T3\",\"species\":\"Oak\",\"age\":30,\"zoneId\":\"Z2\"},{\"treeId\":\"T1\",\"species\":\"Elm\",\"age\":1}]"));
+        assertResponse(409, "{\"error\":\"Tree ID T2 already exists\"}", send("POST", "/trees", "{\"treeId\":\"T2\",\"species\":\"Ash\",\"age\":1}"));
+        assertResponse(201, "{\"added\":1,\"rejected\":[]}", send("POST", "/wildlife",
+                "{\"animal\":\"Deer\",\"location\":\"Creek\",\"date\":\"5-3-2024\",\"lat\":51.5,\"lon\":-0.12,\"zoneId\":\"Z1\"}"));
+
+        assertResponse(200, "{\"treeId\":\"T1\",\"species\":\"Oak\",\"age\":12,\"zoneId\":\"Z1\"}", send("GET", "/trees/T1", null));
+        assertResponse(200, "{\"zoneId\":\"Z2\",\"zoneName\":\"Lake\",\"officer\":\"Bo\"}", send("GET", "/zones/Z2", null));
+        assertResponse(200, "{\"total\":2,\"offset\":1,\"limit\":1,\"items\":[{\"treeId\":\"T3\",\"species\":\"Oak\",\"age\":30,\"zoneId\":\"Z2\"}]}",
+                send("GET", "/trees?species=oak&offset=1&limit=1", null));
+        assertResponse(200, "{\"total\":1,\"offset\":0,\"limit\":100,\"items\":[{\"treeId\":\"T1\",\"species\":\"Oak\",\"age\":12,\"zoneId\":\"Z1\"}]}",
+                send("GET", "/trees?minAge=10&maxAge=35&zoneId=Z1", null));
+        assertResponse(200, "{\"total\":1,\"offset\":0,\"limit\":100,\"items\":[{\"animal\":\"Deer\",\"location\":\"Creek\",\"date\":\"5-3-2024\","
+                + "\"lat\":51.5,\"lon\":-0.12,\"zoneId\":\"Z1\"}]}", send("GET", "/wildlife?from=1-3-2024&to=31-3-2024&zoneId=Z1", null));
+        assertResponse(200, "{\"total\":0,\"offset\":0,\"limit\":100,\"items\":[]}", send("GET", "/wildlife?animal=Owl", null));
+        assertTrue(send("GET", "/stats", null).body().contains("\"GET /trees/{id}\":{\"count\":1,"));
+    }
+
+    @Test
+    void updatesAndPurgesTrees() throws Exception {
+        send("POST", "/trees", "[{\"treeId\":\"T1\",\"species\":\"Oak\",\"age\":12},{\"treeId\":\"T2\",\"species\":\"Pine\",\"age\":40},"
+                + "{\"treeId\":\"T3\",\"species\":\"Oak\",\"age\":30}]");
+        assertTrue(send("PATCH", "/trees?species=Oak", "{\"ageBy\":1}").body().startsWith("{\"matched\":2,\"changed\":2,"));
+        assertTrue(send("PATCH", "/trees/T2", "{\"zoneId\":\"Z9\"}").body().startsWith("{\"matched\":1,\"changed\":1,"));
+        assertTrue(send("DELETE", "/trees?maxAge=20", null).body().startsWith("{\"matched\":1,\"changed\":1,"));
+        assertResponse(200, "{\"total\":2,\"offset\":0,\"limit\":100,\"items\":[{\"treeId\":\"T3\",\"species\":\"Oak\",\"age\":31,\"zoneId\":null},"
+                + "{\"treeId\":\"T2\",\"species\":\"Pine\",\"age\":40,\"zoneId\":\"Z9\"}]}", send("GET", "/trees", null));
+        assertResponse(404, "{\"error\":\"No tree with ID T1\"}", send("DELETE", "/trees/T1", null));
+    }
+
+    @Test
+    void reportsBadRequests() throws Exception {
+        assertResponse(404, "{\"error\":\"No tree with ID T9\"}", send("GET", "/trees/T9", null));
+        assertResponse(404, "{\"error\":\"Unknown path: /trees/T9/x\"}", send("GET", "/trees/T9/x", null));
+        assertResponse(400, "{\"error\":\"minAge must be a number: old\"}", send("GET", "/trees?minAge=old", null));
+        assertResponse(400, "{\"error\":\"from must be DD-MM-YYYY: 2024-03-05\"}", send("GET", "/wildlife?from=2024-03-05", null));
+        assertResponse(400, "{\"error\":\"offset and limit cannot be negative\"}", send("GET", "/zones?limit=-1", null));
+        HttpResponse<String> response = send("PUT", "/zones", "{}");
+        assertEquals(405, response.statusCode());
+        assertEquals("GET, POST", response.headers().firstValue("Allow").orElse(null));
+        assertEquals(400, send("POST", "/trees", "{\"treeId\":\"T1\",\"species\":\"Oak\",\"age\":-1}").statusCode());
+        assertEquals(400, send("POST", "/trees", "{\"treeId\":").statusCode());
+    }
+}
@@ -0,0 +1,98 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The filtered queries against a scan of the lists: age ranges with and
+// without a species, and sightings by animal, location and date range,
+// whichever candidate set the index starts from.
+class ForestIndexTest {
+    private static final String[] SPECIES = {"Oak", "Pine", "Birch", "Yew"};
+    private static final String[] ANIMALS = {"Deer", "Owl", "Fox", "Lynx"};
+    private static final String[] LOCATIONS = {"Creek", "Barn", "Hill"};
+    private static final LocalDate FIRST = LocalDate.of(2023, 1, 1);
+
+    @TempDir
+    Path dir;
+
+    private static int[] scan(List<?> records, Predicate<Object> match) {
+        return IntStream.range(0, records.size()).filter(row -> match.test(records.get(row))).toArray();
+    }
+
+    private static String pick(Random rnd, String[] values) {
+        // Skewed, so that one value is rare and the index takes both paths.
+        return values[Math.min(values.length - 1, (int) (rnd.nextDouble() * rnd.nextDouble() * values.length))];
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"list", "columnar"})
+    void treeAgeRangesMatchAScan(String kind) throws IOException {
+        Random rnd = new Random(11);
+        ForestRepository r = new ForestRepository(dir, TreeUpdatesTest.store(kind));
+        r.load();
+        List<Tree> batch = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) batch.add(new Tree("T" + i, pick(rnd, SPECIES), rnd.nextInt(200), null));
+        r.addTrees(batch);
+        List<Tree> trees = r.snapshot().trees;
+
+        for (String species : new String[]{null, "Oak", "yew ", "Maple"}) {
+            for (int[] range : new int[][]{{0, 199}, {50, 50}, {10, 60}, {150, Integer.MAX_VALUE}, {Integer.MIN_VALUE, 5}, {80, 20}}) {
+                int min = range[0], max = range[1];
+                int[] expected = scan(trees, o -> {
+                    Tree t = (Tree) o;
+                    return (species == null || t.species.equalsIgnoreCase(species.trim())) && t.age >= min && t.age <= max;
+                });
+                assertArrayEquals(expected, r.findTrees(species, min, max), species + " " + min + ".." + max);
+            }
+        }
+        r.close();
+    }
+
+    @Test
+    void sightingDateRangesMatchAScan() throws IOException {
+        Random rnd = new Random(12);
+        ForestRepository r = new ForestRepository(dir);
+        r.load();
+        List<Wildlife> batch = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            LocalDate day = FIRST.plusDays(rnd.nextInt(730));
+            String date = i % 50 == 0 ? "unknown" : day.getDayOfMonth() + "-" + day.getMonthValue() + "-" + day.getYear();
+            batch.add(new Wildlife(pick(rnd, ANIMALS), pick(rnd, LOCATIONS), date));
+        }
+        r.addWildlife(batch);
+        List<Wildlife> sightings = r.snapshot().wildlifeList;
+
+        int from = ForestIndex.epochDay("1-3-2023"), to = ForestIndex.epochDay("31-3-2023");
+        int[][] ranges = {{ForestIndex.NO_DATE, ForestIndex.NO_DATE}, {from, to}, {from, from}, {from, ForestIndex.NO_DATE},
+                {ForestIndex.NO_DATE, to}, {to, from}};
+        for (String animal : new String[]{null, "Deer", "LYNX", "Bear"}) {
+            for (String location : new String[]{null, "Hill", "creek"}) {
+                for (int[] range : ranges) {
+                    int lo = range[0] == ForestIndex.NO_DATE ? Integer.MIN_VALUE : range[0];
+                    int hi = range[1] == ForestIndex.NO_DATE ? Integer.MAX_VALUE : range[1];
+                    boolean dated = range[0] != ForestIndex.NO_DATE || range[1] != ForestIndex.NO_DATE;
+                    int[] expected = scan(sightings, o -> {
+                        Wildlife w = (Wildlife) o;
+                        return (animal == null || w.animal.equalsIgnoreCase(animal))
+                                && (location == null || w.location.equalsIgnoreCase(location))
+                                && (!dated || (w.epochDay != ForestIndex.NO_DATE && w.epochDay >= lo && w.epochDay <= hi));
+                    });
+                    assertArrayEquals(expected, r.findWildlife(animal, location, range[0], range[1]),
+                            animal + " " + location + " " + Arrays.toString(range));
+                }
+            }
+        }
+        r.close();
+    }
+}
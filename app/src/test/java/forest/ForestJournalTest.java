@@ -0,0 +1,131 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Replay of the journal segments on load, with and without a torn tail,
+// and what close() waits for.
+class ForestJournalTest {
+    @TempDir
+    Path dir;
+
+    private final List<ForestZone> zones = new ArrayList<>();
+    private final List<Tree> trees = new ArrayList<>();
+    private final List<Wildlife> wildlifeList = new ArrayList<>();
+
+    private ForestJournal open() throws IOException {
+        ForestJournal journal = new ForestJournal(dir, zones, trees, wildlifeList);
+        journal.load();
+        return journal;
+    }
+
+    private void write(ForestJournal journal) throws IOException {
+        ForestZone zone = new ForestZone("Z1", "North Ridge", "Ada");
+        journal.logZone(zone);
+        zones.add(zone);
+        List<Tree> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) batch.add(new Tree("T" + i, i % 2 == 0 ? "Oak" : "Pine", i, i % 3 == 0 ? "Z1" : null));
+        journal.logTrees(batch);
+        trees.addAll(batch);
+        Wildlife w = new Wildlife("Deer", "Creek", "12-3-2024", 51.5, -0.12, "Z1");
+        journal.logWildlife(w);
+        wildlifeList.add(w);
+    }
+
+    private static List<String> strings(List<?> records) {
+        return records.stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    private Path segment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.filter(p -> p.getFileName().toString().startsWith("forest.log."))
+                    .filter(p -> p.toFile().length() > 0).collect(Collectors.toList());
+            assertEquals(1, segments.size(), "segments with frames");
+            return segments.get(0);
+        }
+    }
+
+    @Test
+    void replaysEveryFrame() throws IOException {
+        ForestJournal journal = open();
+        write(journal);
+        journal.close();
+        List<String> zonesBefore = strings(zones), treesBefore = strings(trees), wildlifeBefore = strings(wildlifeList);
+
+        journal = new ForestJournal(dir, zones, trees, wildlifeList);
+        assertTrue(journal.load());
+        journal.close();
+        assertEquals(zonesBefore, strings(zones));
+        assertEquals(treesBefore, strings(trees));
+        assertEquals(wildlifeBefore, strings(wildlifeList));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"zeros", "short frame", "bad checksum", "huge length"})
+    void dropsTornTailAndAppendsAfterTheLastGoodFrame(String tail) throws IOException {
+        ForestJournal journal = open();
+        write(journal);
+        journal.close();
+        List<String> treesBefore = strings(trees);
+        Path segment = segment();
+        long good = Files.size(segment);
+
+        ByteArrayOutputStream torn = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(torn);
+        switch (tail) {
+            case "zeros": out.write(new byte[4096]); break;
+            case "short frame": out.writeInt(100); out.writeInt(0); out.write(new byte[10]); break;
+            case "bad checksum": out.writeInt(4); out.writeInt(12345); out.write(new byte[]{1, 2, 3, 4}); break;
+            default: out.writeInt(Integer.MAX_VALUE); out.writeInt(0); break;
+        }
+        Files.write(segment, torn.toByteArray(), StandardOpenOption.APPEND);
+
+        journal = open();
+        assertEquals(treesBefore, strings(trees));
+        assertEquals(good, Files.size(segment), "torn bytes cut off");
+
+        // The next frames go to a fresh segment and replay after the cut one.
+
+        Tree late = new Tree("T-late", "Birch", 3, "Z1");
+        journal.logTree(late);
+        trees.add(late);
+        journal.close();
+        treesBefore = strings(trees);
+
+        open().close();
+        assertEquals(treesBefore, strings(trees));
+    }
+
+    @Test
+    void closeWaitsForARunningCheckpointAndRefusesLaterOnes() throws IOException {
+        ForestJournal journal = open();
+        write(journal);
+        CompletableFuture<Void> checkpoint = journal.checkpointAsync(List.copyOf(zones), List.copyOf(trees), List.copyOf(wildlifeList));
+        journal.close();
+        assertTrue(checkpoint.isDone() && !checkpoint.isCompletedExceptionally(), "checkpoint finished");
+        assertTrue(journal.checkpointAsync(zones, trees, wildlifeList).isCompletedExceptionally());
+        assertThrows(IOException.class, journal::awaitCheckpoints);
+        List<String> treesBefore = strings(trees);
+
+        zones.clear();
+        trees.clear();
+        wildlifeList.clear();
+        open().close();
+        assertEquals(treesBefore, strings(trees));
+        assertTrue(Files.exists(dir.resolve("forest.dat")));
+    }
+}
@@ -0,0 +1,82 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Prefix search over the sorted array and the unsorted tail, against a
+// scan, as rows are added, merged, rebuilt and taken out.
+class PrefixIndexTest {
+    private static final String[] PREFIXES = {"", "a", "AB", "abc", "b", "ba", "zz", "c-1"};
+
+    private final List<String> values = new ArrayList<>();
+    private final PrefixIndex index = new PrefixIndex(values::get);
+
+    private void add(String value) {
+        index.add(value, values.size());
+        values.add(value);
+    }
+
+    private static String value(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        int n = 1 + rnd.nextInt(4);
+        for (int i = 0; i < n; i++) sb.append("abc".charAt(rnd.nextInt(3)));
+        String s = sb.toString();
+        return rnd.nextBoolean() ? s.toUpperCase() : s;
+    }
+
+    // Matching rows ordered by key, then by row.
+    private int[] scan(String prefix, BitSet removed) {
+        String p = ForestIndex.key(prefix);
+        return IntStream.range(0, values.size())
+                .filter(row -> !removed.get(row) && ForestIndex.key(values.get(row)).startsWith(p))
+                .boxed()
+                .sorted(Comparator.comparing((Integer row) -> ForestIndex.key(values.get(row))).thenComparing(row -> row))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    private void check(BitSet removed) {
+        for (String prefix : PREFIXES) {
+            int[] expected = scan(prefix, removed);
+            PrefixIndex.Matches all = index.find(prefix, Integer.MAX_VALUE);
+            assertEquals(expected.length, all.total, prefix);
+            assertArrayEquals(expected, all.rows, prefix);
+            PrefixIndex.Matches first = index.find(prefix, 10);
+            assertEquals(expected.length, first.total, prefix);
+            assertArrayEquals(Arrays.copyOf(expected, Math.min(10, expected.length)), first.rows, prefix);
+        }
+    }
+
+    @Test
+    void findsMatchesInTheArrayAndTheTailInKeyOrder() {
+        Random rnd = new Random(21);
+        for (int i = 0; i < 100; i++) add(value(rnd));
+        check(new BitSet());
+        // Past the tail size, so the tail is merged into the array.
+        for (int i = 0; i < PrefixIndex.TAIL_SIZE * 2 + 300; i++) add(value(rnd));
+        check(new BitSet());
+        index.rebuild(values.size());
+        check(new BitSet());
+        assertEquals(0, index.find("abc", 0).rows.length);
+        assertEquals(0, index.find("d", 5).total);
+    }
+
+    @Test
+    void removedRowsAreNotFound() {
+        Random rnd = new Random(22);
+        for (int i = 0; i < PrefixIndex.TAIL_SIZE + 500; i++) add(value(rnd));
+        BitSet removed = new BitSet();
+        for (int row = 0; row < values.size(); row += 3) removed.set(row);
+        index.removeRows(removed);
+        check(removed);
+
+        // A row taken out and given a new value is added back under it.
+        values.set(0, "C-1");
+        index.add("C-1", 0);
+        removed.clear(0);
+        check(removed);
+    }
+}
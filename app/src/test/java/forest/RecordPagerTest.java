@@ -0,0 +1,58 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sorted pages against a stable sort of the whole list: every page, either
+// direction, ties in row order.
+class RecordPagerTest {
+    private static List<Tree> trees() {
+        Random rnd = new Random(41);
+        List<Tree> trees = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            trees.add(new Tree("T" + rnd.nextInt(1000), new String[]{"Oak", "Pine", "Birch"}[rnd.nextInt(3)], rnd.nextInt(30),
+                    rnd.nextInt(4) == 0 ? null : "Z" + rnd.nextInt(5)));
+        }
+        return trees;
+    }
+
+    @Test
+    void sortedPagesMatchASortOfTheWholeList() {
+        List<Tree> trees = trees();
+        for (String field : new String[]{"age", "-age", "species", "-treeId", "zoneId", "-zoneId"}) {
+            Comparator<Object> order = RecordPager.order(CsvImporter.Kind.TREES, field);
+            List<Tree> sorted = new ArrayList<>(trees);
+            sorted.sort(order);
+            for (int offset = 0; offset < trees.size(); offset += 45) {
+                assertEquals(sorted.subList(offset, Math.min(trees.size(), offset + 50)), RecordPager.page(trees, offset, 50, order),
+                        field + " at " + offset);
+            }
+        }
+        // Trees without a zone sort after the others.
+        List<Tree> byZone = RecordPager.page(trees, 0, trees.size(), RecordPager.order(CsvImporter.Kind.TREES, "zoneId"));
+        assertNull(byZone.get(byZone.size() - 1).zoneId);
+    }
+
+    @Test
+    void entryOrderAndTheEdges() {
+        List<Tree> trees = trees();
+        assertNull(RecordPager.order(CsvImporter.Kind.TREES, "*"));
+        assertEquals(trees.subList(490, 500), RecordPager.page(trees, 490, 50, null));
+        assertEquals(List.of(), RecordPager.page(trees, 500, 10, RecordPager.order(CsvImporter.Kind.TREES, "age")));
+        assertEquals(List.of(), RecordPager.page(trees, 0, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> RecordPager.page(trees, -1, 10, null));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> RecordPager.order(CsvImporter.Kind.WILDLIFE, "species"));
+        assertEquals("Unknown sort field: species (use animal, location, date, lat, lon, zoneId)", e.getMessage());
+    }
+
+    @Test
+    void rowsReadsTheGivenRows() {
+        List<Tree> trees = trees();
+        List<Tree> rows = RecordPager.rows(trees, new int[]{7, 3, 499});
+        assertEquals(List.of(trees.get(7), trees.get(3), trees.get(499)), rows);
+        assertThrows(UnsupportedOperationException.class, () -> rows.set(0, trees.get(0)));
+    }
+}
@@ -0,0 +1,77 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sharded forest.dat: save and load through the manifest. The build runs
+// the tests with -Dforest.shard.records=1000, so the trees span shards.
+class ShardedSnapshotTest {
+    @TempDir
+    Path dir;
+
+    private static List<String> strings(List<?> records) {
+        return records.stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    private List<String> shardFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString()).filter(name -> name.startsWith("forest.shard.")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<Tree> trees(int n) {
+        List<Tree> trees = new ArrayList<>();
+        for (int i = 0; i < n; i++) trees.add(new Tree("T" + i, i % 3 == 0 ? "Oak" : "Birch", i % 90, i % 4 == 0 ? "Z1" : null));
+        return trees;
+    }
+
+    @Test
+    void savesAndLoadsAcrossShards() throws IOException {
+        List<ForestZone> zones = List.of(new ForestZone("Z1", "North Ridge", "Ada"));
+        List<Tree> trees = trees(2 * ShardedSnapshot.SHARD_RECORDS + 5);
+        List<Wildlife> wildlifeList = List.of(new Wildlife("Deer", "Creek", "12-3-2024", 51.5, -0.12, "Z1"));
+        Path snapshot = dir.resolve("forest.dat");
+
+        ShardedSnapshot.Manifest written = ShardedSnapshot.write(snapshot, zones, trees, wildlifeList, 9);
+        assertTrue(ShardedSnapshot.isManifest(snapshot));
+        assertEquals(5, written.shards.size(), "1 zone shard, 3 tree shards, 1 sighting shard");
+        assertEquals(written.bytes, ShardedSnapshot.size(snapshot));
+
+        List<ForestZone> z = new ArrayList<>();
+        List<Tree> t = new TreeColumns();
+        List<Wildlife> w = new ArrayList<>();
+        ForestFile.Header h = ShardedSnapshot.read(snapshot, z, t, w, new ProgressStream.Counter(written.bytes, percent -> { }));
+        assertEquals(9, h.coveredSegment);
+        assertEquals(trees.size(), h.trees);
+        assertEquals(strings(zones), strings(z));
+        assertEquals(strings(trees), strings(t));
+        assertEquals(strings(wildlifeList), strings(w));
+    }
+
+    @Test
+    void rewriteDeletesTheShardsItNoLongerLists() throws IOException {
+        Path snapshot = dir.resolve("forest.dat");
+        ShardedSnapshot.write(snapshot, List.of(), trees(3 * ShardedSnapshot.SHARD_RECORDS), List.of(), 1);
+        assertEquals(3, shardFiles().size());
+
+        ShardedSnapshot.Manifest m = ShardedSnapshot.write(snapshot, List.of(), trees(10), List.of(), 2);
+        assertEquals(m.shards.stream().map(s -> s.file).sorted().collect(Collectors.toList()), shardFiles());
+
+        // The journal loads a manifest like a single-file forest.dat.
+        List<Tree> t = new AppendOnlyList<>();
+        ForestJournal journal = new ForestJournal(dir, new ArrayList<>(), t, new ArrayList<>());
+        assertTrue(journal.load());
+        journal.close();
+        assertEquals(strings(trees(10)), strings(t));
+    }
+}
@@ -0,0 +1,70 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Opening the archive after a stage() that was never committed: the
+// pending catalog entry is kept only if forest.dat covers its segment.
+class SightingArchiveTest {
+    @TempDir
+    Path dir;
+
+    private static final List<Wildlife> OLD = List.of(
+            new Wildlife("Deer", "Creek", "12-3-2019", 51.5, -0.12, "Z1"),
+            new Wildlife("Owl", "Barn", "2-3-2019"),
+            new Wildlife("Fox", "Creek", "30-11-2018", 52.0, 1.5, null));
+    private static final List<Wildlife> OLDER = List.of(new Wildlife("Badger", "Sett", "1-6-2017"));
+
+    private static List<String> strings(List<?> records) {
+        return records.stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    private SightingArchive archiveWithPendingStep() throws IOException {
+        SightingArchive archive = new SightingArchive(dir);
+        archive.open(0);
+        archive.stage(OLDER, 2);
+        archive.commit();
+        archive.stage(OLD, 5);
+        return archive;
+    }
+
+    @Test
+    void keepsThePendingStepOnceForestDatCoversIt() throws IOException {
+        archiveWithPendingStep();
+
+        SightingArchive reopened = new SightingArchive(dir);
+        reopened.open(5);
+        assertEquals(4, reopened.size());
+        // Archived rows come month by month, oldest first.
+        assertEquals(strings(List.of(OLDER.get(0), OLD.get(2), OLD.get(0), OLD.get(1))), strings(reopened.withHot(List.of())));
+
+        // Settled: a later open with an older forest.dat keeps it too.
+        reopened = new SightingArchive(dir);
+        reopened.open(0);
+        assertEquals(4, reopened.size());
+    }
+
+    @Test
+    void cutsThePendingStepBackOtherwise() throws IOException {
+        SightingArchive archive = archiveWithPendingStep();
+        long staged = archive.bytes();
+
+        SightingArchive reopened = new SightingArchive(dir);
+        reopened.open(4);
+        assertEquals(strings(OLDER), strings(reopened.withHot(List.of())));
+        assertTrue(reopened.bytes() < staged, "files cut back");
+
+        // And the archive takes the same step again afterwards.
+        reopened.stage(OLD, 6);
+        reopened.commit();
+        assertEquals(4, reopened.size());
+        assertEquals(2, reopened.find(null, "creek", ForestIndex.NO_DATE, ForestIndex.NO_DATE).length);
+    }
+}
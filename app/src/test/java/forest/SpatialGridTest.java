@@ -0,0 +1,78 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Box and radius queries on the grid against a scan of the sightings,
+// including boxes and circles across the 180th meridian and at a pole.
+class SpatialGridTest {
+    private final List<Wildlife> sightings = new ArrayList<>();
+    private final SpatialGrid grid = new SpatialGrid();
+
+    // Clusters around London, the 180th meridian and the north pole, plus
+    // sightings without a position.
+    SpatialGridTest() {
+        Random rnd = new Random(31);
+        double[][] centres = {{51.5, -0.12}, {-17.0, 179.98}, {89.97, 0}};
+        for (int i = 0; i < 3000; i++) {
+            double[] c = centres[i % 3];
+            double lat = Math.max(-90, Math.min(90, c[0] + rnd.nextGaussian() * 0.2));
+            double lon = c[1] + rnd.nextGaussian() * 0.2;
+            if (lon > 180) lon -= 360;
+            if (lon < -180) lon += 360;
+            Wildlife w = i % 100 == 0 ? new Wildlife("Owl", "Barn", "1-1-2024") : new Wildlife("Deer", "Creek", "1-1-2024", lat, lon);
+            grid.add(w, sightings.size());
+            sightings.add(w);
+        }
+    }
+
+    private int[] scanBox(double minLat, double maxLat, double minLon, double maxLon) {
+        return IntStream.range(0, sightings.size()).filter(row -> {
+            Wildlife w = sightings.get(row);
+            if (!w.hasPosition() || w.lat < minLat || w.lat > maxLat) return false;
+            return minLon <= maxLon ? w.lon >= minLon && w.lon <= maxLon : w.lon >= minLon || w.lon <= maxLon;
+        }).toArray();
+    }
+
+    private int[] scanNear(double lat, double lon, double km) {
+        return IntStream.range(0, sightings.size()).boxed().filter(row -> {
+            Wildlife w = sightings.get(row);
+            return w.hasPosition() && SpatialGrid.distanceKm(lat, lon, w.lat, w.lon) <= km;
+        }).sorted(Comparator.comparingDouble((Integer row) -> SpatialGrid.distanceKm(lat, lon, sightings.get(row).lat, sightings.get(row).lon))
+                .thenComparing(row -> row)).mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    void boxesMatchAScan() {
+        assertEquals(3000 - 30, grid.size());
+        double[][] boxes = {{51.4, 51.6, -0.3, 0.1}, {-17.1, -16.9, 179.9, -179.9}, {89.9, 90, -180, 180},
+                {-90, 90, -180, 180}, {51.5, 51.5, -0.12, -0.12}, {0, 10, 0, 10}};
+        for (double[] b : boxes) {
+            assertArrayEquals(scanBox(b[0], b[1], b[2], b[3]), grid.findInBox(b[0], b[1], b[2], b[3]), Arrays.toString(b));
+        }
+        assertThrows(IllegalArgumentException.class, () -> grid.findInBox(52, 51, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> grid.findInBox(0, 91, 0, 1));
+    }
+
+    @Test
+    void radiusSearchesMatchAScanNearestFirst() {
+        double[][] circles = {{51.5, -0.12, 5}, {51.5, -0.12, 40}, {-17.0, 180, 15}, {-17.0, -179.95, 30}, {90, 0, 20}, {0, 0, 100}, {51.5, -0.12, 0}};
+        for (double[] c : circles) {
+            assertArrayEquals(scanNear(c[0], c[1], c[2]), grid.findNear(c[0], c[1], c[2]), Arrays.toString(c));
+        }
+        assertThrows(IllegalArgumentException.class, () -> grid.findNear(0, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> grid.findNear(0, 181, 1));
+    }
+
+    @Test
+    void distancesAreGreatCircle() {
+        assertEquals(0, SpatialGrid.distanceKm(10, 20, 10, 20), 1e-9);
+        // London to Paris, and a degree of longitude either side of the meridian.
+        assertEquals(343.9, SpatialGrid.distanceKm(51.5074, -0.1278, 48.8566, 2.3522), 0.5);
+        assertEquals(SpatialGrid.distanceKm(0, 179.5, 0, -179.5), SpatialGrid.distanceKm(0, -0.5, 0, 0.5), 1e-9);
+    }
+}
@@ -0,0 +1,58 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The columnar tree store as a List, and what its snapshots keep seeing.
+class TreeColumnsTest {
+    private static TreeColumns trees(int n) {
+        TreeColumns trees = new TreeColumns();
+        for (int i = 0; i < n; i++) trees.add(new Tree("T" + i, i % 2 == 0 ? "Oak" : "Pine", i, i % 3 == 0 ? "Z1" : null));
+        return trees;
+    }
+
+    private static List<String> strings(List<Tree> trees) {
+        return trees.stream().map(Tree::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void setChangesAnyFieldAndKeepsTheIdHashCurrent() {
+        TreeColumns trees = trees(100);
+        trees.set(5, new Tree("a-much-longer-tree-id", "Birch", 77, "Z9"));
+        assertEquals("Tree ID: a-much-longer-tree-id, Species: Birch, Age: 77 years, Zone: Z9", trees.get(5).toString());
+        assertEquals(5, trees.findRow("a-much-longer-tree-id"));
+        assertEquals(-1, trees.findRow("T5"));
+        // Enough ID changes to pack the ID bytes.
+        for (int i = 0; i < 100; i++) trees.set(i, new Tree("N" + i, "Ash", i, null));
+        for (int i = 0; i < 100; i++) assertEquals(i, trees.findRow("N" + i));
+    }
+
+    @Test
+    void snapshotKeepsTheOldIdWhenSetChangesIt() {
+        TreeColumns trees = trees(10);
+        TreeColumns view = trees.snapshot();
+        List<String> before = strings(view);
+        for (int i = 0; i < 10; i++) trees.set(i, new Tree("renamed-" + i, trees.species(i), trees.age(i), trees.zoneId(i)));
+        assertEquals(before, strings(view));
+        assertThrows(UnsupportedOperationException.class, () -> view.findRow("T1"));
+    }
+
+    @Test
+    void removeShiftsRowsAndClearStartsOver() {
+        TreeColumns trees = trees(10);
+        TreeColumns view = trees.snapshot();
+        List<String> before = strings(view);
+        trees.remove(3);
+        assertEquals(9, trees.size());
+        assertEquals("T4", trees.treeId(3));
+        assertEquals(3, trees.findRow("T4"));
+        trees.clear();
+        trees.add(new Tree("X", "Oak", 1, null));
+        assertEquals(before, strings(view));
+        assertEquals(0, trees.findRow("X"));
+    }
+}
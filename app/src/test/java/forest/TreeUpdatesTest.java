@@ -0,0 +1,163 @@
+package forest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bulk tree jobs: what a repository holds after them must be what another
+// one loads back from its journal and checkpoints, on either tree store.
+class TreeUpdatesTest {
+    private static final String[] SPECIES = {"Oak", "Pine", "Birch", "Maple"};
+    private static final String[] ZONES = {"Z1", "Z2", "Z3", null};
+
+    @TempDir
+    Path dir;
+
+    static List<Tree> store(String kind) {
+        return kind.equals("columnar") ? new TreeColumns() : new AppendOnlyList<>();
+    }
+
+    // The trees plus what the index answers about them, in row-independent form.
+    private static String contents(ForestRepository r) {
+        List<Tree> trees = r.snapshot().trees;
+        StringBuilder sb = new StringBuilder();
+        trees.stream().map(Tree::toString).sorted().forEach(t -> sb.append(t).append('\n'));
+        for (String species : new String[]{null, "Oak", "pine", "Heritage Oak"}) {
+            sb.append(species).append(": ").append(ids(trees, r.findTrees(species, 10, 40))).append('\n');
+        }
+        for (String zone : new String[]{"Z1", "Z2", "Z3"}) {
+            sb.append(zone).append(": ").append(ids(trees, r.findTreesInZone(zone))).append('\n');
+        }
+        PrefixIndex.Matches m = r.findPrefix(CsvImporter.Kind.TREES, "treeId", "T1", Integer.MAX_VALUE);
+        sb.append("T1*: ").append(ids(trees, m.rows)).append('\n');
+        for (int i = 0; i < 600; i += 13) sb.append(r.findTree("T" + i)).append('\n');
+        return sb.toString();
+    }
+
+    private static String ids(List<Tree> trees, int[] rows) {
+        return Arrays.stream(rows).mapToObj(row -> trees.get(row).treeId).sorted().collect(Collectors.joining(","));
+    }
+
+    private static List<Tree> batch(Random rnd, int from, int n) {
+        List<Tree> batch = new ArrayList<>();
+        for (int i = from; i < from + n; i++) batch.add(new Tree("T" + i, SPECIES[rnd.nextInt(4)], rnd.nextInt(60), ZONES[rnd.nextInt(4)]));
+        return batch;
+    }
+
+    private static TreeUpdates.Job job(Random rnd, int ids) {
+        Map<String, String> where = new HashMap<>();
+        switch (rnd.nextInt(4)) {
+            case 0: where.put("species", SPECIES[rnd.nextInt(4)]); break;
+            case 1: where.put("zoneId", ZONES[rnd.nextInt(3)]); break;
+            case 2: where.put("minAge", "10"); where.put("maxAge", "" + (20 + rnd.nextInt(30))); break;
+            default:
+                List<String> pick = new ArrayList<>();
+                for (int i = 0; i < 30; i++) pick.add("T" + rnd.nextInt(ids));
+                where.put("ids", String.join(",", pick));
+        }
+        TreeUpdates.Selection selection = TreeUpdates.Selection.parse(where);
+        switch (rnd.nextInt(4)) {
+            case 0: return TreeUpdates.Job.age(1 + rnd.nextInt(3), rnd.nextBoolean() ? TreeUpdates.Selection.ALL : selection);
+            case 1: return TreeUpdates.Job.species(rnd.nextBoolean() ? "Heritage Oak" : SPECIES[rnd.nextInt(4)], selection);
+            case 2: return TreeUpdates.Job.zone(ZONES[rnd.nextInt(4)], selection);
+            default: return TreeUpdates.Job.purge(selection);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"list, list, 1", "list, columnar, 2", "columnar, list, 3", "columnar, columnar, 4"})
+    void replayedJobsMatchLiveOnes(String live, String replayed, long seed) throws IOException {
+        Random rnd = new Random(seed);
+        ForestRepository r = new ForestRepository(dir, store(live));
+        r.load();
+        int next = 0;
+        for (int step = 0; step < 40; step++) {
+            int op = rnd.nextInt(8);
+            if (op < 2) {
+                int n = 1 + rnd.nextInt(40);
+                r.addTrees(batch(rnd, next, n));
+                next += n;
+            } else if (op == 2) {
+                // Later jobs then edit checkpointed rows, which the next delta holds.
+                r.checkpoint();
+            } else {
+                r.updateTrees(job(rnd, Math.max(1, next)));
+            }
+            if (step % 10 == 9) {
+                String expected = contents(r);
+                r.close();
+                r = new ForestRepository(dir, store(replayed));
+                r.load();
+                assertEquals(expected, contents(r), "after step " + step);
+            }
+        }
+        r.close();
+    }
+
+    @Test
+    void purgeKeepsSurvivorsAndTheirIndexEntries() throws IOException {
+        ForestRepository r = new ForestRepository(dir, store("columnar"));
+        r.load();
+        r.addTrees(batch(new Random(5), 0, 200));
+        r.checkpoint();
+        r.addTrees(batch(new Random(6), 200, 50));
+        List<String> survivors = r.snapshot().trees.stream().filter(t -> !"Oak".equals(t.species))
+                .map(Tree::toString).sorted().collect(Collectors.toList());
+
+        TreeUpdates.Result result = r.updateTrees(TreeUpdates.Job.purge(TreeUpdates.Selection.parse(Map.of("species", "Oak"))));
+        assertEquals(250 - survivors.size(), result.changed);
+        List<Tree> trees = r.snapshot().trees;
+        assertEquals(survivors, trees.stream().map(Tree::toString).sorted().collect(Collectors.toList()));
+        assertEquals(0, r.findTrees("Oak", 0, Integer.MAX_VALUE).length);
+        for (Tree t : trees) assertEquals(t.toString(), String.valueOf(r.findTree(t.treeId)));
+        r.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"list", "columnar"})
+    void viewsTakenBeforeAPurgeKeepTheirRows(String kind) throws IOException {
+        ForestRepository r = new ForestRepository(dir, store(kind));
+        r.load();
+        r.addTrees(batch(new Random(7), 0, 300));
+        List<Tree> before = r.snapshot().trees;
+        List<String> rows = before.stream().map(Tree::toString).collect(Collectors.toList());
+
+        r.updateTrees(TreeUpdates.Job.purge(TreeUpdates.Selection.parse(Map.of("species", "Pine"))));
+        assertEquals(rows, before.stream().map(Tree::toString).collect(Collectors.toList()));
+        r.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"list", "columnar"})
+    void queryRowsStayWithTheirViewAcrossAPurge(String kind) throws IOException {
+        ForestRepository r = new ForestRepository(dir, store(kind));
+        r.load();
+        r.addTrees(batch(new Random(8), 0, 300));
+        ForestRepository.Rows<Tree> oaks = r.queryTrees("Oak", 0, Integer.MAX_VALUE, "Z1");
+        List<String> before = oaks.records().stream().map(Tree::toString).collect(Collectors.toList());
+
+        r.updateTrees(TreeUpdates.Job.purge(TreeUpdates.Selection.parse(Map.of("species", "Pine"))));
+        assertEquals(before, oaks.records().stream().map(Tree::toString).collect(Collectors.toList()));
+        assertTrue(before.stream().allMatch(t -> t.contains("Species: Oak,") && t.endsWith("Zone: Z1")));
+        r.close();
+    }
+
+    @Test
+    void rejectsAnAgeRolloverPastTheLargestAge() throws IOException {
+        ForestRepository r = new ForestRepository(dir, store("list"));
+        r.load();
+        r.addTrees(List.of(new Tree("T0", "Oak", Integer.MAX_VALUE - 1, null), new Tree("T1", "Pine", 5, null)));
+        assertThrows(IllegalArgumentException.class, () -> r.updateTrees(TreeUpdates.Job.age(2, TreeUpdates.Selection.ALL)));
+        assertEquals(5, r.findTree("T1").age, "nothing changed");
+        r.close();
+    }
+}
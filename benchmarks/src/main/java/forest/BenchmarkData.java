@@ -0,0 +1,57 @@
+package forest;
+
+import java.util.*;
+
+// Synthetic inventories for the benchmarks, generated from a fixed seed so
+// every run and every release measures the same data. A data set of N
+// records holds N/100 zones, N/2 trees and the rest as wildlife sightings.
+final class BenchmarkData {
+    private static final String[] SPECIES = {"Oak", "Pine", "Teak", "Sal", "Banyan", "Neem", "Cedar", "Maple", "Birch", "Bamboo"};
+    private static final String[] ANIMALS = {"Tiger", "Deer", "Bear", "Elephant", "Leopard", "Boar", "Peacock", "Langur"};
+    private static final String[] OFFICERS = {"Rao", "Singh", "Patil", "Khan", "Iyer", "Das"};
+
+    final ArrayList<ForestZone> zones = new ArrayList<>();
+    final List<Tree> trees;
+    final ArrayList<Wildlife> wildlifeList = new ArrayList<>();
+
+    private BenchmarkData(List<Tree> trees) {
+        this.trees = trees;
+    }
+
+    // treeStore is "list" or "columnar", as for -Dforest.treeStore.
+    static BenchmarkData generate(int records, String treeStore) {
+        BenchmarkData data = new BenchmarkData(newTreeStore(treeStore));
+        fill(records, data.zones, data.trees, data.wildlifeList);
+        return data;
+    }
+
+    static List<Tree> newTreeStore(String treeStore) {
+        return "columnar".equals(treeStore) ? new TreeColumns() : new AppendOnlyList<>();
+    }
+
+    static void fill(int records, List<ForestZone> zones, List<Tree> trees, List<Wildlife> wildlifeList) {
+        Random random = new Random(42);
+        int zoneCount = Math.max(1, records / 100);
+        int treeCount = records / 2;
+        int sightingCount = records - zoneCount - treeCount;
+
+        for (int i = 0; i < zoneCount; i++) {
+            zones.add(new ForestZone(zoneId(i), "Zone " + i, OFFICERS[random.nextInt(OFFICERS.length)]));
+        }
+        for (int i = 0; i < treeCount; i++) {
+            trees.add(new Tree(treeId(i), SPECIES[random.nextInt(SPECIES.length)], 1 + random.nextInt(300)));
+        }
+        for (int i = 0; i < sightingCount; i++) {
+            String date = String.format("%02d-%02d-%d", 1 + random.nextInt(28), 1 + random.nextInt(12), 2020 + random.nextInt(7));
+            wildlifeList.add(new Wildlife(ANIMALS[random.nextInt(ANIMALS.length)], zoneId(random.nextInt(zoneCount)), date));
+        }
+    }
+
+    static String zoneId(int i) {
+        return "Z" + i;
+    }
+
+    static String treeId(int i) {
+        return "T" + i;
+    }
+}
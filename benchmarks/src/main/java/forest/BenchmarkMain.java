@@ -0,0 +1,36 @@
+package forest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+// Entry point of benchmarks.jar. Runs JMH with the given options and,
+// unless the command line already chooses a result file, writes the
+// results as JSON to results/jmh-<version>-<timestamp>.json so runs of
+// different releases can be compared side by side.
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        List<String> argv = new ArrayList<>(Arrays.asList(args));
+        if (!argv.contains("-rf") && !argv.contains("-rff")) {
+            Path results = Paths.get("results");
+            Files.createDirectories(results);
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            argv.add("-rf");
+            argv.add("json");
+            argv.add("-rff");
+            argv.add(results.resolve("jmh-" + version() + "-" + stamp + ".json").toString());
+        }
+        org.openjdk.jmh.Main.main(argv.toArray(new String[0]));
+    }
+
+    private static String version() throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = BenchmarkMain.class.getResourceAsStream("/benchmark.properties")) {
+            if (in != null) props.load(in);
+        }
+        return props.getProperty("version", "unknown");
+    }
+}
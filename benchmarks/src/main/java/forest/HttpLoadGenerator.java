@@ -0,0 +1,68 @@
+package forest;
+
+import java.net.URI;
+import java.net.http.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load generator for the HTTP API (ForestManagementSystem
+// --serve). Each client thread sends one request at a time over a pooled
+// keep-alive connection and records the round trip; at the end it prints
+// throughput, client-side percentiles and the server's /stats.
+//
+//   java -cp benchmarks/target/benchmarks.jar forest.HttpLoadGenerator \
+//       [--url http://127.0.0.1:8080] [--threads 16] [--seconds 10] \
+//       [--path /trees/T{n}] [--ids 1000000]
+//
+// {n} in the path is replaced by a random number below --ids, so the
+// default hits tree IDs as BenchmarkData.treeId() generates them.
+public class HttpLoadGenerator {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) opts.put(args[i], args[i + 1]);
+        String url = opts.getOrDefault("--url", "http://127.0.0.1:" + ForestHttpServer.DEFAULT_PORT);
+        int threads = Integer.parseInt(opts.getOrDefault("--threads", "16"));
+        int seconds = Integer.parseInt(opts.getOrDefault("--seconds", "10"));
+        String path = opts.getOrDefault("--path", "/trees/T{n}");
+        int ids = Integer.parseInt(opts.getOrDefault("--ids", "1000000"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    URI uri = URI.create(url + path.replace("{n}", Integer.toString(random.nextInt(ids))));
+                    HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        latency.record(System.nanoTime() - start);
+                        if (response.statusCode() >= 500) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        long count = latency.count();
+        System.out.printf("%d requests in %d s with %d threads: %.0f requests/sec, %d errors%n",
+                count, seconds, threads, count / (double) seconds, errors.get());
+        System.out.println("client " + latency.summary());
+        HttpResponse<String> stats = client.send(HttpRequest.newBuilder(URI.create(url + "/stats")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        System.out.println("server " + stats.body());
+    }
+}
@@ -0,0 +1,72 @@
+package forest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Retained heap of a large inventory with and without the ValuePool.
+//
+//   java -Xmx8g -cp benchmarks/target/benchmarks.jar forest.MemoryReport [records]
+//
+// Generates BenchmarkData (default 2,000,000 records), exports it to CSV,
+// then imports the CSVs into a fresh ForestRepository twice: once with the
+// pool disabled, so every record keeps the Strings the parser made, and
+// once with it enabled. Retained heap is the used heap after full GCs,
+// minus the baseline before the import, so it is approximate but
+// comparable between the two runs.
+public class MemoryReport {
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path dir = Files.createTempDirectory("forest-memory");
+        try {
+            BenchmarkData data = BenchmarkData.generate(records, "list");
+            export(CsvImporter.Kind.ZONES, data.zones, dir);
+            export(CsvImporter.Kind.TREES, data.trees, dir);
+            export(CsvImporter.Kind.WILDLIFE, data.wildlifeList, dir);
+            data = null;
+
+            long without = retained(false, dir);
+            long with = retained(true, dir);
+            System.out.printf("%,d records%n", records);
+            System.out.printf("  pool off  %8.1f MB  %6.1f bytes/record%n", without / 1e6, without / (double) records);
+            System.out.printf("  pool on   %8.1f MB  %6.1f bytes/record  (%d pooled values)%n",
+                    with / 1e6, with / (double) records, ValuePool.size());
+            System.out.printf("  saved     %8.1f MB  (%.0f%%)%n", (without - with) / 1e6, 100.0 * (without - with) / without);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static void export(CsvImporter.Kind kind, List<?> records, Path dir) throws IOException {
+        new RecordExporter(kind, RecordExporter.Format.CSV).export(records, dir.resolve(kind.name().toLowerCase() + ".csv"));
+    }
+
+    private static long retained(boolean pool, Path dir) throws Exception {
+        ValuePool.setEnabled(pool);
+        ValuePool.clear();
+        Path home = Files.createDirectory(dir.resolve(pool ? "pool-on" : "pool-off"));
+        long baseline = usedAfterGc();
+        ForestRepository repository = new ForestRepository(home, new AppendOnlyList<>());
+        repository.load();
+        for (CsvImporter.Kind kind : CsvImporter.Kind.values()) {
+            new CsvImporter(kind, repository).run(dir.resolve(kind.name().toLowerCase() + ".csv"));
+        }
+        long retained = usedAfterGc() - baseline;
+        if (repository.snapshot().trees.isEmpty()) throw new IllegalStateException("import failed");
+        repository.close();
+        return retained;
+    }
+
+    private static long usedAfterGc() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,121 @@
+package forest;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// loadData() and saveData() as both front ends run them through
+// ForestRepository: read forest.dat plus the journal and rebuild the
+// indexes, or fold the current snapshot back into a fresh forest.dat.
+// Loads are measured from a single forest.dat and from a sharded snapshot
+// (ShardedSnapshot), which decodes on every core, and with the sightings
+// older than a year moved into the SightingArchive, so that only the
+// recent ones are read back.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class PersistenceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class OnDisk {
+        @Param({"10000", "1000000", "10000000"})
+        int records;
+
+        @Param({"list", "columnar"})
+        String treeStore;
+
+        @Param({"single", "sharded"})
+        String storage;
+
+        @Param({"0", "12"})
+        int hotMonths;
+
+        Path dir;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            dir = Files.createTempDirectory("forest-bench-load");
+            BenchmarkData data = BenchmarkData.generate(records, treeStore);
+            if (storage.equals("sharded")) {
+                ShardedSnapshot.write(dir.resolve("forest.dat"), data.zones, data.trees, data.wildlifeList, 0);
+            } else {
+                ForestFile.write(dir.resolve("forest.dat"), data.zones, data.trees, data.wildlifeList, 0);
+            }
+            SightingArchive.setHotMonths(hotMonths);
+            if (hotMonths > 0) {
+                // The first load archives; the measured ones find nothing more to move.
+                ForestRepository repository = new ForestRepository(dir, BenchmarkData.newTreeStore(treeStore));
+                repository.load();
+                repository.close();
+            }
+        }
+
+        // Every load opens a new (empty) journal segment; drop it so the
+        // next load sees the same directory.
+        @TearDown(Level.Invocation)
+        public void dropSegments() throws IOException {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) files::iterator) {
+                    if (p.getFileName().toString().startsWith("forest.log.")) Files.delete(p);
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            deleteDirectory(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class InMemory {
+        @Param({"10000", "1000000", "10000000"})
+        int records;
+
+        @Param({"list", "columnar"})
+        String treeStore;
+
+        Path dir;
+        ForestRepository repository;
+
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            dir = Files.createTempDirectory("forest-bench-save");
+            BenchmarkData data = BenchmarkData.generate(records, treeStore);
+            ForestFile.write(dir.resolve("forest.dat"), data.zones, data.trees, data.wildlifeList, 0);
+            repository = new ForestRepository(dir, BenchmarkData.newTreeStore(treeStore));
+            repository.load();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            repository.close();
+            deleteDirectory(dir);
+        }
+    }
+
+    @Benchmark
+    public ForestRepository loadData(OnDisk state) throws IOException {
+        ForestRepository repository = new ForestRepository(state.dir, BenchmarkData.newTreeStore(state.treeStore));
+        repository.load();
+        repository.close();
+        return repository;
+    }
+
+    @Benchmark
+    public void saveData(InMemory state) throws IOException {
+        state.repository.checkpoint();
+    }
+
+    static void deleteDirectory(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package forest;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// searchTree(): one primary key lookup through ForestIndex, for IDs that
+// exist and IDs that do not.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    private static final int KEYS = 1024;
+
+    @Param({"10000", "1000000", "10000000"})
+    int records;
+
+    @Param({"list", "columnar"})
+    String treeStore;
+
+    ForestIndex index;
+    String[] present = new String[KEYS];
+    String[] missing = new String[KEYS];
+    int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkData data = BenchmarkData.generate(records, treeStore);
+        index = new ForestIndex();
+        index.rebuild(data.zones, data.trees, data.wildlifeList);
+        Random random = new Random(7);
+        for (int i = 0; i < KEYS; i++) {
+            present[i] = BenchmarkData.treeId(random.nextInt(data.trees.size()));
+            missing[i] = BenchmarkData.treeId(data.trees.size() + random.nextInt(data.trees.size()));
+        }
+    }
+
+    @Benchmark
+    public Tree searchTreeFound() {
+        return index.findTree(present[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public Tree searchTreeMissing() {
+        return index.findTree(missing[next++ & (KEYS - 1)]);
+    }
+}
@@ -0,0 +1,92 @@
+package forest;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// refreshZonesTable() / refreshTreesTable() / refreshWildlifeTable(): the
+// model is reloaded and a JTable then reads one screen of cells. The
+// readAll* benchmarks read every cell, as a sort or an export would. The
+// cell readers mirror the ones the GUI tabs install.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class TableModelBenchmark {
+    private static final int VISIBLE_ROWS = 30;
+
+    @Param({"10000", "1000000", "10000000"})
+    int records;
+
+    ListTableModel<ForestZone> zonesModel;
+    ListTableModel<Tree> treesModel;
+    ListTableModel<Wildlife> wildlifeModel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkData data = BenchmarkData.generate(records, "list");
+        zonesModel = new ListTableModel<>(() -> data.zones, new String[]{"Zone ID", "Zone Name", "Officer"}, (zone, column) -> {
+            switch (column) {
+                case 0: return zone.zoneId;
+                case 1: return zone.zoneName;
+                default: return zone.officer;
+            }
+        });
+        treesModel = new ListTableModel<>(() -> data.trees, new String[]{"Tree ID", "Species", "Age"}, (tree, column) -> {
+            switch (column) {
+                case 0: return tree.treeId;
+                case 1: return tree.species;
+                default: return tree.age;
+            }
+        });
+        wildlifeModel = new ListTableModel<>(() -> data.wildlifeList, new String[]{"Animal", "Location", "Date"}, (wildlife, column) -> {
+            switch (column) {
+                case 0: return wildlife.animal;
+                case 1: return wildlife.location;
+                default: return wildlife.date;
+            }
+        });
+        // What the GUI does once loadData() finishes.
+        zonesModel.reload();
+        treesModel.reload();
+        wildlifeModel.reload();
+    }
+
+    @Benchmark
+    public void refreshZonesTable(Blackhole bh) {
+        zonesModel.reload();
+        read(zonesModel, Math.min(VISIBLE_ROWS, zonesModel.getRowCount()), bh);
+    }
+
+    @Benchmark
+    public void refreshTreesTable(Blackhole bh) {
+        treesModel.reload();
+        read(treesModel, Math.min(VISIBLE_ROWS, treesModel.getRowCount()), bh);
+    }
+
+    @Benchmark
+    public void refreshWildlifeTable(Blackhole bh) {
+        wildlifeModel.reload();
+        read(wildlifeModel, Math.min(VISIBLE_ROWS, wildlifeModel.getRowCount()), bh);
+    }
+
+    @Benchmark
+    public void readAllTrees(Blackhole bh) {
+        read(treesModel, treesModel.getRowCount(), bh);
+    }
+
+    @Benchmark
+    public void readAllWildlife(Blackhole bh) {
+        read(wildlifeModel, wildlifeModel.getRowCount(), bh);
+    }
+
+    private static void read(ListTableModel<?> model, int rows, Blackhole bh) {
+        int columns = model.getColumnCount();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) bh.consume(model.getValueAt(row, column));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package forest;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Bulk tree jobs without the journal: TreeUpdates.plan and apply for the
+// age rollover of every tree and for a species reassignment that picks a
+// tenth of them, on both tree stores. Each rollover ages the trees again;
+// the reassignment renames the Oaks and back, so every call changes rows.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class TreeUpdateBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    int records;
+
+    @Param({"list", "columnar"})
+    String treeStore;
+
+    List<Tree> trees;
+    TreeUpdates.Job rollover;
+    TreeUpdates.Job[] reassign;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        trees = BenchmarkData.generate(records, treeStore).trees;
+        rollover = TreeUpdates.Job.age(1, TreeUpdates.Selection.ALL);
+        reassign = new TreeUpdates.Job[]{
+                TreeUpdates.Job.species("Heritage Oak", TreeUpdates.Selection.parse(Map.of("species", "Oak"))),
+                TreeUpdates.Job.species("Oak", TreeUpdates.Selection.parse(Map.of("species", "Heritage Oak")))};
+    }
+
+    @Benchmark
+    public int ageRollover() {
+        TreeUpdates.Plan plan = TreeUpdates.plan(rollover, trees);
+        TreeUpdates.apply(plan, trees);
+        return plan.changed;
+    }
+
+    @Benchmark
+    public int reassignSpecies() {
+        TreeUpdates.Plan plan = TreeUpdates.plan(reassign[next++ & 1], trees);
+        TreeUpdates.apply(plan, trees);
+        return plan.changed;
+    }
+}
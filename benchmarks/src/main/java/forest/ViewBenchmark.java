@@ -0,0 +1,57 @@
+package forest;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// The CLI views: every record rendered with toString() and printed, as
+// viewZones() / viewTrees() / viewWildlife() do. Output goes through a
+// buffered PrintStream into a null sink, so this measures rendering and
+// encoding rather than the terminal.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class ViewBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    int records;
+
+    @Param({"list", "columnar"})
+    String treeStore;
+
+    BenchmarkData data;
+    PrintStream out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        data = BenchmarkData.generate(records, treeStore);
+        out = new PrintStream(new BufferedOutputStream(OutputStream.nullOutputStream(), 1 << 16), false, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void viewZones() {
+        out.println("\n--- Forest Zones ---");
+        for (ForestZone z : data.zones) out.println(z);
+        out.flush();
+    }
+
+    @Benchmark
+    public void viewTrees() {
+        out.println("\n--- Trees ---");
+        for (Tree t : data.trees) out.println(t);
+        out.flush();
+    }
+
+    @Benchmark
+    public void viewWildlife() {
+        out.println("\n--- Wildlife Sightings ---");
+        for (Wildlife w : data.wildlifeList) out.println(w);
+        out.flush();
+    }
+}